@@ -16,9 +16,13 @@
  */
 package org.hawkular.inventory.api;
 
+import java.util.List;
+
 import org.hawkular.inventory.api.model.AbstractElement;
+import org.hawkular.inventory.api.model.DataEntity;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.StructuredDataChange;
 
 /**
  * @author Lukas Krejci
@@ -31,6 +35,7 @@ public final class Action<C, E> {
     private static final Action<?, ?> _DELETED = new Action<>();
     private static final Action<EnvironmentCopy, Environment> _COPIED = new Action<>();
     private static final Action<Feed, Feed> _REGISTERED = new Action<>();
+    private static final Action<DataChanges, DataEntity> _DATA_CHANGED = new Action<>();
 
     public static <E> Action<E, E> created() {
         return (Action<E, E>) _CREATED;
@@ -53,6 +58,16 @@ public final class Action<C, E> {
         return _REGISTERED;
     }
 
+    /**
+     * Sent out together with the {@link #updated()} action when the structured data of a data entity is updated
+     * and the backend was able to determine what exactly changed in the data.
+     *
+     * @since 0.7.0
+     */
+    public static Action<DataChanges, DataEntity> dataChanged() {
+        return _DATA_CHANGED;
+    }
+
     private Action() {
 
     }
@@ -62,7 +77,8 @@ public final class Action<C, E> {
     }
 
     public enum Enumerated {
-        CREATED(_CREATED), UPDATED(_UPDATED), DELETED(_DELETED), COPIED(_COPIED), REGISTERED(_REGISTERED);
+        CREATED(_CREATED), UPDATED(_UPDATED), DELETED(_DELETED), COPIED(_COPIED), REGISTERED(_REGISTERED),
+        DATA_CHANGED(_DATA_CHANGED);
 
         private final Action<?, ?> action;
 
@@ -100,6 +116,28 @@ public final class Action<C, E> {
         }
     }
 
+    public static final class DataChanges {
+        private final DataEntity dataEntity;
+
+        private final List<StructuredDataChange> changes;
+
+        public DataChanges(DataEntity dataEntity, List<StructuredDataChange> changes) {
+            this.dataEntity = dataEntity;
+            this.changes = changes;
+        }
+
+        /**
+         * @return the data entity after the update
+         */
+        public DataEntity getDataEntity() {
+            return dataEntity;
+        }
+
+        public List<StructuredDataChange> getChanges() {
+            return changes;
+        }
+    }
+
     public static final class Update<E, U> {
         private final E originalEntity;
 
@@ -37,6 +37,7 @@ public final class Configuration {
     private final FeedIdStrategy feedIdStrategy;
     private final Map<String, String> implementationConfiguration;
     private final ResultFilter resultFilter;
+    private final InventoryMetrics metrics;
 
     public static Builder builder() {
         return new Builder();
@@ -44,8 +45,14 @@ public final class Configuration {
 
     public Configuration(FeedIdStrategy feedIdStrategy, ResultFilter resultFilter,
                          Map<String, String> implementationConfiguration) {
+        this(feedIdStrategy, resultFilter, null, implementationConfiguration);
+    }
+
+    public Configuration(FeedIdStrategy feedIdStrategy, ResultFilter resultFilter, InventoryMetrics metrics,
+                         Map<String, String> implementationConfiguration) {
         this.feedIdStrategy = feedIdStrategy;
         this.resultFilter = resultFilter;
+        this.metrics = metrics == null ? InventoryMetrics.NOOP : metrics;
         this.implementationConfiguration = implementationConfiguration;
     }
 
@@ -60,6 +67,13 @@ public final class Configuration {
         return resultFilter;
     }
 
+    /**
+     * @return the receiver of the performance measurements of the inventory, never null
+     */
+    public InventoryMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Returns the value of the property.
      *
@@ -127,7 +141,7 @@ public final class Configuration {
         Map<String, String> filteredConfig = implementationConfiguration.entrySet().stream()
                 .filter(e -> Arrays.stream(prefixes).anyMatch(p -> e.getKey()
                         .startsWith(p))).collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
-        return new Configuration(feedIdStrategy, resultFilter, filteredConfig);
+        return new Configuration(feedIdStrategy, resultFilter, metrics, filteredConfig);
     }
 
     /**
@@ -159,6 +173,7 @@ public final class Configuration {
     public static final class Builder {
         private FeedIdStrategy strategy;
         private ResultFilter resultFilter;
+        private InventoryMetrics metrics;
         private Map<String, String> configuration = new HashMap<>();
 
         private Builder() {
@@ -175,6 +190,11 @@ public final class Configuration {
             return this;
         }
 
+        public Builder withMetrics(InventoryMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
         public Builder withConfiguration(Map<String, String> configuration) {
             this.configuration = configuration;
             return this;
@@ -192,7 +212,7 @@ public final class Configuration {
         }
 
         public Configuration build() {
-            return new Configuration(strategy, resultFilter, configuration);
+            return new Configuration(strategy, resultFilter, metrics, configuration);
         }
     }
 
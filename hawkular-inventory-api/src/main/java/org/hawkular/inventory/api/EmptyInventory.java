@@ -108,8 +108,14 @@ public class EmptyInventory implements Inventory {
 
     @Override
     public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
-                                                                         Relationships.Direction direction,
-                                                                         Class<T> clazz, String... relationshipNames) {
+                                                                         TransitiveClosure closure, Class<T> clazz) {
+        throw entityNotFound(Tenant.class);
+    }
+
+    @Override
+    public <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                     TransitiveClosure closure, Class<T> clazz,
+                                                                     Pager pager) {
         throw entityNotFound(Tenant.class);
     }
 
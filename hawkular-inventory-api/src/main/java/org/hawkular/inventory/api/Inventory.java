@@ -35,6 +35,8 @@ import org.hawkular.inventory.api.model.RelativePath;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.Pager;
 
 /**
  * Inventory stores "resources" which are groupings of measurements and other data. Inventory also stores metadata about
@@ -460,9 +462,52 @@ public interface Inventory extends AutoCloseable {
 
     <T extends AbstractElement> T getElement(CanonicalPath path);
 
+    /**
+     * Returns the entities in the transitive closure over the relationships with given names, starting at the
+     * entity on the provided path. The starting entity is not included.
+     *
+     * @param startingPoint     the path to the starting entity
+     * @param direction         the direction in which to follow the relationships
+     * @param clazz             the type of entities to return
+     * @param relationshipNames the names of the relationships to follow
+     * @param <T>               the type of entities to return
+     * @return the iterator over the entities in the closure
+     */
+    default <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                          Relationships.Direction direction,
+                                                                          Class<T> clazz,
+                                                                          String... relationshipNames) {
+        return getTransitiveClosureOver(startingPoint, TransitiveClosure.over(direction, relationshipNames), clazz);
+    }
+
+    /**
+     * Returns the entities in the provided transitive closure starting at the entity on the provided path. The
+     * starting entity is not included and only the entities of the provided type are returned.
+     *
+     * @param startingPoint the path to the starting entity
+     * @param closure       the description of the closure
+     * @param clazz         the type of entities to return
+     * @param <T>           the type of entities to return
+     * @return the iterator over the entities in the closure
+     */
     <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
-                                                                  Relationships.Direction direction, Class<T> clazz,
-                                                                  String... relationshipNames);
+                                                                  TransitiveClosure closure, Class<T> clazz);
+
+    /**
+     * Returns a page of the entities in the provided transitive closure starting at the entity on the provided path.
+     * The closure is evaluated only as far as is needed to produce the page (and its
+     * {@link Pager#isExactTotalSize() total size}), the {@link TransitiveClosure#isLazy() laziness} of the closure is
+     * therefore not taken into account.
+     *
+     * @param startingPoint the path to the starting entity
+     * @param closure       the description of the closure
+     * @param clazz         the type of entities to return
+     * @param pager         the pager to use
+     * @param <T>           the type of entities to return
+     * @return the page of the entities in the closure
+     */
+    <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(CanonicalPath startingPoint, TransitiveClosure closure,
+                                                              Class<T> clazz, Pager pager);
 
     Configuration getConfiguration();
 }
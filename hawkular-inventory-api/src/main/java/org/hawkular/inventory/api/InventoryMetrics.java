@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api;
+
+import org.hawkular.inventory.api.instrumentation.SlowQueryLog;
+
+/**
+ * Receives the measurements of the performance of the inventory. This is not to be confused with the
+ * {@link org.hawkular.inventory.api.model.Metric metrics} stored in the inventory.
+ *
+ * <p>The implementation to use is passed to the inventory in the {@link Configuration}, which also makes it available
+ * to anyone with access to the inventory through {@link Inventory#getConfiguration()}. The methods are called on the
+ * hot paths of the inventory, concurrently, so the implementations need to be thread-safe and cheap.
+ *
+ * <p>See {@link org.hawkular.inventory.api.instrumentation.CollectingInventoryMetrics} for an implementation that
+ * collects the measurements in memory.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public interface InventoryMetrics {
+
+    /**
+     * The implementation that ignores all the measurements. This is used if no other implementation is configured.
+     */
+    InventoryMetrics NOOP = new InventoryMetrics() {
+        @Override
+        public void recordLatency(Operation operation, long durationNanos) {
+        }
+
+        @Override
+        public void recordQueryResults(long scanned, long returned) {
+        }
+
+        @Override
+        public void recordTransactionRetry(long backoffMillis) {
+        }
+    };
+
+    /**
+     * Records how long a single operation took.
+     *
+     * @param operation     the operation
+     * @param durationNanos the duration of the operation in nanoseconds
+     */
+    void recordLatency(Operation operation, long durationNanos);
+
+    /**
+     * Records the selectivity of a single query.
+     *
+     * @param scanned  the number of elements the backend needed to look at to evaluate the query
+     * @param returned the number of elements returned from the query
+     */
+    void recordQueryResults(long scanned, long returned);
+
+    /**
+     * Records that a transaction failed to commit and is going to be retried.
+     *
+     * @param backoffMillis the time the inventory is going to wait for before retrying the transaction
+     */
+    void recordTransactionRetry(long backoffMillis);
+
+    /**
+     * The backends that support it record the queries that took too long to evaluate into the returned log. Because
+     * this requires the backends to keep track of the individual steps of the evaluation, it is only done if this
+     * method returns a non-null value.
+     *
+     * @return the log to record the slow queries into or null if slow queries should not be recorded
+     */
+    default SlowQueryLog getSlowQueryLog() {
+        return null;
+    }
+
+    /**
+     * The measured operations.
+     */
+    enum Operation {
+        /**
+         * Looking up a single element by its canonical path in the backend.
+         */
+        find,
+
+        /**
+         * Evaluating a query in the backend, including the iteration over the results.
+         */
+        traverse,
+
+        /**
+         * Persisting a new element or structured data in the backend.
+         */
+        persist,
+
+        /**
+         * Creating a relationship in the backend.
+         */
+        relate,
+
+        /**
+         * Committing a transaction in the backend.
+         */
+        commit,
+
+        /**
+         * Dispatching a single notification to the observers of some interest.
+         */
+        notification,
+
+        /**
+         * Serializing a response of the REST API.
+         */
+        serialization
+    }
+}
@@ -48,4 +48,8 @@ public interface Log extends BasicLogger {
 
     @LogMessage(level = Logger.Level.DEBUG)
     @Message(id = 4, value = "Transaction failed: %s") void dTransactionFailed(String msg);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 5, value = "The notification queue for %s is full. Notifications are being dropped.")
+    void wNotificationsDropped(Object interest);
 }
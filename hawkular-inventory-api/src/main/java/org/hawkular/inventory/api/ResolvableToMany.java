@@ -17,6 +17,7 @@
 
 package org.hawkular.inventory.api;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -52,6 +53,27 @@ public interface ResolvableToMany<Entity> {
         return StreamSupport.stream(iterable.spliterator(), false).collect(Collectors.toSet());
     }
 
+    /**
+     * Counts the entities on the current position in the inventory traversal.
+     *
+     * <p>The default implementation goes through all the entities using the {@link #entities(Pager)} method.
+     * Implementations are encouraged to provide a more efficient way of counting.
+     *
+     * @return the number of the entities on the current position in the inventory traversal
+     */
+    default long count() {
+        try (Page<Entity> page = entities(Pager.unlimited(Order.unspecified()))) {
+            long count = 0;
+            while (page.hasNext()) {
+                page.next();
+                count++;
+            }
+            return count;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to close the page of results.", e);
+        }
+    }
+
     /**
      * @return true if there is at least 1 entity on the current position in the inventory traversal
      */
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api;
+
+import java.util.Arrays;
+
+import org.hawkular.inventory.api.model.CanonicalPath;
+
+/**
+ * Describes how to compute a transitive closure over relationships of some name going out of some starting element.
+ *
+ * <p>The closure never contains the starting element and each element at most once, even if the relationships
+ * form cycles or the same element is reachable by more than one path.
+ *
+ * <p>Instances are created using the {@link #over(Relationships.Direction, String...)} method:
+ * <pre>{@code
+ * TransitiveClosure.over(outgoing, "isParentOf").withMaxDepth(2).ofTypes(Resource.class).lazy()
+ * }</pre>
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public final class TransitiveClosure {
+    private final Relationships.Direction direction;
+    private final String[] relationshipNames;
+    private final int maxDepth;
+    private final Class<?>[] types;
+    private final boolean lazy;
+    private final CanonicalPath definedBy;
+
+    /**
+     * @param direction         the direction in which to follow the relationships, including
+     *                          {@link Relationships.Direction#both}
+     * @param relationshipNames the names of the relationships to follow
+     * @return an unbounded eagerly evaluated closure including all types of elements, which can be further specified
+     */
+    public static TransitiveClosure over(Relationships.Direction direction, String... relationshipNames) {
+        return new TransitiveClosure(direction, relationshipNames, -1, new Class<?>[0], false, null);
+    }
+
+    private TransitiveClosure(Relationships.Direction direction, String[] relationshipNames, int maxDepth,
+                              Class<?>[] types, boolean lazy, CanonicalPath definedBy) {
+        if (direction == null) {
+            throw new IllegalArgumentException("direction == null");
+        }
+        this.direction = direction;
+        this.relationshipNames = relationshipNames;
+        this.maxDepth = maxDepth;
+        this.types = types;
+        this.lazy = lazy;
+        this.definedBy = definedBy;
+    }
+
+    /**
+     * @param maxDepth the maximum number of relationships between the starting element and the elements in the
+     *                 closure, i.e. 1 means only the directly related elements. A negative value means no limit.
+     * @return a new closure instance with the max depth set
+     */
+    public TransitiveClosure withMaxDepth(int maxDepth) {
+        return new TransitiveClosure(direction, relationshipNames, maxDepth, types, lazy, definedBy);
+    }
+
+    /**
+     * Only the elements of the provided types will be returned. The elements of other types are still traversed
+     * though, so that the elements of the requested types "behind" them are found.
+     *
+     * @param types the types of the elements to return, if none specified, elements of all types are returned
+     * @return a new closure instance with the types set
+     */
+    public TransitiveClosure ofTypes(Class<?>... types) {
+        return new TransitiveClosure(direction, relationshipNames, maxDepth, types, lazy, definedBy);
+    }
+
+    /**
+     * Only the elements defined by the entity on the provided path, i.e. the targets of a
+     * {@link Relationships.WellKnown#defines} relationship from it, will be returned. This is useful for example to
+     * only get the resources of some resource type. As with the {@link #ofTypes(Class[]) types}, the other elements
+     * are still traversed.
+     *
+     * @param definedBy the canonical path to the defining entity, null to not filter by the definition
+     * @return a new closure instance with the defining entity set
+     */
+    public TransitiveClosure definedBy(CanonicalPath definedBy) {
+        return new TransitiveClosure(direction, relationshipNames, maxDepth, types, lazy, definedBy);
+    }
+
+    /**
+     * By default the closure is evaluated eagerly so that the caller can freely modify the elements while iterating
+     * over it. A lazy closure is evaluated on demand, which is more efficient but the caller must not modify the
+     * relationships being traversed while iterating.
+     *
+     * @return a new closure instance that is evaluated lazily
+     */
+    public TransitiveClosure lazy() {
+        return new TransitiveClosure(direction, relationshipNames, maxDepth, types, true, definedBy);
+    }
+
+    public Relationships.Direction getDirection() {
+        return direction;
+    }
+
+    public String[] getRelationshipNames() {
+        return relationshipNames;
+    }
+
+    /**
+     * @return the max depth of the closure, negative if not limited
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return the types of elements to include in the results, empty if all types should be returned
+     */
+    public Class<?>[] getTypes() {
+        return types;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * @return the path to the entity that needs to define the elements in the results or null if not filtered by
+     * the definition
+     */
+    public CanonicalPath getDefinedBy() {
+        return definedBy;
+    }
+
+    @Override
+    public String toString() {
+        return "TransitiveClosure[direction=" + direction + ", relationshipNames=" +
+                Arrays.toString(relationshipNames) + ", maxDepth=" + maxDepth + ", types=" + Arrays.toString(types) +
+                ", lazy=" + lazy + ", definedBy=" + definedBy + "]";
+    }
+}
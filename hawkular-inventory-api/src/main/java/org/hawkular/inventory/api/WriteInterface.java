@@ -16,6 +16,10 @@
  */
 package org.hawkular.inventory.api;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import org.hawkular.inventory.api.model.Blueprint;
 
 /**
@@ -43,6 +47,34 @@ public interface WriteInterface<U, B extends Blueprint, Single, Id> {
      */
     Single create(B blueprint) throws EntityAlreadyExistsException;
 
+    /**
+     * Creates new entities at the current position in the inventory traversal.
+     *
+     * <p>The entities that cannot be created because they already exist, because their blueprint is invalid,
+     * because it refers to entities that don't exist or because of any other failure specific to them are reported to
+     * the failure handler and do not prevent the creation of the rest. Implementations are free to create
+     * all the entities in a single transaction, in which case the failure handler may be called more than once for
+     * the same blueprint if the transaction needs to be retried.
+     *
+     * <p>By default this merely calls {@link #create(Blueprint)} for each of the blueprints.
+     *
+     * @param blueprints     the blueprints of the entities to create
+     * @param failureHandler the handler to report the blueprints that could not be used to create an entity to
+     * @return the access interfaces to the freshly created entities in the order of the blueprints
+     * @since 0.7.0
+     */
+    default List<Single> createAll(List<B> blueprints, BiConsumer<B, RuntimeException> failureHandler) {
+        List<Single> ret = new ArrayList<>(blueprints.size());
+        for (B blueprint : blueprints) {
+            try {
+                ret.add(create(blueprint));
+            } catch (RuntimeException e) {
+                failureHandler.accept(blueprint, e);
+            }
+        }
+        return ret;
+    }
+
     /**
      * Persists the provided entity on the current position in the inventory traversal.
      *
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.instrumentation;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hawkular.inventory.api.InventoryMetrics;
+
+/**
+ * Collects the measurements in memory - the latencies in a {@link LatencyHistogram histogram} per operation and the
+ * rest as simple counters. The collected values can be obtained as a {@link #snapshot() snapshot} which is suitable
+ * for serialization to JSON.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public final class CollectingInventoryMetrics implements InventoryMetrics {
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong scannedElements = new AtomicLong();
+    private final AtomicLong returnedElements = new AtomicLong();
+    private final AtomicLong transactionRetries = new AtomicLong();
+    private final AtomicLong transactionBackoffMillis = new AtomicLong();
+    private final SlowQueryLog slowQueryLog;
+
+    public CollectingInventoryMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param slowQueryLog the log to record the slow queries into or null if the slow queries should not be recorded
+     */
+    public CollectingInventoryMetrics(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+
+        //the map is never modified after this, so it is safe to read it concurrently
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void recordLatency(Operation operation, long durationNanos) {
+        latencies.get(operation).record(durationNanos);
+    }
+
+    @Override
+    public void recordQueryResults(long scanned, long returned) {
+        queries.incrementAndGet();
+        scannedElements.addAndGet(scanned);
+        returnedElements.addAndGet(returned);
+    }
+
+    @Override
+    public void recordTransactionRetry(long backoffMillis) {
+        transactionRetries.incrementAndGet();
+        transactionBackoffMillis.addAndGet(backoffMillis);
+    }
+
+    @Override
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * @param operation the operation
+     * @return the histogram of the latencies of the operation
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    /**
+     * Resets all the collected values, including the slow query log. The values recorded concurrently with the reset
+     * may or may not be preserved.
+     */
+    public void reset() {
+        latencies.values().forEach(LatencyHistogram::reset);
+        queries.set(0);
+        scannedElements.set(0);
+        returnedElements.set(0);
+        transactionRetries.set(0);
+        transactionBackoffMillis.set(0);
+        if (slowQueryLog != null) {
+            slowQueryLog.clear();
+        }
+    }
+
+    /**
+     * @return a point-in-time copy of the collected values
+     */
+    public Snapshot snapshot() {
+        Map<String, LatencyHistogram.Snapshot> lats = new LinkedHashMap<>();
+        latencies.forEach((op, h) -> lats.put(op.name(), h.snapshot()));
+
+        return new Snapshot(Collections.unmodifiableMap(lats), queries.get(), scannedElements.get(),
+                returnedElements.get(), transactionRetries.get(), transactionBackoffMillis.get());
+    }
+
+    @Override
+    public String toString() {
+        return "CollectingInventoryMetrics[" + snapshot() + "]";
+    }
+
+    /**
+     * An immutable copy of the collected values.
+     */
+    public static final class Snapshot {
+        private final Map<String, LatencyHistogram.Snapshot> latencies;
+        private final long queries;
+        private final long scannedElements;
+        private final long returnedElements;
+        private final long transactionRetries;
+        private final long transactionBackoffMillis;
+
+        Snapshot(Map<String, LatencyHistogram.Snapshot> latencies, long queries, long scannedElements,
+                 long returnedElements, long transactionRetries, long transactionBackoffMillis) {
+            this.latencies = latencies;
+            this.queries = queries;
+            this.scannedElements = scannedElements;
+            this.returnedElements = returnedElements;
+            this.transactionRetries = transactionRetries;
+            this.transactionBackoffMillis = transactionBackoffMillis;
+        }
+
+        /**
+         * @return the latency histograms keyed by the names of the {@link Operation operations}
+         */
+        public Map<String, LatencyHistogram.Snapshot> getLatencies() {
+            return latencies;
+        }
+
+        /**
+         * @return the number of queries whose selectivity has been recorded
+         */
+        public long getQueries() {
+            return queries;
+        }
+
+        /**
+         * @return the total number of elements the backend needed to look at to evaluate the queries
+         */
+        public long getScannedElements() {
+            return scannedElements;
+        }
+
+        /**
+         * @return the total number of elements returned from the queries
+         */
+        public long getReturnedElements() {
+            return returnedElements;
+        }
+
+        public long getTransactionRetries() {
+            return transactionRetries;
+        }
+
+        /**
+         * @return the total time spent waiting before retrying the failed transactions
+         */
+        public long getTransactionBackoffMillis() {
+            return transactionBackoffMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot[latencies=" + latencies + ", queries=" + queries + ", scannedElements="
+                    + scannedElements + ", returnedElements=" + returnedElements + ", transactionRetries="
+                    + transactionRetries + ", transactionBackoffMillis=" + transactionBackoffMillis + "]";
+        }
+    }
+}
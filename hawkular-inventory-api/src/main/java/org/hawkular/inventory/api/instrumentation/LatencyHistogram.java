@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.instrumentation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations with exponentially growing buckets - the bucket {@code i} counts the durations
+ * between 2<sup>i-1</sup> (inclusive) and 2<sup>i</sup> (exclusive) nanoseconds. The percentiles computed from the
+ * histogram are therefore only precise up to the factor of 2, which is enough to tell the microseconds from the
+ * milliseconds and seconds, while recording a value costs only a couple of atomic increments.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public final class LatencyHistogram {
+    private static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param durationNanos the duration to record, negative values are treated as 0
+     */
+    public void record(long durationNanos) {
+        long duration = Math.max(0, durationNanos);
+
+        buckets.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(duration));
+        count.incrementAndGet();
+        totalNanos.addAndGet(duration);
+
+        long max;
+        do {
+            max = maxNanos.get();
+        } while (duration > max && !maxNanos.compareAndSet(max, duration));
+    }
+
+    /**
+     * Resets the histogram. The values recorded concurrently with the reset may or may not be preserved.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    /**
+     * @return a point-in-time copy of the histogram
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            copy[i] = buckets.get(i);
+        }
+
+        return new Snapshot(copy, count.get(), totalNanos.get(), maxNanos.get());
+    }
+
+    /**
+     * An immutable copy of the histogram. The time values are in microseconds so that they are easily readable when
+     * serialized to JSON.
+     */
+    public static final class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Snapshot(long[] buckets, long count, long totalNanos, long maxNanos) {
+            this.buckets = buckets;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(totalNanos);
+        }
+
+        public long getMeanMicros() {
+            return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos / count);
+        }
+
+        public long getMaxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(maxNanos);
+        }
+
+        public long getP50Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(0.5));
+        }
+
+        public long getP90Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(0.9));
+        }
+
+        public long getP99Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(getPercentileNanos(0.99));
+        }
+
+        /**
+         * @param percentile the percentile to compute, between 0 and 1
+         * @return the upper bound of the bucket the percentile falls into, but never more than the max recorded value
+         */
+        public long getPercentileNanos(double percentile) {
+            long total = 0;
+            for (long b : buckets) {
+                total += b;
+            }
+
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(percentile * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; ++i) {
+                seen += buckets[i];
+                if (seen >= rank && buckets[i] > 0) {
+                    //for i == 63 this overflows to Long.MAX_VALUE, which is what we want
+                    return Math.min((1L << i) - 1, maxNanos);
+                }
+            }
+
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "LatencyHistogram.Snapshot[count=" + count + ", mean=" + getMeanMicros() + "us, p50="
+                    + getP50Micros() + "us, p90=" + getP90Micros() + "us, p99=" + getP99Micros() + "us, max="
+                    + getMaxMicros() + "us]";
+        }
+    }
+}
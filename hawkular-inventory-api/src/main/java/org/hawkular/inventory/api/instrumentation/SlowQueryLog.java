@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers a bounded number of the most recent queries that took longer than the configured threshold to evaluate.
+ * When the log is full, the oldest entries are discarded.
+ *
+ * <p>The backends are free to describe the evaluation of the queries in any way they see fit - the log only stores
+ * the textual representations of the evaluation steps together with the number of elements that passed through them.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public final class SlowQueryLog {
+    private final long thresholdNanos;
+    private final Entry[] entries;
+    private int next;
+    private long recorded;
+
+    /**
+     * @param thresholdMillis the minimum duration of a query for it to be recorded
+     * @param capacity        the maximum number of entries kept in the log
+     */
+    public SlowQueryLog(long thresholdMillis, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity of the slow query log must be positive.");
+        }
+
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.entries = new Entry[capacity];
+    }
+
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    /**
+     * @param durationNanos the duration of some query
+     * @return true if the query with the provided duration should be recorded in this log
+     */
+    public boolean isSlow(long durationNanos) {
+        return durationNanos >= thresholdNanos;
+    }
+
+    /**
+     * Records the query in the log, potentially overwriting the oldest entry. The caller is supposed to
+     * {@link #isSlow(long) check} the duration of the query first.
+     *
+     * @param entry the slow query
+     */
+    public synchronized void record(Entry entry) {
+        entries[next] = entry;
+        next = (next + 1) % entries.length;
+        recorded++;
+    }
+
+    /**
+     * @return the total number of slow queries recorded since the creation of the log or the last clear, including
+     * the ones no longer kept in the log
+     */
+    public synchronized long getRecordedCount() {
+        return recorded;
+    }
+
+    /**
+     * @return the entries in the log, the most recent first
+     */
+    public synchronized List<Entry> getEntries() {
+        List<Entry> ret = new ArrayList<>(entries.length);
+        for (int i = 1; i <= entries.length; ++i) {
+            Entry e = entries[(next - i + entries.length) % entries.length];
+            if (e == null) {
+                break;
+            }
+            ret.add(e);
+        }
+
+        return ret;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < entries.length; ++i) {
+            entries[i] = null;
+        }
+        next = 0;
+        recorded = 0;
+    }
+
+    /**
+     * A single slow query.
+     */
+    public static final class Entry {
+        private final long timestamp;
+        private final long durationNanos;
+        private final String query;
+        private final List<Step> steps;
+        private final long returnedElements;
+
+        /**
+         * @param timestamp        the time the query finished, in milliseconds since epoch
+         * @param durationNanos    how long the query took
+         * @param query            the description of the query as received by the backend
+         * @param steps            the steps the backend evaluated the query in
+         * @param returnedElements the number of elements returned from the query
+         */
+        public Entry(long timestamp, long durationNanos, String query, List<Step> steps, long returnedElements) {
+            this.timestamp = timestamp;
+            this.durationNanos = durationNanos;
+            this.query = query;
+            this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+            this.returnedElements = returnedElements;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getDurationMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(durationNanos);
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public List<Step> getSteps() {
+            return steps;
+        }
+
+        public long getReturnedElements() {
+            return returnedElements;
+        }
+
+        @Override
+        public String toString() {
+            return "SlowQueryLog.Entry[timestamp=" + timestamp + ", duration=" + getDurationMicros() + "us, query="
+                    + query + ", steps=" + steps + ", returnedElements=" + returnedElements + "]";
+        }
+    }
+
+    /**
+     * A single step of the evaluation of a query.
+     */
+    public static final class Step {
+        private final String description;
+        private final long elements;
+
+        /**
+         * @param description the backend-specific description of the step
+         * @param elements    the number of elements that the step produced
+         */
+        public Step(String description, long elements) {
+            this.description = description;
+            this.elements = elements;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getElements() {
+            return elements;
+        }
+
+        @Override
+        public String toString() {
+            return description + ": " + elements;
+        }
+    }
+}
@@ -78,6 +78,11 @@ public final class CanonicalPath extends Path implements Iterable<CanonicalPath>
         VALID_PROGRESSIONS.put(null, Arrays.asList(Tenant.class, Relationship.class));
     }
 
+    //the paths are immutable, so we can cache the string representation and the hash code, which are used heavily
+    //when looking up the entities in the backend
+    private transient String string;
+    private transient int hash;
+
     /**
      * JAXB support
      */
@@ -119,7 +124,8 @@ public final class CanonicalPath extends Path implements Iterable<CanonicalPath>
      * @return a new path instance
      */
     public static CanonicalPath fromString(String path) {
-        return fromPartiallyUntypedString(path, new StructuredDataHintingTypeProvider());
+        return CanonicalPathCache.get(path,
+                () -> fromPartiallyUntypedString(path, new StructuredDataHintingTypeProvider()));
     }
 
     /**
@@ -147,6 +153,15 @@ public final class CanonicalPath extends Path implements Iterable<CanonicalPath>
     public static CanonicalPath fromPartiallyUntypedString(String path, CanonicalPath initialPosition,
             Class<?> intendedFinalType) {
 
+        if (!CanonicalPathCache.isEnabled()) {
+            return parse(path, initialPosition, intendedFinalType);
+        }
+
+        return CanonicalPathCache.get(new CanonicalPathCache.RelativeParseKey(path, initialPosition,
+                intendedFinalType), () -> parse(path, initialPosition, intendedFinalType));
+    }
+
+    private static CanonicalPath parse(String path, CanonicalPath initialPosition, Class<?> intendedFinalType) {
         ExtenderConstructor ctor = (idx, list) -> {
             if (initialPosition != null) {
                 list.addAll(initialPosition.getPath());
@@ -271,7 +286,42 @@ public final class CanonicalPath extends Path implements Iterable<CanonicalPath>
 
     @Override
     public String toString() {
-        return new Encoder(SHORT_TYPE_NAMES, x -> true).encode(Character.toString(PATH_DELIM), this);
+        String ret = string;
+        if (ret == null) {
+            ret = new Encoder(SHORT_TYPE_NAMES, x -> true).encode(Character.toString(PATH_DELIM), this);
+            string = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    public int hashCode() {
+        int ret = hash;
+        if (ret == 0) {
+            ret = super.hashCode();
+            hash = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof CanonicalPath)) {
+            return false;
+        }
+
+        CanonicalPath other = (CanonicalPath) o;
+
+        //different hashes mean different paths, no need to compare the segments
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
+
+        return super.equals(o);
     }
 
     @Override
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.model;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * A bounded cache of the parsed canonical paths. Because the canonical paths are immutable, the same instance can be
+ * handed out to anyone parsing the same string.
+ *
+ * <p>The cache is a direct-mapped table - each key can only be stored in a single slot determined by its hash and
+ * a new entry simply replaces whatever was stored in its slot before. This keeps the lookups lock-free and
+ * allocation-free and the size of the cache bounded without any bookkeeping, at the cost of the occasional eviction
+ * of a frequently used entry by a colliding one.
+ *
+ * <p>The cache is disabled by default. It is enabled by setting the {@value #SIZE_PROPERTY} system property to the
+ * (positive) number of slots of the cache.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class CanonicalPathCache {
+    static final String SIZE_PROPERTY = "hawkular.inventory.canonical-path.cache-size";
+
+    private static final CanonicalPathCache INSTANCE = create(Integer.getInteger(SIZE_PROPERTY, 0));
+
+    private final AtomicReferenceArray<Entry> entries;
+    private final int mask;
+
+    private CanonicalPathCache(int size) {
+        //round up to the nearest power of 2 so that we can use a mask instead of modulo
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+
+        this.entries = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param size the number of slots of the cache
+     * @return a new cache instance or null if the size is not positive, i.e. if the caching is disabled
+     */
+    static CanonicalPathCache create(int size) {
+        if (size <= 0) {
+            return null;
+        }
+
+        //prevent overflow while rounding up to the power of 2
+        return new CanonicalPathCache(Math.min(size, 1 << 30));
+    }
+
+    /**
+     * @return true if the caching is enabled, false otherwise
+     */
+    static boolean isEnabled() {
+        return INSTANCE != null;
+    }
+
+    /**
+     * Looks up the path parsed from the provided key or parses it using the provided parser and caches the result.
+     *
+     * @param key    the key identifying the parse, usually the string representation of the path
+     * @param parser the parser to use if the path is not in the cache
+     * @return the cached or parsed path
+     */
+    static CanonicalPath get(Object key, Supplier<CanonicalPath> parser) {
+        CanonicalPathCache cache = INSTANCE;
+        return cache == null ? parser.get() : cache.lookup(key, parser);
+    }
+
+    CanonicalPath lookup(Object key, Supplier<CanonicalPath> parser) {
+        int idx = spread(key.hashCode()) & mask;
+
+        Entry e = entries.get(idx);
+        if (e != null && e.key.equals(key)) {
+            return e.path;
+        }
+
+        CanonicalPath ret = parser.get();
+        entries.set(idx, new Entry(key, ret));
+
+        return ret;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+        final Object key;
+        final CanonicalPath path;
+
+        Entry(Object key, CanonicalPath path) {
+            this.key = key;
+            this.path = path;
+        }
+    }
+
+    /**
+     * The key of a parse of a path relative to some initial position.
+     */
+    static final class RelativeParseKey {
+        private final String path;
+        private final CanonicalPath initialPosition;
+        private final Class<?> intendedFinalType;
+
+        RelativeParseKey(String path, CanonicalPath initialPosition, Class<?> intendedFinalType) {
+            this.path = path;
+            this.initialPosition = initialPosition;
+            this.intendedFinalType = intendedFinalType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RelativeParseKey)) return false;
+
+            RelativeParseKey that = (RelativeParseKey) o;
+
+            return path.equals(that.path) && intendedFinalType == that.intendedFinalType
+                    && Objects.equals(initialPosition, that.initialPosition);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = path.hashCode();
+            result = 31 * result + (initialPosition == null ? 0 : initialPosition.hashCode());
+            result = 31 * result + (intendedFinalType == null ? 0 : intendedFinalType.hashCode());
+            return result;
+        }
+    }
+}
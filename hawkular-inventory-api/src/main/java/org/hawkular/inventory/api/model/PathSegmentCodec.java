@@ -63,6 +63,11 @@ public final class PathSegmentCodec {
 //    }
 
     public static String decode(String str) {
+        //the ids very rarely contain any special characters, so make that case allocation-free
+        if (str.indexOf('%') < 0) {
+            return str;
+        }
+
         char[] ret = new char[str.length()];
 
         int len = str.length();
@@ -147,6 +152,10 @@ public final class PathSegmentCodec {
     }
 
     public static String encode(String str) {
+        if (isURISafe(str)) {
+            return str;
+        }
+
         StringBuilder bld = new StringBuilder(str.length());
         ByteBuffer bytes = getByteBuffer();
         CharBuffer chars = getCharBuffer();
@@ -258,6 +267,17 @@ public final class PathSegmentCodec {
         }
     }
 
+    private static boolean isURISafe(String str) {
+        int len = str.length();
+        for (int i = 0; i < len; ++i) {
+            if (!isURISafe(str.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private static boolean isURISafe(char c) {
         //made compatible with RestEasy path encoding
       /*
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.model;
+
+import java.util.Objects;
+
+/**
+ * A single change made to the structured data of a data entity by an update.
+ *
+ * <p>The changes are reported on the "top-most" affected value, i.e. if a whole map is added, there is only a single
+ * {@link Kind#added} change for the map itself, not for each of its entries.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public final class StructuredDataChange {
+
+    private final Kind kind;
+    private final RelativePath path;
+
+    /**
+     * @param kind the kind of the change
+     * @param path the path to the changed value relative to the root of the data, see
+     *             {@link RelativePath.Builder#structuredData()}
+     */
+    public StructuredDataChange(Kind kind, RelativePath path) {
+        this.kind = kind;
+        this.path = path;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the path to the changed value relative to the root of the data. An empty path denotes the root itself.
+     */
+    public RelativePath getPath() {
+        return path;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StructuredDataChange)) return false;
+
+        StructuredDataChange that = (StructuredDataChange) o;
+
+        return kind == that.kind && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, path);
+    }
+
+    @Override
+    public String toString() {
+        return "StructuredDataChange[kind=" + kind + ", path=" + path + "]";
+    }
+
+    public enum Kind {
+        /**
+         * A new value has been added to a list or a map.
+         */
+        added,
+
+        /**
+         * A value has been removed from a list or a map.
+         */
+        removed,
+
+        /**
+         * The value or the type of the value has changed. In case of a change of type, the value has been replaced
+         * including all of its children.
+         */
+        changed,
+
+        /**
+         * An entry of a map has been moved to a different position in the map.
+         */
+        moved
+    }
+}
@@ -18,7 +18,9 @@ package org.hawkular.inventory.api.paging;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author Lukas Krejci
@@ -30,6 +32,8 @@ public class PageContext {
     private final int pageSize;
     private final int pageNumber;
     private final List<Order> order;
+    private final boolean exactTotalSize;
+    private final Set<String> fields;
 
     public PageContext(int pageNumber, int pageSize, Order... orders) {
         if (orders.length == 0) {
@@ -40,9 +44,36 @@ public class PageContext {
         List<Order> tmp = new ArrayList<>();
         Collections.addAll(tmp, orders);
         this.order = Collections.unmodifiableList(tmp);
+        this.exactTotalSize = true;
+        this.fields = null;
     }
 
     public PageContext(int pageNumber, int pageSize, Iterable<Order> orders) {
+        this(pageNumber, pageSize, true, orders);
+    }
+
+    /**
+     * @param pageNumber     the number of the page (0-based)
+     * @param pageSize       the size of the page, negative for unlimited
+     * @param exactTotalSize whether the total size of the results needs to be determined exactly, see
+     *                       {@link #isExactTotalSize()}
+     * @param orders         the ordering of the results
+     */
+    public PageContext(int pageNumber, int pageSize, boolean exactTotalSize, Iterable<Order> orders) {
+        this(pageNumber, pageSize, exactTotalSize, orders, null);
+    }
+
+    /**
+     * @param pageNumber     the number of the page (0-based)
+     * @param pageSize       the size of the page, negative for unlimited
+     * @param exactTotalSize whether the total size of the results needs to be determined exactly, see
+     *                       {@link #isExactTotalSize()}
+     * @param orders         the ordering of the results
+     * @param fields         the fields of the elements to load or null to load the elements fully, see
+     *                       {@link #getFields()}
+     */
+    public PageContext(int pageNumber, int pageSize, boolean exactTotalSize, Iterable<Order> orders,
+                       Set<String> fields) {
         this.pageNumber = pageSize >= 0 ? pageNumber : 0;
         this.pageSize = pageSize;
         List<Order> tmp = new ArrayList<>();
@@ -52,6 +83,8 @@ public class PageContext {
         }
 
         this.order = Collections.unmodifiableList(tmp);
+        this.exactTotalSize = exactTotalSize;
+        this.fields = fields == null ? null : Collections.unmodifiableSet(new HashSet<>(fields));
     }
 
     /**
@@ -104,6 +137,44 @@ public class PageContext {
         return pageSize >= 0;
     }
 
+    /**
+     * Determining the exact total number of results requires going through all of them, even if only the first page
+     * is requested. If this is false, the implementations are free to stop processing the results right after the end
+     * of the page. The total size reported by the page is then only a lower bound - it is exact if there are no more
+     * results after this page, otherwise it is guaranteed to be greater than {@link #getEnd()}, so that the caller can
+     * still tell there is a next page.
+     *
+     * <p>This has no effect on unlimited page contexts.
+     *
+     * @return true if the total size of the results should be exact, false if a lower bound is enough
+     */
+    public boolean isExactTotalSize() {
+        return exactTotalSize;
+    }
+
+    /**
+     * The fields of the elements on the page that the caller is interested in. The elements are still returned as the
+     * instances of their usual classes but the backends are free not to load the fields that were not requested,
+     * leaving them null or empty. This can considerably speed up the loading of the elements.
+     *
+     * <p>The following fields are recognized, others are ignored:
+     * <ul>
+     *     <li>{@code properties} - all the user-defined properties of the elements,
+     *     <li>{@code properties.<name>} - the user-defined property with the given name,
+     *     <li>{@code type} - the {@link org.hawkular.inventory.api.model.Resource#getType() resource type} of resources
+     *     and the {@link org.hawkular.inventory.api.model.Metric#getType() metric type} of metrics,
+     *     <li>{@code value} - the {@link org.hawkular.inventory.api.model.DataEntity#getValue() value} of data
+     *     entities.
+     * </ul>
+     * The path (and therefore also the id) of the elements is always loaded, as are the properties used for
+     * {@link #getOrder() ordering}.
+     *
+     * @return the unmodifiable set of the requested fields or null if the elements should be loaded fully
+     */
+    public Set<String> getFields() {
+        return fields;
+    }
+
     /**
      * This list of ordering fields.
      *
@@ -120,7 +191,9 @@ public class PageContext {
 
         PageContext that = (PageContext) o;
 
-        return pageSize == that.pageSize && pageNumber == that.pageNumber && this.order.equals(that.order);
+        return pageSize == that.pageSize && pageNumber == that.pageNumber && exactTotalSize == that.exactTotalSize
+                && this.order.equals(that.order)
+                && (fields == null ? that.fields == null : fields.equals(that.fields));
 
     }
 
@@ -133,7 +206,7 @@ public class PageContext {
 
     @Override public String toString() {
         return "PagingState[" + "order=" + order + ", pageNumber=" + pageNumber + ", pageSize=" +
-                pageSize + ']';
+                pageSize + ", exactTotalSize=" + exactTotalSize + ", fields=" + fields + ']';
     }
 
 }
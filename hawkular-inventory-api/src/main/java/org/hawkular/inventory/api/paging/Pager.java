@@ -17,7 +17,10 @@
 package org.hawkular.inventory.api.paging;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Specifies the requirements on the paging of some results.
@@ -76,6 +79,29 @@ public final class Pager extends PageContext {
         super(pageNumber, pageSize, orders);
     }
 
+    /**
+     * @param pageNumber     see {@link #Pager(int, int, Order...)}
+     * @param pageSize       see {@link #Pager(int, int, Order...)}
+     * @param exactTotalSize whether the total size of the results should be computed exactly, see
+     *                       {@link PageContext#isExactTotalSize()}
+     * @param orders         see {@link #Pager(int, int, Order...)}
+     */
+    public Pager(int pageNumber, int pageSize, boolean exactTotalSize, Iterable<Order> orders) {
+        super(pageNumber, pageSize, exactTotalSize, orders);
+    }
+
+    /**
+     * @param pageNumber     see {@link #Pager(int, int, Order...)}
+     * @param pageSize       see {@link #Pager(int, int, Order...)}
+     * @param exactTotalSize see {@link #Pager(int, int, boolean, Iterable)}
+     * @param orders         see {@link #Pager(int, int, Order...)}
+     * @param fields         the fields of the elements to load or null to load them fully, see
+     *                       {@link PageContext#getFields()}
+     */
+    public Pager(int pageNumber, int pageSize, boolean exactTotalSize, Iterable<Order> orders, Set<String> fields) {
+        super(pageNumber, pageSize, exactTotalSize, orders, fields);
+    }
+
     /**
      * If this is a limited pager ({@link #isLimited()}), returns the pager pointing to the next page of the results.
      *
@@ -86,7 +112,7 @@ public final class Pager extends PageContext {
      */
     public Pager nextPage() {
         if (getPageSize() >= 0) {
-            return new Pager(getPageNumber() + 1, getPageSize(), getOrder());
+            return new Pager(getPageNumber() + 1, getPageSize(), isExactTotalSize(), getOrder(), getFields());
         } else {
             return this;
         }
@@ -103,7 +129,7 @@ public final class Pager extends PageContext {
      */
     public Pager previousPage() {
         if (getPageNumber() > 0 && getPageSize() >= 0) {
-            return new Pager(getPageNumber() - 1, getPageSize(), getOrder());
+            return new Pager(getPageNumber() - 1, getPageSize(), isExactTotalSize(), getOrder(), getFields());
         } else {
             return this;
         }
@@ -113,10 +139,31 @@ public final class Pager extends PageContext {
         private int pageNumber;
         private int pageSize;
         private List<Order> order = new ArrayList<>();
+        private boolean exactTotalSize = true;
+        private Set<String> fields;
 
         private Builder() {
         }
 
+        public Builder withExactTotalSize(boolean exactTotalSize) {
+            this.exactTotalSize = exactTotalSize;
+            return this;
+        }
+
+        /**
+         * Limits the loaded fields of the elements to the provided ones. See {@link PageContext#getFields()}.
+         *
+         * @param fields the fields to load
+         * @return this builder
+         */
+        public Builder withFields(String... fields) {
+            if (this.fields == null) {
+                this.fields = new HashSet<>();
+            }
+            Collections.addAll(this.fields, fields);
+            return this;
+        }
+
         public Builder withPageSize(int size) {
             pageSize = size;
             return this;
@@ -146,7 +193,7 @@ public final class Pager extends PageContext {
         }
 
         public Pager build() {
-            return new Pager(pageNumber, pageSize, order);
+            return new Pager(pageNumber, pageSize, exactTotalSize, order, fields);
         }
     }
 }
@@ -45,6 +45,10 @@ public class SizeAwarePage<T> extends Page<T> {
      * <li>the total size otherwise</li>
      * </ul>
      *
+     * <p>If the page context doesn't require the {@link PageContext#isExactTotalSize() exact total size}, the returned
+     * number is only guaranteed to be exact on the last page. On the other pages it is merely greater than
+     * {@link PageContext#getEnd()}.
+     *
      * @return the total number of results of which this page is a subset of
      */
     @Override
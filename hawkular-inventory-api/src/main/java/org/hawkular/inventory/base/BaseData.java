@@ -16,6 +16,8 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.hasData;
 import static org.hawkular.inventory.api.filters.With.id;
 
@@ -25,6 +27,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 import org.hawkular.inventory.api.Data;
 import org.hawkular.inventory.api.EntityNotFoundException;
@@ -39,7 +42,6 @@ import org.hawkular.inventory.api.model.RelativePath;
 import org.hawkular.inventory.api.model.StructuredData;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
-import org.hawkular.inventory.base.spi.ShallowStructuredData;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -51,8 +53,8 @@ import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.report.ListReportProvider;
 import com.github.fge.jsonschema.core.report.LogLevel;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
+import com.github.fge.jsonschema.main.JsonSchema;
 import com.github.fge.jsonschema.main.JsonSchemaFactory;
-import com.github.fge.jsonschema.main.JsonValidator;
 
 /**
  * Contains access interface implementations for accessing data entities.
@@ -104,7 +106,7 @@ public final class BaseData {
 
             Validator.validate(context, blueprint.getValue(), entity);
 
-            BE value = context.backend.persist(blueprint.getValue());
+            BE value = context.backend.persist(blueprint.getValue(), blueprint.getRole());
 
             //don't report this relationship, it is implicit
             //also, don't run the RelationshipRules checks - we're in the "privileged code" that is allowed to do
@@ -119,6 +121,13 @@ public final class BaseData {
             return new Single<>(context.replacePath(doCreate(data)));
         }
 
+        @Override
+        public List<Data.Single> createAll(List<DataEntity.Blueprint<R>> blueprints,
+                BiConsumer<DataEntity.Blueprint<R>, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new Single<>(context.replacePath(q))).collect(toList());
+        }
+
         @Override
         protected void cleanup(R role, BE entityRepresentation) {
             cleanup(context, entityRepresentation);
@@ -174,19 +183,12 @@ public final class BaseData {
         public StructuredData data(RelativePath dataPath) {
             //doing this in 2 queries might seem inefficient but this I think needs to be done to be able to
             //do the filtering
-            return loadEntity((b, e) -> {
-                BE dataEntity = context.backend.descendToData(b, dataPath);
-                return dataEntity == null ? null : context.backend.convert(dataEntity, StructuredData.class);
-            });
+            return loadEntity((b, e) -> context.backend.loadData(b, dataPath, true));
         }
 
         @Override
         public StructuredData flatData(RelativePath dataPath) {
-            return loadEntity((b, e) -> {
-                BE dataEntity = context.backend.descendToData(b, dataPath);
-                return dataEntity == null ? null : context.backend.convert(dataEntity, ShallowStructuredData.class)
-                        .getData();
-            });
+            return loadEntity((b, e) -> context.backend.loadData(b, dataPath, false));
         }
 
         @Override
@@ -210,25 +212,19 @@ public final class BaseData {
 
         @Override
         public Page<StructuredData> data(RelativePath dataPath, Pager pager) {
-            return loadEntities(pager, (b, e) -> {
-                BE dataEntity = context.backend.descendToData(b, dataPath);
-                return context.backend.convert(dataEntity, StructuredData.class);
-            });
+            return loadEntities(pager, (b, e) -> context.backend.loadData(b, dataPath, true));
         }
 
         @Override
         public Page<StructuredData> flatData(RelativePath dataPath, Pager pager) {
-            return loadEntities(pager, (b, e) -> {
-                BE dataEntity = context.backend.descendToData(b, dataPath);
-                return context.backend.convert(dataEntity, ShallowStructuredData.class).getData();
-            });
+            return loadEntities(pager, (b, e) -> context.backend.loadData(b, dataPath, false));
         }
     }
 
     public static final class Validator {
 
-        private static final JsonValidator VALIDATOR = JsonSchemaFactory.newBuilder()
-                .setReportProvider(new ListReportProvider(LogLevel.INFO, LogLevel.FATAL)).freeze().getValidator();
+        private static final JsonSchemaFactory SCHEMA_FACTORY = JsonSchemaFactory.newBuilder()
+                .setReportProvider(new ListReportProvider(LogLevel.INFO, LogLevel.FATAL)).freeze();
 
         public static <BE> void validate(TraversalContext<BE, DataEntity> context, StructuredData data, BE dataEntity) {
             CanonicalPath path = context.backend.extractCanonicalPath(dataEntity);
@@ -236,21 +232,28 @@ public final class BaseData {
             DataEntity.Role role = path.ids().getDataRole();
 
             if (role.isSchema()) {
-                try {
-                    JsonNode schema = new JsonNodeReader(new ObjectMapper())
-                            .fromInputStream(BaseData.class.getResourceAsStream("/json-meta-schema.json"));
+                //the schema is being created or updated, so whatever we might have cached for it is no longer valid
+                context.inventory.getSchemaCache().invalidate(path);
 
-                    CanonicalPath dataPath = context.backend.extractCanonicalPath(dataEntity);
-
-                    validate(dataPath, convert(data), schema);
-                } catch (IOException e) {
-                    throw new IllegalStateException("Could not load the embedded JSON Schema meta-schema.");
-                }
+                validate(path, convert(data), MetaSchema.INSTANCE);
             } else {
                 validateIfSchemaFound(context, data, dataEntity, Query.path().with(role.navigateToSchema()).get());
             }
         }
 
+        /**
+         * Removes the schema held by the provided element from the cache of the compiled schemas, if the element is a
+         * schema data entity. To be called whenever a data entity is updated or deleted.
+         *
+         * @param context the traversal context
+         * @param element the updated or deleted element
+         */
+        static void invalidateSchema(TraversalContext<?, ?> context, Object element) {
+            if (element instanceof DataEntity && ((DataEntity) element).getRole().isSchema()) {
+                context.inventory.getSchemaCache().invalidate(((DataEntity) element).getPath());
+            }
+        }
+
         private static <BE> void validateIfSchemaFound(TraversalContext<BE, DataEntity> context, StructuredData data,
                 BE dataEntity, Query query) {
 
@@ -260,21 +263,40 @@ public final class BaseData {
                 return;
             }
 
-            DataEntity schemaEntity = context.backend.convert(possibleSchema, DataEntity.class);
-
             CanonicalPath dataPath = context.backend.extractCanonicalPath(dataEntity);
+            CanonicalPath schemaPath = context.backend.extractCanonicalPath(possibleSchema);
 
-            validate(dataPath, convert(data), convert(schemaEntity.getValue()));
+            SchemaCache cache = context.inventory.getSchemaCache();
+
+            JsonSchema schema = cache.get(schemaPath);
+            if (schema == null) {
+                long generation = cache.getGeneration();
+
+                DataEntity schemaEntity = context.backend.convert(possibleSchema, DataEntity.class);
+                schema = compile(dataPath, convert(schemaEntity.getValue()));
+
+                cache.put(schemaPath, schema, generation);
+            }
+
+            validate(dataPath, convert(data), schema);
+        }
+
+        private static JsonSchema compile(CanonicalPath dataPath, JsonNode schemaNode) {
+            try {
+                return SCHEMA_FACTORY.getJsonSchema(schemaNode);
+            } catch (ProcessingException e) {
+                throw new ValidationException(dataPath, Collections.emptyList(), e);
+            }
         }
 
-        private static void validate(CanonicalPath dataPath, JsonNode dataNode, JsonNode schemaNode) {
+        private static void validate(CanonicalPath dataPath, JsonNode dataNode, JsonSchema schema) {
             //explicitly allow null schemas
             if (dataNode == null || dataNode.isNull()) {
                 return;
             }
 
             try {
-                ProcessingReport report = VALIDATOR.validate(schemaNode, dataNode, true);
+                ProcessingReport report = schema.validate(dataNode, true);
                 if (!report.isSuccess()) {
                     List<ValidationMessage> messages = new ArrayList<>();
                     report.forEach((m) ->
@@ -329,5 +351,23 @@ public final class BaseData {
                 }
             }, null);
         }
+
+        /**
+         * Lazily loaded compiled JSON Schema meta-schema.
+         */
+        private static final class MetaSchema {
+            static final JsonSchema INSTANCE;
+
+            static {
+                try {
+                    JsonNode schema = new JsonNodeReader(new ObjectMapper())
+                            .fromInputStream(BaseData.class.getResourceAsStream("/json-meta-schema.json"));
+
+                    INSTANCE = SCHEMA_FACTORY.getJsonSchema(schema);
+                } catch (IOException | ProcessingException e) {
+                    throw new IllegalStateException("Could not load the embedded JSON Schema meta-schema.", e);
+                }
+            }
+        }
     }
 }
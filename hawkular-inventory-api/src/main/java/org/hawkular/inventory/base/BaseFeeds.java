@@ -16,10 +16,15 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.filters.With.id;
 import static org.hawkular.inventory.api.filters.With.type;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Feeds;
 import org.hawkular.inventory.api.MetricTypes;
@@ -80,6 +85,13 @@ public final class BaseFeeds {
             return new Single<>(context.replacePath(doCreate(blueprint)));
         }
 
+        @Override
+        public List<Feeds.Single> createAll(List<Feed.Blueprint> blueprints,
+                BiConsumer<Feed.Blueprint, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new Single<>(context.replacePath(q))).collect(toList());
+        }
+
         @Override
         public Feeds.Multiple getAll(Filter[][] filters) {
             return new Multiple<>(context.proceed().whereAll(filters).get());
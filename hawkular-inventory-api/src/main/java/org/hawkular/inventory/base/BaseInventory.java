@@ -23,15 +23,19 @@ import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Interest;
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.InventoryMetrics;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.Tenants;
 import org.hawkular.inventory.api.TransactionFrame;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.CanonicalPath;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 
@@ -55,9 +59,62 @@ public abstract class BaseInventory<E> implements Inventory {
             .withPropertyNameAndSystemProperty("hawkular.inventory.transaction.retries")
             .withEnvironmentVariables("HAWKULAR_INVENTORY_TRANSACTION_RETRIES").build();
 
+    /**
+     * If true, the notifications are dispatched to the observers on a separate thread pool instead of the thread that
+     * performed the change. Defaults to false.
+     */
+    public static final Configuration.Property NOTIFICATIONS_ASYNC = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.async")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_ASYNC").build();
+
+    /**
+     * The number of threads to dispatch the notifications on, if dispatched asynchronously. Defaults to 1.
+     */
+    public static final Configuration.Property NOTIFICATIONS_THREADS = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.threads")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_THREADS").build();
+
+    /**
+     * The max number of notifications waiting to be dispatched per interest, if dispatched asynchronously. Defaults
+     * to 1000.
+     */
+    public static final Configuration.Property NOTIFICATIONS_QUEUE_SIZE = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.queue-size")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_QUEUE_SIZE").build();
+
+    /**
+     * What to do when the queue of notifications is full. One of {@code block} (the thread performing the change
+     * waits), {@code drop} (the notification is dropped) or {@code buffer} (the queue is not bounded). Defaults to
+     * {@code block}.
+     */
+    public static final Configuration.Property NOTIFICATIONS_OVERFLOW_POLICY = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.notifications.overflow-policy")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_NOTIFICATIONS_OVERFLOW_POLICY").build();
+
+    /**
+     * The maximum number of compiled JSON schemas of the data entities kept in memory. Defaults to 1000, non-positive
+     * values disable the caching.
+     */
+    public static final Configuration.Property SCHEMA_CACHE_SIZE = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.schema-cache.size")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_SCHEMA_CACHE_SIZE").build();
+
+    /**
+     * The number of entities deleted in a single transaction when deleting an entity together with everything it
+     * contains. The deletion of large subtrees is then split into several transactions, each followed by the
+     * notifications about the entities deleted in it. Defaults to 0, which means that everything is deleted in a
+     * single transaction. In that case all the deleted entities and relationships are kept in memory until the
+     * notifications about them can be sent out after the commit.
+     */
+    public static final Configuration.Property DELETE_BATCH_SIZE = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.delete.batch-size")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_DELETE_BATCH_SIZE").build();
+
     private InventoryBackend<E> backend;
     private final ObservableContext observableContext;
+    private final boolean ownsObservableContext;
     private Configuration configuration;
+    private SchemaCache schemaCache;
     private TraversalContext<E, Tenant> tenantContext;
     private TraversalContext<E, Relationship> relationshipContext;
 
@@ -66,22 +123,47 @@ public abstract class BaseInventory<E> implements Inventory {
      *
      * @param backend           the backend
      * @param observableContext the observable context
+     * @param schemaCache       the cache of the compiled JSON schemas
      */
     BaseInventory(InventoryBackend<E> backend, ObservableContext observableContext,
-                  Configuration configuration) {
+                  Configuration configuration, SchemaCache schemaCache) {
         this.backend = backend;
         this.observableContext = observableContext;
+        this.ownsObservableContext = false;
         this.configuration = configuration;
+        this.schemaCache = schemaCache;
     }
 
     protected BaseInventory() {
         observableContext = new ObservableContext();
+        ownsObservableContext = true;
     }
 
     @Override
     public final void initialize(Configuration configuration) {
         this.backend = doInitialize(configuration);
 
+        if (configuration.getMetrics() != InventoryMetrics.NOOP) {
+            this.backend = new MeasuringInventoryBackend<>(backend, configuration.getMetrics());
+        }
+
+        if (schemaCache == null) {
+            schemaCache = new SchemaCache(Integer.parseInt(configuration.getProperty(SCHEMA_CACHE_SIZE, "1000")));
+        }
+
+        if (ownsObservableContext) {
+            observableContext.setMetrics(configuration.getMetrics());
+        }
+
+        if (ownsObservableContext && configuration.getFlag(NOTIFICATIONS_ASYNC, "false")) {
+            int threads = Integer.parseInt(configuration.getProperty(NOTIFICATIONS_THREADS, "1"));
+            int queueSize = Integer.parseInt(configuration.getProperty(NOTIFICATIONS_QUEUE_SIZE, "1000"));
+            ObservableContext.OverflowPolicy overflowPolicy = ObservableContext.OverflowPolicy.valueOf(
+                    configuration.getProperty(NOTIFICATIONS_OVERFLOW_POLICY, "block").toUpperCase());
+
+            observableContext.dispatchAsynchronously(threads, queueSize, overflowPolicy);
+        }
+
         tenantContext = new TraversalContext<>(this, Query.empty(),
                 Query.path().with(With.type(Tenant.class)).get(), backend, Tenant.class, configuration,
                 observableContext);
@@ -91,6 +173,10 @@ public abstract class BaseInventory<E> implements Inventory {
         this.configuration = configuration;
     }
 
+    SchemaCache getSchemaCache() {
+        return schemaCache;
+    }
+
     @Override
     public TransactionFrame newTransactionFrame() {
         return new BaseTransactionFrame<>(backend, observableContext, tenantContext);
@@ -107,6 +193,10 @@ public abstract class BaseInventory<E> implements Inventory {
 
     @Override
     public final void close() throws Exception {
+        if (ownsObservableContext) {
+            observableContext.shutdown();
+        }
+
         if (backend != null) {
             backend.close();
             backend = null;
@@ -143,6 +233,13 @@ public abstract class BaseInventory<E> implements Inventory {
         return observableContext.getObservableFor(interest);
     }
 
+    /**
+     * @return the statistics of the notifications sent out to the observers of this inventory
+     */
+    public NotificationStatistics getNotificationStatistics() {
+        return observableContext.getStatistics();
+    }
+
     @Override
     public InputStream getGraphSON(String tenantId) {
         return getBackend().getGraphSON(tenantId);
@@ -159,16 +256,22 @@ public abstract class BaseInventory<E> implements Inventory {
 
     @Override
     public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
-                                                                    Relationships.Direction direction, Class<T> clazz,
-                                                                    String... relationshipNames) {
+                                                                         TransitiveClosure closure, Class<T> clazz) {
+
+        return getBackend().getTransitiveClosureOver(startingPoint, closure, clazz);
+    }
 
-        return getBackend().getTransitiveClosureOver(startingPoint, direction, clazz, relationshipNames);
+    @Override
+    public <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                     TransitiveClosure closure, Class<T> clazz,
+                                                                     Pager pager) {
+        return getBackend().getTransitiveClosureOver(startingPoint, closure, clazz, pager);
     }
 
     static class Initialized<E> extends BaseInventory<E> {
         Initialized(InventoryBackend<E> backend, ObservableContext observableContext,
-                           Configuration configuration) {
-            super(backend, observableContext, configuration);
+                           Configuration configuration, SchemaCache schemaCache) {
+            super(backend, observableContext, configuration, schemaCache);
             initialize(configuration);
         }
 
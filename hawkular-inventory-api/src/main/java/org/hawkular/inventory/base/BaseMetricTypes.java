@@ -16,10 +16,15 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 import static org.hawkular.inventory.api.Relationships.WellKnown.incorporates;
 import static org.hawkular.inventory.api.filters.With.id;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.MetricTypes;
@@ -79,12 +84,23 @@ public final class BaseMetricTypes {
 
         @Override
         public MetricTypes.Single create(MetricType.Blueprint blueprint) throws EntityAlreadyExistsException {
+            checkBlueprint(blueprint);
+            return new BaseMetricTypes.Single<>(context.replacePath(doCreate(blueprint)));
+        }
+
+        @Override
+        protected void checkBlueprint(MetricType.Blueprint blueprint) {
             if (blueprint.getType() == null || blueprint.getUnit() == null) {
                 String msg = (blueprint.getType() == null ? "Data type" : "Metric unit") + " is null";
                 throw new IllegalArgumentException(msg);
             }
+        }
 
-            return new BaseMetricTypes.Single<>(context.replacePath(doCreate(blueprint)));
+        @Override
+        public List<MetricTypes.Single> createAll(List<MetricType.Blueprint> blueprints,
+                BiConsumer<MetricType.Blueprint, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new BaseMetricTypes.Single<>(context.replacePath(q))).collect(toList());
         }
     }
 
@@ -16,11 +16,16 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 import static org.hawkular.inventory.api.Relationships.WellKnown.incorporates;
 import static org.hawkular.inventory.api.filters.With.id;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Metrics;
@@ -62,18 +67,7 @@ public final class BaseMetrics {
         protected EntityAndPendingNotifications<Metric> wireUpNewEntity(BE entity, Metric.Blueprint blueprint,
                 CanonicalPath parentPath, BE parent) {
 
-            BE metricTypeObject;
-
-            try {
-                CanonicalPath tenant = CanonicalPath.of().tenant(parentPath.ids().getTenantId()).get();
-                CanonicalPath metricTypePath = Util.canonicalize(blueprint.getMetricTypePath(), tenant, parentPath,
-                        MetricType.class);
-                metricTypeObject = context.backend.find(metricTypePath);
-
-            } catch (ElementNotFoundException e) {
-                throw new IllegalArgumentException("A metric type with id '" + blueprint.getMetricTypePath() +
-                        "' not found in tenant '" + parentPath.getRoot().getSegment().getElementId() + "'.");
-            }
+            BE metricTypeObject = findMetricType(blueprint, parentPath);
 
             //specifically do NOT check relationship rules, here because defines cannot be created "manually".
             //here we "know what we are doing" and need to create the defines relationship to capture the
@@ -92,6 +86,23 @@ public final class BaseMetrics {
             return new EntityAndPendingNotifications<>(ret, new Notification<>(rel, rel, created()));
         }
 
+        @Override
+        protected void checkReferences(Metric.Blueprint blueprint, CanonicalPath parentPath) {
+            findMetricType(blueprint, parentPath);
+        }
+
+        private BE findMetricType(Metric.Blueprint blueprint, CanonicalPath parentPath) {
+            try {
+                CanonicalPath tenant = CanonicalPath.of().tenant(parentPath.ids().getTenantId()).get();
+                CanonicalPath metricTypePath = Util.canonicalize(blueprint.getMetricTypePath(), tenant, parentPath,
+                        MetricType.class);
+                return context.backend.find(metricTypePath);
+            } catch (ElementNotFoundException e) {
+                throw new IllegalArgumentException("A metric type with id '" + blueprint.getMetricTypePath() +
+                        "' not found in tenant '" + parentPath.getRoot().getSegment().getElementId() + "'.");
+            }
+        }
+
         @Override
         public Metrics.Multiple getAll(Filter[][] filters) {
             return new Multiple<>(context.proceed().whereAll(filters).get());
@@ -106,6 +117,13 @@ public final class BaseMetrics {
         public Metrics.Single create(Metric.Blueprint blueprint) throws EntityAlreadyExistsException {
             return new Single<>(context.replacePath(doCreate(blueprint)));
         }
+
+        @Override
+        public List<Metrics.Single> createAll(List<Metric.Blueprint> blueprints,
+                BiConsumer<Metric.Blueprint, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new Single<>(context.replacePath(q))).collect(toList());
+        }
     }
 
     public static class ReadContained<BE> extends Traversal<BE, Metric> implements Metrics.ReadContained {
@@ -16,9 +16,14 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.filters.With.id;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import org.hawkular.inventory.api.Data;
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
@@ -70,6 +75,13 @@ public final class BaseOperationTypes {
                 EntityAlreadyExistsException {
             return new BaseOperationTypes.Single<>(context.replacePath(doCreate(blueprint)));
         }
+
+        @Override
+        public List<OperationTypes.Single> createAll(List<OperationType.Blueprint> blueprints,
+                BiConsumer<OperationType.Blueprint, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new BaseOperationTypes.Single<>(context.replacePath(q))).collect(toList());
+        }
     }
 
     public static class ReadContained<BE> extends Fetcher<BE, OperationType, OperationType.Update>
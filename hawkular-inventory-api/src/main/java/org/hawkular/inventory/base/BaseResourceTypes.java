@@ -16,11 +16,16 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 import static org.hawkular.inventory.api.Relationships.WellKnown.incorporates;
 import static org.hawkular.inventory.api.filters.With.id;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import org.hawkular.inventory.api.Data;
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
@@ -84,6 +89,13 @@ public final class BaseResourceTypes {
         public ResourceTypes.Single create(ResourceType.Blueprint blueprint) throws EntityAlreadyExistsException {
             return new BaseResourceTypes.Single<>(context.replacePath(doCreate(blueprint)));
         }
+
+        @Override
+        public List<ResourceTypes.Single> createAll(List<ResourceType.Blueprint> blueprints,
+                BiConsumer<ResourceType.Blueprint, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new BaseResourceTypes.Single<>(context.replacePath(q))).collect(toList());
+        }
     }
 
     public static class ReadContained<BE> extends Fetcher<BE, ResourceType, ResourceType.Update>
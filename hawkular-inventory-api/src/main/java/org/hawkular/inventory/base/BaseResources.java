@@ -16,6 +16,8 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
@@ -25,6 +27,7 @@ import static org.hawkular.inventory.api.filters.With.id;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 import org.hawkular.inventory.api.Data;
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
@@ -71,17 +74,7 @@ public final class BaseResources {
         protected EntityAndPendingNotifications<Resource> wireUpNewEntity(BE entity,
                 Resource.Blueprint blueprint, CanonicalPath parentPath, BE parent) {
 
-            BE resourceTypeObject;
-            CanonicalPath resourceTypePath = null;
-            try {
-                CanonicalPath tenant = CanonicalPath.of().tenant(parentPath.ids().getTenantId()).get();
-                resourceTypePath = Util.canonicalize(blueprint.getResourceTypePath(), tenant,
-                        parentPath, ResourceType.class);
-                resourceTypeObject = context.backend.find(resourceTypePath);
-            } catch (ElementNotFoundException e) {
-                throw new IllegalArgumentException("Resource type '" + blueprint.getResourceTypePath() + "' not found" +
-                        " when resolved to '" + resourceTypePath + "'.");
-            }
+            BE resourceTypeObject = findResourceType(blueprint, parentPath);
 
             //specifically do NOT check relationship rules, here because defines cannot be created "manually".
             //here we "know what we are doing" and need to create the defines relationship to capture the
@@ -89,7 +82,7 @@ public final class BaseResources {
             BE r = context.backend.relate(resourceTypeObject, entity, defines.name(), null);
 
             CanonicalPath entityPath = context.backend.extractCanonicalPath(entity);
-            resourceTypePath = context.backend.extractCanonicalPath(resourceTypeObject);
+            CanonicalPath resourceTypePath = context.backend.extractCanonicalPath(resourceTypeObject);
 
             ResourceType resourceType = context.backend.convert(resourceTypeObject, ResourceType.class);
 
@@ -129,11 +122,40 @@ public final class BaseResources {
 
         @Override
         public Resources.Single create(Resource.Blueprint blueprint) throws EntityAlreadyExistsException {
+            checkBlueprint(blueprint);
+            return new Single<>(context.replacePath(doCreate(blueprint)));
+        }
+
+        @Override
+        protected void checkBlueprint(Resource.Blueprint blueprint) {
             if (blueprint.getResourceTypePath() == null) {
                 throw new IllegalArgumentException("ResourceType path is null");
             }
+        }
 
-            return new Single<>(context.replacePath(doCreate(blueprint)));
+        @Override
+        protected void checkReferences(Resource.Blueprint blueprint, CanonicalPath parentPath) {
+            findResourceType(blueprint, parentPath);
+        }
+
+        private BE findResourceType(Resource.Blueprint blueprint, CanonicalPath parentPath) {
+            CanonicalPath resourceTypePath = null;
+            try {
+                CanonicalPath tenant = CanonicalPath.of().tenant(parentPath.ids().getTenantId()).get();
+                resourceTypePath = Util.canonicalize(blueprint.getResourceTypePath(), tenant,
+                        parentPath, ResourceType.class);
+                return context.backend.find(resourceTypePath);
+            } catch (ElementNotFoundException e) {
+                throw new IllegalArgumentException("Resource type '" + blueprint.getResourceTypePath() + "' not found" +
+                        " when resolved to '" + resourceTypePath + "'.");
+            }
+        }
+
+        @Override
+        public List<Resources.Single> createAll(List<Resource.Blueprint> blueprints,
+                BiConsumer<Resource.Blueprint, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new Single<>(context.replacePath(q))).collect(toList());
         }
     }
 
@@ -16,11 +16,16 @@
  */
 package org.hawkular.inventory.base;
 
+import static java.util.stream.Collectors.toList;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.filters.Related.by;
 import static org.hawkular.inventory.api.filters.With.id;
 import static org.hawkular.inventory.api.filters.With.type;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Environments;
@@ -80,6 +85,13 @@ public final class BaseTenants {
         public Tenants.Single create(Tenant.Blueprint blueprint) throws EntityAlreadyExistsException {
             return new Single<>(context.replacePath(doCreate(blueprint)));
         }
+
+        @Override
+        public List<Tenants.Single> createAll(List<Tenant.Blueprint> blueprints,
+                BiConsumer<Tenant.Blueprint, RuntimeException> failureHandler) {
+            return doCreateAll(blueprints, failureHandler).stream()
+                    .map(q -> new Single<>(context.replacePath(q))).collect(toList());
+        }
     }
 
     public static class ReadContained<BE> extends Traversal<BE, Tenant> implements Tenants.ReadContained {
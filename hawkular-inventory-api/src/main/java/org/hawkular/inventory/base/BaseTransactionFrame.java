@@ -17,6 +17,7 @@
 package org.hawkular.inventory.base;
 
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.InventoryMetrics;
 import org.hawkular.inventory.api.TransactionFrame;
 import org.hawkular.inventory.base.spi.CommitFailureException;
 import org.hawkular.inventory.base.spi.InventoryBackend;
@@ -31,14 +32,20 @@ final class BaseTransactionFrame<E> implements TransactionFrame {
     private Inventory boundInventory;
     private NoncommittingBackend<E> noncommittingBackend;
     private final int maxRetries;
+    private final InventoryMetrics metrics;
+    private final SchemaCache schemaCache;
 
     BaseTransactionFrame(InventoryBackend<E> origBackend, ObservableContext observableContext,
                          TraversalContext<?, ?> traversalContext) {
         this.origBackend = origBackend;
         this.maxRetries = traversalContext.getTransactionRetriesCount();
+        this.metrics = traversalContext.configuration.getMetrics();
         noncommittingBackend = new NoncommittingBackend<>(origBackend, true);
+        //the schemas changed in the frame are only committed with the frame, so the rest of the world must not see
+        //the invalidations of their cached versions before that
+        schemaCache = traversalContext.inventory.getSchemaCache().forTransactionFrame();
         boundInventory = new BaseInventory.Initialized<>(noncommittingBackend, observableContext,
-                traversalContext.configuration);
+                traversalContext.configuration, schemaCache);
         reset();
     }
 
@@ -50,18 +57,21 @@ final class BaseTransactionFrame<E> implements TransactionFrame {
                     t.execute(p);
                 }
                 return null;
-            }, maxRetries);
+            }, maxRetries, metrics);
             origBackend.commit(transaction);
+            schemaCache.frameCommitted();
         } catch (CommitFailureException e) {
             throw new CommitException(e);
         } finally {
             noncommittingBackend.clearRecordedPayloads();
+            schemaCache.frameRolledBack();
         }
     }
 
     @Override
     public void rollback() {
         origBackend.rollback(transaction);
+        schemaCache.frameRolledBack();
         reset();
     }
 
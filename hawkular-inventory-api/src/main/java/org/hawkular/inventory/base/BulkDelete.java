@@ -0,0 +1,294 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import static org.hawkular.inventory.api.Action.deleted;
+import static org.hawkular.inventory.api.Relationships.Direction.both;
+import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.base.spi.CommitFailureException;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+
+/**
+ * Deletes an entity together with everything it (transitively) contains.
+ *
+ * <p>The containment tree is walked depth-first and the entities are deleted "bottom-up", i.e. each entity only after
+ * all its children. The entities are converted for the purposes of the notifications and deleted in chunks so that
+ * only a chunk worth of backend elements is kept around at any time.
+ *
+ * <p>The entities that act as definitions of other entities (e.g. resource types) and their ancestors are deleted
+ * last, because the entities they define might still need them to be converted.
+ *
+ * <p>If the batch size is positive, the transaction is committed after each batch of deleted entities, the
+ * notifications about the batch are sent out right after that and a new transaction is started for the next batch.
+ * Only a batch worth of converted entities and relationships is therefore kept in memory. Because the deletion
+ * proceeds bottom-up, the committed state never contains an entity whose parent has already been deleted. The checks
+ * whether some of the deleted entities define entities that would not be deleted are performed up front in that case
+ * so that the delete doesn't fail after some batches have been committed already.
+ *
+ * <p>If the batch size is not positive, everything is deleted in the single transaction provided and the notifications
+ * are sent out after it is committed. The notifications must not be sent out before the commit, so the converted
+ * entities and relationships are kept in memory until then. The memory needed for the notifications is therefore
+ * proportional to the size of the deleted subtree in this mode and the batch size should be used to bound it.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class BulkDelete<BE> {
+    /**
+     * The number of entities converted and deleted at a time if the delete is not committed in batches.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private final TraversalContext<BE, ?> context;
+    private final InventoryBackend.Transaction transaction;
+    private InventoryBackend.Transaction currentTransaction;
+    private final BE root;
+    private final int batchSize;
+
+    private final List<BE> chunk = new ArrayList<>();
+    private final List<Relationship> deletedRelationships = new ArrayList<>();
+    private final List<Object> deletedEntities = new ArrayList<>();
+
+    /**
+     * @param context     the context to use
+     * @param transaction the transaction the delete runs in
+     * @param root        the entity to delete
+     * @param batchSize   the number of entities to delete in a single transaction, non-positive means everything
+     *                    is deleted in the provided transaction
+     */
+    BulkDelete(TraversalContext<BE, ?> context, InventoryBackend.Transaction transaction, BE root, int batchSize) {
+        this.context = context;
+        this.transaction = transaction;
+        this.currentTransaction = transaction;
+        this.root = root;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Performs the delete and commits the transaction.
+     *
+     * <p>If the delete fails, it is up to the caller to roll back the transaction provided in the constructor. The
+     * transactions started for the subsequent batches are rolled back here.
+     *
+     * @throws IllegalArgumentException if some of the deleted entities define entities that are not deleted
+     * @throws CommitFailureException   if committing the transaction fails
+     */
+    void execute() throws CommitFailureException {
+        try {
+            deleteAll();
+        } catch (Throwable t) {
+            if (currentTransaction != transaction) {
+                context.backend.rollback(currentTransaction);
+            }
+            throw t;
+        }
+    }
+
+    private void deleteAll() throws CommitFailureException {
+        if (batchSize > 0) {
+            checkDefinitionsUpFront();
+        }
+
+        List<BE> deferred = new ArrayList<>();
+
+        Deque<Frame<BE>> stack = new ArrayDeque<>();
+        stack.push(new Frame<>(root, children(root)));
+
+        while (!stack.isEmpty()) {
+            Frame<BE> frame = stack.peek();
+
+            if (frame.next < frame.children.size()) {
+                BE child = frame.children.get(frame.next);
+                //don't hold on to the elements we no longer need
+                frame.children.set(frame.next++, null);
+                stack.push(new Frame<>(child, children(child)));
+                continue;
+            }
+
+            stack.pop();
+
+            boolean defer = frame.hasDeferredDescendant
+                    || context.backend.hasRelationship(frame.element, outgoing, defines.name());
+
+            if (defer) {
+                deferred.add(frame.element);
+                if (!stack.isEmpty()) {
+                    stack.peek().hasDeferredDescendant = true;
+                }
+            } else {
+                add(frame.element);
+            }
+        }
+
+        flush();
+
+        //the deferred list is in post-order, too, so we still delete the children before their parents
+        for (BE e : deferred) {
+            if (context.backend.hasRelationship(e, outgoing, defines.name())) {
+                throw definesUndeletedEntities(e);
+            }
+            add(e);
+        }
+
+        flush();
+
+        //in the batch mode, this commits the transaction of the next batch, which is empty at this point
+        context.backend.commit(currentTransaction);
+        sendNotifications();
+    }
+
+    private void add(BE element) throws CommitFailureException {
+        chunk.add(element);
+
+        if (chunk.size() >= (batchSize > 0 ? batchSize : CHUNK_SIZE)) {
+            flush();
+        }
+    }
+
+    private void flush() throws CommitFailureException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        //we have to convert the elements prior to actually deleting them in the backend so that all information and
+        //relationships are still available.
+        Set<BE> rels = new HashSet<>();
+        for (BE e : chunk) {
+            //not only the entity, but also its relationships are going to disappear
+            rels.addAll(context.backend.getRelationships(e, both));
+        }
+
+        for (BE r : rels) {
+            if (Util.isRepresentableInAPI(context, r)) {
+                deletedRelationships.add(context.backend.convert(r, Relationship.class));
+            }
+        }
+
+        for (BE e : chunk) {
+            if (Util.isRepresentableInAPI(context, e)) {
+                deletedEntities.add(context.backend.convert(e, context.backend.extractType(e)));
+            }
+        }
+
+        for (BE e : chunk) {
+            context.backend.delete(e);
+        }
+
+        chunk.clear();
+
+        if (batchSize > 0) {
+            context.backend.commit(currentTransaction);
+            sendNotifications();
+            currentTransaction = context.backend.startTransaction(true);
+        }
+    }
+
+    private void sendNotifications() {
+        //report the relationship deletions first - it would be strange to report deletion of a relationship after
+        //reporting that an entity on one end of the relationship has been deleted
+        for (Relationship r : deletedRelationships) {
+            context.notify(r, deleted());
+        }
+
+        for (Object e : deletedEntities) {
+            BaseData.Validator.invalidateSchema(context, e);
+            context.notify(e, deleted());
+        }
+
+        deletedRelationships.clear();
+        deletedEntities.clear();
+    }
+
+    private void checkDefinitionsUpFront() {
+        CanonicalPath rootPath = context.backend.extractCanonicalPath(root);
+
+        Deque<BE> todo = new ArrayDeque<>();
+        todo.push(root);
+
+        while (!todo.isEmpty()) {
+            BE e = todo.pop();
+
+            if (context.backend.hasRelationship(e, outgoing, defines.name())) {
+                for (BE rel : context.backend.getRelationships(e, outgoing, defines.name())) {
+                    CanonicalPath definedPath = context.backend.extractCanonicalPath(
+                            context.backend.getRelationshipTarget(rel));
+                    if (!isUnder(definedPath, rootPath)) {
+                        throw definesUndeletedEntities(e);
+                    }
+                }
+            }
+
+            children(e).forEach(todo::push);
+        }
+    }
+
+    private List<BE> children(BE element) {
+        Set<BE> rels = context.backend.getRelationships(element, outgoing, contains.name());
+        List<BE> ret = new ArrayList<>(rels.size());
+        for (BE rel : rels) {
+            ret.add(context.backend.getRelationshipTarget(rel));
+        }
+        return ret;
+    }
+
+    private IllegalArgumentException definesUndeletedEntities(BE definingElement) {
+        //we avoid the convert() function here because it assumes the containing entities of the passed in
+        //entity exist. This might not be true during the delete because the parents of the defining entity might have
+        //been deleted already.
+        String rootId = context.backend.extractId(root);
+        String definingId = context.backend.extractId(definingElement);
+        String rootType = context.entityClass.getSimpleName();
+        String definingType = context.backend.extractType(definingElement).getSimpleName();
+
+        String rootEntity = "Entity[id=" + rootId + ", type=" + rootType + "]";
+        String definingEntity = "Entity[id=" + definingId + ", type=" + definingType + "]";
+
+        return new IllegalArgumentException("Could not delete entity " + rootEntity + ". The entity " +
+                definingEntity + ", which it (indirectly) contains, acts as a definition for some " +
+                "entities that are not deleted along with it, which would leave them without a " +
+                "definition. This is illegal.");
+    }
+
+    private static boolean isUnder(CanonicalPath path, CanonicalPath ancestor) {
+        int distance = path.getDepth() - ancestor.getDepth();
+        return distance >= 0 && path.up(distance).equals(ancestor);
+    }
+
+    private static final class Frame<BE> {
+        final BE element;
+        final List<BE> children;
+        int next;
+        boolean hasDeferredDescendant;
+
+        Frame(BE element, List<BE> children) {
+            this.element = element;
+            this.children = children;
+        }
+    }
+}
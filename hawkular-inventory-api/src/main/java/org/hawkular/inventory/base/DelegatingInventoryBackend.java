@@ -18,20 +18,25 @@ package org.hawkular.inventory.base;
 
 import java.io.InputStream;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
 import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Blueprint;
 import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.DataEntity;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.RelativePath;
 import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.model.StructuredDataChange;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.spi.CommitFailureException;
+import org.hawkular.inventory.base.spi.ContainedEntity;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 
@@ -75,6 +80,11 @@ public class DelegatingInventoryBackend<E> implements InventoryBackend<E> {
         return backend.descendToData(dataEntityRepresentation, dataPath);
     }
 
+    @Override
+    public StructuredData loadData(E dataEntityRepresentation, RelativePath dataPath, boolean recurse) {
+        return backend.loadData(dataEntityRepresentation, dataPath, recurse);
+    }
+
     @Override
     public CanonicalPath extractCanonicalPath(E entityRepresentation) {
         return backend.extractCanonicalPath(entityRepresentation);
@@ -100,6 +110,16 @@ public class DelegatingInventoryBackend<E> implements InventoryBackend<E> {
         return backend.find(element);
     }
 
+    @Override
+    public boolean exists(CanonicalPath element) {
+        return backend.exists(element);
+    }
+
+    @Override
+    public long count(Query query) {
+        return backend.count(query);
+    }
+
     @Override
     public E querySingle(Query query) {
         return backend.querySingle(query);
@@ -151,6 +171,24 @@ public class DelegatingInventoryBackend<E> implements InventoryBackend<E> {
         return backend.getTransitiveClosureOver(startingPoint, direction, relationshipNames);
     }
 
+    @Override
+    public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                         TransitiveClosure closure, Class<T> clazz) {
+        return backend.getTransitiveClosureOver(startingPoint, closure, clazz);
+    }
+
+    @Override
+    public <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                     TransitiveClosure closure, Class<T> clazz,
+                                                                     Pager pager) {
+        return backend.getTransitiveClosureOver(startingPoint, closure, clazz, pager);
+    }
+
+    @Override
+    public Iterator<E> getTransitiveClosureOver(E startingPoint, TransitiveClosure closure) {
+        return backend.getTransitiveClosureOver(startingPoint, closure);
+    }
+
     @Override
     public boolean hasRelationship(E entity, Relationships.Direction direction,
                                    String relationshipName) {
@@ -168,11 +206,21 @@ public class DelegatingInventoryBackend<E> implements InventoryBackend<E> {
         return backend.persist(path, blueprint);
     }
 
+    @Override
+    public List<ContainedEntity<E>> persistAll(E parent, Map<CanonicalPath, ? extends Blueprint> blueprints) {
+        return backend.persistAll(parent, blueprints);
+    }
+
     @Override
     public E persist(StructuredData structuredData) {
         return backend.persist(structuredData);
     }
 
+    @Override
+    public E persist(StructuredData structuredData, DataEntity.Role role) {
+        return backend.persist(structuredData, role);
+    }
+
     @Override
     public Page<E> query(Query query, Pager pager) {
         return backend.query(query, pager);
@@ -212,6 +260,11 @@ public class DelegatingInventoryBackend<E> implements InventoryBackend<E> {
         backend.update(entity, update);
     }
 
+    @Override
+    public List<StructuredDataChange> updateData(E dataEntity, DataEntity.Update update) {
+        return backend.updateData(dataEntity, update);
+    }
+
     @Override
     public void close() throws Exception {
         backend.close();
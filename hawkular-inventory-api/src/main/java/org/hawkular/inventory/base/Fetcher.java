@@ -79,6 +79,22 @@ abstract class Fetcher<BE, E extends AbstractElement<?, U>, U extends AbstractEl
         });
     }
 
+    /**
+     * Checks for the existence of the entity without converting the backend representation to the entity, unless
+     * a {@link org.hawkular.inventory.api.ResultFilter} is configured that needs the entity to decide on its
+     * applicability.
+     *
+     * @return true if the entity exists, false otherwise
+     */
+    @Override
+    public boolean exists() {
+        if (context.configuration.getResultFilter() != null) {
+            return ResolvableToSingle.super.exists();
+        }
+
+        return readOnly(() -> context.backend.querySingle(context.select().get()) != null);
+    }
+
     @Override
     public void delete() {
         Util.delete(context, context.select().get(), this::cleanup);
@@ -144,6 +160,22 @@ abstract class Fetcher<BE, E extends AbstractElement<?, U>, U extends AbstractEl
         });
     }
 
+    /**
+     * Counts the entities in the backend without converting them, unless a
+     * {@link org.hawkular.inventory.api.ResultFilter} is configured that needs the entities to decide on their
+     * applicability.
+     *
+     * @return the number of entities
+     */
+    @Override
+    public long count() {
+        if (context.configuration.getResultFilter() != null) {
+            return ResolvableToMany.super.count();
+        }
+
+        return readOnly(() -> context.backend.count(context.select().get()));
+    }
+
     @SuppressWarnings("unchecked")
     private void throwNotFoundException() {
         if (Entity.class.isAssignableFrom(context.entityClass)) {
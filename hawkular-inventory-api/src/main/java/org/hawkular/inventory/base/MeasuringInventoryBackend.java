@@ -0,0 +1,296 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import static org.hawkular.inventory.api.InventoryMetrics.Operation.commit;
+import static org.hawkular.inventory.api.InventoryMetrics.Operation.find;
+import static org.hawkular.inventory.api.InventoryMetrics.Operation.persist;
+import static org.hawkular.inventory.api.InventoryMetrics.Operation.relate;
+import static org.hawkular.inventory.api.InventoryMetrics.Operation.traverse;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.hawkular.inventory.api.InventoryMetrics;
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.TransitiveClosure;
+import org.hawkular.inventory.api.model.Blueprint;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.PageContext;
+import org.hawkular.inventory.api.paging.Pager;
+import org.hawkular.inventory.base.spi.CommitFailureException;
+import org.hawkular.inventory.base.spi.ContainedEntity;
+import org.hawkular.inventory.base.spi.ElementNotFoundException;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+
+/**
+ * Measures the latencies of the backend operations and reports them to the configured {@link InventoryMetrics}.
+ *
+ * <p>The queries are evaluated lazily by the backends, so the latency of a query returning a page of results is
+ * measured until the page is depleted or closed, whichever comes first. The same goes for the iterators over the
+ * transitive closures, which are measured until they are depleted.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class MeasuringInventoryBackend<E> extends DelegatingInventoryBackend<E> {
+
+    private final InventoryMetrics metrics;
+
+    MeasuringInventoryBackend(InventoryBackend<E> backend, InventoryMetrics metrics) {
+        super(backend);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public E find(CanonicalPath element) throws ElementNotFoundException {
+        long start = System.nanoTime();
+        try {
+            return super.find(element);
+        } finally {
+            metrics.recordLatency(find, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public long count(Query query) {
+        long start = System.nanoTime();
+        try {
+            return super.count(query);
+        } finally {
+            metrics.recordLatency(traverse, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E querySingle(Query query) {
+        long start = System.nanoTime();
+        try {
+            return super.querySingle(query);
+        } finally {
+            metrics.recordLatency(traverse, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E traverseToSingle(E startingPoint, Query query) {
+        long start = System.nanoTime();
+        try {
+            return super.traverseToSingle(startingPoint, query);
+        } finally {
+            metrics.recordLatency(traverse, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Page<E> query(Query query, Pager pager) {
+        long start = System.nanoTime();
+        return new MeasuredPage<>(super.query(query, pager), start);
+    }
+
+    @Override
+    public <T> Page<T> query(Query query, Pager pager, Function<E, T> conversion, Function<T, Boolean> filter) {
+        long start = System.nanoTime();
+        return new MeasuredPage<>(super.query(query, pager, conversion, filter), start);
+    }
+
+    @Override
+    public Page<E> traverse(E startingPoint, Query query, Pager pager) {
+        long start = System.nanoTime();
+        return new MeasuredPage<>(super.traverse(startingPoint, query, pager), start);
+    }
+
+    @Override
+    public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                         Relationships.Direction direction,
+                                                                         Class<T> clazz, String... relationshipNames) {
+        long start = System.nanoTime();
+        return new MeasuredIterator<>(super.getTransitiveClosureOver(startingPoint, direction, clazz,
+                relationshipNames), start);
+    }
+
+    @Override
+    public Iterator<E> getTransitiveClosureOver(E startingPoint, Relationships.Direction direction,
+                                                String... relationshipNames) {
+        long start = System.nanoTime();
+        return new MeasuredIterator<>(super.getTransitiveClosureOver(startingPoint, direction, relationshipNames),
+                start);
+    }
+
+    @Override
+    public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                         TransitiveClosure closure, Class<T> clazz) {
+        long start = System.nanoTime();
+        return new MeasuredIterator<>(super.getTransitiveClosureOver(startingPoint, closure, clazz), start);
+    }
+
+    @Override
+    public <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                     TransitiveClosure closure, Class<T> clazz,
+                                                                     Pager pager) {
+        long start = System.nanoTime();
+        return new MeasuredPage<>(super.getTransitiveClosureOver(startingPoint, closure, clazz, pager), start);
+    }
+
+    @Override
+    public Iterator<E> getTransitiveClosureOver(E startingPoint, TransitiveClosure closure) {
+        long start = System.nanoTime();
+        return new MeasuredIterator<>(super.getTransitiveClosureOver(startingPoint, closure), start);
+    }
+
+    @Override
+    public E persist(CanonicalPath path, Blueprint blueprint) {
+        long start = System.nanoTime();
+        try {
+            return super.persist(path, blueprint);
+        } finally {
+            metrics.recordLatency(persist, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<ContainedEntity<E>> persistAll(E parent, Map<CanonicalPath, ? extends Blueprint> blueprints) {
+        long start = System.nanoTime();
+        try {
+            return super.persistAll(parent, blueprints);
+        } finally {
+            metrics.recordLatency(persist, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E persist(StructuredData structuredData) {
+        long start = System.nanoTime();
+        try {
+            return super.persist(structuredData);
+        } finally {
+            metrics.recordLatency(persist, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E persist(StructuredData structuredData, DataEntity.Role role) {
+        long start = System.nanoTime();
+        try {
+            return super.persist(structuredData, role);
+        } finally {
+            metrics.recordLatency(persist, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public E relate(E sourceEntity, E targetEntity, String name, Map<String, Object> properties) {
+        long start = System.nanoTime();
+        try {
+            return super.relate(sourceEntity, targetEntity, name, properties);
+        } finally {
+            metrics.recordLatency(relate, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void commit(Transaction transaction) throws CommitFailureException {
+        long start = System.nanoTime();
+        try {
+            super.commit(transaction);
+        } finally {
+            metrics.recordLatency(commit, System.nanoTime() - start);
+        }
+    }
+
+    private final class MeasuredPage<T> extends Page<T> {
+        private final Page<T> wrapped;
+        private final long start;
+        private boolean recorded;
+
+        MeasuredPage(Page<T> wrapped, long start) {
+            super(null, -1);
+            this.wrapped = wrapped;
+            this.start = start;
+        }
+
+        @Override
+        public PageContext getPageContext() {
+            return wrapped.getPageContext();
+        }
+
+        @Override
+        public long getTotalSize() {
+            return wrapped.getTotalSize();
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean ret = wrapped.hasNext();
+            if (!ret) {
+                record();
+            }
+            return ret;
+        }
+
+        @Override
+        public T next() {
+            return wrapped.next();
+        }
+
+        @Override
+        public void close() throws IOException {
+            record();
+            wrapped.close();
+        }
+
+        private void record() {
+            if (!recorded) {
+                recorded = true;
+                metrics.recordLatency(traverse, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private final class MeasuredIterator<T> implements Iterator<T> {
+        private final Iterator<T> wrapped;
+        private final long start;
+        private boolean recorded;
+
+        MeasuredIterator(Iterator<T> wrapped, long start) {
+            this.wrapped = wrapped;
+            this.start = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean ret = wrapped.hasNext();
+            if (!ret && !recorded) {
+                recorded = true;
+                metrics.recordLatency(traverse, System.nanoTime() - start);
+            }
+            return ret;
+        }
+
+        @Override
+        public T next() {
+            return wrapped.next();
+        }
+    }
+}
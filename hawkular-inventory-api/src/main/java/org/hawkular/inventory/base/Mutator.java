@@ -24,10 +24,14 @@ import static org.hawkular.inventory.api.filters.With.id;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
+import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.model.AbstractElement;
@@ -37,6 +41,7 @@ import org.hawkular.inventory.api.model.ElementTypeVisitor;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.base.spi.ContainedEntity;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 
 /**
@@ -77,16 +82,11 @@ abstract class Mutator<BE, E extends Entity<?, U>, B extends Blueprint, U extend
             EntityAndPendingNotifications<E> newEntity;
             BE containsRel = null;
 
-            CanonicalPath entityPath;
-            if (parent == null) {
-                if (context.entityClass == Tenant.class) {
-                    entityPath = CanonicalPath.of().tenant(id).get();
-                } else {
-                    throw new IllegalStateException("Could not find the parent of the entity to be created," +
-                            "yet the entity is not a tenant: " + blueprint);
-                }
-            } else {
-                entityPath = parentCanonicalPath.extend(context.entityClass, id).get();
+            CanonicalPath entityPath = getEntityPath(parentCanonicalPath, id, blueprint);
+
+            //fail early and independently of whether the backend enforces the uniqueness of the canonical paths
+            if (context.backend.exists(entityPath)) {
+                throw new EntityAlreadyExistsException(id, Query.filters(Query.to(entityPath)));
             }
 
             BE entityObject = context.backend.persist(entityPath, blueprint);
@@ -121,6 +121,118 @@ abstract class Mutator<BE, E extends Entity<?, U>, B extends Blueprint, U extend
         });
     }
 
+    /**
+     * A helper method to be used in the implementation of the
+     * {@link org.hawkular.inventory.api.WriteInterface#createAll(List, BiConsumer)} method.
+     *
+     * <p>As opposed to calling {@link #doCreate(Blueprint)} for each of the blueprints, all the entities are created in
+     * a single transaction, the parent is looked up only once and the new entities are persisted using
+     * {@link org.hawkular.inventory.base.spi.InventoryBackend#persistAll(Object, Map)}.
+     *
+     * <p>The entities with an invalid blueprint, that already exist or that refer to entities that don't exist (see
+     * {@link #checkReferences(Blueprint, CanonicalPath)}) are reported to the failure handler and skipped. This is
+     * checked before anything is persisted. Any other failure of a single entity, e.g. while checking its blueprint or
+     * wiring it up, is also reported to the failure handler. If the entity has already been persisted by then, it is
+     * deleted again, so that it doesn't remain half-created. Only the failures that cannot be attributed to a single
+     * entity, like a failure to persist the entities or to commit, fail the creation of all of them. Note that
+     * the failure handler can be called more than once for a single blueprint if the transaction is retried.
+     *
+     * @param blueprints     the blueprints of the new entities
+     * @param failureHandler the handler to report the blueprints of the entities that could not be created to
+     * @return the queries to the newly created entities in the order of the blueprints
+     */
+    protected final List<Query> doCreateAll(List<B> blueprints, BiConsumer<B, RuntimeException> failureHandler) {
+        return mutating((transaction) -> {
+            BE parent = getParent();
+            CanonicalPath parentCanonicalPath = parent == null ? null : context.backend.extractCanonicalPath(parent);
+
+            Map<CanonicalPath, B> toPersist = new LinkedHashMap<>();
+            for (B blueprint : blueprints) {
+                try {
+                    checkBlueprint(blueprint);
+
+                    String id = getProposedId(blueprint);
+                    CanonicalPath entityPath = getEntityPath(parentCanonicalPath, id, blueprint);
+
+                    if (toPersist.containsKey(entityPath) || context.backend.exists(entityPath)) {
+                        throw new EntityAlreadyExistsException(id, Query.filters(Query.to(entityPath)));
+                    }
+
+                    checkReferences(blueprint, parentCanonicalPath);
+
+                    toPersist.put(entityPath, blueprint);
+                } catch (RuntimeException e) {
+                    failureHandler.accept(blueprint, e);
+                }
+            }
+
+            //the custom relationships can also point to the other entities being created, so this can only be checked
+            //once we know which of them are going to be created
+            for (Iterator<Map.Entry<CanonicalPath, B>> it = toPersist.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<CanonicalPath, B> e = it.next();
+                if (!(e.getValue() instanceof Entity.Blueprint)) {
+                    continue;
+                }
+
+                Entity.Blueprint b = (Entity.Blueprint) e.getValue();
+                try {
+                    checkRelationshipEnds(b.getOutgoingRelationships(), toPersist.keySet());
+                    checkRelationshipEnds(b.getIncomingRelationships(), toPersist.keySet());
+                } catch (EntityNotFoundException ex) {
+                    it.remove();
+                    failureHandler.accept(e.getValue(), ex);
+                }
+            }
+
+            List<ContainedEntity<BE>> persisted = context.backend.persistAll(parent, toPersist);
+
+            List<Notification<?, ?>> notifications = new ArrayList<>();
+            List<Query> ret = new ArrayList<>(persisted.size());
+
+            Iterator<Map.Entry<CanonicalPath, B>> blueprintIt = toPersist.entrySet().iterator();
+            for (ContainedEntity<BE> ce : persisted) {
+                Map.Entry<CanonicalPath, B> e = blueprintIt.next();
+                B blueprint = e.getValue();
+
+                List<Notification<?, ?>> entityNotifications = new ArrayList<>();
+                try {
+                    EntityAndPendingNotifications<E> newEntity = wireUpNewEntity(ce.getEntity(), blueprint,
+                            parentCanonicalPath, parent);
+
+                    entityNotifications.add(new Notification<>(newEntity.getEntity(), newEntity.getEntity(),
+                            created()));
+                    if (ce.getContainsRelationship() != null) {
+                        Relationship rel = context.backend.convert(ce.getContainsRelationship(), Relationship.class);
+                        entityNotifications.add(new Notification<>(rel, rel, created()));
+                    }
+                    entityNotifications.addAll(newEntity.getNotifications());
+
+                    if (blueprint instanceof Entity.Blueprint) {
+                        Entity.Blueprint b = (Entity.Blueprint) blueprint;
+                        createCustomRelationships(ce.getEntity(), outgoing, b.getOutgoingRelationships(),
+                                entityNotifications);
+                        createCustomRelationships(ce.getEntity(), incoming, b.getIncomingRelationships(),
+                                entityNotifications);
+                    }
+                } catch (RuntimeException ex) {
+                    //deleting the entity also deletes the relationships created for it so far
+                    context.backend.delete(ce.getEntity());
+                    failureHandler.accept(blueprint, ex);
+                    continue;
+                }
+
+                notifications.addAll(entityNotifications);
+                ret.add(Query.to(e.getKey()));
+            }
+
+            context.backend.commit(transaction);
+
+            notifications.forEach(context::notify);
+
+            return ret;
+        });
+    }
+
     public final void update(Id id, U update) throws EntityNotFoundException {
         Query q = id == null ? context.select().get() : context.select().with(id(id.toString())).get();
         Util.update(context, q, update, (e, u) -> preUpdate(id, e, u));
@@ -159,6 +271,55 @@ abstract class Mutator<BE, E extends Entity<?, U>, B extends Blueprint, U extend
 
     }
 
+    /**
+     * A hook to check the validity of the blueprint before an entity is created from it.
+     *
+     * <p>By default this does nothing.
+     *
+     * @param blueprint the blueprint of the new entity
+     * @throws IllegalArgumentException if the blueprint is not valid
+     */
+    protected void checkBlueprint(B blueprint) {
+
+    }
+
+    /**
+     * A hook to check that the entities the blueprint refers to exist. This is only called from
+     * {@link #doCreateAll(List, BiConsumer)} inside the transaction, before any of the entities is persisted, so that
+     * a single wrong reference doesn't fail the creation of all the other entities. When creating a single entity,
+     * such references are checked while wiring up the new entity.
+     *
+     * <p>By default this does nothing.
+     *
+     * @param blueprint  the blueprint of the new entity
+     * @param parentPath the canonical path of the parent of the new entity or null if the entity has no parent
+     * @throws IllegalArgumentException if some of the referenced entities doesn't exist
+     */
+    protected void checkReferences(B blueprint, CanonicalPath parentPath) {
+
+    }
+
+    private void checkRelationshipEnds(Map<String, Set<CanonicalPath>> otherEnds, Set<CanonicalPath> created) {
+        otherEnds.values().forEach(ends -> ends.forEach(end -> {
+            if (!created.contains(end) && !context.backend.exists(end)) {
+                throw new EntityNotFoundException(Query.filters(Query.to(end)));
+            }
+        }));
+    }
+
+    private CanonicalPath getEntityPath(CanonicalPath parentCanonicalPath, String id, B blueprint) {
+        if (parentCanonicalPath == null) {
+            if (context.entityClass == Tenant.class) {
+                return CanonicalPath.of().tenant(id).get();
+            } else {
+                throw new IllegalStateException("Could not find the parent of the entity to be created," +
+                        "yet the entity is not a tenant: " + blueprint);
+            }
+        } else {
+            return parentCanonicalPath.extend(context.entityClass, id).get();
+        }
+    }
+
     private BE getParent() {
         return ElementTypeVisitor.accept(context.entityClass, new ElementTypeVisitor.Simple<BE, Void>() {
             @SuppressWarnings("unchecked")
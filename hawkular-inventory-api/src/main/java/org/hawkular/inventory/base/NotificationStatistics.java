@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the notifications sent out to the observers of the inventory.
+ *
+ * <p>The queue depth and the lag are only meaningful if the notifications are dispatched asynchronously (see
+ * {@link BaseInventory#NOTIFICATIONS_ASYNC}). With synchronous dispatch the notifications are delivered on the
+ * committing thread and therefore are never queued.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public final class NotificationStatistics {
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong lastLagNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    NotificationStatistics() {
+    }
+
+    void enqueued() {
+        queueDepth.incrementAndGet();
+    }
+
+    void dequeued(long lagNanos) {
+        queueDepth.decrementAndGet();
+        recordLag(lagNanos);
+    }
+
+    void dispatched() {
+        dispatched.incrementAndGet();
+    }
+
+    /**
+     * Records a notification that was counted as {@link #enqueued()} but that in the end didn't make it to the queue.
+     */
+    void dropped() {
+        queueDepth.decrementAndGet();
+        dropped.incrementAndGet();
+    }
+
+    private void recordLag(long lagNanos) {
+        lastLagNanos.set(lagNanos);
+        long max;
+        do {
+            max = maxLagNanos.get();
+        } while (lagNanos > max && !maxLagNanos.compareAndSet(max, lagNanos));
+    }
+
+    /**
+     * @return the number of notifications waiting to be dispatched to the observers
+     */
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the number of notifications dispatched to the observers so far
+     */
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * @return the number of notifications that were dropped because the queue of some interest was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @param unit the time unit to return the lag in
+     * @return the time the most recently dispatched notification spent in the queue
+     */
+    public long getLastLag(TimeUnit unit) {
+        return unit.convert(lastLagNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param unit the time unit to return the lag in
+     * @return the longest time any notification spent in the queue
+     */
+    public long getMaxLag(TimeUnit unit) {
+        return unit.convert(maxLagNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "NotificationStatistics[queueDepth=" + queueDepth.get() + ", dispatched=" + dispatched.get()
+                + ", dropped=" + dropped.get() + ", lastLag=" + getLastLag(TimeUnit.MILLISECONDS) + "ms, maxLag="
+                + getMaxLag(TimeUnit.MILLISECONDS) + "ms]";
+    }
+}
@@ -16,13 +16,22 @@
  */
 package org.hawkular.inventory.base;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.hawkular.inventory.api.Action;
 import org.hawkular.inventory.api.Interest;
+import org.hawkular.inventory.api.InventoryMetrics;
 import org.hawkular.inventory.api.Log;
 
 import rx.Observable;
@@ -35,11 +44,74 @@ import rx.subjects.Subject;
 /**
  * Hold the observables corresponding to different interests for being notified about on inventory.
  *
+ * <p>By default the notifications are dispatched to the observers synchronously, on the thread that sends them out.
+ * Once {@link #dispatchAsynchronously(int, int, OverflowPolicy) configured} to do so, the notifications are put into
+ * a bounded queue per interest and dispatched on a separate thread pool instead. The notifications for a single
+ * interest are still dispatched in order and never concurrently.
+ *
  * @author Lukas Krejci
  * @since 0.0.1
  */
 final class ObservableContext {
+    /**
+     * The max number of notifications dispatched for a single interest before the dispatching thread is given up for
+     * other interests.
+     */
+    private static final int MAX_DISPATCH_BATCH = 64;
+
     private final Map<Interest<?, ?>, SubjectAndWrapper<?>> observables = new ConcurrentHashMap<>();
+    private final NotificationStatistics statistics = new NotificationStatistics();
+    private volatile InventoryMetrics metrics = InventoryMetrics.NOOP;
+    private volatile Map<MatchKey, SubjectAndWrapper<?>[]> matchIndex = new ConcurrentHashMap<>();
+
+    private volatile ExecutorService executor;
+    private volatile int queueSize;
+    private volatile OverflowPolicy overflowPolicy;
+
+    /**
+     * Switches this context to the asynchronous dispatch of notifications. Has no effect if the context already
+     * dispatches asynchronously.
+     *
+     * @param threads        the number of threads to dispatch the notifications on
+     * @param queueSize      the max number of pending notifications per interest
+     * @param overflowPolicy what to do with a notification if the queue of its interest is full
+     */
+    synchronized void dispatchAsynchronously(int threads, int queueSize, OverflowPolicy overflowPolicy) {
+        if (executor != null) {
+            return;
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger();
+
+        this.queueSize = queueSize;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "Hawkular Inventory Notifications " + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Stops the asynchronous dispatch. The notifications that are already queued are still dispatched.
+     */
+    synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    NotificationStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @param metrics the receiver of the times it took to dispatch the individual notifications
+     */
+    void setMetrics(InventoryMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     public <C> Observable<C> getObservableFor(Interest<C, ?> interest) {
         SubjectAndWrapper<C> sub = getSubjectAndWrapper(interest, true);
@@ -50,10 +122,71 @@ final class ObservableContext {
         return observables.containsKey(interest);
     }
 
+    /**
+     * Sends out the notification to all the interests that match the action and the object.
+     *
+     * @param action        the action that occurred
+     * @param object        the object on which the action occurred
+     * @param actionContext the description of the action
+     * @param <C>           the type of the action description (aka context)
+     * @param <T>           the type of the object on which the action occurred
+     */
     @SuppressWarnings("unchecked")
-    public <C, T> Iterator<Subject<C, C>> matchingSubjects(Action<C, T> action, T object) {
-        return observables.entrySet().stream().filter((e) -> e.getKey().matches(action, object))
-                .map((e) -> ((SubjectAndWrapper<C>) e.getValue()).subject).iterator();
+    public <C, T> void notify(Action<C, T> action, T object, C actionContext) {
+        if (object == null) {
+            return;
+        }
+
+        SubjectAndWrapper<?>[] subjects = matchingSubjects(action, object);
+        ExecutorService executor = this.executor;
+
+        for (SubjectAndWrapper<?> s : subjects) {
+            SubjectAndWrapper<C> sub = (SubjectAndWrapper<C>) s;
+            if (executor == null) {
+                deliver(sub, actionContext);
+            } else {
+                sub.getDispatcher().dispatch(actionContext);
+            }
+        }
+    }
+
+    private <C> void deliver(SubjectAndWrapper<C> target, C notification) {
+        InventoryMetrics metrics = this.metrics;
+        if (metrics == InventoryMetrics.NOOP) {
+            target.subject.onNext(notification);
+        } else {
+            long start = System.nanoTime();
+            target.subject.onNext(notification);
+            metrics.recordLatency(InventoryMetrics.Operation.notification, System.nanoTime() - start);
+        }
+        statistics.dispatched();
+    }
+
+    /**
+     * Looks up the subjects of the interests matching the action and the type of the object. The result of the
+     * (linear) search through all the interests is remembered for the combination of the action and the type so that
+     * subsequent notifications only do a single lookup. This is correct because
+     * {@link Interest#matches(Action, Object)} only depends on the type of the object.
+     */
+    private SubjectAndWrapper<?>[] matchingSubjects(Action<?, ?> action, Object object) {
+        return matchIndex.computeIfAbsent(new MatchKey(action, object.getClass()), k -> {
+            List<SubjectAndWrapper<?>> ret = new ArrayList<>();
+            for (Map.Entry<Interest<?, ?>, SubjectAndWrapper<?>> e : observables.entrySet()) {
+                Interest<?, ?> interest = e.getKey();
+                if (interest.matches(action, object)) {
+                    ret.add(e.getValue());
+                }
+            }
+            return ret.toArray(new SubjectAndWrapper<?>[ret.size()]);
+        });
+    }
+
+    /**
+     * Must be called after every modification of the {@link #observables} map. The matches computed before the
+     * modification end up in the discarded index and so can never be seen after the modification.
+     */
+    private void invalidateMatchIndex() {
+        matchIndex = new ConcurrentHashMap<>();
     }
 
     private <C> SubjectAndWrapper<C> getSubjectAndWrapper(Interest<C, ?> interest, boolean initialize) {
@@ -61,7 +194,10 @@ final class ObservableContext {
         SubjectAndWrapper<C> sub = (SubjectAndWrapper<C>) observables.get(interest);
 
         if (initialize && sub == null) {
-            SubscriptionTracker tracker = new SubscriptionTracker(() -> observables.remove(interest));
+            SubscriptionTracker tracker = new SubscriptionTracker(() -> {
+                observables.remove(interest);
+                invalidateMatchIndex();
+            });
             Subject<C, C> subject = PublishSubject.<C>create().toSerialized();
 
             //error handling:
@@ -71,8 +207,9 @@ final class ObservableContext {
             wrapper = subject.lift(new OperatorIgnoreError<>()).doOnSubscribe(tracker.onSubscribe())
                     .doOnUnsubscribe(tracker.onUnsubscribe());
 
-            sub = new SubjectAndWrapper<>(subject, wrapper);
+            sub = new SubjectAndWrapper<>(interest, subject, wrapper);
             observables.put(interest, sub);
+            invalidateMatchIndex();
         }
 
         return sub;
@@ -100,14 +237,161 @@ final class ObservableContext {
         }
     }
 
-    private static class SubjectAndWrapper<T> {
+    private class SubjectAndWrapper<T> {
+        final Interest<T, ?> interest;
         final Subject<T, T> subject;
         final Observable<T> wrapper;
+        private volatile AsyncDispatcher<T> dispatcher;
 
-        private SubjectAndWrapper(Subject<T, T> subject, Observable<T> wrapper) {
+        private SubjectAndWrapper(Interest<T, ?> interest, Subject<T, T> subject, Observable<T> wrapper) {
+            this.interest = interest;
             this.subject = subject;
             this.wrapper = wrapper;
         }
+
+        AsyncDispatcher<T> getDispatcher() {
+            if (dispatcher == null) {
+                synchronized (this) {
+                    if (dispatcher == null) {
+                        dispatcher = new AsyncDispatcher<>(this);
+                    }
+                }
+            }
+
+            return dispatcher;
+        }
+    }
+
+    /**
+     * Dispatches the notifications for a single interest. The dispatcher is only ever scheduled once at a time so that
+     * the observers of a single interest see the notifications in order.
+     */
+    private final class AsyncDispatcher<T> implements Runnable {
+        private final SubjectAndWrapper<T> target;
+        private final BlockingQueue<Pending<T>> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean dropping;
+
+        AsyncDispatcher(SubjectAndWrapper<T> target) {
+            this.target = target;
+            this.queue = overflowPolicy == OverflowPolicy.BUFFER ? new LinkedBlockingQueue<>()
+                    : new LinkedBlockingQueue<>(queueSize);
+        }
+
+        void dispatch(T notification) {
+            Pending<T> pending = new Pending<>(notification, System.nanoTime());
+
+            //counted before the notification is queued so that the dispatcher never sees the depth go negative
+            statistics.enqueued();
+
+            if (overflowPolicy == OverflowPolicy.BLOCK) {
+                try {
+                    queue.put(pending);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    statistics.dropped();
+                    return;
+                }
+            } else if (!queue.offer(pending)) {
+                statistics.dropped();
+                if (!dropping) {
+                    dropping = true;
+                    Log.LOGGER.wNotificationsDropped(target.interest);
+                }
+                return;
+            }
+
+            dropping = false;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+
+            ExecutorService executor = ObservableContext.this.executor;
+            try {
+                if (executor == null) {
+                    throw new RejectedExecutionException();
+                }
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                //we've been shut down in the meantime, so let's do the dispatch ourselves
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Pending<T> pending;
+                int count = 0;
+                while (count++ < MAX_DISPATCH_BATCH && (pending = queue.poll()) != null) {
+                    statistics.dequeued(System.nanoTime() - pending.enqueuedNanos);
+                    deliver(target, pending.notification);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+
+    private static final class MatchKey {
+        private final Action<?, ?> action;
+        private final Class<?> objectType;
+
+        MatchKey(Action<?, ?> action, Class<?> objectType) {
+            this.action = action;
+            this.objectType = objectType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MatchKey)) return false;
+
+            MatchKey other = (MatchKey) o;
+            return action == other.action && objectType == other.objectType;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(action) + objectType.hashCode();
+        }
+    }
+
+    private static final class Pending<T> {
+        final T notification;
+        final long enqueuedNanos;
+
+        Pending(T notification, long enqueuedNanos) {
+            this.notification = notification;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    /**
+     * What to do with a notification when it is dispatched asynchronously and the queue of its interest is full.
+     */
+    enum OverflowPolicy {
+        /**
+         * The thread sending out the notification waits until there is space in the queue.
+         */
+        BLOCK,
+
+        /**
+         * The notification is dropped.
+         */
+        DROP,
+
+        /**
+         * The queue is not bounded and the notification is always accepted.
+         */
+        BUFFER
     }
 
     private static final class OperatorIgnoreError<T> implements Observable.Operator<T, T> {
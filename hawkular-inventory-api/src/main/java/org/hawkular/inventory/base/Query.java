@@ -185,7 +185,7 @@ public final class Query {
         bld.append("Query[fragments=").append(Arrays.toString(fragments));
         if (!subTrees.isEmpty()) {
             bld.append("\n");
-            subTrees.forEach((s) -> s.indent(bld, indentation + 1));
+            subTrees.forEach((s) -> s.addToString(bld, indentation + 1));
         }
         bld.append("\n");
         indent(bld, indentation);
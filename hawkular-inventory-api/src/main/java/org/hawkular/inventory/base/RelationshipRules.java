@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 
 /**
@@ -133,8 +134,10 @@ public final class RelationshipRules {
                     " on the same entity.");
         }
 
+        //the closure is evaluated lazily, so that we can bail out as soon as we find the target
         if (direction == Relationships.Direction.incoming) {
-            Iterator<E> closure = backend.getTransitiveClosureOver(origin, outgoing, relationship);
+            Iterator<E> closure = backend.getTransitiveClosureOver(origin,
+                    TransitiveClosure.over(outgoing, relationship).lazy());
 
             while (closure.hasNext()) {
                 E e = closure.next();
@@ -145,7 +148,8 @@ public final class RelationshipRules {
                 }
             }
         } else if (direction == outgoing) {
-            Iterator<E> closure = backend.getTransitiveClosureOver(origin, incoming, relationship);
+            Iterator<E> closure = backend.getTransitiveClosureOver(origin,
+                    TransitiveClosure.over(incoming, relationship).lazy());
 
             while (closure.hasNext()) {
                 E e = closure.next();
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.hawkular.inventory.api.model.CanonicalPath;
+
+import com.github.fge.jsonschema.main.JsonSchema;
+
+/**
+ * A bounded LRU cache of compiled JSON schemas keyed by the canonical paths of the data entities they are stored in.
+ *
+ * <p>Every invalidation bumps the generation of the cache. A schema loaded by a reader is only stored if no
+ * invalidation happened since the reader started loading it (see {@link #put(CanonicalPath, JsonSchema, long)}), so
+ * that a reader racing with a concurrent update of the schema cannot leave the stale schema behind in the cache.
+ *
+ * <p>The changes made in a transaction frame are only committed when the frame is committed. The frames therefore use
+ * their {@link #forTransactionFrame() own view} of the cache, which defers the invalidations until after that commit.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class SchemaCache {
+    private final int maxSize;
+    private final Map<CanonicalPath, JsonSchema> entries;
+    private long generation;
+
+    /**
+     * The cache shared by all the transactions or null if this is the shared cache itself.
+     */
+    private final SchemaCache committed;
+
+    /**
+     * The schemas changed in the transaction frame this view belongs to. These are cached in this view only, because
+     * the other transactions don't see the changes yet.
+     */
+    private final Set<CanonicalPath> invalidatedInFrame = new HashSet<>();
+
+    /**
+     * @param maxSize the maximum number of schemas to keep, a non-positive value disables the cache
+     */
+    SchemaCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    private SchemaCache(int maxSize, SchemaCache committed) {
+        this.maxSize = maxSize;
+        this.committed = committed;
+        this.entries = new LinkedHashMap<CanonicalPath, JsonSchema>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CanonicalPath, JsonSchema> eldest) {
+                return size() > SchemaCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @return the current generation of the cache, to be passed to {@link #put(CanonicalPath, JsonSchema, long)}
+     */
+    synchronized long getGeneration() {
+        return committed == null ? generation : committed.getGeneration();
+    }
+
+    /**
+     * @param schemaPath the path to the data entity holding the schema
+     * @return the compiled schema or null if not cached
+     */
+    synchronized JsonSchema get(CanonicalPath schemaPath) {
+        if (committed != null && !invalidatedInFrame.contains(schemaPath)) {
+            return committed.get(schemaPath);
+        }
+
+        return maxSize <= 0 ? null : entries.get(schemaPath);
+    }
+
+    /**
+     * Caches the schema unless the cache has been invalidated since the provided generation.
+     *
+     * @param schemaPath the path to the data entity holding the schema
+     * @param schema     the compiled schema
+     * @param generation the generation of the cache obtained before the schema started to be loaded
+     */
+    synchronized void put(CanonicalPath schemaPath, JsonSchema schema, long generation) {
+        if (committed != null) {
+            if (invalidatedInFrame.contains(schemaPath)) {
+                //only this frame sees the schema, so no one else can change it concurrently
+                if (maxSize > 0) {
+                    entries.put(schemaPath, schema);
+                }
+            } else {
+                committed.put(schemaPath, schema, generation);
+            }
+        } else if (maxSize > 0 && this.generation == generation) {
+            entries.put(schemaPath, schema);
+        }
+    }
+
+    /**
+     * Removes the schema stored on the provided path from the cache.
+     *
+     * @param schemaPath the path to the data entity holding the schema
+     */
+    synchronized void invalidate(CanonicalPath schemaPath) {
+        if (committed != null) {
+            invalidatedInFrame.add(schemaPath);
+        } else {
+            generation++;
+        }
+        entries.remove(schemaPath);
+    }
+
+    /**
+     * @return a view of this cache to be used by a transaction frame
+     */
+    SchemaCache forTransactionFrame() {
+        return new SchemaCache(maxSize, this);
+    }
+
+    /**
+     * To be called on the view of a transaction frame after the frame has been committed. Invalidates the schemas
+     * changed in the frame in the shared cache, which means that no other transaction can cache the old versions
+     * anymore.
+     */
+    synchronized void frameCommitted() {
+        invalidatedInFrame.forEach(committed::invalidate);
+        frameRolledBack();
+    }
+
+    /**
+     * To be called on the view of a transaction frame after the frame has been rolled back or after its commit
+     * finished. Forgets the schemas changed in the frame, which are either committed or thrown away by then.
+     */
+    synchronized void frameRolledBack() {
+        invalidatedInFrame.clear();
+        entries.clear();
+    }
+}
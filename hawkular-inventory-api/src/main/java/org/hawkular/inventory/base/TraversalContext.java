@@ -18,8 +18,6 @@ package org.hawkular.inventory.base;
 
 import static org.hawkular.inventory.api.filters.With.type;
 
-import java.util.Iterator;
-
 import org.hawkular.inventory.api.Action;
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.Relationships;
@@ -32,8 +30,6 @@ import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.base.spi.SwitchElementType;
 
-import rx.subjects.Subject;
-
 /**
  * Holds the data needed throughout the construction of inventory traversal.
  *
@@ -232,11 +228,7 @@ public final class TraversalContext<BE, E extends AbstractElement<?, ?>> {
      * @param <V>           the type of the entity on which the action occurred
      */
     <C, V> void notify(V entity, C actionContext, Action<C, V> action) {
-        Iterator<Subject<C, C>> subjects = observableContext.matchingSubjects(action, entity);
-        while (subjects.hasNext()) {
-            Subject<C, C> s = subjects.next();
-            s.onNext(actionContext);
-        }
+        observableContext.notify(action, entity, actionContext);
     }
 
     public int getTransactionRetriesCount() {
@@ -16,24 +16,18 @@
  */
 package org.hawkular.inventory.base;
 
-import static java.util.stream.Collectors.toSet;
-
 import static org.hawkular.inventory.api.Action.created;
 import static org.hawkular.inventory.api.Action.deleted;
-import static org.hawkular.inventory.api.Relationships.Direction.both;
-import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
-import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
-import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import org.hawkular.inventory.api.Action;
 import org.hawkular.inventory.api.EntityNotFoundException;
+import org.hawkular.inventory.api.InventoryMetrics;
 import org.hawkular.inventory.api.Log;
 import org.hawkular.inventory.api.RelationAlreadyExistsException;
 import org.hawkular.inventory.api.RelationNotFoundException;
@@ -42,10 +36,12 @@ import org.hawkular.inventory.api.filters.Marker;
 import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.DataEntity;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Path;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.RelativePath;
+import org.hawkular.inventory.api.model.StructuredDataChange;
 import org.hawkular.inventory.base.spi.CommitFailureException;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 import org.hawkular.inventory.base.spi.InventoryBackend;
@@ -64,9 +60,11 @@ final class Util {
 
     public static <R> R commitOrRetry(InventoryBackend.Transaction transaction, InventoryBackend<?> backend,
                                       R firstCommitSuccessReturnValue,
-                                      PotentiallyCommittingPayload<R> payload, int maxRetries) {
+                                      PotentiallyCommittingPayload<R> payload, int maxRetries,
+                                      InventoryMetrics metrics) {
 
-        return commitOrRetry(transaction, backend, (t) -> firstCommitSuccessReturnValue, payload, maxRetries, false);
+        return commitOrRetry(transaction, backend, (t) -> firstCommitSuccessReturnValue, payload, maxRetries, false,
+                metrics);
     }
 
     public static <R> R runInTransaction(TraversalContext<?, ?> context, boolean readOnly,
@@ -74,13 +72,14 @@ final class Util {
         InventoryBackend.Transaction transaction = context.backend.startTransaction(!readOnly);
         Log.LOGGER.trace("Starting transaction: " + transaction);
         int maxFailures = context.getTransactionRetriesCount();
-        return commitOrRetry(transaction, context.backend, payload, payload, maxFailures, true);
+        return commitOrRetry(transaction, context.backend, payload, payload, maxFailures, true,
+                context.configuration.getMetrics());
     }
 
     private static <R> R commitOrRetry(InventoryBackend.Transaction transaction, InventoryBackend<?> backend,
                                        PotentiallyCommittingPayload<R> firstPayload,
                                        PotentiallyCommittingPayload<R> succeedingPayload, int maxFailures,
-                                       boolean commitOnlyReadonly) {
+                                       boolean commitOnlyReadonly, InventoryMetrics metrics) {
         int failures = 0;
         Exception lastException;
 
@@ -118,6 +117,7 @@ final class Util {
                 lastException = e;
 
                 if (failures < maxFailures) {
+                    metrics.recordTransactionRetry(waitTime);
                     try {
                         Thread.sleep(waitTime);
                     } catch (InterruptedException ie) {
@@ -294,6 +294,8 @@ final class Util {
     public static <BE, E extends AbstractElement<?, U>, U extends AbstractElement.Update> void update(
             TraversalContext<BE, E> context, Query entityQuery, U update, BiConsumer<BE, U> preUpdateCheck) {
 
+        AtomicReference<List<StructuredDataChange>> dataChanges = new AtomicReference<>();
+
         BE updated = runInTransaction(context, false, (t) -> {
             BE entity = context.backend.querySingle(entityQuery);
             if (entity == null) {
@@ -309,13 +311,24 @@ final class Util {
                 preUpdateCheck.accept(entity, update);
             }
 
-            context.backend.update(entity, update);
+            if (update instanceof DataEntity.Update) {
+                dataChanges.set(context.backend.updateData(entity, (DataEntity.Update) update));
+            } else {
+                context.backend.update(entity, update);
+            }
             context.backend.commit(t);
             return entity;
         });
 
         E entity = context.backend.convert(updated, context.entityClass);
+        BaseData.Validator.invalidateSchema(context, entity);
         context.notify(entity, new Action.Update<>(entity, update), Action.updated());
+
+        List<StructuredDataChange> changes = dataChanges.get();
+        if (changes != null && !changes.isEmpty()) {
+            DataEntity dataEntity = (DataEntity) entity;
+            context.notify(dataEntity, new Action.DataChanges(dataEntity, changes), Action.dataChanged());
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -337,84 +350,16 @@ final class Util {
                 cleanupFunction.accept(entity);
             }
 
-            Set<BE> verticesToDeleteThatDefineSomething = new HashSet<>();
-
-            Set<BE> deleted = new HashSet<>();
-            Set<BE> deletedRels = new HashSet<>();
-            Set<?> deletedEntities;
-            Set<Relationship> deletedRelationships;
-
-            context.backend.getTransitiveClosureOver(entity, outgoing, contains.name()).forEachRemaining((e) -> {
-                if (context.backend.hasRelationship(e, outgoing, defines.name())) {
-                    verticesToDeleteThatDefineSomething.add(e);
-                } else {
-                    deleted.add(e);
-                }
-                //not only the entity, but also its relationships are going to disappear
-                deletedRels.addAll(context.backend.getRelationships(e, both));
-            });
-
-            if (context.backend.hasRelationship(entity, outgoing, defines.name())) {
-                verticesToDeleteThatDefineSomething.add(entity);
-            } else {
-                deleted.add(entity);
-            }
-            deletedRels.addAll(context.backend.getRelationships(entity, both));
-
-            //we've gathered all entities to be deleted. Now convert them all to entities for reporting purposes.
-            //We have to do it prior to actually deleting the objects in the backend so that all information and
-            //relationships is still available.
-            deletedEntities = deleted.stream().filter((o) -> isRepresentableInAPI(context, o))
-                    .map((o) -> context.backend.convert(o, context.backend.extractType(o)))
-                    .collect(Collectors.<Object>toSet());
-
-            deletedRelationships = deletedRels.stream().filter((o) -> isRepresentableInAPI(context, o))
-                    .map((o) -> context.backend.convert(o, Relationship.class))
-                    .collect(toSet());
-
-            //k, now we can delete them all... the order is not important anymore
-            for (BE e : deleted) {
-                context.backend.delete(e);
-            }
-
-            for (BE e : verticesToDeleteThatDefineSomething) {
-                if (context.backend.hasRelationship(e, outgoing, defines.name())) {
-                    //we avoid the convert() function here because it assumes the containing entities of the passed in
-                    //entity exist. This might not be true during the delete because the transitive closure "walks" the
-                    //entities from the "top" down the containment chain and the entities are immediately deleted.
-                    String rootId = context.backend.extractId(entity);
-                    String definingId = context.backend.extractId(e);
-                    String rootType = context.entityClass.getSimpleName();
-                    String definingType = context.backend.extractType(e).getSimpleName();
-
-                    String rootEntity = "Entity[id=" + rootId + ", type=" + rootType + "]";
-                    String definingEntity = "Entity[id=" + definingId + ", type=" + definingType + "]";
-
-                    throw new IllegalArgumentException("Could not delete entity " + rootEntity + ". The entity " +
-                            definingEntity + ", which it (indirectly) contains, acts as a definition for some " +
-                            "entities that are not deleted along with it, which would leave them without a " +
-                            "definition. This is illegal.");
-                } else {
-                    context.backend.delete(e);
-                }
-            }
-
-            context.backend.commit(transaction);
-
-            //report the relationship deletions first - it would be strange to report deletion of a relationship after
-            //reporting that an entity on one end of the relationship has been deleted
-            for (Relationship r : deletedRelationships) {
-                context.notify(r, deleted());
-            }
-
-            for (Object e : deletedEntities) {
-                context.notify(e, deleted());
-            }
+            new BulkDelete<>(context, transaction, entity, getDeleteBatchSize(context)).execute();
 
             return null;
         });
     }
 
+    private static int getDeleteBatchSize(TraversalContext<?, ?> context) {
+        return Integer.parseInt(context.configuration.getProperty(BaseInventory.DELETE_BATCH_SIZE, "0"));
+    }
+
     /**
      * If the provided path is canonical, it is prefixed with the {@code canonicalPrefix} and returned. If the provided
      * path is relative, it is resolved against the {@code relativeOrigin} and then converted to a canonical path.
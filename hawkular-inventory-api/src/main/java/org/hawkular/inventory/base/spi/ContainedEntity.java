@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base.spi;
+
+/**
+ * A newly persisted entity together with the "contains" relationship connecting it to its parent.
+ *
+ * @param <E> the type of the backend-specific objects representing the inventory entities and relationships
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ * @see InventoryBackend#persistAll(Object, java.util.Map)
+ */
+public final class ContainedEntity<E> {
+    private final E entity;
+    private final E containsRelationship;
+
+    public ContainedEntity(E entity, E containsRelationship) {
+        this.entity = entity;
+        this.containsRelationship = containsRelationship;
+    }
+
+    /**
+     * @return the backend representation of the entity
+     */
+    public E getEntity() {
+        return entity;
+    }
+
+    /**
+     * @return the backend representation of the "contains" relationship from the parent to the entity or null if the
+     * entity has no parent
+     */
+    public E getContainsRelationship() {
+        return containsRelationship;
+    }
+}
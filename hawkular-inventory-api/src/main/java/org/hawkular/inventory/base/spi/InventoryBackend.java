@@ -17,18 +17,25 @@
 package org.hawkular.inventory.base.spi;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 
 import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Blueprint;
 import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.DataEntity;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.RelativePath;
 import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.model.StructuredDataChange;
+import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.base.PotentiallyCommittingPayload;
@@ -62,6 +69,25 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     E find(CanonicalPath element) throws ElementNotFoundException;
 
+    /**
+     * Checks whether there is an element on the given canonical path.
+     *
+     * <p>Unlike {@link #find(CanonicalPath)} this doesn't need to materialize the element and doesn't report the
+     * absence using an exception. The default implementation merely delegates to {@link #find(CanonicalPath)} though
+     * so the implementations are encouraged to provide a more efficient one.
+     *
+     * @param element the canonical path of the element to check
+     * @return true if there is an element on the path, false otherwise
+     */
+    default boolean exists(CanonicalPath element) {
+        try {
+            find(element);
+            return true;
+        } catch (ElementNotFoundException e) {
+            return false;
+        }
+    }
+
     /**
      * Translates the query to the backend-specific representation and runs it, returning a correct page of results
      * as prescribed by the provided pager object.
@@ -77,6 +103,25 @@ public interface InventoryBackend<E> extends AutoCloseable {
 
     E querySingle(Query query);
 
+    /**
+     * Counts the results of the query without converting them to inventory elements.
+     *
+     * <p>The default implementation iterates through the unlimited page of results returned by
+     * {@link #query(Query, Pager)}.
+     *
+     * @param query the query to count the results of
+     * @return the number of results of the query
+     */
+    default long count(Query query) {
+        Page<E> page = query(query, Pager.unlimited(Order.unspecified()));
+        long count = 0;
+        while (page.hasNext()) {
+            page.next();
+            count++;
+        }
+        return count;
+    }
+
     /**
      * Translates the query to the backend-specific representation and runs it, returning a correct page of results
      * as prescribed by the provided pager object.
@@ -116,10 +161,23 @@ public interface InventoryBackend<E> extends AutoCloseable {
      * @param direction        any of the valid directions including
      *                         {@link Relationships.Direction#both}.
      * @param relationshipNames the names of the relationships to follow when composing the transitive closure
-     * @return an iterator over the transitive closure, may be "lazy" and evaluate the closure on demand.
+     * @return an iterator over the transitive closure, evaluated eagerly
      */
-    Iterator<E> getTransitiveClosureOver(E startingPoint, Relationships.Direction direction,
-            String... relationshipNames);
+    default Iterator<E> getTransitiveClosureOver(E startingPoint, Relationships.Direction direction,
+            String... relationshipNames) {
+        return getTransitiveClosureOver(startingPoint, TransitiveClosure.over(direction, relationshipNames));
+    }
+
+    /**
+     * Going from the starting point, this will return an iterator over the elements in the transitive closure
+     * described by the provided closure object.
+     *
+     * @param startingPoint the starting element
+     * @param closure       the description of the closure
+     * @return an iterator over the transitive closure, evaluated lazily only if the closure
+     * {@link TransitiveClosure#isLazy() says so}
+     */
+    Iterator<E> getTransitiveClosureOver(E startingPoint, TransitiveClosure closure);
 
     /**
      * Checks whether there exists any relationship in given direction relative to the given entity with given name.
@@ -237,6 +295,31 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     E descendToData(E dataEntityRepresentation, RelativePath dataPath);
 
+    /**
+     * Loads the structured data on the given path "inside" the data entity.
+     *
+     * <p>The default implementation {@link #descendToData(Object, RelativePath) descends} to the data and
+     * {@link #convert(Object, Class) converts} it. Backends that don't store each part of the data separately need
+     * to override this.
+     *
+     * @param dataEntityRepresentation the representation of the {@link org.hawkular.inventory.api.model.DataEntity}
+     *                                 instance
+     * @param dataPath                 the path in the data to descend to.
+     * @param recurse                  if true, the whole data on the path is loaded, if false, the lists and maps are
+     *                                 returned empty (see {@link ShallowStructuredData})
+     * @return the data on the path or null if there is no such data
+     * @see org.hawkular.inventory.api.Data.Single#data(RelativePath)
+     * @see org.hawkular.inventory.api.Data.Single#flatData(RelativePath)
+     */
+    default StructuredData loadData(E dataEntityRepresentation, RelativePath dataPath, boolean recurse) {
+        E data = descendToData(dataEntityRepresentation, dataPath);
+        if (data == null) {
+            return null;
+        }
+
+        return recurse ? convert(data, StructuredData.class) : convert(data, ShallowStructuredData.class).getData();
+    }
+
     /**
      * Creates a new relationship from source to target with given name and properties.
      *
@@ -258,6 +341,33 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     E persist(CanonicalPath path, Blueprint blueprint);
 
+    /**
+     * Persists new entities with the provided assigned paths and connects each of them to the parent using the
+     * "contains" relationship.
+     *
+     * <p>This is equivalent to calling {@link #persist(CanonicalPath, Blueprint)} followed by
+     * {@link #relate(Object, Object, String, Map)} for each of the entities, which is what the default implementation
+     * does. Backends that can write many elements more efficiently than one at a time are encouraged to override this.
+     *
+     * <p>The caller is responsible for making sure that the entities can be contained in the parent and that none of
+     * the paths is occupied.
+     *
+     * @param parent     the representation of the parent of the new entities or null if the entities have no parent
+     *                   (i.e. they are tenants)
+     * @param blueprints the canonical paths of the new entities and their blueprints
+     * @return the newly persisted entities in the iteration order of the provided map
+     */
+    default List<ContainedEntity<E>> persistAll(E parent, Map<CanonicalPath, ? extends Blueprint> blueprints) {
+        List<ContainedEntity<E>> ret = new ArrayList<>(blueprints.size());
+        for (Map.Entry<CanonicalPath, ? extends Blueprint> e : blueprints.entrySet()) {
+            E entity = persist(e.getKey(), e.getValue());
+            E contains = parent == null ? null
+                    : relate(parent, entity, Relationships.WellKnown.contains.name(), Collections.emptyMap());
+            ret.add(new ContainedEntity<>(entity, contains));
+        }
+        return ret;
+    }
+
     /**
      * Persists the structured data and returns a reference to it. It is the responsibility of the caller to wire it up
      * to some other entity by some relationship.
@@ -267,6 +377,19 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     E persist(StructuredData structuredData);
 
+    /**
+     * Persists the structured data of a data entity with the provided role. This enables the backends to choose
+     * different storage strategies for different kinds of data. The default implementation merely calls
+     * {@link #persist(StructuredData)}.
+     *
+     * @param structuredData the structured data to persist
+     * @param role           the role of the data entity the data will belong to
+     * @return the representation of the newly persisted structured data
+     */
+    default E persist(StructuredData structuredData, DataEntity.Role role) {
+        return persist(structuredData);
+    }
+
     /**
      * Updates given entity with the data provided in the update object.
      *
@@ -276,6 +399,24 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     void update(E entity, AbstractElement.Update update);
 
+    /**
+     * Updates given data entity with the data provided in the update object and reports what changed in its
+     * structured data.
+     *
+     * <p>The default implementation merely calls {@link #update(Object, AbstractElement.Update)} and reports no
+     * changes. Backends that update the structured data in place should override this and report the changes they
+     * made.
+     *
+     * @param dataEntity the data entity to update
+     * @param update     the update object
+     * @return the list of changes made to the structured data or null if the backend cannot tell
+     * @throws IllegalArgumentException if the entity is not a data entity
+     */
+    default List<StructuredDataChange> updateData(E dataEntity, DataEntity.Update update) {
+        update(dataEntity, update);
+        return null;
+    }
+
     /**
      * Simply deletes the entity from the storage.
      *
@@ -307,9 +448,33 @@ public interface InventoryBackend<E> extends AutoCloseable {
      */
     InputStream getGraphSON(String tenantId);
 
+    /**
+     * See the javadoc in
+     * {@link org.hawkular.inventory.api.Inventory#getTransitiveClosureOver(CanonicalPath, Relationships.Direction,
+     * Class, String...)}
+     */
+    default <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                          Relationships.Direction direction,
+                                                                          Class<T> clazz,
+                                                                          String... relationshipNames) {
+        return getTransitiveClosureOver(startingPoint, TransitiveClosure.over(direction, relationshipNames), clazz);
+    }
+
+    /**
+     * See the javadoc in
+     * {@link org.hawkular.inventory.api.Inventory#getTransitiveClosureOver(CanonicalPath, TransitiveClosure, Class)}
+     */
     <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
-                                                                  Relationships.Direction direction, Class<T> clazz,
-                                                                  String... relationshipNames);
+                                                                  TransitiveClosure closure, Class<T> clazz);
+
+    /**
+     * See the javadoc in
+     * {@link org.hawkular.inventory.api.Inventory#getTransitiveClosureOver(CanonicalPath, TransitiveClosure, Class,
+     * Pager)}
+     */
+    <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(CanonicalPath startingPoint, TransitiveClosure closure,
+                                                              Class<T> clazz, Pager pager);
+
     /**
      * Represents a transaction being performed. Implementations of the {@link InventoryBackend} interface are
      * encouraged to inherit from this class and add additional information to it. The base inventory implementation
@@ -46,6 +46,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
 import java.util.Set;
@@ -53,6 +54,7 @@ import java.util.Spliterators;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -73,6 +75,7 @@ import org.hawkular.inventory.api.ResolvableToSingle;
 import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.Tenants;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.api.ValidationException;
 import org.hawkular.inventory.api.feeds.AcceptWithFallbackFeedIdStrategy;
 import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
@@ -98,6 +101,7 @@ import org.hawkular.inventory.api.model.RelativePath;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.model.StructuredDataChange;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Page;
@@ -109,7 +113,6 @@ import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import rx.Subscription;
@@ -1058,8 +1061,6 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         assert !f1.getId().equals(f2.getId());
     }
 
-    // the uniqueness is ensured by __cp index that has the unique property (in titan)
-    @Ignore
     @Test
     public void testNoTwoEquivalentEntitiesOnTheSamePath() throws Exception {
         try {
@@ -1085,6 +1086,19 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         }
     }
 
+    @Test
+    public void testExistsOnCanonicalPath() throws Exception {
+        CanonicalPath env = CanonicalPath.of().tenant("com.acme.tenant").environment("production").get();
+
+        Assert.assertTrue(inventory.getBackend().exists(env));
+        Assert.assertFalse(inventory.getBackend().exists(CanonicalPath.of().tenant("com.acme.tenant")
+                .environment("nonexistent").get()));
+        Assert.assertFalse(inventory.getBackend().exists(CanonicalPath.of().relationship("nonexistent").get()));
+
+        Assert.assertTrue(inventory.tenants().get("com.acme.tenant").environments().get("production").exists());
+        Assert.assertFalse(inventory.tenants().get("com.acme.tenant").environments().get("nonexistent").exists());
+    }
+
     @Test
     public void testContainsLoopsImpossible() throws Exception {
         try {
@@ -1307,6 +1321,63 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         assert msList.size() == 0;
     }
 
+    @Test
+    public void testPagingWithoutExactTotal() throws Exception {
+        Metrics.Multiple metrics = inventory.tenants().getAll().environments().getAll().feedlessMetrics().getAll();
+
+        Pager firstPage = Pager.builder().withStartPage(0).withPageSize(1).withExactTotalSize(false)
+                .orderBy(Order.unspecified()).build();
+
+        Page<Metric> ms = metrics.entities(firstPage);
+        List<Metric> msList = ms.toList();
+        assert msList.size() == 1;
+        //only a lower bound is known on the pages before the last one, but it must tell that there are more results
+        assert ms.getTotalSize() > firstPage.getEnd();
+        assert ms.getTotalSize() <= 3;
+
+        Pager lastPage = firstPage.nextPage().nextPage();
+        ms = metrics.entities(lastPage);
+        msList = ms.toList();
+        assert msList.size() == 1;
+        assert ms.getTotalSize() == 3;
+    }
+
+    @Test
+    public void testPagingWithProjection() throws Exception {
+        Tenant t = inventory.tenants().getAll(With.id("com.acme.tenant"))
+                .entities(fieldsOnly("properties.kachny")).toList().get(0);
+        Assert.assertEquals(CanonicalPath.of().tenant("com.acme.tenant").get(), t.getPath());
+        Assert.assertEquals("moc", t.getProperties().get("kachny"));
+
+        t = inventory.tenants().getAll(With.id("com.acme.tenant"))
+                .entities(fieldsOnly("type")).toList().get(0);
+        Assert.assertEquals("com.acme.tenant", t.getId());
+        Assert.assertTrue(t.getProperties().isEmpty());
+
+        Metrics.Multiple metrics = inventory.tenants().getAll().environments().getAll().feedlessMetrics().getAll();
+
+        List<Metric> ms = metrics.entities(fieldsOnly("properties")).toList();
+        Assert.assertEquals(3, ms.size());
+        ms.forEach(m -> Assert.assertNull(m.getType()));
+
+        ms = metrics.entities(fieldsOnly("type")).toList();
+        Assert.assertEquals(3, ms.size());
+        ms.forEach(m -> Assert.assertNotNull(m.getType()));
+    }
+
+    private static Pager fieldsOnly(String... fields) {
+        //the builder limits the page size to 0 by default
+        return Pager.builder().withPageSize(Pager.UNLIMITED_PAGE_SIZE).withFields(fields).orderBy(Order.unspecified())
+                .build();
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        Assert.assertEquals(3, inventory.tenants().getAll().environments().getAll().feedlessMetrics().getAll()
+                .count());
+        Assert.assertEquals(0, inventory.tenants().get("non-existent").environments().getAll().count());
+    }
+
     @Test
     public void testGettingResourcesFromFeedsUsingEnvironments() throws Exception {
         Set<Resource> rs = inventory.tenants().get("com.acme.tenant").environments().get("production").allResources()
@@ -1848,6 +1919,66 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
                 "com.acme.tenant".equals(e.getId())));
     }
 
+    @Test
+    public void testBackendGetBoundedTransitiveClosure() throws Exception {
+        InventoryBackend<E> backend = inventory.getBackend();
+
+        BiFunction<E, TransitiveClosure, List<Entity<?, ?>>> test = (start, closure) -> {
+            List<Entity<?, ?>> ret = new ArrayList<>();
+            backend.getTransitiveClosureOver(start, closure).forEachRemaining(
+                    (e) -> ret.add((Entity<?, ?>) backend.convert(e, backend.extractType(e))));
+            return ret;
+        };
+
+        E env = backend.find(CanonicalPath.of().tenant("com.acme.tenant").environment("production").get());
+
+        List<Entity<?, ?>> direct = test.apply(env, TransitiveClosure.over(outgoing, "contains").withMaxDepth(1));
+        Assert.assertTrue(direct.stream().anyMatch((e) -> e instanceof Feed && "feed1".equals(e.getId())));
+        Assert.assertFalse(direct.stream().anyMatch((e) -> "feedResource1".equals(e.getId())));
+
+        List<Entity<?, ?>> twoLevels = test.apply(env, TransitiveClosure.over(outgoing, "contains").withMaxDepth(2));
+        Assert.assertTrue(twoLevels.stream().anyMatch((e) -> e instanceof Resource &&
+                "feedResource1".equals(e.getId())));
+
+        Assert.assertTrue(test.apply(env, TransitiveClosure.over(outgoing, "contains").withMaxDepth(0)).isEmpty());
+
+        List<Entity<?, ?>> all = test.apply(env, TransitiveClosure.over(outgoing, "contains"));
+        Assert.assertEquals(all.size(), new HashSet<>(all).size());
+        Assert.assertEquals(all.size(), test.apply(env, TransitiveClosure.over(outgoing, "contains").lazy()).size());
+
+        List<Entity<?, ?>> resources = test.apply(env, TransitiveClosure.over(outgoing, "contains")
+                .ofTypes(Resource.class));
+        Assert.assertFalse(resources.isEmpty());
+        Assert.assertTrue(resources.stream().allMatch((e) -> e instanceof Resource));
+        Assert.assertEquals(all.stream().filter((e) -> e instanceof Resource).count(), resources.size());
+
+        //both directions would loop infinitely if the visited elements weren't tracked
+        Assert.assertTrue(test.apply(env, TransitiveClosure.over(both, "contains")).stream()
+                .noneMatch((e) -> e instanceof Environment && "production".equals(e.getId())));
+    }
+
+    @Test
+    public void testPagedTransitiveClosure() throws Exception {
+        CanonicalPath env = CanonicalPath.of().tenant("com.acme.tenant").environment("production").get();
+        CanonicalPath url = CanonicalPath.of().tenant("com.acme.tenant").resourceType("URL").get();
+
+        TransitiveClosure closure = TransitiveClosure.over(outgoing, "contains").ofTypes(Resource.class)
+                .definedBy(url);
+
+        Page<Resource> page = inventory.getTransitiveClosureOver(env, closure, Resource.class,
+                new Pager(0, 2, Order.unspecified()));
+
+        List<Resource> resources = page.toList();
+        Assert.assertEquals(2, resources.size());
+        Assert.assertEquals(4, page.getTotalSize());
+        Assert.assertTrue(resources.stream().allMatch((r) -> url.equals(r.getType().getPath())));
+
+        //the tenant doesn't define anything
+        page = inventory.getTransitiveClosureOver(env, closure.definedBy(CanonicalPath.of().tenant("com.acme.tenant")
+                .get()), Resource.class, Pager.unlimited(Order.unspecified()));
+        Assert.assertTrue(page.toList().isEmpty());
+    }
+
     @Test
     public void testBackendHasRelationship() throws Exception {
         InventoryBackend<E> backend = inventory.getBackend();
@@ -1990,6 +2121,52 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         dataAccess.update(DataEntity.Update.builder().withValue(origData).build());
     }
 
+    @Test
+    public void testUpdateStructuredDataReportsChanges() throws Exception {
+        Data.Single dataAccess = inventory.inspect(
+                CanonicalPath.fromString("/t;com.example.tenant/e;test/r;playroom1/d;configuration"),
+                Data.Single.class);
+
+        List<Action.DataChanges> changes = new ArrayList<>();
+        Subscription s = inventory.observable(Interest.in(DataEntity.class).being(Action.dataChanged()))
+                .subscribe(changes::add);
+
+        try {
+            StructuredData origData = dataAccess.entity().getValue();
+
+            StructuredData modified = origData.update().toMap().putBool("question", true).build();
+            dataAccess.update(DataEntity.Update.builder().withValue(modified).build());
+
+            modified = modified.update().toMap().updateList("primitives").setBool(0, false).closeList().build();
+            dataAccess.update(DataEntity.Update.builder().withValue(modified).build());
+
+            //no change in the value, no change reported
+            dataAccess.update(DataEntity.Update.builder().withValue(modified).build());
+
+            dataAccess.update(DataEntity.Update.builder().withValue(origData).build());
+
+            Assert.assertEquals(3, changes.size());
+
+            Assert.assertEquals(Collections.singletonList(new StructuredDataChange(StructuredDataChange.Kind.added,
+                    RelativePath.to().structuredData().key("question").get())), changes.get(0).getChanges());
+
+            Assert.assertEquals(Collections.singletonList(new StructuredDataChange(StructuredDataChange.Kind.changed,
+                    RelativePath.to().structuredData().key("primitives").index(0).get())),
+                    changes.get(1).getChanges());
+
+            Assert.assertEquals(new HashSet<>(asList(
+                    new StructuredDataChange(StructuredDataChange.Kind.removed,
+                            RelativePath.to().structuredData().key("question").get()),
+                    new StructuredDataChange(StructuredDataChange.Kind.changed,
+                            RelativePath.to().structuredData().key("primitives").index(0).get()))),
+                    new HashSet<>(changes.get(2).getChanges()));
+
+            Assert.assertEquals(origData, dataAccess.entity().getValue());
+        } finally {
+            s.unsubscribe();
+        }
+    }
+
     @Test
     public void testFilteringByData() throws Exception {
         Data.Read<Resources.DataRole> configs = inventory.tenants().getAll().environments().getAll().allResources()
@@ -2089,6 +2266,31 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         }
     }
 
+    @Test
+    public void testValidationFollowsSchemaUpdates() throws Exception {
+        Resources.Single res = inventory.inspect(CanonicalPath.fromString("/t;com.acme.tenant/e;production/r;people"),
+                Resources.Single.class);
+
+        StructuredData config = StructuredData.get().map().putString("firstName", "Hynek")
+                .putString("lastName", "Mlnarik").build();
+
+        //this validates against the schema and therefore makes the inventory remember it
+        res.data().create(DataEntity.Blueprint.<Resources.DataRole>builder().withRole(configuration)
+                .withValue(config).build());
+
+        inventory.tenants().get("com.acme.tenant").feedlessResourceTypes().get("Person").data()
+                .get(configurationSchema).update(DataEntity.Update.builder().withValue(StructuredData.get().map()
+                        .putString("type", "string").build()).build());
+
+        try {
+            res.data().get(configuration).update(DataEntity.Update.builder().withValue(config).build());
+            Assert.fail("Updating a config that doesn't conform to the updated schema shouldn't be possible.");
+        } catch (ValidationException e) {
+            Assert.assertEquals(CanonicalPath.fromString("/t;com.acme.tenant/e;production/r;people/d;configuration"),
+                    e.getDataPath());
+        }
+    }
+
     @Test
     public void testCreateWithRelationships() throws Exception {
         inventory.tenants().get("com.acme.tenant").environments().create(Environment.Blueprint.builder()
@@ -2105,6 +2307,200 @@ public abstract class AbstractBaseInventoryPersistenceCheck<E> {
         inventory.tenants().get("com.acme.tenant").environments().delete("env-with-rel");
     }
 
+    @Test
+    public void testCreateAllSkipsInvalidBlueprints() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.acme.tenant").environments().get("production")
+                .feedlessResources();
+        CanonicalPath production = CanonicalPath.of().tenant("com.acme.tenant").environment("production").get();
+
+        List<String> failed = new ArrayList<>();
+        List<Resources.Single> created = resources.createAll(asList(
+                new Resource.Blueprint("bulk1", "/URL"),
+                new Resource.Blueprint("bulk-unknown-type", "/no-such-type"),
+                Resource.Blueprint.builder().withId("bulk2").withResourceTypePath("/URL")
+                        .addOutgoingRelationship("bulkRel", production.extend(Resource.class, "bulk1").get())
+                        .build(),
+                Resource.Blueprint.builder().withId("bulk-missing-end").withResourceTypePath("/URL")
+                        .addOutgoingRelationship("bulkRel", production.extend(Resource.class, "no-such").get())
+                        .build(),
+                new Resource.Blueprint("bulk1", "/URL"),
+                new Resource.Blueprint("host1", "/URL")),
+                (b, e) -> failed.add(b.getId()));
+
+        try {
+            Assert.assertEquals(asList("bulk-unknown-type", "bulk1", "host1", "bulk-missing-end"), failed);
+            Assert.assertEquals(asList("bulk1", "bulk2"),
+                    created.stream().map(r -> r.entity().getId()).collect(Collectors.toList()));
+
+            Assert.assertEquals("URL", resources.get("bulk1").entity().getType().getId());
+            Assert.assertTrue(resources.get("bulk2").relationships(outgoing).named("bulkRel").anyExists());
+            Assert.assertFalse(resources.get("bulk-unknown-type").exists());
+            Assert.assertFalse(resources.get("bulk-missing-end").exists());
+        } finally {
+            resources.delete("bulk2");
+            resources.delete("bulk1");
+        }
+    }
+
+    @Test
+    public void testCreateAllReportsFailuresOfSingleEntities() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.acme.tenant").environments().get("production")
+                .feedlessResources();
+        Resources.Single person = resources.create(Resource.Blueprint.builder().withId("bulk-person")
+                .withResourceTypePath("/Person").build());
+
+        try {
+            Map<DataEntity.Role, RuntimeException> failed = new HashMap<>();
+
+            //the data is only validated against the schema after the data entity has been persisted
+            List<Data.Single> created = person.data().createAll(asList(
+                    DataEntity.Blueprint.<Resources.DataRole>builder().withRole(configuration)
+                            .withValue(StructuredData.get().map().putBool("firstName", false).build()).build(),
+                    DataEntity.Blueprint.<Resources.DataRole>builder().withRole(connectionConfiguration)
+                            .withValue(StructuredData.get().map().putString("url", "http://localhost").build())
+                            .build()),
+                    (b, e) -> failed.put(b.getRole(), e));
+
+            Assert.assertEquals(Collections.singleton(configuration), failed.keySet());
+            Assert.assertTrue(failed.get(configuration) instanceof ValidationException);
+            Assert.assertEquals(1, created.size());
+            Assert.assertEquals(connectionConfiguration, created.get(0).entity().getRole());
+
+            Assert.assertFalse(person.data().get(configuration).exists());
+            Assert.assertEquals("http://localhost", person.data().get(connectionConfiguration).entity().getValue()
+                    .map().get("url").getValue());
+        } finally {
+            resources.delete("bulk-person");
+        }
+    }
+
+    @Test
+    public void testDeleteLargeSubtree() throws Exception {
+        //more entities than fit into a single chunk of the delete
+        int resourceCount = 1001;
+        createBulkDeleteTenant(resourceCount);
+
+        List<String> deletedIds = new ArrayList<>();
+        boolean[] tenantExistedOnFirstNotification = new boolean[1];
+
+        Subscription s = inventory.observable(Interest.in(Entity.class).being(deleted())).subscribe(e -> {
+            if (deletedIds.isEmpty()) {
+                tenantExistedOnFirstNotification[0] = inventory.tenants().get("bulk-delete").exists();
+            }
+            deletedIds.add(e.getId());
+        });
+
+        try {
+            inventory.tenants().delete("bulk-delete");
+        } finally {
+            s.unsubscribe();
+        }
+
+        Assert.assertFalse(inventory.tenants().get("bulk-delete").exists());
+
+        //everything is committed in a single transaction before the notifications are sent out
+        Assert.assertFalse(tenantExistedOnFirstNotification[0]);
+
+        //all the resources, the metric, the environment, the types and the tenant
+        Assert.assertEquals(resourceCount + 7, deletedIds.size());
+        Assert.assertTrue(deletedIds.indexOf("child") < deletedIds.indexOf("parent"));
+
+        //the types define the resources and the metric so they are deleted after them, together with their parent
+        assertDeletedLast(deletedIds);
+    }
+
+    @Test
+    public void testDeleteInBatches() throws Exception {
+        int resourceCount = 25;
+        createBulkDeleteTenant(resourceCount);
+
+        List<String> deletedIds = new ArrayList<>();
+        boolean[] tenantExistedOnFirstNotification = new boolean[1];
+
+        Subscription s = inventory.observable(Interest.in(Entity.class).being(deleted())).subscribe(e -> {
+            if (deletedIds.isEmpty()) {
+                tenantExistedOnFirstNotification[0] = inventory.tenants().get("bulk-delete").exists();
+            }
+            deletedIds.add(e.getId());
+        });
+
+        System.setProperty("hawkular.inventory.delete.batch-size", "10");
+        try {
+            inventory.tenants().delete("bulk-delete");
+        } finally {
+            System.clearProperty("hawkular.inventory.delete.batch-size");
+            s.unsubscribe();
+        }
+
+        Assert.assertFalse(inventory.tenants().get("bulk-delete").exists());
+
+        //the first batch is committed and reported while the rest of the subtree still exists
+        Assert.assertTrue(tenantExistedOnFirstNotification[0]);
+
+        Assert.assertEquals(resourceCount + 7, deletedIds.size());
+        Assert.assertTrue(deletedIds.indexOf("child") < deletedIds.indexOf("parent"));
+        assertDeletedLast(deletedIds);
+
+        //the inventory is still writable after the transactions of the batches
+        inventory.tenants().create(Tenant.Blueprint.builder().withId("bulk-delete").build());
+        inventory.tenants().delete("bulk-delete");
+    }
+
+    @Test
+    public void testDeleteInBatchesChecksDefinitionsUpFront() throws Exception {
+        createBulkDeleteTenant(1);
+
+        ResourceTypes.Single rt = inventory.tenants().get("bulk-delete").feedlessResourceTypes().get("rt");
+        for (int i = 0; i < 3; ++i) {
+            rt.operationTypes().create(OperationType.Blueprint.builder().withId("op" + i).build());
+        }
+
+        System.setProperty("hawkular.inventory.delete.batch-size", "1");
+        try {
+            inventory.tenants().get("bulk-delete").feedlessResourceTypes().delete("rt");
+            Assert.fail("Deleting a resource type which defines some resources should not be possible.");
+        } catch (IllegalArgumentException ignored) {
+            //expected
+        } finally {
+            System.clearProperty("hawkular.inventory.delete.batch-size");
+        }
+
+        try {
+            //none of the batches has been committed
+            Assert.assertTrue(rt.exists());
+            Assert.assertEquals(3, rt.operationTypes().getAll().entities(Pager.unlimited(Order.unspecified()))
+                    .toList().size());
+        } finally {
+            inventory.tenants().delete("bulk-delete");
+        }
+    }
+
+    private static void assertDeletedLast(List<String> deletedIds) {
+        int size = deletedIds.size();
+        Assert.assertEquals(new HashSet<>(asList("rt", "mt")), new HashSet<>(deletedIds.subList(size - 3, size - 1)));
+        Assert.assertEquals("bulk-delete", deletedIds.get(size - 1));
+    }
+
+    private void createBulkDeleteTenant(int resourceCount) {
+        Tenants.Single tenant = inventory.tenants().create(Tenant.Blueprint.builder().withId("bulk-delete").build());
+        tenant.feedlessResourceTypes().create(new ResourceType.Blueprint("rt"));
+        tenant.feedlessMetricTypes().create(new MetricType.Blueprint("mt", MetricUnit.BYTES, MetricDataType.GAUGE));
+
+        Environments.Single env = tenant.environments().create(new Environment.Blueprint("env"));
+        env.feedlessMetrics().create(new Metric.Blueprint("/mt", "metric"));
+
+        Resources.Single parent = env.feedlessResources().create(new Resource.Blueprint("parent", "/rt"));
+        parent.containedChildren().create(new Resource.Blueprint("child", "/rt"));
+
+        List<Resource.Blueprint> blueprints = new ArrayList<>();
+        for (int i = 0; i < resourceCount; ++i) {
+            blueprints.add(new Resource.Blueprint("resource-" + i, "/rt"));
+        }
+        env.feedlessResources().createAll(blueprints, (b, e) -> {
+            throw e;
+        });
+    }
+
     private <T extends AbstractElement<?, U>, U extends AbstractElement.Update>
     void runObserverTest(Class<T> entityClass, int nofCreatedRelationships, int nofDeletedRelationships,
             Runnable payload) {
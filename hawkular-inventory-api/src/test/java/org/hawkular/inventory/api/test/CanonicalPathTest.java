@@ -387,6 +387,26 @@ public class CanonicalPathTest {
         Assert.assertEquals(new Path.Segment(DataEntity.class, "configuration"), p.slide(2, 0).getTop());
     }
 
+    @Test
+    public void testMemoizedStringAndHashCode() throws Exception {
+        CanonicalPath p = CanonicalPath.of().tenant("t").environment("e").resource("r%/").get();
+        String str = p.toString();
+        int hash = p.hashCode();
+
+        Assert.assertSame(str, p.toString());
+        Assert.assertEquals(hash, p.hashCode());
+
+        CanonicalPath parsed = CanonicalPath.fromString(str);
+        Assert.assertEquals(p, parsed);
+        Assert.assertEquals(hash, parsed.hashCode());
+        Assert.assertEquals(str, parsed.toString());
+
+        //the parent shares the segments with the path but must not share its string representation
+        Assert.assertEquals("/t;t/e;e", p.up().toString());
+        Assert.assertFalse(p.equals(p.up()));
+        Assert.assertEquals(p, p.up().extend(Resource.class, "r%/").get());
+    }
+
     @SuppressWarnings("unchecked")
     private void checkPath(CanonicalPath path, Object... pathSpec) {
         Assert.assertEquals(pathSpec.length / 2, path.getPath().size());
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.hawkular.inventory.api.InventoryMetrics;
+import org.hawkular.inventory.api.instrumentation.CollectingInventoryMetrics;
+import org.hawkular.inventory.api.instrumentation.LatencyHistogram;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 0; i < 90; ++i) {
+            histogram.record(1_000);
+        }
+
+        for (int i = 0; i < 10; ++i) {
+            histogram.record(1_000_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1_000, snapshot.getMaxMicros());
+        assertEquals(100, snapshot.getMeanMicros());
+
+        //the percentiles are reported as the upper bounds of the buckets...
+        assertEquals(1023, snapshot.getPercentileNanos(0.5));
+        assertEquals(1023, snapshot.getPercentileNanos(0.9));
+        //...but never more than the max
+        assertEquals(1_000_000, snapshot.getPercentileNanos(0.99));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMeanMicros());
+        assertEquals(0, snapshot.getP99Micros());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        CollectingInventoryMetrics metrics = new CollectingInventoryMetrics();
+
+        metrics.recordLatency(InventoryMetrics.Operation.find, 42);
+        metrics.recordQueryResults(10, 2);
+        metrics.recordTransactionRetry(100);
+
+        CollectingInventoryMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.getLatencies().get("find").getCount());
+        assertEquals(0, snapshot.getLatencies().get("traverse").getCount());
+        assertEquals(1, snapshot.getQueries());
+        assertEquals(10, snapshot.getScannedElements());
+        assertEquals(2, snapshot.getReturnedElements());
+        assertEquals(1, snapshot.getTransactionRetries());
+        assertEquals(100, snapshot.getTransactionBackoffMillis());
+
+        metrics.reset();
+
+        snapshot = metrics.snapshot();
+        assertEquals(0, snapshot.getLatencies().get("find").getCount());
+        assertEquals(0, snapshot.getQueries());
+        assertEquals(0, snapshot.getTransactionRetries());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.hawkular.inventory.api.instrumentation.SlowQueryLog;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class SlowQueryLogTest {
+
+    @Test
+    public void testThreshold() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(10, 1);
+
+        assertFalse(log.isSlow(9_999_999));
+        assertTrue(log.isSlow(10_000_000));
+    }
+
+    @Test
+    public void testKeepsMostRecentEntries() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(0, 3);
+
+        for (int i = 0; i < 5; ++i) {
+            log.record(new SlowQueryLog.Entry(i, i, "query-" + i,
+                    Collections.singletonList(new SlowQueryLog.Step("step", i)), i));
+        }
+
+        List<SlowQueryLog.Entry> entries = log.getEntries();
+        assertEquals(3, entries.size());
+        assertEquals("query-4", entries.get(0).getQuery());
+        assertEquals("query-3", entries.get(1).getQuery());
+        assertEquals("query-2", entries.get(2).getQuery());
+        assertEquals(5, log.getRecordedCount());
+
+        log.clear();
+
+        assertTrue(log.getEntries().isEmpty());
+        assertEquals(0, log.getRecordedCount());
+    }
+
+    @Test
+    public void testPartiallyFilled() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(0, 3);
+        log.record(new SlowQueryLog.Entry(0, 0, "query", Collections.emptyList(), 0));
+
+        assertEquals(1, log.getEntries().size());
+    }
+}
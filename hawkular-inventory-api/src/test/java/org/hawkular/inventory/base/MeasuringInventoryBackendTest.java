@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.hawkular.inventory.api.InventoryMetrics;
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.TransitiveClosure;
+import org.hawkular.inventory.api.model.Blueprint;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.base.spi.ContainedEntity;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class MeasuringInventoryBackendTest {
+
+    private InventoryBackend<String> backend;
+    private final List<InventoryMetrics.Operation> recorded = new ArrayList<>();
+    private MeasuringInventoryBackend<String> measuring;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        backend = mock(InventoryBackend.class);
+        recorded.clear();
+        measuring = new MeasuringInventoryBackend<>(backend, new InventoryMetrics() {
+            @Override
+            public void recordLatency(Operation operation, long durationNanos) {
+                recorded.add(operation);
+            }
+
+            @Override
+            public void recordQueryResults(long scanned, long returned) {
+            }
+
+            @Override
+            public void recordTransactionRetry(long backoffMillis) {
+            }
+        });
+    }
+
+    @Test
+    public void testCountForwardedAndRecorded() throws Exception {
+        Query q = Query.empty();
+        when(backend.count(q)).thenReturn(42L);
+
+        Assert.assertEquals(42L, measuring.count(q));
+
+        verify(backend).count(q);
+        Assert.assertEquals(Collections.singletonList(InventoryMetrics.Operation.traverse), recorded);
+    }
+
+    @Test
+    public void testPersistAllForwardedAndRecorded() throws Exception {
+        Map<CanonicalPath, Blueprint> blueprints = Collections.singletonMap(
+                CanonicalPath.of().tenant("t").environment("e").get(),
+                Environment.Blueprint.builder().withId("e").build());
+        List<ContainedEntity<String>> persisted = Collections.singletonList(new ContainedEntity<>("e", "t-e"));
+
+        doReturnPersisted(persisted, blueprints);
+
+        Assert.assertSame(persisted, measuring.persistAll("t", blueprints));
+
+        verify(backend).persistAll("t", blueprints);
+        Assert.assertEquals(Collections.singletonList(InventoryMetrics.Operation.persist), recorded);
+    }
+
+    @Test
+    public void testTransitiveClosureForwardedAndRecordedWhenDepleted() throws Exception {
+        TransitiveClosure closure = TransitiveClosure.over(Relationships.Direction.outgoing, "contains");
+        when(backend.getTransitiveClosureOver("t", closure)).thenReturn(Arrays.asList("a", "b").iterator());
+
+        Iterator<String> it = measuring.getTransitiveClosureOver("t", closure);
+
+        verify(backend).getTransitiveClosureOver("t", closure);
+        Assert.assertTrue(recorded.isEmpty());
+
+        Assert.assertEquals("a", it.next());
+        Assert.assertEquals("b", it.next());
+        Assert.assertFalse(it.hasNext());
+        Assert.assertFalse(it.hasNext());
+
+        Assert.assertEquals(Collections.singletonList(InventoryMetrics.Operation.traverse), recorded);
+    }
+
+    @Test
+    public void testRelationshipClosureForwardedAndRecorded() throws Exception {
+        when(backend.getTransitiveClosureOver("t", Relationships.Direction.both, "contains"))
+                .thenReturn(Collections.<String>emptyList().iterator());
+
+        Iterator<String> it = measuring.getTransitiveClosureOver("t", Relationships.Direction.both, "contains");
+
+        Assert.assertFalse(it.hasNext());
+        verify(backend).getTransitiveClosureOver("t", Relationships.Direction.both, "contains");
+        Assert.assertEquals(Collections.singletonList(InventoryMetrics.Operation.traverse), recorded);
+    }
+
+    //the wildcard in the signature of persistAll() doesn't play well with the stubbing
+    @SuppressWarnings("unchecked")
+    private void doReturnPersisted(List<ContainedEntity<String>> persisted, Map<CanonicalPath, Blueprint> blueprints) {
+        when(backend.persistAll("t", (Map) blueprints)).thenReturn(persisted);
+    }
+}
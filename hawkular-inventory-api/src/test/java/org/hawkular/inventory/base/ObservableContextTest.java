@@ -0,0 +1,182 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.Interest;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.Tenant;
+import org.junit.Assert;
+import org.junit.Test;
+
+import rx.Subscription;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class ObservableContextTest {
+
+    private static Tenant tenant(String id) {
+        return new Tenant(CanonicalPath.of().tenant(id).get());
+    }
+
+    private static void awaitDispatchedCount(ObservableContext ctx, long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (ctx.getStatistics().getDispatchedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(count, ctx.getStatistics().getDispatchedCount());
+    }
+
+    @Test
+    public void testSynchronousDispatch() throws Exception {
+        ObservableContext ctx = new ObservableContext();
+
+        List<Tenant> received = new ArrayList<>();
+        Subscription s = ctx.getObservableFor(Interest.in(Tenant.class).being(Action.created()))
+                .subscribe(received::add);
+
+        Tenant t = tenant("t");
+        ctx.notify(Action.created(), t, t);
+        ctx.notify(Action.deleted(), t, t);
+
+        Assert.assertEquals(Collections.singletonList(t), received);
+        Assert.assertEquals(1, ctx.getStatistics().getDispatchedCount());
+
+        s.unsubscribe();
+    }
+
+    @Test
+    public void testMatchingFollowsSubscriptions() throws Exception {
+        ObservableContext ctx = new ObservableContext();
+        Tenant t = tenant("t");
+
+        List<Object> received = new ArrayList<>();
+
+        //prime the match index with no interests registered
+        ctx.notify(Action.created(), t, t);
+
+        Subscription s1 = ctx.getObservableFor(Interest.in(Tenant.class).being(Action.created()))
+                .subscribe(received::add);
+
+        //interests in a supertype match, too
+        @SuppressWarnings("unchecked")
+        Interest<Object, Object> superTypeInterest = new Interest<>((Action<Object, Object>) (Action) Action.created(),
+                Object.class);
+        Subscription s2 = ctx.getObservableFor(superTypeInterest).subscribe(received::add);
+
+        ctx.notify(Action.created(), t, t);
+        Assert.assertEquals(2, received.size());
+
+        s1.unsubscribe();
+        ctx.notify(Action.created(), t, t);
+        Assert.assertEquals(3, received.size());
+
+        s2.unsubscribe();
+        ctx.notify(Action.created(), t, t);
+        Assert.assertEquals(3, received.size());
+    }
+
+    @Test
+    public void testAsynchronousDispatchKeepsOrder() throws Exception {
+        ObservableContext ctx = new ObservableContext();
+        ctx.dispatchAsynchronously(2, 10, ObservableContext.OverflowPolicy.BLOCK);
+
+        try {
+            int count = 100;
+            CountDownLatch latch = new CountDownLatch(count);
+            List<Tenant> received = Collections.synchronizedList(new ArrayList<>());
+            Thread notifyingThread = Thread.currentThread();
+            List<Thread> observerThreads = Collections.synchronizedList(new ArrayList<>());
+
+            Subscription s = ctx.getObservableFor(Interest.in(Tenant.class).being(Action.created()))
+                    .subscribe(t -> {
+                        observerThreads.add(Thread.currentThread());
+                        received.add(t);
+                        latch.countDown();
+                    });
+
+            List<Tenant> sent = new ArrayList<>();
+            for (int i = 0; i < count; ++i) {
+                Tenant t = tenant("t" + i);
+                sent.add(t);
+                ctx.notify(Action.created(), t, t);
+            }
+
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(sent, received);
+            Assert.assertFalse(observerThreads.contains(notifyingThread));
+            Assert.assertEquals(0, ctx.getStatistics().getQueueDepth());
+
+            //the notification is counted as dispatched only after the observer returns
+            awaitDispatchedCount(ctx, count);
+
+            s.unsubscribe();
+        } finally {
+            ctx.shutdown();
+        }
+    }
+
+    @Test
+    public void testDropPolicy() throws Exception {
+        ObservableContext ctx = new ObservableContext();
+        ctx.dispatchAsynchronously(1, 1, ObservableContext.OverflowPolicy.DROP);
+
+        try {
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+
+            Subscription s = ctx.getObservableFor(Interest.in(Tenant.class).being(Action.created()))
+                    .subscribe(t -> {
+                        blocked.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+
+            Tenant t = tenant("t");
+
+            //the first one is taken by the observer which then blocks
+            ctx.notify(Action.created(), t, t);
+            Assert.assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+            //the second one fills up the queue
+            ctx.notify(Action.created(), t, t);
+
+            //and the third one has no place to go
+            ctx.notify(Action.created(), t, t);
+
+            Assert.assertEquals(1, ctx.getStatistics().getDroppedCount());
+            Assert.assertEquals(1, ctx.getStatistics().getQueueDepth());
+
+            release.countDown();
+            s.unsubscribe();
+        } finally {
+            ctx.shutdown();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class SchemaCacheTest {
+
+    private static final CanonicalPath SCHEMA_PATH = CanonicalPath.of().tenant("t").resourceType("rt").get();
+
+    @Test
+    public void testFrameInvalidationsDeferredUntilCommit() throws Exception {
+        SchemaCache cache = new SchemaCache(10);
+        JsonSchema old = schema();
+        cache.put(SCHEMA_PATH, old, cache.getGeneration());
+
+        SchemaCache frame = cache.forTransactionFrame();
+        frame.invalidate(SCHEMA_PATH);
+
+        //the other transactions still see the committed schema, while the frame needs to load its own version
+        Assert.assertSame(old, cache.get(SCHEMA_PATH));
+        Assert.assertNull(frame.get(SCHEMA_PATH));
+
+        //a reader starts loading the old schema before the frame commits...
+        cache.invalidate(SCHEMA_PATH);
+        long generation = cache.getGeneration();
+
+        frame.frameCommitted();
+
+        //... and must not be able to cache it after the commit
+        cache.put(SCHEMA_PATH, old, generation);
+        Assert.assertNull(cache.get(SCHEMA_PATH));
+    }
+
+    @Test
+    public void testFrameChangesNotSeenOutsideOfFrame() throws Exception {
+        SchemaCache cache = new SchemaCache(10);
+        JsonSchema old = schema();
+        cache.put(SCHEMA_PATH, old, cache.getGeneration());
+
+        SchemaCache frame = cache.forTransactionFrame();
+        frame.invalidate(SCHEMA_PATH);
+
+        JsonSchema changed = schema();
+        frame.put(SCHEMA_PATH, changed, frame.getGeneration());
+
+        Assert.assertSame(changed, frame.get(SCHEMA_PATH));
+        Assert.assertSame(old, cache.get(SCHEMA_PATH));
+
+        frame.frameRolledBack();
+
+        Assert.assertSame(old, cache.get(SCHEMA_PATH));
+        Assert.assertSame(old, frame.get(SCHEMA_PATH));
+    }
+
+    private static JsonSchema schema() throws Exception {
+        return JsonSchemaFactory.byDefault().getJsonSchema(JsonNodeFactory.instance.objectNode());
+    }
+}
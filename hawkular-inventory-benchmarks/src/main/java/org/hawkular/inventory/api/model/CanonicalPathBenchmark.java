@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the basic operations with canonical paths - parsing, extending, going up, serializing to string and
+ * equality checks.
+ *
+ * <p>The {@code *Cached} variants of the parsing benchmarks run in a JVM with the parsed path cache enabled.
+ *
+ * <p>Run with {@code -prof gc} to see the allocation rates.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CanonicalPathBenchmark {
+
+    private static final String CACHE_ENABLED = "-D" + CanonicalPathCache.SIZE_PROPERTY + "=4096";
+
+    /**
+     * The number of nested resources in the path.
+     */
+    @Param({"1", "5", "20"})
+    public int depth;
+
+    private String pathString;
+    private String resourcePath;
+    private CanonicalPath environment;
+    private CanonicalPath path;
+    private CanonicalPath samePath;
+    private CanonicalPath otherPath;
+
+    @Setup
+    public void setup() {
+        CanonicalPath.Extender ext = CanonicalPath.of().tenant("tenant").environment("environment").get().modified();
+        CanonicalPath.Extender sameExt = CanonicalPath.of().tenant("tenant").environment("environment").get()
+                .modified();
+        CanonicalPath.Extender otherExt = CanonicalPath.of().tenant("tenant").environment("environment").get()
+                .modified();
+
+        StringBuilder rp = new StringBuilder();
+        for (int i = 0; i < depth; ++i) {
+            //make every other id require escaping
+            String id = i % 2 == 0 ? "resource-" + i : "resource/" + i;
+            ext.extend(Resource.class, id);
+            sameExt.extend(Resource.class, id);
+            otherExt.extend(Resource.class, i == depth - 1 ? "other" : id);
+            if (i > 0) {
+                rp.append('/');
+            }
+            rp.append(PathSegmentCodec.encode(id));
+        }
+
+        path = ext.get();
+        samePath = sameExt.get();
+        otherPath = otherExt.get();
+        environment = path.up(depth);
+        pathString = path.toString();
+        //the REST API prepends the untyped resource path with the path of the environment or feed
+        resourcePath = environment.toString() + "/" + rp;
+    }
+
+    @Benchmark
+    public CanonicalPath parse() {
+        return CanonicalPath.fromString(pathString);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = CACHE_ENABLED)
+    public CanonicalPath parseCached() {
+        return CanonicalPath.fromString(pathString);
+    }
+
+    /**
+     * This is what the REST API does with the resource paths in the URLs.
+     */
+    @Benchmark
+    public CanonicalPath parseRelative() {
+        return CanonicalPath.fromPartiallyUntypedString(resourcePath, environment, Resource.class);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = CACHE_ENABLED)
+    public CanonicalPath parseRelativeCached() {
+        return CanonicalPath.fromPartiallyUntypedString(resourcePath, environment, Resource.class);
+    }
+
+    @Benchmark
+    public CanonicalPath extend() {
+        return path.extend(DataEntity.class, "configuration").get();
+    }
+
+    @Benchmark
+    public CanonicalPath up() {
+        return path.up();
+    }
+
+    @Benchmark
+    public String toStringOfExisting() {
+        return path.toString();
+    }
+
+    /**
+     * Unlike {@link #toStringOfExisting()}, this can't benefit from the string representation memoized in the path.
+     */
+    @Benchmark
+    public String toStringOfNew() {
+        return path.up().toString();
+    }
+
+    @Benchmark
+    public boolean equalsSame() {
+        return path.equals(samePath);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return path.equals(otherPath);
+    }
+
+    @Benchmark
+    public int hashCodeOfExisting() {
+        return path.hashCode();
+    }
+
+    @Benchmark
+    public int hashCodeOfNew() {
+        return path.up().hashCode();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.base;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Action;
+import org.hawkular.inventory.api.Interest;
+import org.hawkular.inventory.api.model.AbstractElement;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.Metric;
+import org.hawkular.inventory.api.model.MetricType;
+import org.hawkular.inventory.api.model.OperationType;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Tenant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rx.Subscription;
+
+/**
+ * Measures the cost of sending out a single notification depending on the number of the subscribers registered with
+ * the inventory.
+ *
+ * <p>The subscribers are spread over all the entity types (including the abstract supertypes) and all the actions
+ * (much like the bus and security integrations do), so only a fraction of them is actually interested in any single
+ * notification. A notification about a resource is matched by the interests in {@link Resource}, {@link Entity} and
+ * {@link AbstractElement}.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservableContextBenchmark {
+
+    private static final Class<?>[] ENTITY_TYPES = {Tenant.class, Environment.class, Feed.class, ResourceType.class,
+            MetricType.class, Resource.class, Metric.class, OperationType.class, DataEntity.class, Relationship.class,
+            Entity.class, AbstractElement.class};
+
+    @SuppressWarnings("unchecked")
+    private static final Action<Object, Object>[] ACTIONS = new Action[]{Action.created(), Action.updated(),
+            Action.deleted(), Action.copied(), Action.registered(), Action.dataChanged()};
+
+    @Param({"1", "10", "100", "1000"})
+    public int subscriberCount;
+
+    private ObservableContext context;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private Resource resource;
+
+    //written by the subscribers so that the notifications can't be optimized away
+    public long received;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        context = new ObservableContext();
+        CanonicalPath rtPath = CanonicalPath.of().tenant("tenant").resourceType("type").get();
+        resource = new Resource(CanonicalPath.of().tenant("tenant").environment("env").resource("resource").get(),
+                new ResourceType(rtPath));
+
+        for (int i = 0; i < subscriberCount; ++i) {
+            //several subscribers can share a single interest, which is what happens in the real world, too
+            subscriptions.add(context.getObservableFor(interest(i)).subscribe(x -> received++));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Interest<Object, Object> interest(int i) {
+        Class<Object> type = (Class<Object>) ENTITY_TYPES[i % ENTITY_TYPES.length];
+        Action<Object, Object> action = ACTIONS[(i / ENTITY_TYPES.length) % ACTIONS.length];
+        return new Interest<>(action, type);
+    }
+
+    @TearDown
+    public void tearDown() {
+        subscriptions.forEach(Subscription::unsubscribe);
+        subscriptions.clear();
+    }
+
+    @Benchmark
+    public void notifyCreated() {
+        context.notify(Action.created(), resource, resource);
+    }
+
+    /**
+     * No interest can match a string, so this measures the bare cost of the lookup.
+     */
+    @Benchmark
+    public void notifyUnobserved() {
+        context.notify(Action.created(), "unobserved", "unobserved");
+    }
+
+    /**
+     * Subscribing to an interest nobody else is subscribed to discards the matches computed so far, so this measures
+     * the linear search through all the interests that needs to be done after it.
+     */
+    @Benchmark
+    public void notifyAfterSubscribe() {
+        Subscription s = context.getObservableFor(Interest.in(Object.class).being(Action.created()))
+                .subscribe(x -> received++);
+        context.notify(Action.created(), resource, resource);
+        s.unsubscribe();
+    }
+}
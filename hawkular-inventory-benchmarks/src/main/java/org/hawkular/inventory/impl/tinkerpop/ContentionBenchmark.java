@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.TransactionFrame;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.Pager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of the readers while a writer keeps bulk importing resources in a single transaction, in both
+ * the concurrency modes of the {@link org.hawkular.inventory.impl.tinkerpop.provider.TinkerGraphProvider}.
+ *
+ * <p>In the {@code serialized} mode, the readers wait for each import to finish. In the {@code snapshot} mode they
+ * read from the last committed state of the graph and only pay for copying the graph once after each import.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentionBenchmark {
+
+    @Param({"serialized", "snapshot"})
+    public String concurrency;
+
+    /**
+     * The number of resources in the environment before the benchmark starts.
+     */
+    @Param({"1000"})
+    public int resourceCount;
+
+    /**
+     * The number of resources created in a single transaction by the writer.
+     */
+    @Param({"100"})
+    public int importSize;
+
+    private final AtomicLong importedResources = new AtomicLong();
+
+    private TinkerpopInventory inventory;
+    private Resources.ReadWrite resources;
+    private Pager firstPage;
+
+    @Setup
+    public void setup() {
+        inventory = InMemoryInventory.create(Collections.singletonMap(
+                "hawkular.inventory.tinkerpop.tinkergraph.concurrency", concurrency));
+        resources = InMemoryInventory.environment(inventory).feedlessResources();
+
+        String typePath = "/" + InMemoryInventory.RESOURCE_TYPE;
+
+        for (int i = 0; i < resourceCount; ++i) {
+            resources.create(new Resource.Blueprint("resource-" + i, typePath, null));
+        }
+
+        firstPage = new Pager(0, 20, Order.by("id", Order.Direction.ASCENDING));
+    }
+
+    @TearDown
+    public void tearDown() {
+        InMemoryInventory.close(inventory);
+    }
+
+    @Benchmark
+    @Group("readDuringImport")
+    @GroupThreads(3)
+    public List<Resource> read() {
+        return resources.getAll().entities(firstPage).toList();
+    }
+
+    @Benchmark
+    @Group("readDuringImport")
+    @GroupThreads(1)
+    public void bulkImport() throws TransactionFrame.CommitException {
+        TransactionFrame frame = inventory.newTransactionFrame();
+        Inventory tx = frame.boundInventory();
+
+        Resources.ReadWrite txResources = tx.tenants().get(InMemoryInventory.TENANT).environments()
+                .get(InMemoryInventory.ENVIRONMENT).feedlessResources();
+
+        String typePath = "/" + InMemoryInventory.RESOURCE_TYPE;
+
+        for (int i = 0; i < importSize; ++i) {
+            txResources.create(new Resource.Blueprint("imported-" + importedResources.getAndIncrement(), typePath,
+                    null));
+        }
+
+        frame.commit();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating a single resource and looking up a single resource, either by its canonical path or by its id
+ * through the inventory traversal API, in an environment already containing some number of resources.
+ *
+ * <p>The inventory is recreated for each iteration so that the resources created by the {@link #create()} benchmark
+ * don't accumulate over the whole run.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+
+    /**
+     * The number of resources in the environment before the benchmark starts.
+     */
+    @Param({"100", "10000"})
+    public int resourceCount;
+
+    private TinkerpopInventory inventory;
+    private Resources.ReadWrite resources;
+    private CanonicalPath[] paths;
+    private String[] ids;
+    private int next;
+    private int created;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        inventory = InMemoryInventory.create();
+        resources = InMemoryInventory.environment(inventory).feedlessResources();
+
+        String typePath = "/" + InMemoryInventory.RESOURCE_TYPE;
+
+        paths = new CanonicalPath[resourceCount];
+        ids = new String[resourceCount];
+        for (int i = 0; i < resourceCount; ++i) {
+            ids[i] = "resource-" + i;
+            paths[i] = resources.create(new Resource.Blueprint(ids[i], typePath)).entity().getPath();
+        }
+
+        next = 0;
+        created = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        InMemoryInventory.close(inventory);
+    }
+
+    @Benchmark
+    public Resource create() {
+        return resources.create(new Resource.Blueprint("new-resource-" + created++,
+                "/" + InMemoryInventory.RESOURCE_TYPE)).entity();
+    }
+
+    @Benchmark
+    public Resource findByPath() {
+        return inventory.inspect(paths[nextIndex()], Resources.Single.class).entity();
+    }
+
+    @Benchmark
+    public Resource findById() {
+        return resources.get(ids[nextIndex()]).entity();
+    }
+
+    private int nextIndex() {
+        int ret = next;
+        next = (next + 1) % resourceCount;
+        return ret;
+    }
+}
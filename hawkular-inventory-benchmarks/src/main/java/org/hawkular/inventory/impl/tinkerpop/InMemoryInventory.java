@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.Environments;
+import org.hawkular.inventory.api.feeds.AcceptWithFallbackFeedIdStrategy;
+import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.impl.tinkerpop.provider.TinkerGraphProvider;
+
+/**
+ * Sets up the inventory backed by the in-memory {@link TinkerGraphProvider} for the benchmarks.
+ *
+ * <p>Each inventory contains the {@link #TENANT} tenant with the {@link #ENVIRONMENT} environment and the feedless
+ * {@link #RESOURCE_TYPE} resource type the benchmarks can create their resources in.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class InMemoryInventory {
+    static final String TENANT = "tenant";
+    static final String ENVIRONMENT = "environment";
+    static final String RESOURCE_TYPE = "type";
+
+    static final CanonicalPath TENANT_PATH = CanonicalPath.of().tenant(TENANT).get();
+    static final CanonicalPath ENVIRONMENT_PATH = TENANT_PATH.extend(Environment.class, ENVIRONMENT).get();
+    static final CanonicalPath RESOURCE_TYPE_PATH = TENANT_PATH.extend(ResourceType.class, RESOURCE_TYPE).get();
+
+    private InMemoryInventory() {
+
+    }
+
+    /**
+     * @return a new initialized inventory with the tenant, environment and resource type already created
+     */
+    static TinkerpopInventory create() {
+        return create(Collections.emptyMap());
+    }
+
+    /**
+     * @param configuration the additional configuration of the inventory
+     * @return a new initialized inventory with the tenant, environment and resource type already created
+     */
+    static TinkerpopInventory create(Map<String, String> configuration) {
+        Map<String, String> config = new HashMap<>(configuration);
+        config.put(TinkerpopInventory.GRAPH_PROVIDER_IMPL_CLASS.getPropertyName(),
+                TinkerGraphProvider.class.getName());
+
+        TinkerpopInventory inventory = new TinkerpopInventory();
+        inventory.initialize(Configuration.builder()
+                .withFeedIdStrategy(new AcceptWithFallbackFeedIdStrategy(new RandomUUIDFeedIdStrategy()))
+                .withConfiguration(config).build());
+
+        inventory.tenants().create(Tenant.Blueprint.builder().withId(TENANT).build());
+        inventory.tenants().get(TENANT).environments().create(Environment.Blueprint.builder().withId(ENVIRONMENT)
+                .build());
+        inventory.tenants().get(TENANT).feedlessResourceTypes().create(ResourceType.Blueprint.builder()
+                .withId(RESOURCE_TYPE).build());
+
+        return inventory;
+    }
+
+    /**
+     * @param inventory the inventory returned from {@link #create()}
+     * @return the access interface to the environment
+     */
+    static Environments.Single environment(TinkerpopInventory inventory) {
+        return inventory.tenants().get(TENANT).environments().get(ENVIRONMENT);
+    }
+
+    static void close(TinkerpopInventory inventory) {
+        try {
+            inventory.close();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to close the inventory.", e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.filters.Defined;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.Pager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures fetching a single page of resources filtered by a property value and ordered by id, which is the typical
+ * query of the REST API.
+ *
+ * <p>Half of the resources in the environment match the filter. Because of the ordering, all the matching resources
+ * need to be considered regardless of which page is requested, but the later pages also need to skip over the
+ * results on the preceding pages.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+    /**
+     * The number of resources in the environment.
+     */
+    @Param({"1000", "10000"})
+    public int resourceCount;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private TinkerpopInventory inventory;
+    private Resources.ReadWrite resources;
+    private Pager firstPage;
+    private Pager lastPage;
+
+    @Setup
+    public void setup() {
+        inventory = InMemoryInventory.create();
+        resources = InMemoryInventory.environment(inventory).feedlessResources();
+
+        String typePath = "/" + InMemoryInventory.RESOURCE_TYPE;
+
+        for (int i = 0; i < resourceCount; ++i) {
+            resources.create(new Resource.Blueprint("resource-" + i, typePath,
+                    Collections.singletonMap("parity", i % 2 == 0 ? "even" : "odd")));
+        }
+
+        Order order = Order.by("id", Order.Direction.ASCENDING);
+
+        firstPage = new Pager(0, pageSize, order);
+        lastPage = new Pager(Math.max(0, (resourceCount / 2 - 1) / pageSize), pageSize, order);
+    }
+
+    @TearDown
+    public void tearDown() {
+        InMemoryInventory.close(inventory);
+    }
+
+    @Benchmark
+    public List<Resource> firstPage() {
+        return resources.getAll(With.propertyValue("parity", "even")).entities(firstPage).toList();
+    }
+
+    @Benchmark
+    public List<Resource> lastPage() {
+        return resources.getAll(With.propertyValue("parity", "even")).entities(lastPage).toList();
+    }
+
+    /**
+     * The filter on the resource type needs to traverse the {@code defines} relationship of each resource.
+     */
+    @Benchmark
+    public List<Resource> firstPageDefinedByType() {
+        return resources.getAll(Defined.by(InMemoryInventory.RESOURCE_TYPE_PATH),
+                With.propertyValue("parity", "even")).entities(firstPage).toList();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
+import static org.hawkular.inventory.api.Relationships.WellKnown.isParentOf;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.api.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures creating (and deleting again) a relationship, including the checks of the
+ * {@link org.hawkular.inventory.base.RelationshipRules}.
+ *
+ * <p>The feedless resources in the environment form a chain of {@code isParentOf} relationships. Linking a new child
+ * to the tail of the chain makes the loop check traverse the whole chain up to its head, which is the worst case.
+ * Linking a custom relationship is only subject to the global rules and serves as the baseline.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelationshipBenchmark {
+
+    /**
+     * The number of resources in the chain of {@code isParentOf} relationships.
+     */
+    @Param({"10", "100", "1000"})
+    public int chainLength;
+
+    private TinkerpopInventory inventory;
+    private Relationships.ReadWrite outgoingOfTail;
+    private CanonicalPath child;
+
+    @Setup
+    public void setup() {
+        inventory = InMemoryInventory.create();
+
+        Resources.ReadWrite resources = InMemoryInventory.environment(inventory).feedlessResources();
+        String typePath = "/" + InMemoryInventory.RESOURCE_TYPE;
+
+        CanonicalPath previous = null;
+        for (int i = 0; i < chainLength; ++i) {
+            CanonicalPath current = resources.create(new Resource.Blueprint("resource-" + i, typePath)).entity()
+                    .getPath();
+
+            if (previous != null) {
+                inventory.inspect(previous, Resources.Single.class).relationships(outgoing)
+                        .linkWith(isParentOf, current, null);
+            }
+
+            previous = current;
+        }
+
+        outgoingOfTail = inventory.inspect(previous, Resources.Single.class).relationships(outgoing);
+        child = resources.create(new Resource.Blueprint("child", typePath)).entity().getPath();
+    }
+
+    @TearDown
+    public void tearDown() {
+        InMemoryInventory.close(inventory);
+    }
+
+    @Benchmark
+    public Relationship linkIsParentOf() {
+        return linkAndDelete(isParentOf.name());
+    }
+
+    @Benchmark
+    public Relationship linkCustom() {
+        return linkAndDelete("benchmarks");
+    }
+
+    private Relationship linkAndDelete(String name) {
+        Relationship rel = outgoingOfTail.linkWith(name, child, null).entity();
+        outgoingOfTail.delete(rel.getId());
+        return rel;
+    }
+}
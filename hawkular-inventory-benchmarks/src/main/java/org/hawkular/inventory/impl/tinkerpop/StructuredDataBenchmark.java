@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Resources.DataRole.configuration;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Data;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.StructuredData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures updating and loading the configuration of a resource through the inventory API.
+ *
+ * <p>The configuration is a map of {@code entryCount} entries, each of which is a small map of 3 primitive values,
+ * much like the configuration properties of a server. The {@code storage} parameter switches between storing the data
+ * as a tree of vertices ("graph") and the {@link TinkerpopInventory#COMPACT_DATA_ROLES compact} storage.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuredDataBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int entryCount;
+
+    @Param({"graph", "compact"})
+    public String storage;
+
+    private TinkerpopInventory inventory;
+    private Data.ReadWrite<Resources.DataRole> data;
+    private StructuredData value;
+    private DataEntity.Update originalUpdate;
+    private DataEntity.Update otherUpdate;
+    private boolean updated;
+
+    @Setup
+    public void setup() {
+        Map<String, String> config;
+        switch (storage) {
+            case "graph":
+                config = Collections.emptyMap();
+                break;
+            case "compact":
+                config = Collections.singletonMap(TinkerpopInventory.COMPACT_DATA_ROLES.getPropertyName(),
+                        configuration.name());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown storage: " + storage);
+        }
+
+        inventory = InMemoryInventory.create(config);
+
+        value = configurationValue(0);
+        originalUpdate = DataEntity.Update.builder().withValue(value).build();
+        otherUpdate = DataEntity.Update.builder().withValue(configurationValue(1)).build();
+
+        data = InMemoryInventory.environment(inventory).feedlessResources()
+                .create(new Resource.Blueprint("resource", "/" + InMemoryInventory.RESOURCE_TYPE)).data();
+
+        data.create(new DataEntity.Blueprint<>(configuration, value, null));
+    }
+
+    @TearDown
+    public void tearDown() {
+        InMemoryInventory.close(inventory);
+    }
+
+    /**
+     * Alternates the data between two values that differ in one primitive value of each entry. Updating the data with
+     * the value it already has would not change anything.
+     */
+    @Benchmark
+    public void update() {
+        updated = !updated;
+        data.update(configuration, updated ? otherUpdate : originalUpdate);
+    }
+
+    @Benchmark
+    public StructuredData load() {
+        return data.get(configuration).entity().getValue();
+    }
+
+    private StructuredData configurationValue(int offset) {
+        StructuredData.MapBuilder bld = StructuredData.get().map();
+        for (int i = 0; i < entryCount; ++i) {
+            bld.putMap("property-" + i)
+                    .putString("name", "Property " + i)
+                    .putIntegral("value", i + offset)
+                    .putBool("enabled", i % 2 == 0)
+                    .closeMap();
+        }
+        return bld.build();
+    }
+}
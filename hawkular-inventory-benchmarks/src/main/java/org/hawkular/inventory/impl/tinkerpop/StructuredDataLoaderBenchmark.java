@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataIndex;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataKey;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataType;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataValue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.model.StructuredData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+/**
+ * Measures loading of structured data of different shapes out of the graph.
+ *
+ * <ul>
+ *     <li>{@code wide} - a single map with {@code size} primitive values,
+ *     <li>{@code deep} - {@code size} maps nested in each other, each having a couple of primitive values,
+ *     <li>{@code tree} - a balanced tree of lists and maps with 8 children per node and {@code size} nodes in total.
+ * </ul>
+ *
+ * <p>The children are added in the reverse order of their indices so that the loader cannot rely on the graph
+ * returning them ordered.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructuredDataLoaderBenchmark {
+
+    private static final int TREE_FANOUT = 8;
+
+    @Param({"wide", "deep", "tree"})
+    public String shape;
+
+    @Param({"100", "5000"})
+    public int size;
+
+    private TinkerGraph graph;
+    private Vertex root;
+
+    @Setup
+    public void setup() {
+        graph = new TinkerGraph();
+
+        switch (shape) {
+            case "wide":
+                root = wide();
+                break;
+            case "deep":
+                root = deep();
+                break;
+            case "tree":
+                root = tree();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        graph.shutdown();
+    }
+
+    @Benchmark
+    public StructuredData load() {
+        return StructuredDataLoader.load(root);
+    }
+
+    private Vertex wide() {
+        Vertex map = newVertex(StructuredData.Type.map, null, null, null);
+        for (int i = size - 1; i >= 0; --i) {
+            addChild(map, i, "key" + i, StructuredData.Type.integral, (long) i);
+        }
+        return map;
+    }
+
+    private Vertex deep() {
+        Vertex top = newVertex(StructuredData.Type.map, null, null, null);
+        Vertex current = top;
+        for (int i = 0; i < size; ++i) {
+            addChild(current, 2, "name", StructuredData.Type.string, "level" + i);
+            addChild(current, 1, "level", StructuredData.Type.integral, (long) i);
+            current = addChild(current, 0, "nested", StructuredData.Type.map, null);
+        }
+        return top;
+    }
+
+    private Vertex tree() {
+        Vertex top = newVertex(StructuredData.Type.list, null, null, null);
+
+        Deque<Vertex> parents = new ArrayDeque<>();
+        parents.add(top);
+
+        int created = 1;
+        while (created < size) {
+            Vertex parent = parents.poll();
+            boolean parentIsMap = StructuredData.Type.map.name().equals(parent.getProperty(
+                    __structuredDataType.name()));
+
+            for (int i = TREE_FANOUT - 1; i >= 0 && created < size; --i, ++created) {
+                String key = parentIsMap ? "child" + i : null;
+                if (i % 2 == 0) {
+                    parents.add(addChild(parent, i, key, i % 4 == 0 ? StructuredData.Type.map
+                            : StructuredData.Type.list, null));
+                } else {
+                    addChild(parent, i, key, StructuredData.Type.floatingPoint, (double) i);
+                }
+            }
+        }
+
+        return top;
+    }
+
+    private Vertex addChild(Vertex parent, int index, String key, StructuredData.Type type, Object value) {
+        Vertex child = newVertex(type, index, key, value);
+        parent.addEdge(contains.name(), child);
+        return child;
+    }
+
+    private Vertex newVertex(StructuredData.Type type, Integer index, String key, Object value) {
+        Vertex v = graph.addVertex(null);
+        v.setProperty(__structuredDataType.name(), type.name());
+        if (index != null) {
+            v.setProperty(__structuredDataIndex.name(), index);
+        }
+        if (key != null) {
+            v.setProperty(__structuredDataKey.name(), key);
+        }
+        if (value != null) {
+            v.setProperty(__structuredDataValue.name(), value);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
+import static org.hawkular.inventory.api.Relationships.WellKnown.isParentOf;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.TransitiveClosure;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.Pager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the evaluation of the transitive closure over the {@code isParentOf} relationships of a tree of resources,
+ * i.e. what is needed to get all the recursive children of a resource.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransitiveClosureBenchmark {
+
+    private static final int FAN_OUT = 4;
+
+    /**
+     * The depth of the tree of resources. Each resource in the tree has {@value #FAN_OUT} children.
+     */
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    private TinkerpopInventory inventory;
+    private CanonicalPath root;
+    private TransitiveClosure closure;
+    private Pager firstPage;
+
+    @Setup
+    public void setup() {
+        inventory = InMemoryInventory.create();
+
+        root = InMemoryInventory.environment(inventory).feedlessResources()
+                .create(new Resource.Blueprint("root", "/" + InMemoryInventory.RESOURCE_TYPE)).entity().getPath();
+
+        createChildren(root, 1);
+
+        closure = TransitiveClosure.over(outgoing, isParentOf.name()).ofTypes(Resource.class);
+        firstPage = new Pager(0, 20, Order.unspecified());
+    }
+
+    @TearDown
+    public void tearDown() {
+        InMemoryInventory.close(inventory);
+    }
+
+    @Benchmark
+    public int eager() {
+        return count(inventory.getTransitiveClosureOver(root, closure, Resource.class));
+    }
+
+    @Benchmark
+    public int lazy() {
+        return count(inventory.getTransitiveClosureOver(root, closure.lazy(), Resource.class));
+    }
+
+    @Benchmark
+    public int directChildrenOnly() {
+        return count(inventory.getTransitiveClosureOver(root, closure.withMaxDepth(1).lazy(), Resource.class));
+    }
+
+    @Benchmark
+    public List<Resource> firstPage() {
+        return inventory.getTransitiveClosureOver(root, closure.lazy(), Resource.class, firstPage).toList();
+    }
+
+    private void createChildren(CanonicalPath parent, int level) {
+        if (level > depth) {
+            return;
+        }
+
+        Resources.ReadWrite children = inventory.inspect(parent, Resources.Single.class).containedChildren();
+
+        for (int i = 0; i < FAN_OUT; ++i) {
+            CanonicalPath child = children.create(new Resource.Blueprint("child-" + i,
+                    "/" + InMemoryInventory.RESOURCE_TYPE)).entity().getPath();
+
+            createChildren(child, level + 1);
+        }
+    }
+
+    private static int count(Iterator<?> it) {
+        int ret = 0;
+        while (it.hasNext()) {
+            it.next();
+            ret++;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.json;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.StructuredData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Measures the JSON serialization and deserialization of the entities using the mapper configured the same way as in
+ * the REST API.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    /**
+     * The number of the properties of the resource and the number of entries in the data of the data entity.
+     */
+    @Param({"1", "10", "100"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private Resource resource;
+    private String resourceJson;
+    private DataEntity dataEntity;
+    private String dataEntityJson;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper = new ObjectMapper(new JsonFactory());
+        InventoryJacksonConfig.configure(mapper);
+
+        CanonicalPath resourcePath = CanonicalPath.of().tenant("tenant").environment("environment")
+                .resource("resource").get();
+
+        Map<String, Object> properties = new HashMap<>();
+        StructuredData.MapBuilder data = StructuredData.get().map();
+        for (int i = 0; i < size; ++i) {
+            properties.put("property-" + i, "value-" + i);
+            data.putMap("property-" + i)
+                    .putString("name", "Property " + i)
+                    .putIntegral("value", i)
+                    .putBool("enabled", i % 2 == 0)
+                    .closeMap();
+        }
+
+        resource = new Resource(resourcePath,
+                new ResourceType(CanonicalPath.of().tenant("tenant").resourceType("type").get()), properties);
+
+        dataEntity = new DataEntity(resourcePath, Resources.DataRole.configuration, data.build(), null);
+
+        resourceJson = mapper.writeValueAsString(resource);
+        dataEntityJson = mapper.writeValueAsString(dataEntity);
+    }
+
+    @Benchmark
+    public String serializeResource() throws IOException {
+        return mapper.writeValueAsString(resource);
+    }
+
+    @Benchmark
+    public Resource deserializeResource() throws IOException {
+        return mapper.readValue(resourceJson, Resource.class);
+    }
+
+    @Benchmark
+    public String serializeDataEntity() throws IOException {
+        return mapper.writeValueAsString(dataEntity);
+    }
+
+    @Benchmark
+    public DataEntity deserializeDataEntity() throws IOException {
+        return mapper.readValue(dataEntityJson, DataEntity.class);
+    }
+}
@@ -69,13 +69,16 @@ public final class BusIntegration {
         TopicConnectionFactory tcf = (TopicConnectionFactory) namingContext.lookup(
                 configuration.getConnectionFactoryJndiName());
 
-        this.messageSender = new MessageSender(tcf, configuration.getInventoryChangesTopicName());
+        this.messageSender = new MessageSender(tcf, configuration.getInventoryChangesTopicName(),
+                configuration.getBatchSize(), configuration.getLingerTime());
 
         install();
     }
 
     public void stop() throws NamingException {
         uninstall();
+        messageSender.close();
+        messageSender = null;
         namingContext.close();
         namingContext = null;
     }
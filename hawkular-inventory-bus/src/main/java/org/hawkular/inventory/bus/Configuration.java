@@ -32,6 +32,8 @@ public final class Configuration {
 
     private final String connectionFactoryJndiName;
     private final String entityChangesTopicName;
+    private final int batchSize;
+    private final long lingerTime;
 
     public static Configuration fromProperties(Properties properties) {
         Map<String, String> map = new HashMap<>();
@@ -57,6 +59,8 @@ public final class Configuration {
     public static Configuration fromEnumMap(Map<Property, String> map) {
         String connectionFactoryJndiName = null;
         String entityChangesTopicName = null;
+        int batchSize = 0;
+        long lingerTime = 0;
 
         for (Property p : Property.values()) {
             String value = map.get(p);
@@ -71,10 +75,16 @@ public final class Configuration {
                 case INVENTORY_CHANGES_TOPIC_NAME:
                     entityChangesTopicName = value;
                     break;
+                case BATCH_SIZE:
+                    batchSize = Integer.parseInt(value);
+                    break;
+                case LINGER_TIME:
+                    lingerTime = Long.parseLong(value);
+                    break;
             }
         }
 
-        return new Configuration(connectionFactoryJndiName, entityChangesTopicName);
+        return new Configuration(connectionFactoryJndiName, entityChangesTopicName, batchSize, lingerTime);
     }
 
     public static Configuration getDefaultConfiguration() {
@@ -85,9 +95,12 @@ public final class Configuration {
         return new Builder();
     }
 
-    private Configuration(String connectionFactoryJndiName, String entityChangesTopicName) {
+    private Configuration(String connectionFactoryJndiName, String entityChangesTopicName, int batchSize,
+                          long lingerTime) {
         this.connectionFactoryJndiName = connectionFactoryJndiName;
         this.entityChangesTopicName = entityChangesTopicName;
+        this.batchSize = batchSize;
+        this.lingerTime = lingerTime;
     }
 
     public String getConnectionFactoryJndiName() {
@@ -98,6 +111,20 @@ public final class Configuration {
         return entityChangesTopicName;
     }
 
+    /**
+     * @return the maximum number of events sent to the bus in a single JMS transaction
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for more events to fill up a batch before sending it
+     */
+    public long getLingerTime() {
+        return lingerTime;
+    }
+
     public Builder modify() {
         EnumMap<Property, String> m = new EnumMap<>(Property.class);
         toMap().forEach((k, v) -> m.put(Property.valueOf(k), v));
@@ -110,6 +137,8 @@ public final class Configuration {
 
         ret.put(Property.CONNECTION_FACTORY_JNDI_NAME.propertyName, connectionFactoryJndiName);
         ret.put(Property.INVENTORY_CHANGES_TOPIC_NAME.propertyName, entityChangesTopicName);
+        ret.put(Property.BATCH_SIZE.propertyName, Integer.toString(batchSize));
+        ret.put(Property.LINGER_TIME.propertyName, Long.toString(lingerTime));
 
         return ret;
     }
@@ -118,7 +147,9 @@ public final class Configuration {
         CONNECTION_FACTORY_JNDI_NAME("java:/HawkularBusConnectionFactory",
                 "hawkular.inventory.bus.connectionFactoryJndiName"),
         INVENTORY_CHANGES_TOPIC_NAME("java:/topic/HawkularInventoryChanges",
-                "hawkular.inventory.bus.inventoryChangesTopicName");
+                "hawkular.inventory.bus.inventoryChangesTopicName"),
+        BATCH_SIZE("100", "hawkular.inventory.bus.batchSize"),
+        LINGER_TIME("10", "hawkular.inventory.bus.lingerTime");
 
         private final String defaultValue;
         private final String propertyName;
@@ -18,6 +18,7 @@ package org.hawkular.inventory.bus;
 
 import org.jboss.logging.BasicLogger;
 import org.jboss.logging.Logger;
+import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.LogMessage;
 import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageLogger;
@@ -39,4 +40,13 @@ public interface Log extends BasicLogger {
     @LogMessage(level = Logger.Level.WARN)
     @Message(id = 310001, value = "Failed to send message: %s")
     void failedToSendMessage(String message);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 310002, value = "Failed to send a batch of %d messages to the bus.")
+    void failedToSendBatch(int batchSize, @Cause Throwable cause);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 310003, value = "The queued messages could not be sent to the bus in %d ms. %d messages will not" +
+            " be delivered.")
+    void failedToSendQueuedMessages(long timeout, int messageCount);
 }
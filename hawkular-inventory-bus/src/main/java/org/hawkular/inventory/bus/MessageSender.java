@@ -18,48 +18,225 @@ package org.hawkular.inventory.bus;
 
 import static org.hawkular.inventory.bus.Log.LOG;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.jms.JMSException;
+import javax.jms.Session;
+import javax.jms.Topic;
+import javax.jms.TopicConnection;
 import javax.jms.TopicConnectionFactory;
 
-import org.hawkular.bus.common.ConnectionContextFactory;
-import org.hawkular.bus.common.Endpoint;
 import org.hawkular.bus.common.MessageProcessor;
 import org.hawkular.bus.common.producer.ProducerConnectionContext;
 import org.hawkular.inventory.api.Interest;
 import org.hawkular.inventory.bus.api.InventoryEvent;
 
 /**
+ * Sends the inventory events to the bus.
+ *
+ * <p>The events are not sent from the thread that reports them. They are queued and a single publisher thread sends
+ * them in batches, each batch in a single JMS transaction, using a long-lived connection and producer. A batch is sent
+ * once it reaches the configured batch size or once the linger time elapses after its first event, whichever comes
+ * first. The events reported after a single inventory transaction commit therefore usually end up in a single JMS
+ * transaction.
+ *
+ * <p>A batch that fails to send is retried once over a new connection. If that fails too, the events of the batch are
+ * logged and dropped.
+ *
  * @author Lukas Krejci
  * @since 0.0.1
  */
-final class MessageSender {
+final class MessageSender implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 10_000;
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
     private final String topicName;
     private final TopicConnectionFactory topicConnectionFactory;
     private final MessageProcessor messageProcessor;
+    private final int batchSize;
+    private final long lingerTimeNanos;
+    private final BlockingQueue<InventoryEvent<?>> queue;
+    private final Thread publisher;
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile boolean running;
+
+    //only ever accessed from the publisher thread
+    private TopicConnection connection;
+    private ProducerConnectionContext producerConnectionContext;
 
-    public MessageSender(TopicConnectionFactory  topicConnectionFactory, String topicName) {
+    public MessageSender(TopicConnectionFactory topicConnectionFactory, String topicName, int batchSize,
+                         long lingerTime) {
         this.topicConnectionFactory = topicConnectionFactory;
         this.topicName = topicName;
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerTimeNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerTime));
+        this.queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
 
         this.messageProcessor = new MessageProcessor();
+
+        this.running = true;
+        this.publisher = new Thread(this::publish, "Hawkular Inventory Bus Publisher");
+        this.publisher.setDaemon(true);
+        this.publisher.start();
     }
 
     public void send(Interest<?, ?> interest, Object inventoryEvent) {
         InventoryEvent<?> message = InventoryEvent.from(interest.getAction(), inventoryEvent);
-        Map<String, String> headers = message.createMessageHeaders();
 
-        try (ConnectionContextFactory ccf = new ConnectionContextFactory(topicConnectionFactory)) {
-
-            ProducerConnectionContext producerConnectionContext = ccf.createProducerConnectionContext(
-                    new Endpoint(Endpoint.Type.TOPIC, topicName));
-            messageProcessor.send(producerConnectionContext, message, headers);
+        if (!running) {
+            LOG.failedToSendMessage(message.toString());
+            return;
+        }
 
-            Log.LOG.tracef("Sent message %s with headers %s to %s", message, headers,
-                    producerConnectionContext.getDestination());
-        } catch (JMSException e) {
+        try {
+            //blocks if the bus cannot keep up, so that the events don't pile up in memory indefinitely
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             LOG.failedToSendMessage(message.toString());
         }
     }
+
+    /**
+     * Stops accepting new events, sends out the events that are already queued and closes the connection to the bus.
+     *
+     * <p>If the queued events cannot be sent out in time, the publisher is interrupted and the events that were not
+     * sent are logged.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            publisher.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (publisher.isAlive()) {
+            List<InventoryEvent<?>> undelivered = new ArrayList<>();
+            queue.drainTo(undelivered);
+            LOG.failedToSendQueuedMessages(CLOSE_TIMEOUT_MILLIS, undelivered.size());
+            drop(undelivered);
+
+            //the publisher drops the rest, i.e. the batch it is sending and anything that got queued meanwhile
+            publisher.interrupt();
+        }
+    }
+
+    /**
+     * @return the number of events that could not be sent to the bus
+     */
+    long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    private void publish() {
+        List<InventoryEvent<?>> batch = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                InventoryEvent<?> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+
+                long deadline = System.nanoTime() + lingerTimeNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    InventoryEvent<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                sendBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.drainTo(batch);
+            drop(batch);
+        } finally {
+            disconnect();
+        }
+    }
+
+    private void sendBatch(List<InventoryEvent<?>> batch) {
+        try {
+            trySendBatch(batch);
+        } catch (JMSException | RuntimeException e) {
+            //the connection might have gone bad or the session might contain a part of the batch (e.g. if one of
+            //the events failed to serialize), let's retry once over a new connection. We must not let the exception
+            //kill the publisher thread, because no other events would be sent and the inventory writers would block
+            //once the queue fills up.
+            LOG.debugf(e, "Failed to send a batch of %d messages to the bus. Retrying.", batch.size());
+            disconnect();
+
+            try {
+                trySendBatch(batch);
+            } catch (JMSException | RuntimeException e2) {
+                LOG.failedToSendBatch(batch.size(), e2);
+                disconnect();
+                drop(batch);
+            }
+        }
+    }
+
+    private void trySendBatch(List<InventoryEvent<?>> batch) throws JMSException {
+        ProducerConnectionContext producerConnectionContext = connect();
+
+        for (InventoryEvent<?> message : batch) {
+            messageProcessor.send(producerConnectionContext, message, message.createMessageHeaders());
+        }
+
+        producerConnectionContext.getSession().commit();
+
+        LOG.tracef("Sent %d messages to %s", batch.size(), producerConnectionContext.getDestination());
+    }
+
+    private void drop(List<InventoryEvent<?>> events) {
+        droppedEvents.addAndGet(events.size());
+        events.forEach(m -> LOG.failedToSendMessage(m.toString()));
+    }
+
+    private ProducerConnectionContext connect() throws JMSException {
+        if (producerConnectionContext == null) {
+            connection = topicConnectionFactory.createTopicConnection();
+            Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+            Topic topic = session.createTopic(topicName);
+
+            ProducerConnectionContext ctx = new ProducerConnectionContext();
+            ctx.setConnection(connection);
+            ctx.setSession(session);
+            ctx.setDestination(topic);
+            ctx.setMessageProducer(session.createProducer(topic));
+
+            producerConnectionContext = ctx;
+        }
+
+        return producerConnectionContext;
+    }
+
+    private void disconnect() {
+        producerConnectionContext = null;
+
+        if (connection != null) {
+            try {
+                //closing the connection also closes the session, rolling back anything uncommitted, and the producer
+                connection.close();
+            } catch (JMSException e) {
+                LOG.debugf(e, "Failed to close the connection to the bus.");
+            }
+            connection = null;
+        }
+    }
 }
@@ -29,6 +29,7 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import javax.jms.Connection;
@@ -54,6 +55,7 @@ import org.hawkular.bus.common.test.SimpleTestListener;
 import org.hawkular.bus.common.test.VMEmbeddedBrokerWrapper;
 import org.hawkular.inventory.api.Action;
 import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.Interest;
 import org.hawkular.inventory.api.Inventory;
 import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
@@ -381,6 +383,54 @@ public class BusTest {
         }
     }
 
+    @Test
+    public void testPublisherSurvivesUnexpectedFailures() throws Exception {
+        AtomicInteger connectionAttempts = new AtomicInteger();
+
+        TopicConnectionFactory failingFactory = new TopicConnectionFactory() {
+            @Override
+            public TopicConnection createTopicConnection() throws JMSException {
+                if (connectionAttempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("Unexpected failure");
+                }
+                throw new JMSException("Expected failure");
+            }
+
+            @Override
+            public TopicConnection createTopicConnection(String userName, String password) throws JMSException {
+                return createTopicConnection();
+            }
+
+            @Override
+            public Connection createConnection() throws JMSException {
+                return createTopicConnection();
+            }
+
+            @Override
+            public Connection createConnection(String userName, String password) throws JMSException {
+                return createTopicConnection();
+            }
+        };
+
+        Tenant tenant = new Tenant(CanonicalPath.fromString("/t;c"), objectProperties);
+        Interest<Tenant, Tenant> interest = Interest.in(Tenant.class).being(Action.created());
+
+        try (MessageSender sender = new MessageSender(failingFactory, "topic", 1, 0)) {
+            sender.send(interest, tenant);
+            sender.send(interest, tenant);
+
+            //each batch is retried once and the second batch is only attempted if the publisher thread survived
+            //the failure of the first one
+            long deadline = System.currentTimeMillis() + 5000;
+            while (sender.getDroppedEventCount() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(4, connectionAttempts.get());
+            assertEquals(2, sender.getDroppedEventCount());
+        }
+    }
+
     private void testHeaders(ConsumerConnectionContext consumerContext, Class<? extends InventoryEvent<?>> eventClass,
                              Runnable inventoryAction, Consumer<Map<String, String>> assertions)
             throws JMSException, InterruptedException {
@@ -36,6 +36,8 @@ import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.Inventory;
 import org.hawkular.inventory.api.feeds.AcceptWithFallbackFeedIdStrategy;
 import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
+import org.hawkular.inventory.api.instrumentation.CollectingInventoryMetrics;
+import org.hawkular.inventory.api.instrumentation.SlowQueryLog;
 
 /**
  * @author Lukas Krejci
@@ -48,6 +50,30 @@ public class OfficialInventoryProducer {
             .withPropertyNameAndSystemProperty("hawkular.inventory.impl")
             .withEnvironmentVariables("HAWKULAR_INVENTORY_IMPL").build();
 
+    /**
+     * When set to true, the inventory collects the measurements of its performance in memory. These are then available
+     * through the REST API. Off by default.
+     */
+    private static final Configuration.Property METRICS_PROPERTY = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.metrics.enabled")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_METRICS_ENABLED").build();
+
+    /**
+     * The queries taking longer than this number of milliseconds are recorded in the slow query log, which is also
+     * available through the REST API. Setting this implies {@link #METRICS_PROPERTY}. Not set by default, meaning that
+     * the slow queries are not recorded.
+     */
+    private static final Configuration.Property SLOW_QUERY_THRESHOLD_PROPERTY = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.metrics.slow-query-threshold")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_METRICS_SLOW_QUERY_THRESHOLD").build();
+
+    /**
+     * The maximum number of the most recent slow queries kept in the slow query log. Defaults to 100.
+     */
+    private static final Configuration.Property SLOW_QUERY_LOG_SIZE_PROPERTY = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.metrics.slow-query-log-size")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_METRICS_SLOW_QUERY_LOG_SIZE").build();
+
     @Inject
     private Event<InventoryInitialized> inventoryInitializedEvent;
 
@@ -86,11 +112,23 @@ public class OfficialInventoryProducer {
             conf.forEach((k, v) -> config.put(k.toString(), v == null ? null : v.toString()));
         }
 
-        Configuration cfg = Configuration.builder()
+        Configuration.Builder cfgBuilder = Configuration.builder()
                 .withFeedIdStrategy(new AcceptWithFallbackFeedIdStrategy(new RandomUUIDFeedIdStrategy()))
                         //.withResultFilter(securityIntegration) results filtering not required for the current
                         // security model
-                .withConfiguration(config).build();
+                .withConfiguration(config);
+
+        Configuration plainCfg = cfgBuilder.build();
+        String slowQueryThreshold = plainCfg.getProperty(SLOW_QUERY_THRESHOLD_PROPERTY, null);
+        if (slowQueryThreshold != null) {
+            int logSize = Integer.parseInt(plainCfg.getProperty(SLOW_QUERY_LOG_SIZE_PROPERTY, "100"));
+            cfgBuilder.withMetrics(new CollectingInventoryMetrics(
+                    new SlowQueryLog(Long.parseLong(slowQueryThreshold), logSize)));
+        } else if (plainCfg.getFlag(METRICS_PROPERTY, "false")) {
+            cfgBuilder.withMetrics(new CollectingInventoryMetrics());
+        }
+
+        Configuration cfg = cfgBuilder.build();
 
         Inventory inventory = instantiateNew(cfg);
 
@@ -47,6 +47,10 @@ public interface GraphProvider<G extends TransactionalGraph> {
      * <p>The provided set of indexes is what the implementation thinks the indices should be. The graph provider
      * is free to make more indexes if they choose so to support the "core" set of indices.
      *
+     * <p>The index specs can describe composite graph indices, possibly restricted to edges with a certain label, and
+     * {@link IndexSpec#isVertexCentric() vertex-centric} indices. A graph provider that doesn't support some kind of
+     * index should skip it, because the indices only affect the performance, not the results of the queries.
+     *
      * @param graph      the graph instance (coming from the
      *                   {@link #instantiateGraph(Configuration)} call) to index
      * @param indexSpecs the core set of indices to define
@@ -20,9 +20,21 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 
 /**
+ * Specifies an index the inventory needs for good performance. There are two kinds of indices:
+ * <ul>
+ *     <li>a graph index, which looks up the vertices or edges by the values of all the properties of the index
+ *     (a composite index if there is more than one property). A graph index on edges can be restricted to edges with
+ *     a certain {@link #getLabel() label}.
+ *     <li>a {@link #isVertexCentric() vertex-centric} index, which is kept separately for each vertex and looks up
+ *     the vertex's edges with the specified label by the values of the properties. This avoids scanning all the edges
+ *     of vertices with many incident edges of the same label.
+ * </ul>
+ *
  * @author Lukas Krejci
  * @since 0.0.1
  */
@@ -30,15 +42,45 @@ public final class IndexSpec {
     private final Set<Property> properties;
     private final Class<? extends Element> elementType;
     private final boolean unique;
+    private final String label;
+    private final boolean vertexCentric;
+    private final Direction direction;
 
     public static Builder builder() {
         return new Builder();
     }
 
     public IndexSpec(Class<? extends Element> elementType, Set<Property> properties, boolean unique) {
+        this(elementType, properties, unique, null, false, null);
+    }
+
+    /**
+     * @param elementType   the type of the indexed elements
+     * @param properties    the indexed properties
+     * @param unique        whether the combination of the property values is unique
+     * @param label         the label of the edges the index is restricted to or null. Only supported for edges.
+     * @param vertexCentric whether this is a vertex-centric index on the edges with the label, which then must not be
+     *                      null
+     * @param direction     the direction of the edges a vertex-centric index is kept for, null meaning both
+     *                      directions. Ignored for graph indices.
+     * @since 0.7.0
+     */
+    public IndexSpec(Class<? extends Element> elementType, Set<Property> properties, boolean unique, String label,
+                     boolean vertexCentric, Direction direction) {
+        if (label != null && !Edge.class.equals(elementType)) {
+            throw new IllegalArgumentException("Only indices on edges can be restricted to a label.");
+        }
+
+        if (vertexCentric && label == null) {
+            throw new IllegalArgumentException("A vertex-centric index needs to specify the label of the edges.");
+        }
+
         this.elementType = elementType;
         this.properties = properties;
         this.unique = unique;
+        this.label = label;
+        this.vertexCentric = vertexCentric;
+        this.direction = direction == null ? Direction.BOTH : direction;
     }
 
     public Class<? extends Element> getElementType() {
@@ -53,9 +95,36 @@ public final class IndexSpec {
         return unique;
     }
 
+    /**
+     * @return the label of the edges the index is restricted to or null if the index is not restricted to a label
+     * @since 0.7.0
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return true if this is a vertex-centric index on the edges with the {@link #getLabel() label}, false if this
+     * is a graph index
+     * @since 0.7.0
+     */
+    public boolean isVertexCentric() {
+        return vertexCentric;
+    }
+
+    /**
+     * @return the direction of the edges the vertex-centric index is kept for on each vertex, never null
+     * @since 0.7.0
+     */
+    public Direction getDirection() {
+        return direction;
+    }
+
     @Override
     public String toString() {
-        return "IndexSpec[type=" + elementType.getSimpleName() + ",properties=" + properties + "]";
+        return "IndexSpec[type=" + elementType.getSimpleName() + ",properties=" + properties
+                + (label == null ? "" : ",label=" + label)
+                + (vertexCentric ? ",vertexCentric,direction=" + direction : "") + "]";
     }
 
 
@@ -80,6 +149,11 @@ public final class IndexSpec {
             return name;
         }
 
+        /**
+         * @deprecated the graph providers are not required to support this, use a
+         * {@link IndexSpec#isVertexCentric() vertex-centric} index instead
+         */
+        @Deprecated
         public String getLabelIndex() {
             return labelIndex;
         }
@@ -129,6 +203,10 @@ public final class IndexSpec {
                 return this;
             }
 
+            /**
+             * @deprecated use a {@link IndexSpec.Builder#withVertexCentric(boolean) vertex-centric} index instead
+             */
+            @Deprecated
             public Builder withLabelIndex(String labelIndex) {
                 this.labelIndex = labelIndex;
                 return this;
@@ -147,6 +225,9 @@ public final class IndexSpec {
         private final Set<Property> properties = new HashSet<>();
         private Class<? extends Element> elementType;
         private boolean unique;
+        private String label;
+        private boolean vertexCentric;
+        private Direction direction;
 
         private Builder() {
 
@@ -171,8 +252,23 @@ public final class IndexSpec {
             return this;
         }
 
+        public Builder withLabel(String label) {
+            this.label = label;
+            return this;
+        }
+
+        public Builder withVertexCentric(boolean vertexCentric) {
+            this.vertexCentric = vertexCentric;
+            return this;
+        }
+
+        public Builder withDirection(Direction direction) {
+            this.direction = direction;
+            return this;
+        }
+
         public IndexSpec build() {
-            return new IndexSpec(elementType, properties, unique);
+            return new IndexSpec(elementType, properties, unique, label, vertexCentric, direction);
         }
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.spi;
+
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class IndexSpecTest {
+
+    private static final IndexSpec.Property PROPERTY = IndexSpec.Property.builder().withName("prop")
+            .withType(String.class).build();
+
+    @Test
+    public void testLabelOnlyAllowedOnEdges() throws Exception {
+        try {
+            IndexSpec.builder().withElementType(Vertex.class).withLabel("contains").withProperty(PROPERTY).build();
+            Assert.fail("An index on vertices should not be possible to restrict to a label.");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+
+        IndexSpec spec = IndexSpec.builder().withElementType(Edge.class).withLabel("contains").withProperty(PROPERTY)
+                .build();
+
+        Assert.assertEquals("contains", spec.getLabel());
+        Assert.assertFalse(spec.isVertexCentric());
+    }
+
+    @Test
+    public void testVertexCentricIndexRequiresLabel() throws Exception {
+        try {
+            IndexSpec.builder().withElementType(Edge.class).withVertexCentric(true).withProperty(PROPERTY).build();
+            Assert.fail("A vertex-centric index without a label should not be possible.");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+
+        IndexSpec spec = IndexSpec.builder().withElementType(Edge.class).withLabel("contains").withVertexCentric(true)
+                .withDirection(Direction.OUT).withProperty(PROPERTY).build();
+
+        Assert.assertTrue(spec.isVertexCentric());
+        Assert.assertEquals(Direction.OUT, spec.getDirection());
+    }
+
+    @Test
+    public void testDirectionDefaultsToBoth() throws Exception {
+        IndexSpec spec = IndexSpec.builder().withElementType(Edge.class).withLabel("contains").withVertexCentric(true)
+                .withProperty(PROPERTY).build();
+
+        Assert.assertEquals(Direction.BOTH, spec.getDirection());
+        Assert.assertNull(new IndexSpec(Vertex.class, Collections.singleton(PROPERTY), false).getLabel());
+    }
+}
@@ -0,0 +1,723 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.wrappers.event.listener.GraphChangedListener;
+
+/**
+ * Persists a TinkerGraph incrementally. The mutations of the graph are collected as they happen and appended to a
+ * write-ahead journal as a single checksummed batch when the transaction ends. Once the journal grows over the
+ * configured size, the whole graph is written to a snapshot file and a new, empty journal is started.
+ *
+ * <p>On startup, the snapshot is memory-mapped and loaded and the journal is replayed on top of it. A batch that was
+ * only partially written because of a crash is detected by its checksum and discarded together with anything after
+ * it. The same happens to a batch that cannot be decoded - the batches are only ever applied as a whole.
+ *
+ * <p>The snapshot and the journal are tied together by a generation number - the snapshot of generation {@code N}
+ * contains everything up to the start of the journal {@code journal-N.wal}. This makes the checkpoint safe against
+ * crashes - the new snapshot replaces the old one atomically and a journal of an older generation than the snapshot
+ * is never replayed.
+ *
+ * <p>This class is not thread-safe. It relies on the graph being modified by a single thread at a time, which is
+ * guaranteed by the exclusive locking of the mutating transactions in {@link TinkerGraphProvider}.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class TinkerGraphJournal implements GraphChangedListener {
+    private static final String SNAPSHOT_FILE = "graph.snapshot";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".wal";
+
+    private static final int SNAPSHOT_MAGIC = 0x48494753;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte END = 0;
+    private static final byte ADD_VERTEX = 1;
+    private static final byte ADD_EDGE = 2;
+    private static final byte SET_VERTEX_PROPERTY = 3;
+    private static final byte REMOVE_VERTEX_PROPERTY = 4;
+    private static final byte REMOVE_VERTEX = 5;
+    private static final byte SET_EDGE_PROPERTY = 6;
+    private static final byte REMOVE_EDGE_PROPERTY = 7;
+    private static final byte REMOVE_EDGE = 8;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte STRING_VALUE = 1;
+    private static final byte BOOLEAN_VALUE = 2;
+    private static final byte INT_VALUE = 3;
+    private static final byte LONG_VALUE = 4;
+    private static final byte DOUBLE_VALUE = 5;
+    private static final byte FLOAT_VALUE = 6;
+    private static final byte SHORT_VALUE = 7;
+    private static final byte BYTE_VALUE = 8;
+    private static final byte CHAR_VALUE = 9;
+    private static final byte BYTES_VALUE = 10;
+    private static final byte SERIALIZED_VALUE = 11;
+
+    private final Path directory;
+    private final long checkpointSize;
+    private final boolean sync;
+
+    private final ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pending = new DataOutputStream(pendingBytes);
+
+    private long generation;
+    private long nextId;
+    private FileChannel journal;
+
+    private TinkerGraphJournal(Path directory, long checkpointSize, boolean sync) {
+        this.directory = directory;
+        this.checkpointSize = checkpointSize;
+        this.sync = sync;
+    }
+
+    /**
+     * Loads the persisted state from the directory into the provided graph and opens the journal for appending.
+     *
+     * @param directory      the directory with the snapshot and journal files, created if it doesn't exist
+     * @param graph          the empty graph to load the persisted state into
+     * @param checkpointSize the size of the journal in bytes after which the graph is checkpointed
+     * @param sync           whether to force the journal to the disk on each commit
+     * @return the journal to record the further changes of the graph into
+     * @throws IOException on failure to read the files
+     */
+    static TinkerGraphJournal open(Path directory, TinkerGraph graph, long checkpointSize, boolean sync)
+            throws IOException {
+        Files.createDirectories(directory);
+
+        TinkerGraphJournal ret = new TinkerGraphJournal(directory, checkpointSize, sync);
+
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            ret.loadSnapshot(snapshot, graph);
+        }
+
+        ret.replay(ret.journalFile(ret.generation), graph);
+        ret.deleteStaleJournals();
+
+        ret.journal = FileChannel.open(ret.journalFile(ret.generation), CREATE, WRITE);
+        ret.journal.position(ret.journal.size());
+
+        return ret;
+    }
+
+    /**
+     * The ids of the new elements are generated by the journal so that they never clash with the ids of the elements
+     * loaded from the disk.
+     *
+     * @return the id of a new element
+     */
+    String nextId() {
+        return Long.toString(nextId++);
+    }
+
+    /**
+     * Appends the changes made since the last call to the journal and checkpoints the graph if the journal grew too
+     * large.
+     *
+     * <p>If the changes fail to be written, they are retained and the next call tries to write them again, because
+     * the changes have already been applied to the graph in memory.
+     *
+     * @param graph the journaled graph
+     */
+    void commit(TinkerGraph graph) {
+        if (pendingBytes.size() == 0) {
+            return;
+        }
+
+        try {
+            append();
+
+            if (journal.size() >= checkpointSize) {
+                checkpoint(graph);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to persist the changes of the graph to " + directory + ".", e);
+        }
+    }
+
+    /**
+     * Writes any outstanding changes to the journal and closes it. The graph is not checkpointed, so that the
+     * shutdown doesn't need to write the whole graph.
+     */
+    void close() {
+        try {
+            if (pendingBytes.size() > 0) {
+                append();
+            }
+            journal.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to close the journal of the graph in " + directory + ".", e);
+        }
+    }
+
+    @Override
+    public void vertexAdded(Vertex vertex) {
+        record(ADD_VERTEX, vertex);
+    }
+
+    @Override
+    public void vertexPropertyChanged(Vertex vertex, String key, Object oldValue, Object setValue) {
+        record(SET_VERTEX_PROPERTY, vertex, key, setValue);
+    }
+
+    @Override
+    public void vertexPropertyRemoved(Vertex vertex, String key, Object removedValue) {
+        record(REMOVE_VERTEX_PROPERTY, vertex, key);
+    }
+
+    @Override
+    public void vertexRemoved(Vertex vertex, Map<String, Object> props) {
+        record(REMOVE_VERTEX, vertex);
+    }
+
+    @Override
+    public void edgeAdded(Edge edge) {
+        try {
+            pending.writeByte(ADD_EDGE);
+            writeString(pending, edge.getId().toString());
+            writeString(pending, edge.getVertex(Direction.OUT).getId().toString());
+            writeString(pending, edge.getVertex(Direction.IN).getId().toString());
+            writeString(pending, edge.getLabel());
+        } catch (IOException e) {
+            throw new AssertionError("In-memory stream failed.", e);
+        }
+    }
+
+    @Override
+    public void edgePropertyChanged(Edge edge, String key, Object oldValue, Object setValue) {
+        record(SET_EDGE_PROPERTY, edge, key, setValue);
+    }
+
+    @Override
+    public void edgePropertyRemoved(Edge edge, String key, Object removedValue) {
+        record(REMOVE_EDGE_PROPERTY, edge, key);
+    }
+
+    @Override
+    public void edgeRemoved(Edge edge, Map<String, Object> props) {
+        record(REMOVE_EDGE, edge);
+    }
+
+    private void record(byte type, Element element) {
+        try {
+            pending.writeByte(type);
+            writeString(pending, element.getId().toString());
+        } catch (IOException e) {
+            throw new AssertionError("In-memory stream failed.", e);
+        }
+    }
+
+    private void record(byte type, Element element, String key) {
+        try {
+            pending.writeByte(type);
+            writeString(pending, element.getId().toString());
+            writeString(pending, key);
+        } catch (IOException e) {
+            throw new AssertionError("In-memory stream failed.", e);
+        }
+    }
+
+    private void record(byte type, Element element, String key, Object value) {
+        try {
+            pending.writeByte(type);
+            writeString(pending, element.getId().toString());
+            writeString(pending, key);
+            writeValue(pending, value);
+        } catch (IOException e) {
+            throw new AssertionError("In-memory stream failed.", e);
+        }
+    }
+
+    private void append() throws IOException {
+        byte[] payload = pendingBytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer batch = ByteBuffer.allocate(8 + payload.length);
+        batch.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        batch.flip();
+
+        long start = journal.position();
+        try {
+            while (batch.hasRemaining()) {
+                journal.write(batch);
+            }
+            if (sync) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            //get rid of the partially written batch so that the retry appends a complete one
+            journal.truncate(start);
+            journal.position(start);
+            throw e;
+        }
+
+        pendingBytes.reset();
+    }
+
+    private void checkpoint(TinkerGraph graph) throws IOException {
+        long newGeneration = generation + 1;
+
+        writeSnapshot(graph, newGeneration);
+
+        FileChannel newJournal = FileChannel.open(journalFile(newGeneration), CREATE, WRITE);
+        journal.close();
+        Files.deleteIfExists(journalFile(generation));
+
+        journal = newJournal;
+        generation = newGeneration;
+    }
+
+    private void writeSnapshot(TinkerGraph graph, long generation) throws IOException {
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(generation);
+            out.writeLong(nextId);
+
+            //all the vertices need to precede the edges so that the edges can be connected to them when loading
+            for (Vertex v : graph.getVertices()) {
+                out.writeByte(ADD_VERTEX);
+                writeString(out, v.getId().toString());
+                writeProperties(out, v);
+            }
+
+            for (Edge e : graph.getEdges()) {
+                out.writeByte(ADD_EDGE);
+                writeString(out, e.getId().toString());
+                writeString(out, e.getVertex(Direction.OUT).getId().toString());
+                writeString(out, e.getVertex(Direction.IN).getId().toString());
+                writeString(out, e.getLabel());
+                writeProperties(out, e);
+            }
+
+            out.writeByte(END);
+            out.flush();
+            file.getFD().sync();
+        }
+
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private void loadSnapshot(Path snapshot, TinkerGraph graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, READ)) {
+            DataInputStream in = new DataInputStream(new MappedInputStream(channel));
+
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("File " + snapshot + " is not a graph snapshot.");
+            }
+
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported version " + version + " of the graph snapshot " + snapshot + ".");
+            }
+
+            generation = in.readLong();
+            nextId = in.readLong();
+
+            byte type;
+            while ((type = in.readByte()) != END) {
+                Element element;
+                switch (type) {
+                    case ADD_VERTEX:
+                        element = graph.addVertex(readString(in));
+                        break;
+                    case ADD_EDGE:
+                        String id = readString(in);
+                        Vertex out = graph.getVertex(readString(in));
+                        Vertex inV = graph.getVertex(readString(in));
+                        element = graph.addEdge(id, out, inV, readString(in));
+                        break;
+                    default:
+                        throw new IOException("Corrupted graph snapshot " + snapshot + ". Unknown element type "
+                                + type + ".");
+                }
+
+                int propertyCount = in.readInt();
+                for (int i = 0; i < propertyCount; ++i) {
+                    element.setProperty(readString(in), readValue(in));
+                }
+            }
+        }
+    }
+
+    private void replay(Path journalFile, TinkerGraph graph) throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+
+        long validSize = 0;
+        long size;
+
+        try (FileChannel channel = FileChannel.open(journalFile, READ)) {
+            size = channel.size();
+            MappedInputStream mapped = new MappedInputStream(channel);
+            DataInputStream in = new DataInputStream(mapped);
+
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                int checksum;
+                try {
+                    int length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0 || length > size - mapped.position()) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                List<Consumer<TinkerGraph>> changes;
+                try {
+                    changes = decode(new DataInputStream(new ByteArrayInputStream(payload)), payload.length);
+                } catch (IOException e) {
+                    //the batch is complete but its content is malformed, so neither it nor anything after it can be
+                    //trusted
+                    break;
+                }
+
+                changes.forEach(c -> c.accept(graph));
+                validSize = mapped.position();
+            }
+        }
+
+        if (validSize < size) {
+            //the tail of the journal was not completely written before the crash
+            try (FileChannel channel = FileChannel.open(journalFile, WRITE)) {
+                channel.truncate(validSize);
+            }
+        }
+    }
+
+    /**
+     * Decodes the whole batch before any of it is applied, so that a malformed batch is never applied partially.
+     */
+    private List<Consumer<TinkerGraph>> decode(DataInputStream in, int length) throws IOException {
+        List<Consumer<TinkerGraph>> ret = new ArrayList<>();
+        int read = 0;
+        while (read < length) {
+            byte type = in.readByte();
+            String id = readString(in);
+
+            switch (type) {
+                case ADD_VERTEX:
+                    ret.add(g -> {
+                        g.addVertex(id);
+                        observeId(id);
+                    });
+                    break;
+                case ADD_EDGE: {
+                    String outId = readString(in);
+                    String inId = readString(in);
+                    String label = readString(in);
+                    ret.add(g -> {
+                        g.addEdge(id, g.getVertex(outId), g.getVertex(inId), label);
+                        observeId(id);
+                    });
+                    break;
+                }
+                case SET_VERTEX_PROPERTY: {
+                    String key = readString(in);
+                    Object value = readValue(in);
+                    ret.add(g -> g.getVertex(id).setProperty(key, value));
+                    break;
+                }
+                case REMOVE_VERTEX_PROPERTY: {
+                    String key = readString(in);
+                    ret.add(g -> g.getVertex(id).removeProperty(key));
+                    break;
+                }
+                case REMOVE_VERTEX:
+                    ret.add(g -> g.removeVertex(g.getVertex(id)));
+                    break;
+                case SET_EDGE_PROPERTY: {
+                    String key = readString(in);
+                    Object value = readValue(in);
+                    ret.add(g -> g.getEdge(id).setProperty(key, value));
+                    break;
+                }
+                case REMOVE_EDGE_PROPERTY: {
+                    String key = readString(in);
+                    ret.add(g -> g.getEdge(id).removeProperty(key));
+                    break;
+                }
+                case REMOVE_EDGE:
+                    ret.add(g -> g.removeEdge(g.getEdge(id)));
+                    break;
+                default:
+                    throw new IOException("Corrupted graph journal in " + directory + ". Unknown record type " + type
+                            + ".");
+            }
+
+            read = length - in.available();
+        }
+
+        return ret;
+    }
+
+    private void observeId(String id) {
+        try {
+            nextId = Math.max(nextId, Long.parseLong(id) + 1);
+        } catch (NumberFormatException ignored) {
+            //not one of our ids, so it can't clash with them
+        }
+    }
+
+    private void deleteStaleJournals() throws IOException {
+        Path current = journalFile(generation);
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory,
+                JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path j : journals) {
+                if (!j.equals(current)) {
+                    Files.delete(j);
+                }
+            }
+        }
+    }
+
+    private Path journalFile(long generation) {
+        return directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+    }
+
+    private static void writeProperties(DataOutput out, Element element) throws IOException {
+        out.writeInt(element.getPropertyKeys().size());
+        for (String key : element.getPropertyKeys()) {
+            writeString(out, key);
+            writeValue(out, element.getProperty(key));
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeValue(DataOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_VALUE);
+        } else if (value instanceof String) {
+            out.writeByte(STRING_VALUE);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN_VALUE);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT_VALUE);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG_VALUE);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE_VALUE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT_VALUE);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT_VALUE);
+            out.writeShort((Short) value);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE_VALUE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR_VALUE);
+            out.writeChar((Character) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES_VALUE);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof Serializable) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+                oos.writeObject(value);
+            }
+            out.writeByte(SERIALIZED_VALUE);
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        } else {
+            throw new IllegalArgumentException("Cannot persist a property value of type " + value.getClass() + ".");
+        }
+    }
+
+    private static Object readValue(DataInput in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL_VALUE:
+                return null;
+            case STRING_VALUE:
+                return readString(in);
+            case BOOLEAN_VALUE:
+                return in.readBoolean();
+            case INT_VALUE:
+                return in.readInt();
+            case LONG_VALUE:
+                return in.readLong();
+            case DOUBLE_VALUE:
+                return in.readDouble();
+            case FLOAT_VALUE:
+                return in.readFloat();
+            case SHORT_VALUE:
+                return in.readShort();
+            case BYTE_VALUE:
+                return in.readByte();
+            case CHAR_VALUE:
+                return in.readChar();
+            case BYTES_VALUE: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return bytes;
+            }
+            case SERIALIZED_VALUE: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return ois.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Failed to deserialize a property value.", e);
+                }
+            }
+            default:
+                throw new IOException("Unknown property value type " + type + ".");
+        }
+    }
+
+    /**
+     * Reads a file by memory-mapping it in windows, so that files larger than 2GB can be read, too.
+     */
+    private static final class MappedInputStream extends InputStream {
+        private static final long WINDOW_SIZE = 1L << 28;
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedInputStream(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureAvailable()) {
+                return -1;
+            }
+            return window.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (!ensureAvailable()) {
+                return -1;
+            }
+
+            int n = Math.min(len, window.remaining());
+            window.get(b, off, n);
+            return n;
+        }
+
+        private boolean ensureAvailable() throws IOException {
+            if (window.hasRemaining()) {
+                return true;
+            }
+
+            long next = windowStart + window.capacity();
+            if (next >= size) {
+                return false;
+            }
+
+            map(next);
+            return true;
+        }
+
+        private void map(long start) throws IOException {
+            windowStart = start;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        }
+    }
+}
@@ -16,9 +16,10 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.provider;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
-import java.util.WeakHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.configuration.MapConfiguration;
@@ -27,23 +28,78 @@ import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
 
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.GraphHelper;
+import com.tinkerpop.blueprints.util.wrappers.event.EventGraph;
 import com.tinkerpop.blueprints.util.wrappers.wrapped.WrappedGraph;
 
 /**
+ * The graph provider for the in-memory TinkerGraph. TinkerGraph doesn't support transactions nor concurrent
+ * modifications, so the transactions are simulated using locks. How the locks are used is determined by the
+ * {@code hawkular.inventory.tinkerpop.tinkergraph.concurrency} configuration property:
+ * <ul>
+ *     <li>{@code serialized} (the default) - the mutating transactions are exclusive, while the read-only transactions
+ *     can run concurrently with each other. A long running mutating transaction therefore blocks all the readers.
+ *     <li>{@code snapshot} - the mutating transactions are still exclusive but the read-only transactions read from an
+ *     immutable snapshot of the graph as of the last commit and are mostly not blocked by the writers. The snapshot
+ *     is a full copy of the graph that is only refreshed if some reader asked for it since the last refresh, so
+ *     a series of mutating transactions with no readers in between doesn't copy the graph over and over again.
+ *     A reader arriving during a mutating transaction that was not preceded by such a request waits for the
+ *     transaction to finish. This suits the read-mostly workloads with small to medium sized graphs.
+ * </ul>
+ *
+ * <p>If the {@code blueprints.tg.directory} is configured, the graph is persisted in it. How it is persisted is
+ * determined by the {@code hawkular.inventory.tinkerpop.tinkergraph.persistence} configuration property:
+ * <ul>
+ *     <li>{@code full} (the default) - TinkerGraph itself loads the whole graph on startup and saves the whole graph
+ *     on shutdown.
+ *     <li>{@code incremental} - the changes are appended to a journal on each commit and the whole graph is only
+ *     written out once the journal grows over {@code hawkular.inventory.tinkerpop.tinkergraph.checkpoint-size} bytes
+ *     (64MB by default). The journal is forced to the disk on each commit unless
+ *     {@code hawkular.inventory.tinkerpop.tinkergraph.journal-sync} is {@code false}. See {@link TinkerGraphJournal}
+ *     for the details. The files of the two modes are not compatible with each other.
+ * </ul>
+ *
  * @author Lukas Krejci
  * @since 0.0.1
  */
 public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvider.WrappedTinkerGraph> {
 
-    private final WeakHashMap<WrappedTinkerGraph, ReentrantReadWriteLock> transactionLocks = new WeakHashMap<>();
-
     @Override
     public WrappedTinkerGraph instantiateGraph(Configuration configuration) {
+        boolean snapshots = "snapshot".equals(configuration.getProperty(PropertyKey.CONCURRENCY,
+                "serialized"));
+
+        if ("incremental".equals(configuration.getProperty(PropertyKey.PERSISTENCE, "full"))) {
+            String directory = configuration.getProperty(PropertyKey.DIRECTORY_NAME, null);
+            if (directory == null) {
+                throw new IllegalArgumentException("The incremental persistence of the graph requires the '"
+                        + PropertyKey.DIRECTORY_NAME.getPropertyName() + "' to be configured.");
+            }
+
+            long checkpointSize = Long.parseLong(configuration.getProperty(PropertyKey.CHECKPOINT_SIZE,
+                    Long.toString(64 * 1024 * 1024)));
+            boolean sync = configuration.getFlag(PropertyKey.JOURNAL_SYNC, "true");
+
+            //the graph itself must not be given the directory so that it doesn't save itself on shutdown
+            TinkerGraph graph = new TinkerGraph();
+            try {
+                TinkerGraphJournal journal = TinkerGraphJournal.open(Paths.get(directory), graph, checkpointSize,
+                        sync);
+                return new WrappedTinkerGraph(graph, snapshots, journal);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to load the graph from " + directory + ".", e);
+            }
+        }
+
         return new WrappedTinkerGraph(new MapConfiguration(
                 configuration.getImplementationConfiguration(
-                        Collections.singleton(PropertyKey.DIRECTORY_NAME))));
+                        Collections.singleton(PropertyKey.DIRECTORY_NAME))), snapshots);
     }
 
     @Override
@@ -53,22 +109,20 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
 
     @Override
     public InventoryBackend.Transaction startTransaction(WrappedTinkerGraph graph, boolean mutating) {
-        ReentrantReadWriteLock lock;
-        synchronized (transactionLocks) {
-            lock = transactionLocks.get(graph);
-            if (lock == null) {
-                lock = new ReentrantReadWriteLock();
-                transactionLocks.put(graph, lock);
-            }
-        }
-
+        boolean snapshot = false;
         if (mutating) {
-            lock.writeLock().lock();
+            graph.lock.writeLock().lock();
+            graph.startWriting();
+        } else if (graph.readsFromSnapshots && !graph.lock.isWriteLockedByCurrentThread()) {
+            //a read-only transaction started within a mutating one needs to see the changes made so far, so it can't
+            //read from the snapshot
+            graph.startReadingSnapshot();
+            snapshot = true;
         } else {
-            lock.readLock().lock();
+            graph.lock.readLock().lock();
         }
 
-        return new SimulatedSerializedTransaction(mutating, lock);
+        return new SimulatedSerializedTransaction(mutating, graph.lock, snapshot);
     }
 
     @Override
@@ -76,7 +130,7 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
         try {
             graph.commit();
         } finally {
-            unlock(t);
+            unlock(graph, t);
         }
     }
 
@@ -85,14 +139,24 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
         try {
             graph.rollback();
         } finally {
-            unlock(t);
+            unlock(graph, t);
         }
     }
 
-    private void unlock(InventoryBackend.Transaction t) {
-        ReentrantReadWriteLock lock = ((SimulatedSerializedTransaction) t).lock;
+    private void unlock(WrappedTinkerGraph graph, InventoryBackend.Transaction t) {
+        SimulatedSerializedTransaction tx = (SimulatedSerializedTransaction) t;
+        ReentrantReadWriteLock lock = tx.lock;
         if (t.isMutating() && lock.writeLock().isHeldByCurrentThread()) {
-            lock.writeLock().unlock();
+            //the graph doesn't support rollbacks, so the graph changes with every mutating transaction and the changes
+            //need to be persisted even if the transaction is rolled back. This needs to happen before the write lock is
+            //released, because only then no one else can be changing the graph or its journal.
+            try {
+                graph.persistChanges();
+            } finally {
+                graph.stopWriting();
+            }
+        } else if (tx.snapshot) {
+            graph.stopReadingSnapshot();
         } else if (lock.getReadHoldCount() > 0) {
             lock.readLock().unlock();
         }
@@ -100,8 +164,67 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
 
     public static final class WrappedTinkerGraph extends WrappedGraph<TinkerGraph> implements TransactionalGraph {
 
+        /**
+         * The snapshot the current thread reads from during a read-only transaction. The read-only transactions
+         * nested in it read from the same snapshot. It is cleared when the outermost transaction ends so that the idle
+         * threads don't keep the old copies of the graph alive. The query results evaluated lazily after that read
+         * from the live graph, just like in the serialized mode after the read lock is released.
+         */
+        private final ThreadLocal<SnapshotRead> currentSnapshot = new ThreadLocal<>();
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final boolean readsFromSnapshots;
+
+        /**
+         * The journal of the changes or null if the graph is not persisted incrementally.
+         */
+        private final TinkerGraphJournal journal;
+
+        /**
+         * The view of the base graph that reports the changes to the {@link #journal} or null if the graph is not
+         * persisted incrementally.
+         */
+        private final EventGraph<TinkerGraph> journaledGraph;
+
+        /**
+         * Guarded by {@code this}.
+         */
+        private WrappedGraph<TinkerGraph> snapshot;
+
+        /**
+         * Guarded by {@code this}. True if the graph changed since the {@link #snapshot} was taken.
+         */
+        private boolean snapshotStale = true;
+
+        /**
+         * Guarded by {@code this}. True if some reader asked for a snapshot since the last time a writer refreshed it.
+         */
+        private boolean snapshotRequested;
+
         public WrappedTinkerGraph(org.apache.commons.configuration.Configuration configuration) {
-            super(new TinkerGraph(configuration));
+            this(configuration, false);
+        }
+
+        /**
+         * @param configuration      the configuration of the TinkerGraph
+         * @param readsFromSnapshots whether the read-only transactions should read from the snapshots of the graph
+         *                           instead of locking the graph
+         */
+        public WrappedTinkerGraph(org.apache.commons.configuration.Configuration configuration,
+                                  boolean readsFromSnapshots) {
+            this(new TinkerGraph(configuration), readsFromSnapshots, null);
+        }
+
+        private WrappedTinkerGraph(TinkerGraph graph, boolean readsFromSnapshots, TinkerGraphJournal journal) {
+            super(graph);
+            this.readsFromSnapshots = readsFromSnapshots;
+            this.journal = journal;
+            if (journal == null) {
+                journaledGraph = null;
+            } else {
+                journaledGraph = new EventGraph<>(graph);
+                journaledGraph.addListener(journal);
+            }
         }
 
         @Override
@@ -111,24 +234,237 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
 
         @Override
         public void commit() {
+            //the changes are persisted by the provider at the end of the mutating transactions
         }
 
         @Override
         public void rollback() {
+            //TinkerGraph cannot undo the changes, so they stay in the graph and are persisted by the provider, too
+        }
+
+        @Override
+        public void shutdown() {
+            try {
+                if (journal != null) {
+                    journal.close();
+                }
+            } finally {
+                super.shutdown();
+            }
+        }
+
+        @Override
+        public Vertex addVertex(Object id) {
+            if (journaledGraph == null) {
+                return super.addVertex(id);
+            }
+            return journaledGraph.addVertex(id == null ? journal.nextId() : id);
+        }
+
+        @Override
+        public Edge addEdge(Object id, Vertex outVertex, Vertex inVertex, String label) {
+            if (journaledGraph == null) {
+                return super.addEdge(id, outVertex, inVertex, label);
+            }
+            return journaledGraph.addEdge(id == null ? journal.nextId() : id, outVertex, inVertex, label);
+        }
+
+        @Override
+        public void removeVertex(Vertex vertex) {
+            if (journaledGraph == null) {
+                super.removeVertex(vertex);
+            } else {
+                journaledGraph.removeVertex(vertex);
+            }
+        }
+
+        @Override
+        public void removeEdge(Edge edge) {
+            if (journaledGraph == null) {
+                super.removeEdge(edge);
+            } else {
+                journaledGraph.removeEdge(edge);
+            }
+        }
+
+        @Override
+        public Vertex getVertex(Object id) {
+            Graph g = readView();
+            return g == null ? super.getVertex(id) : g.getVertex(id);
+        }
+
+        @Override
+        public Iterable<Vertex> getVertices() {
+            Graph g = readView();
+            return g == null ? super.getVertices() : g.getVertices();
+        }
+
+        @Override
+        public Iterable<Vertex> getVertices(String key, Object value) {
+            Graph g = readView();
+            return g == null ? super.getVertices(key, value) : g.getVertices(key, value);
+        }
+
+        @Override
+        public Edge getEdge(Object id) {
+            Graph g = readView();
+            return g == null ? super.getEdge(id) : g.getEdge(id);
+        }
+
+        @Override
+        public Iterable<Edge> getEdges() {
+            Graph g = readView();
+            return g == null ? super.getEdges() : g.getEdges();
+        }
+
+        @Override
+        public Iterable<Edge> getEdges(String key, Object value) {
+            Graph g = readView();
+            return g == null ? super.getEdges(key, value) : g.getEdges(key, value);
+        }
+
+        @Override
+        public GraphQuery query() {
+            Graph g = readView();
+            return g == null ? super.query() : g.query();
+        }
+
+        /**
+         * @return the graph to read from in the current thread or null if the reads should go directly to the base
+         * graph
+         */
+        private Graph readView() {
+            SnapshotRead s = currentSnapshot.get();
+            return s == null ? journaledGraph : s.graph;
+        }
+
+        /**
+         * Called with the write lock held. If there have been readers since the last refresh of the snapshot, makes
+         * sure the readers arriving while the mutating transaction is in progress have an up-to-date snapshot to read
+         * from. Switches the current thread to the live graph.
+         */
+        private void startWriting() {
+            currentSnapshot.remove();
+            if (readsFromSnapshots) {
+                synchronized (this) {
+                    if (snapshotStale && snapshotRequested) {
+                        takeSnapshot();
+                        snapshotRequested = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Must be called with the write lock held.
+         */
+        private void persistChanges() {
+            if (journal != null) {
+                journal.commit(getBaseGraph());
+            }
+        }
+
+        private void stopWriting() {
+            if (readsFromSnapshots) {
+                synchronized (this) {
+                    snapshotStale = true;
+                    lock.writeLock().unlock();
+                    notifyAll();
+                }
+            } else {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void startReadingSnapshot() {
+            SnapshotRead current = currentSnapshot.get();
+            if (current != null) {
+                current.depth++;
+                return;
+            }
+
+            Graph s;
+            synchronized (this) {
+                snapshotRequested = true;
+                while (snapshotStale) {
+                    //we can only copy the graph if no one is writing to it. If someone is, they will have refreshed
+                    //the snapshot before they started writing, so we just need to wait for them to do so.
+                    if (lock.readLock().tryLock()) {
+                        try {
+                            takeSnapshot();
+                        } finally {
+                            lock.readLock().unlock();
+                        }
+                    } else {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException("Interrupted while waiting for a snapshot of the graph.",
+                                    e);
+                        }
+                    }
+                }
+                s = snapshot;
+            }
+
+            currentSnapshot.set(new SnapshotRead(s));
+        }
+
+        private void stopReadingSnapshot() {
+            SnapshotRead current = currentSnapshot.get();
+            if (current != null && --current.depth == 0) {
+                currentSnapshot.remove();
+            }
+        }
+
+        /**
+         * Must be called while holding the monitor of this instance and with the graph protected from modifications.
+         */
+        private void takeSnapshot() {
+            TinkerGraph copy = new TinkerGraph();
+            GraphHelper.copyGraph(getBaseGraph(), copy);
+            snapshot = new WrappedGraph<>(copy);
+            snapshotStale = false;
+            notifyAll();
+        }
+    }
+
+    /**
+     * The snapshot read by the current thread and the number of the read-only transactions reading from it.
+     */
+    private static final class SnapshotRead {
+        final Graph graph;
+        int depth = 1;
+
+        SnapshotRead(Graph graph) {
+            this.graph = graph;
         }
     }
 
     private static final class SimulatedSerializedTransaction extends InventoryBackend.Transaction {
         private final ReentrantReadWriteLock lock;
+        private final boolean snapshot;
 
-        public SimulatedSerializedTransaction(boolean mutating, ReentrantReadWriteLock lock) {
+        public SimulatedSerializedTransaction(boolean mutating, ReentrantReadWriteLock lock, boolean snapshot) {
             super(mutating);
             this.lock = lock;
+            this.snapshot = snapshot;
         }
     }
 
     private enum PropertyKey implements Configuration.Property {
-        DIRECTORY_NAME("blueprints.tg.directory", "blueprints.tg.directory", null);
+        DIRECTORY_NAME("blueprints.tg.directory", "blueprints.tg.directory", null),
+        CONCURRENCY("hawkular.inventory.tinkerpop.tinkergraph.concurrency",
+                "hawkular.inventory.tinkerpop.tinkergraph.concurrency",
+                "HAWKULAR_INVENTORY_TINKERPOP_TINKERGRAPH_CONCURRENCY"),
+        PERSISTENCE("hawkular.inventory.tinkerpop.tinkergraph.persistence",
+                "hawkular.inventory.tinkerpop.tinkergraph.persistence",
+                "HAWKULAR_INVENTORY_TINKERPOP_TINKERGRAPH_PERSISTENCE"),
+        CHECKPOINT_SIZE("hawkular.inventory.tinkerpop.tinkergraph.checkpoint-size",
+                "hawkular.inventory.tinkerpop.tinkergraph.checkpoint-size", null),
+        JOURNAL_SYNC("hawkular.inventory.tinkerpop.tinkergraph.journal-sync",
+                "hawkular.inventory.tinkerpop.tinkergraph.journal-sync", null);
 
         private final String propertyName;
         private final List<String> sysPropName;
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.wrappers.event.EventGraph;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class TinkerGraphJournalTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+    private TinkerGraph graph;
+    private EventGraph<TinkerGraph> events;
+    private TinkerGraphJournal journal;
+
+    @Before
+    public void setup() throws Exception {
+        directory = folder.getRoot().toPath().resolve("graph");
+        open(Long.MAX_VALUE);
+    }
+
+    @After
+    public void teardown() {
+        journal.close();
+    }
+
+    @Test
+    public void testRoundTripOverRestart() throws Exception {
+        Vertex a = addVertex("a");
+        Vertex b = addVertex("b");
+        Vertex c = addVertex("c");
+        Edge ab = events.addEdge(journal.nextId(), a, b, "contains");
+        ab.setProperty("weight", 1);
+        events.addEdge(journal.nextId(), b, c, "contains");
+        journal.commit(graph);
+
+        a.setProperty("name", "renamed");
+        b.removeProperty("name");
+        events.removeVertex(c);
+        journal.commit(graph);
+
+        restart(Long.MAX_VALUE);
+
+        Assert.assertEquals(2, count(graph.getVertices()));
+        Assert.assertEquals(1, count(graph.getEdges()));
+
+        Vertex loadedA = graph.getVertex(a.getId());
+        Assert.assertEquals("renamed", loadedA.getProperty("name"));
+        Assert.assertNull(graph.getVertex(b.getId()).getProperty("name"));
+        Assert.assertNull(graph.getVertex(c.getId()));
+
+        Edge loadedAb = graph.getEdge(ab.getId());
+        Assert.assertEquals("contains", loadedAb.getLabel());
+        Assert.assertEquals(a.getId(), loadedAb.getVertex(Direction.OUT).getId());
+        Assert.assertEquals(b.getId(), loadedAb.getVertex(Direction.IN).getId());
+        Assert.assertEquals(1, (int) loadedAb.getProperty("weight"));
+    }
+
+    @Test
+    public void testTornTrailingBatchTruncated() throws Exception {
+        Vertex a = addVertex("a");
+        journal.commit(graph);
+
+        Path journalFile = directory.resolve("journal-0.wal");
+        long validSize = Files.size(journalFile);
+
+        addVertex("b");
+        journal.commit(graph);
+        journal.close();
+
+        //simulate a crash in the middle of writing the second batch
+        try (FileChannel channel = FileChannel.open(journalFile, WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        open(Long.MAX_VALUE);
+
+        Assert.assertEquals(1, count(graph.getVertices()));
+        Assert.assertNotNull(graph.getVertex(a.getId()));
+        Assert.assertEquals(validSize, Files.size(journalFile));
+
+        //the journal can be appended to after the truncation
+        addVertex("c");
+        restart(Long.MAX_VALUE);
+
+        Assert.assertEquals(2, count(graph.getVertices()));
+    }
+
+    @Test
+    public void testMalformedBatchWithValidChecksumTruncated() throws Exception {
+        Vertex a = addVertex("a");
+        journal.commit(graph);
+        journal.close();
+
+        Path journalFile = directory.resolve("journal-0.wal");
+        long validSize = Files.size(journalFile);
+
+        //a batch with a correct checksum whose only record ends prematurely - an "add vertex" record with the id
+        //announced to be 10 bytes long but only having 2
+        ByteBuffer payload = ByteBuffer.allocate(7);
+        payload.put((byte) 1).putInt(10).put("ab".getBytes(UTF_8));
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+
+        ByteBuffer batch = ByteBuffer.allocate(8 + payload.capacity());
+        batch.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array());
+        batch.flip();
+        try (FileChannel channel = FileChannel.open(journalFile, WRITE, APPEND)) {
+            channel.write(batch);
+        }
+
+        open(Long.MAX_VALUE);
+
+        Assert.assertEquals(1, count(graph.getVertices()));
+        Assert.assertNotNull(graph.getVertex(a.getId()));
+        Assert.assertEquals(validSize, Files.size(journalFile));
+    }
+
+    @Test
+    public void testCheckpointRotatesGeneration() throws Exception {
+        restart(1);
+
+        Vertex a = addVertex("a");
+        journal.commit(graph);
+
+        Assert.assertTrue(Files.exists(directory.resolve("graph.snapshot")));
+        Assert.assertFalse(Files.exists(directory.resolve("journal-0.wal")));
+        Assert.assertTrue(Files.exists(directory.resolve("journal-1.wal")));
+        Assert.assertEquals(0, Files.size(directory.resolve("journal-1.wal")));
+
+        Vertex b = addVertex("b");
+        journal.commit(graph);
+
+        Assert.assertFalse(Files.exists(directory.resolve("journal-1.wal")));
+        Assert.assertTrue(Files.exists(directory.resolve("journal-2.wal")));
+
+        restart(Long.MAX_VALUE);
+
+        Assert.assertEquals(2, count(graph.getVertices()));
+        Assert.assertEquals("a", graph.getVertex(a.getId()).getProperty("name"));
+        Assert.assertEquals("b", graph.getVertex(b.getId()).getProperty("name"));
+
+        //the changes after the last checkpoint are replayed on top of the snapshot
+        Vertex c = addVertex("c");
+        restart(Long.MAX_VALUE);
+
+        Assert.assertEquals(3, count(graph.getVertices()));
+        Assert.assertEquals("c", graph.getVertex(c.getId()).getProperty("name"));
+    }
+
+    @Test
+    public void testCrashBetweenSnapshotAndNewJournalDoesNotReplayOldJournal() throws Exception {
+        Vertex a = addVertex("a");
+        journal.commit(graph);
+        journal.close();
+
+        Path oldJournal = directory.resolve("journal-0.wal");
+        Path backup = folder.getRoot().toPath().resolve("journal-0.wal.bak");
+        Files.copy(oldJournal, backup);
+
+        open(1);
+        Vertex b = addVertex("b");
+        journal.commit(graph);
+        journal.close();
+
+        //simulate the crash right after the new snapshot was moved in place - the old journal still exists and the new
+        //one does not
+        Files.delete(directory.resolve("journal-1.wal"));
+        Files.copy(backup, oldJournal, StandardCopyOption.REPLACE_EXISTING);
+
+        open(Long.MAX_VALUE);
+
+        Assert.assertEquals(2, count(graph.getVertices()));
+        Assert.assertNotNull(graph.getVertex(a.getId()));
+        Assert.assertNotNull(graph.getVertex(b.getId()));
+        Assert.assertFalse(Files.exists(oldJournal));
+        Assert.assertTrue(Files.exists(directory.resolve("journal-1.wal")));
+    }
+
+    @Test
+    public void testPropertyValueTypes() throws Exception {
+        Vertex v = events.addVertex(journal.nextId());
+        v.setProperty("string", "kachna");
+        v.setProperty("boolean", true);
+        v.setProperty("int", 42);
+        v.setProperty("long", Long.MAX_VALUE);
+        v.setProperty("double", 4.2d);
+        v.setProperty("float", 4.2f);
+        v.setProperty("short", (short) 42);
+        v.setProperty("byte", (byte) 42);
+        v.setProperty("char", 'k');
+        v.setProperty("bytes", new byte[]{1, 2, 3});
+        v.setProperty("serializable", new ArrayList<>(Arrays.asList("a", "b")));
+        journal.commit(graph);
+
+        //once from the journal
+        restart(1);
+        assertAllTypes(graph.getVertex(v.getId()));
+
+        //force a checkpoint and check once more from the snapshot
+        events.getVertex(v.getId()).setProperty("touched", true);
+        journal.commit(graph);
+        Assert.assertTrue(Files.exists(directory.resolve("graph.snapshot")));
+
+        restart(Long.MAX_VALUE);
+        assertAllTypes(graph.getVertex(v.getId()));
+    }
+
+    @Test
+    public void testNextIdNeverClashesWithLoadedIds() throws Exception {
+        Set<Object> ids = new HashSet<>();
+        for (int i = 0; i < 5; ++i) {
+            ids.add(addVertex("v" + i).getId());
+        }
+        journal.commit(graph);
+
+        //loaded from the journal
+        restart(1);
+        String id = journal.nextId();
+        Assert.assertFalse(ids.contains(id));
+        ids.add(events.addVertex(id).getId());
+        journal.commit(graph);
+
+        //loaded from the snapshot
+        restart(Long.MAX_VALUE);
+        for (int i = 0; i < 5; ++i) {
+            Assert.assertTrue(ids.add(journal.nextId()));
+        }
+    }
+
+    private void assertAllTypes(Vertex v) {
+        Assert.assertEquals("kachna", v.getProperty("string"));
+        Assert.assertTrue(v.getProperty("boolean"));
+        Assert.assertEquals(42, (int) v.getProperty("int"));
+        Assert.assertEquals(Long.MAX_VALUE, (long) v.getProperty("long"));
+        Assert.assertEquals(4.2d, (double) v.getProperty("double"), 0);
+        Assert.assertEquals(4.2f, (float) v.getProperty("float"), 0);
+        Assert.assertEquals((short) 42, (short) v.getProperty("short"));
+        Assert.assertEquals((byte) 42, (byte) v.getProperty("byte"));
+        Assert.assertEquals('k', (char) v.getProperty("char"));
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) v.getProperty("bytes"));
+        Assert.assertEquals(Arrays.asList("a", "b"), v.getProperty("serializable"));
+    }
+
+    private Vertex addVertex(String name) {
+        Vertex v = events.addVertex(journal.nextId());
+        v.setProperty("name", name);
+        return v;
+    }
+
+    private void open(long checkpointSize) throws IOException {
+        graph = new TinkerGraph();
+        journal = TinkerGraphJournal.open(directory, graph, checkpointSize, false);
+        events = new EventGraph<>(graph);
+        events.addListener(journal);
+    }
+
+    private void restart(long checkpointSize) throws IOException {
+        journal.close();
+        open(checkpointSize);
+    }
+
+    private static int count(Iterable<?> it) {
+        int ret = 0;
+        for (Object ignored : it) {
+            ret++;
+        }
+        return ret;
+    }
+}
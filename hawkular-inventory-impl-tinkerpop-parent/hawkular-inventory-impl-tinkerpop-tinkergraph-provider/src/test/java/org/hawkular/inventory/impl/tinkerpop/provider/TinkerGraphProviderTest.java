@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.base.spi.InventoryBackend;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class TinkerGraphProviderTest {
+
+    private final TinkerGraphProvider provider = new TinkerGraphProvider();
+    private TinkerGraphProvider.WrappedTinkerGraph graph;
+    private ExecutorService writer;
+    private ExecutorService reader;
+
+    @Before
+    public void setup() {
+        graph = provider.instantiateGraph(Configuration.builder()
+                .addConfigurationProperty("hawkular.inventory.tinkerpop.tinkergraph.concurrency", "snapshot")
+                .build());
+        writer = Executors.newSingleThreadExecutor();
+        reader = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void teardown() {
+        writer.shutdownNow();
+        reader.shutdownNow();
+        graph.shutdown();
+    }
+
+    @Test
+    public void testReadersDoNotSeeUncommittedChanges() throws Exception {
+        addVertexAndCommit();
+
+        //a reader asks for the snapshot, so that the next writer refreshes it before it starts writing
+        Assert.assertEquals(1, readInTransaction());
+
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Future<?> write = writer.submit(() -> {
+            InventoryBackend.Transaction tx = provider.startTransaction(graph, true);
+            graph.addVertex(null);
+            written.countDown();
+            await(commit);
+            provider.commit(graph, tx);
+        });
+
+        written.await();
+
+        //the reader is not blocked by the writer and doesn't see its changes
+        Assert.assertEquals(1, (int) reader.submit(this::readInTransaction).get(5, TimeUnit.SECONDS));
+
+        commit.countDown();
+        write.get();
+
+        Assert.assertEquals(2, readInTransaction());
+    }
+
+    @Test
+    public void testSnapshotNotRefreshedWithoutReaders() throws Exception {
+        addVertexAndCommit();
+        addVertexAndCommit();
+
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        Future<?> write = writer.submit(() -> {
+            InventoryBackend.Transaction tx = provider.startTransaction(graph, true);
+            graph.addVertex(null);
+            written.countDown();
+            await(commit);
+            provider.commit(graph, tx);
+        });
+
+        written.await();
+
+        //no one asked for the snapshot since it went stale, so the writer didn't refresh it and the reader needs to
+        //wait for the writer to finish
+        Future<Integer> read = reader.submit(this::readInTransaction);
+        try {
+            read.get(200, TimeUnit.MILLISECONDS);
+            Assert.fail("The reader should have waited for the writer to commit.");
+        } catch (TimeoutException e) {
+            //expected
+        }
+
+        commit.countDown();
+        write.get();
+
+        Assert.assertEquals(3, (int) read.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNestedReadKeepsOuterSnapshot() throws Exception {
+        addVertexAndCommit();
+
+        InventoryBackend.Transaction outer = provider.startTransaction(graph, false);
+        try {
+            Assert.assertEquals(1, count(graph.getVertices()));
+
+            InventoryBackend.Transaction inner = provider.startTransaction(graph, false);
+            try {
+                Assert.assertEquals(1, count(graph.getVertices()));
+            } finally {
+                provider.commit(graph, inner);
+            }
+
+            addVertexAndCommit();
+
+            //the end of the nested transaction must not switch the outer one to the live graph
+            Assert.assertEquals(1, count(graph.getVertices()));
+        } finally {
+            provider.commit(graph, outer);
+        }
+
+        Assert.assertEquals(2, readInTransaction());
+    }
+
+    private void addVertexAndCommit() throws Exception {
+        writer.submit(() -> {
+            InventoryBackend.Transaction tx = provider.startTransaction(graph, true);
+            graph.addVertex(null);
+            provider.commit(graph, tx);
+        }).get();
+    }
+
+    private int readInTransaction() {
+        InventoryBackend.Transaction tx = provider.startTransaction(graph, false);
+        try {
+            return count(graph.getVertices());
+        } finally {
+            provider.commit(graph, tx);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int count(Iterable<?> it) {
+        int ret = 0;
+        for (Object ignored : it) {
+            ret++;
+        }
+        return ret;
+    }
+}
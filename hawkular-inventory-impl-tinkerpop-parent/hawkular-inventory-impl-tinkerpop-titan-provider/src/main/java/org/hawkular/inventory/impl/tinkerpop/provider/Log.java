@@ -42,5 +42,15 @@ public interface Log {
     @LogMessage(level = Logger.Level.INFO)
     @Message(id = 1502, value = "Waiting for the index '%s' to become registered.")
     void iWaitingForIndexRegistration(String indexName);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 1503, value = "The vertex-centric index '%s' was defined on the already existing edge label '%s'." +
+            " It will only be used after the existing edges are re-indexed.")
+    void wIndexOnExistingEdgeLabel(String indexName, String label);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 1504, value = "The index '%s' was defined on already existing property keys. It will only be used" +
+            " after the existing elements are re-indexed.")
+    void wIndexOnExistingPropertyKeys(String indexName);
 }
 
@@ -35,7 +35,7 @@ import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
 
 import com.thinkaurelius.titan.core.Cardinality;
-import com.thinkaurelius.titan.core.Multiplicity;
+import com.thinkaurelius.titan.core.EdgeLabel;
 import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.SchemaViolationException;
 import com.thinkaurelius.titan.core.TitanFactory;
@@ -100,13 +100,23 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
         Set<IndexSpec.Property> undefinedPropertyKeys = new HashSet<>();
         Map<String, PropertyKey> definedPropertyKeys = new HashMap<>();
         Map<String, IndexSpec> undefinedIndices = new HashMap<>();
+        List<IndexSpec> vertexCentricIndices = new ArrayList<>();
+        Set<String> existingEdgeLabels = new HashSet<>();
 
         TitanManagement mgmt = graph.getManagementSystem();
 
         for (IndexSpec spec : indexSpecs) {
-            String indexName = getIndexName(spec.getProperties());
-            if (mgmt.getGraphIndex(indexName) == null) {
-                undefinedIndices.put(indexName, spec);
+            if (spec.isVertexCentric()) {
+                //these are defined per edge label, so we can only check for their existence once the labels exist
+                vertexCentricIndices.add(spec);
+                if (mgmt.containsEdgeLabel(spec.getLabel())) {
+                    existingEdgeLabels.add(spec.getLabel());
+                }
+            } else {
+                String indexName = getIndexName(spec);
+                if (mgmt.getGraphIndex(indexName) == null) {
+                    undefinedIndices.put(indexName, spec);
+                }
             }
 
             //the indices might share keys, so we need to check for the keys even if the index doesn't exist
@@ -126,16 +136,12 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
             }
         }
 
+        //the indices on the keys that already existed do not cover the existing elements until they are re-indexed
+        Set<String> existingPropertyKeys = new HashSet<>(definedPropertyKeys.keySet());
+
         //first define all the undefined property keys
         for (IndexSpec.Property p : undefinedPropertyKeys) {
             PropertyKeyMaker propertyKeyMaker = mgmt.makePropertyKey(p.getName()).dataType(p.getType());
-            if (null != p.getLabelIndex()) {
-                propertyKeyMaker.signature(mgmt.makeEdgeLabel(p.getLabelIndex())
-                        // index on directed edges doesn't work
-                        .unidirected()
-                        .multiplicity(Multiplicity.SIMPLE)
-                        .make());
-            }
             if (p.isUnique()) {
                 propertyKeyMaker.cardinality(Cardinality.SINGLE);
             }
@@ -152,20 +158,57 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
 //                bld.addKey(definedPropertyKeys.get(k.getName()), Parameter.of("mapped-name", k.getName()));
                 bld.addKey(definedPropertyKeys.get(k.getName()));
             }
+            if (e.getValue().getLabel() != null) {
+                bld.indexOnly(getOrMakeEdgeLabel(mgmt, e.getValue().getLabel()));
+            }
 
             bld.buildCompositeIndex();
+
+            if (e.getValue().getProperties().stream().anyMatch(p -> existingPropertyKeys.contains(p.getName()))) {
+                Log.LOG.wIndexOnExistingPropertyKeys(e.getKey());
+            }
+        }
+
+        for (IndexSpec spec : vertexCentricIndices) {
+            EdgeLabel label = getOrMakeEdgeLabel(mgmt, spec.getLabel());
+            String indexName = getIndexName(spec);
+
+            if (mgmt.getRelationIndex(label, indexName) == null) {
+                PropertyKey[] keys = spec.getProperties().stream().map(p -> definedPropertyKeys.get(p.getName()))
+                        .toArray(PropertyKey[]::new);
+
+                mgmt.buildEdgeIndex(label, indexName, spec.getDirection(), keys);
+
+                if (existingEdgeLabels.contains(spec.getLabel())) {
+                    Log.LOG.wIndexOnExistingEdgeLabel(indexName, spec.getLabel());
+                }
+            }
         }
 
         mgmt.commit();
     }
 
-    private String getIndexName(Set<IndexSpec.Property> properties) {
+    /**
+     * The edge labels are defined with the default multiplicity and direction, so that the edges can be traversed in
+     * both directions.
+     */
+    private static EdgeLabel getOrMakeEdgeLabel(TitanManagement mgmt, String name) {
+        return mgmt.containsEdgeLabel(name) ? mgmt.getEdgeLabel(name) : mgmt.makeEdgeLabel(name).make();
+    }
+
+    static String getIndexName(IndexSpec spec) {
         StringBuilder bld = new StringBuilder("by");
 
-        for (IndexSpec.Property property : properties) {
+        for (IndexSpec.Property property : spec.getProperties()) {
             bld.append("_").append(property.getName());
         }
 
+        //the names of the vertex-centric indices are only unique per label, while the graph indices need to be
+        //distinguished from the unrestricted ones on the same keys
+        if (spec.getLabel() != null && !spec.isVertexCentric()) {
+            bld.append("_in_").append(spec.getLabel());
+        }
+
         return bld.toString();
     }
 
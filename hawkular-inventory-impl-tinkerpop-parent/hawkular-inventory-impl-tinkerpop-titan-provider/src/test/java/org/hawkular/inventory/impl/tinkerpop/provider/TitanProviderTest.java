@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.thinkaurelius.titan.core.EdgeLabel;
+import com.thinkaurelius.titan.core.TitanFactory;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.schema.RelationTypeIndex;
+import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
+import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class TitanProviderTest {
+
+    private static final IndexSpec.Property SOURCE_CP = IndexSpec.Property.builder().withName("__sourceCp")
+            .withType(String.class).build();
+
+    private static final IndexSpec.Property TARGET_TYPE = IndexSpec.Property.builder().withName("__targetType")
+            .withType(String.class).build();
+
+    private static final IndexSpec BY_CP = IndexSpec.builder().withElementType(Vertex.class)
+            .withProperty(IndexSpec.Property.builder().withName("__cp").withType(String.class).withUnique(true)
+                    .build())
+            .withUnique(true).build();
+
+    private static final IndexSpec BY_SOURCE = IndexSpec.builder().withElementType(Edge.class)
+            .withProperty(SOURCE_CP).build();
+
+    private static final IndexSpec BY_SOURCE_IN_CONTAINS = IndexSpec.builder().withElementType(Edge.class)
+            .withLabel("contains").withProperty(SOURCE_CP).build();
+
+    private static final IndexSpec BY_SOURCE_IN_DEFINES = IndexSpec.builder().withElementType(Edge.class)
+            .withLabel("defines").withProperty(SOURCE_CP).build();
+
+    private static final IndexSpec CONTAINED_BY_TYPE = IndexSpec.builder().withElementType(Edge.class)
+            .withLabel("contains").withVertexCentric(true).withDirection(Direction.OUT).withProperty(TARGET_TYPE)
+            .build();
+
+    private static final IndexSpec DEFINED_BY_TYPE = IndexSpec.builder().withElementType(Edge.class)
+            .withLabel("defines").withVertexCentric(true).withDirection(Direction.OUT).withProperty(TARGET_TYPE)
+            .build();
+
+    private TitanGraph graph;
+
+    @Before
+    public void setup() {
+        graph = TitanFactory.build().set("storage.backend", "inmemory").open();
+    }
+
+    @After
+    public void teardown() {
+        graph.shutdown();
+    }
+
+    @Test
+    public void testGraphIndexNamesUnique() throws Exception {
+        List<IndexSpec> graphIndices = Arrays.asList(BY_CP, BY_SOURCE, BY_SOURCE_IN_CONTAINS, BY_SOURCE_IN_DEFINES);
+
+        Set<String> names = new HashSet<>();
+        graphIndices.forEach(s -> names.add(TitanProvider.getIndexName(s)));
+
+        Assert.assertEquals(graphIndices.size(), names.size());
+    }
+
+    @Test
+    public void testGraphAndEdgeIndicesCreated() throws Exception {
+        new TitanProvider().ensureIndices(graph, BY_CP, BY_SOURCE, BY_SOURCE_IN_CONTAINS, BY_SOURCE_IN_DEFINES,
+                CONTAINED_BY_TYPE, DEFINED_BY_TYPE);
+
+        assertIndices();
+    }
+
+    @Test
+    public void testEnsuringIndicesRepeatedly() throws Exception {
+        TitanProvider provider = new TitanProvider();
+
+        provider.ensureIndices(graph, BY_CP, BY_SOURCE, CONTAINED_BY_TYPE);
+        provider.ensureIndices(graph, BY_CP, BY_SOURCE, BY_SOURCE_IN_CONTAINS, BY_SOURCE_IN_DEFINES,
+                CONTAINED_BY_TYPE, DEFINED_BY_TYPE);
+
+        assertIndices();
+    }
+
+    private void assertIndices() {
+        TitanManagement mgmt = graph.getManagementSystem();
+        try {
+            assertGraphIndex(mgmt, BY_CP, Vertex.class);
+            assertGraphIndex(mgmt, BY_SOURCE, Edge.class);
+            assertGraphIndex(mgmt, BY_SOURCE_IN_CONTAINS, Edge.class);
+            assertGraphIndex(mgmt, BY_SOURCE_IN_DEFINES, Edge.class);
+
+            Assert.assertTrue(mgmt.getGraphIndex(TitanProvider.getIndexName(BY_CP)).isUnique());
+
+            //the vertex-centric indices are not graph indices
+            Assert.assertFalse(mgmt.containsGraphIndex(TitanProvider.getIndexName(CONTAINED_BY_TYPE)));
+
+            assertEdgeIndex(mgmt, CONTAINED_BY_TYPE);
+            assertEdgeIndex(mgmt, DEFINED_BY_TYPE);
+        } finally {
+            mgmt.rollback();
+        }
+    }
+
+    private static void assertGraphIndex(TitanManagement mgmt, IndexSpec spec, Class<?> elementType) {
+        TitanGraphIndex index = mgmt.getGraphIndex(TitanProvider.getIndexName(spec));
+        Assert.assertNotNull("Graph index for " + spec + " not found.", index);
+        Assert.assertTrue(elementType.isAssignableFrom(index.getIndexedElement()));
+        Assert.assertTrue(index.isCompositeIndex());
+    }
+
+    private static void assertEdgeIndex(TitanManagement mgmt, IndexSpec spec) {
+        EdgeLabel label = mgmt.getEdgeLabel(spec.getLabel());
+        Assert.assertNotNull("Edge label " + spec.getLabel() + " not found.", label);
+
+        RelationTypeIndex index = mgmt.getRelationIndex(label, TitanProvider.getIndexName(spec));
+        Assert.assertNotNull("Edge index for " + spec + " not found.", index);
+        Assert.assertEquals(spec.getDirection(), index.getDirection());
+    }
+}
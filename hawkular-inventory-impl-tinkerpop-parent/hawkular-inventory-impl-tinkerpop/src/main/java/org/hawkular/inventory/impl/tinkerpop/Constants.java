@@ -20,6 +20,7 @@ import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__metric_
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__sourceCp;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__sourceEid;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__sourceType;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataBlob;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataIndex;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataKey;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataType;
@@ -106,6 +107,12 @@ final class Constants {
          */
         __structuredDataValue,
 
+        /**
+         * The property on the root structured data vertex holding the whole data in a compact binary form. If present,
+         * the root vertex has no child vertices.
+         */
+        __structuredDataBlob,
+
         __sourceType,
 
         __targetType,
@@ -144,7 +151,7 @@ final class Constants {
         operationType(OperationType.class), resource(Resource.class), metric(Metric.class),
         relationship(Relationship.class, __sourceType, __targetType, __sourceCp, __targetCp, __sourceEid, __targetEid),
         dataEntity(DataEntity.class), structuredData(StructuredData.class, __structuredDataType,
-                __structuredDataValue, __structuredDataIndex, __structuredDataKey);
+                __structuredDataValue, __structuredDataIndex, __structuredDataKey, __structuredDataBlob);
 
         private final String[] mappedProperties;
         private final Class<?> entityType;
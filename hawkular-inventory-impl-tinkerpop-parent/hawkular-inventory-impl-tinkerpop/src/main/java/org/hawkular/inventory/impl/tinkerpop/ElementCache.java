@@ -0,0 +1,181 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__cp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Graph;
+
+/**
+ * A bounded LRU cache of canonical paths to the ids of the graph elements found on them.
+ *
+ * <p>The cache never hands out the elements themselves. A cached id is always resolved through the graph, i.e. in the
+ * context of the current transaction, and the canonical path stored on the resolved element is compared with the
+ * requested one. An entry that went stale (the element has been deleted or the transaction that created it rolled
+ * back) therefore only costs a lookup by id and is evicted - it can never resolve to a wrong element.
+ *
+ * @since 0.7.0
+ */
+public final class ElementCache {
+    private final int maxSize;
+    private final Map<String, CachedId> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize the maximum number of paths to remember, a non-positive value disables the cache
+     */
+    ElementCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<String, CachedId>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedId> eldest) {
+                boolean remove = size() > ElementCache.this.maxSize;
+                if (remove) {
+                    evictions.incrementAndGet();
+                }
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Tries to resolve the element on the provided canonical path using the cached element id.
+     *
+     * @param graph         the graph to look the element up in
+     * @param canonicalPath the string representation of the canonical path of the element
+     * @return the element or null if the path is not cached or the cached entry is no longer valid
+     */
+    Element get(Graph graph, String canonicalPath) {
+        if (maxSize <= 0) {
+            return null;
+        }
+
+        CachedId cached;
+        synchronized (entries) {
+            cached = entries.get(canonicalPath);
+        }
+
+        if (cached == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        Element ret = cached.edge ? graph.getEdge(cached.id) : graph.getVertex(cached.id);
+
+        if (ret == null || !canonicalPath.equals(ret.getProperty(__cp.name()))) {
+            synchronized (entries) {
+                entries.remove(canonicalPath, cached);
+            }
+            evictions.incrementAndGet();
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return ret;
+    }
+
+    void put(String canonicalPath, Element element) {
+        if (maxSize <= 0) {
+            return;
+        }
+
+        CachedId id = new CachedId(element.getId(), element instanceof Edge);
+        synchronized (entries) {
+            entries.put(canonicalPath, id);
+        }
+    }
+
+    void invalidate(String canonicalPath) {
+        if (maxSize <= 0 || canonicalPath == null) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.remove(canonicalPath);
+        }
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the maximum number of entries in the cache, non-positive if the cache is disabled
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the current number of entries in the cache
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups that were resolved using the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that had to go to the graph index
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of entries that were removed either because the cache was full or because they were found
+     * stale
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ElementCache[maxSize=" + maxSize + ", size=" + size() + ", hits=" + hits.get() + ", misses="
+                + misses.get() + ", evictions=" + evictions.get() + "]";
+    }
+
+    private static final class CachedId {
+        final Object id;
+        final boolean edge;
+
+        CachedId(Object id, boolean edge) {
+            this.id = id;
+            this.edge = edge;
+        }
+    }
+}
@@ -18,8 +18,10 @@
 package org.hawkular.inventory.impl.tinkerpop;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
@@ -41,6 +43,7 @@ import com.tinkerpop.gremlin.java.GremlinPipeline;
 import com.tinkerpop.pipes.Pipe;
 import com.tinkerpop.pipes.PipeFunction;
 import com.tinkerpop.pipes.branch.LoopPipe;
+import com.tinkerpop.pipes.sideeffect.SideEffectFunctionPipe;
 import com.tinkerpop.pipes.transform.TransformPipe;
 import com.tinkerpop.pipes.util.FluentUtility;
 import com.tinkerpop.pipes.util.structures.Pair;
@@ -175,22 +178,31 @@ class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Cloneable
                 }
             }
             if (specific) {
-                //the order pipe holds on to the whole result set to be able to order, so we'd better do just
-                //1 order step.
-                this.order(p -> {
+                Comparator<E> comparator = (a, b) -> {
                     int ret = 0;
                     for (Order ord : order) {
                         if (ord.isSpecific()) {
-                            Comparable a = propertyValueExtractor.apply(p.getA(), ord.getField());
-                            Comparable b = propertyValueExtractor.apply(p.getB(), ord.getField());
-                            ret = ord.isAscending() ? safeCompare(a, b) : safeCompare(b, a);
+                            Comparable va = propertyValueExtractor.apply(a, ord.getField());
+                            Comparable vb = propertyValueExtractor.apply(b, ord.getField());
+                            ret = ord.isAscending() ? safeCompare(va, vb) : safeCompare(vb, va);
                             if (ret != 0) {
                                 break;
                             }
                         }
                     }
                     return ret;
-                });
+                };
+
+                if (pager.isLimited()) {
+                    //only the elements up to the end of the requested page can ever be returned, so we only need to
+                    //keep that many of them around while going through the results
+                    long end = (long) pager.getStart() + pager.getPageSize();
+                    this.topN((int) Math.min(end, Integer.MAX_VALUE), comparator);
+                } else {
+                    //the order pipe holds on to the whole result set to be able to order, so we'd better do just
+                    //1 order step.
+                    this.order(p -> comparator.compare(p.getA(), p.getB()));
+                }
             }
         }
 
@@ -198,13 +210,30 @@ class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Cloneable
             if (pager.getStart() != 0) {
                 this.dropN(pager.getStart());
             }
-            this.takeN(pager.getPageSize());
+            if (pager.isExactTotalSize()) {
+                this.takeN(pager.getPageSize());
+            } else {
+                add(new TakeNPipe<>(pager.getPageSize(), false));
+            }
 //            this.drainedRange(pager.getStart(), pager.getEnd() - 1);
         }
 
         return this;
     }
 
+    /**
+     * Emits the first {@code n} elements in the order given by the comparator. This only ever keeps {@code n}
+     * elements in memory, as opposed to {@link #order(PipeFunction)} which needs to hold the whole input.
+     *
+     * @param n          the number of elements to emit
+     * @param comparator the ordering of the elements
+     * @return this pipeline
+     */
+    public HawkularPipeline<S, E> topN(int n, Comparator<E> comparator) {
+        add(new TopNPipe<>(n, comparator));
+        return this;
+    }
+
     private static <T extends Comparable<T>> int safeCompare(T a, T b) {
         if (a == null) {
             return b == null ? 0 : -1;
@@ -237,6 +266,37 @@ class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Cloneable
         return counters.getOrDefault(counterName, -1L);
     }
 
+    /**
+     * Inserts a counting step after each of the current top-level steps of this pipeline, so that it is possible to
+     * tell how many elements each of them produced. The steps nested in the branches of the pipeline are not counted
+     * separately.
+     *
+     * <p>This is meant for diagnostics only and should be called only once the pipeline is fully constructed but not
+     * yet iterated over.
+     *
+     * @return the profiles of the steps in the order of the pipeline, updated as the pipeline is iterated over
+     */
+    @SuppressWarnings("unchecked")
+    public List<StepProfile> profile() {
+        List<Pipe> origPipes = getPipes();
+        List<Pipe> pipes = new ArrayList<>(origPipes.size() * 2);
+        List<StepProfile> ret = new ArrayList<>(origPipes.size());
+
+        for (Pipe<?, ?> p : origPipes) {
+            StepProfile profile = new StepProfile(p);
+            pipes.add(p);
+            pipes.add(new SideEffectFunctionPipe<Object>(e -> {
+                profile.elements++;
+                return null;
+            }));
+            ret.add(profile);
+        }
+
+        setPipes(pipes);
+
+        return ret;
+    }
+
     @Override
     public HawkularPipeline<S, E> _() {
         return cast(super._());
@@ -858,4 +918,24 @@ class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Cloneable
     private <I, O> HawkularPipeline<I, O> cast(GremlinPipeline<I, O> thiz) {
         return (HawkularPipeline<I, O>) thiz;
     }
+
+    /**
+     * The number of elements produced by a single step of a {@link #profile() profiled} pipeline.
+     */
+    static final class StepProfile {
+        private final Pipe<?, ?> step;
+        private long elements;
+
+        private StepProfile(Pipe<?, ?> step) {
+            this.step = step;
+        }
+
+        public Pipe<?, ?> getStep() {
+            return step;
+        }
+
+        public long getElements() {
+            return elements;
+        }
+    }
 }
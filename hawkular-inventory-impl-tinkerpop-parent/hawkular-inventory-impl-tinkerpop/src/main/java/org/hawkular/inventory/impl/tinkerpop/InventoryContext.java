@@ -17,6 +17,9 @@
 
 package org.hawkular.inventory.impl.tinkerpop;
 
+import java.util.Set;
+
+import org.hawkular.inventory.api.InventoryMetrics;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 
@@ -33,11 +36,18 @@ final class InventoryContext<G extends TransactionalGraph> {
     private final G graph;
     private final TinkerpopInventory inventory;
     private final GraphProvider<G> graphProvider;
+    private final ElementCache elementCache;
+    private final Set<String> compactDataRoles;
+    private final InventoryMetrics metrics;
 
-    public InventoryContext(TinkerpopInventory inventory, G graph, GraphProvider<G> graphProvider) {
+    public InventoryContext(TinkerpopInventory inventory, G graph, GraphProvider<G> graphProvider,
+                            ElementCache elementCache, Set<String> compactDataRoles, InventoryMetrics metrics) {
         this.inventory = inventory;
         this.graph = graph;
         this.graphProvider = graphProvider;
+        this.elementCache = elementCache;
+        this.compactDataRoles = compactDataRoles;
+        this.metrics = metrics;
     }
 
     public TinkerpopInventory getInventory() {
@@ -48,6 +58,23 @@ final class InventoryContext<G extends TransactionalGraph> {
         return graph;
     }
 
+    public ElementCache getElementCache() {
+        return elementCache;
+    }
+
+    /**
+     * @param role the name of the data role
+     * @return true if the data of data entities with given role should be stored in the compact form
+     * @see TinkerpopInventory#COMPACT_DATA_ROLES
+     */
+    public boolean isCompactDataRole(String role) {
+        return compactDataRoles.contains(role);
+    }
+
+    public InventoryMetrics getMetrics() {
+        return metrics;
+    }
+
     public InventoryBackend.Transaction startTransaction(boolean mutating) {
         return graphProvider.startTransaction(graph, mutating);
     }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataBlob;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.hawkular.inventory.api.model.StructuredData;
+
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Encodes the whole structured data into a compact binary form that is stored in a single property of a single
+ * vertex instead of a tree of vertices.
+ *
+ * <p>The format is a pre-order serialization of the data. Each value is prefixed by a tag byte denoting its type,
+ * lists and maps are followed by the number of their children, map entries are prefixed by their key. Strings are
+ * stored as their UTF-8 length followed by the bytes.
+ *
+ * <p>Both encoding and decoding are iterative so that the depth of the data is not limited by the depth of the call
+ * stack.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class StructuredDataCodec {
+    private static final byte VERSION = 1;
+
+    private static final byte UNDEFINED = 0;
+    private static final byte BOOL = 1;
+    private static final byte INTEGRAL = 2;
+    private static final byte FLOATING_POINT = 3;
+    private static final byte STRING = 4;
+    private static final byte LIST = 5;
+    private static final byte MAP = 6;
+
+    private StructuredDataCodec() {
+
+    }
+
+    /**
+     * @param v the structured data vertex
+     * @return true if the vertex holds the whole data in the compact form, false if the data is stored as a tree of
+     * vertices
+     */
+    static boolean isCompact(Vertex v) {
+        return v.getProperty(__structuredDataBlob.name()) != null;
+    }
+
+    static byte[] encode(StructuredData data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+
+            Deque<Entry> work = new ArrayDeque<>();
+            work.push(new Entry(null, data));
+
+            while (!work.isEmpty()) {
+                Entry e = work.pop();
+
+                if (e.key != null) {
+                    writeString(out, e.key);
+                }
+
+                Object value = e.data.getValue();
+
+                if (value == null) {
+                    out.writeByte(UNDEFINED);
+                } else if (value instanceof Boolean) {
+                    out.writeByte(BOOL);
+                    out.writeBoolean((Boolean) value);
+                } else if (value instanceof Long) {
+                    out.writeByte(INTEGRAL);
+                    out.writeLong((Long) value);
+                } else if (value instanceof Double) {
+                    out.writeByte(FLOATING_POINT);
+                    out.writeDouble((Double) value);
+                } else if (value instanceof String) {
+                    out.writeByte(STRING);
+                    writeString(out, (String) value);
+                } else if (value instanceof List) {
+                    List<StructuredData> items = e.data.list();
+                    out.writeByte(LIST);
+                    out.writeInt(items.size());
+                    for (int i = items.size() - 1; i >= 0; --i) {
+                        work.push(new Entry(null, items.get(i)));
+                    }
+                } else if (value instanceof Map) {
+                    Map<String, StructuredData> entries = e.data.map();
+                    out.writeByte(MAP);
+                    out.writeInt(entries.size());
+                    //push in reverse so that the entries are written in their order
+                    Entry[] children = new Entry[entries.size()];
+                    int i = 0;
+                    for (Map.Entry<String, StructuredData> me : entries.entrySet()) {
+                        children[i++] = new Entry(me.getKey(), me.getValue());
+                    }
+                    for (i = children.length - 1; i >= 0; --i) {
+                        work.push(children[i]);
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unsupported structured data value: " + value);
+                }
+            }
+        } catch (IOException e) {
+            //can't happen with a byte array stream
+            throw new IllegalStateException("Failed to encode structured data.", e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    static StructuredData decode(byte[] blob) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(blob))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported version of the compact structured data: " + version);
+            }
+
+            byte tag = in.readByte();
+            switch (tag) {
+                case LIST:
+                    StructuredData.ListBuilder lst = StructuredData.get().list();
+                    decodeChildren(in, new Frame(in.readInt(), lst, null, null));
+                    return lst.build();
+                case MAP:
+                    StructuredData.MapBuilder mp = StructuredData.get().map();
+                    decodeChildren(in, new Frame(in.readInt(), null, mp, null));
+                    return mp.build();
+                case UNDEFINED:
+                    return StructuredData.get().undefined();
+                case BOOL:
+                    return StructuredData.get().bool(in.readBoolean());
+                case INTEGRAL:
+                    return StructuredData.get().integral(in.readLong());
+                case FLOATING_POINT:
+                    return StructuredData.get().floatingPoint(in.readDouble());
+                case STRING:
+                    return StructuredData.get().string(readString(in));
+                default:
+                    throw new IllegalArgumentException("Unknown structured data tag in the compact data: " + tag);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupted compact structured data.", e);
+        }
+    }
+
+    private static void decodeChildren(DataInputStream in, Frame root) throws IOException {
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+
+            if (frame.remaining == 0) {
+                stack.pop();
+                if (frame.close != null) {
+                    frame.close.run();
+                }
+                continue;
+            }
+
+            frame.remaining--;
+
+            if (frame.list != null) {
+                byte tag = in.readByte();
+                switch (tag) {
+                    case UNDEFINED:
+                        frame.list.addUndefined();
+                        break;
+                    case BOOL:
+                        frame.list.addBool(in.readBoolean());
+                        break;
+                    case INTEGRAL:
+                        frame.list.addIntegral(in.readLong());
+                        break;
+                    case FLOATING_POINT:
+                        frame.list.addFloatingPoint(in.readDouble());
+                        break;
+                    case STRING:
+                        frame.list.addString(readString(in));
+                        break;
+                    case LIST:
+                        StructuredData.InnerListBuilder<?> lst = frame.list.addList();
+                        stack.push(new Frame(in.readInt(), lst, null, lst::closeList));
+                        break;
+                    case MAP:
+                        StructuredData.InnerMapBuilder<?> mp = frame.list.addMap();
+                        stack.push(new Frame(in.readInt(), null, mp, mp::closeMap));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown structured data tag in the compact data: " + tag);
+                }
+            } else {
+                String key = readString(in);
+                byte tag = in.readByte();
+                switch (tag) {
+                    case UNDEFINED:
+                        frame.map.putUndefined(key);
+                        break;
+                    case BOOL:
+                        frame.map.putBool(key, in.readBoolean());
+                        break;
+                    case INTEGRAL:
+                        frame.map.putIntegral(key, in.readLong());
+                        break;
+                    case FLOATING_POINT:
+                        frame.map.putFloatingPoint(key, in.readDouble());
+                        break;
+                    case STRING:
+                        frame.map.putString(key, readString(in));
+                        break;
+                    case LIST:
+                        StructuredData.InnerListBuilder<?> lst = frame.map.putList(key);
+                        stack.push(new Frame(in.readInt(), lst, null, lst::closeList));
+                        break;
+                    case MAP:
+                        StructuredData.InnerMapBuilder<?> mp = frame.map.putMap(key);
+                        stack.push(new Frame(in.readInt(), null, mp, mp::closeMap));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown structured data tag in the compact data: " + tag);
+                }
+            }
+        }
+    }
+
+    //DataOutputStream.writeUTF() is limited to 64k bytes, which is not enough for arbitrary strings
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+        final String key;
+        final StructuredData data;
+
+        Entry(String key, StructuredData data) {
+            this.key = key;
+            this.data = data;
+        }
+    }
+
+    private static final class Frame {
+        final StructuredData.AbstractListBuilder<?> list;
+        final StructuredData.AbstractMapBuilder<?> map;
+        final Runnable close;
+        int remaining;
+
+        Frame(int remaining, StructuredData.AbstractListBuilder<?> list, StructuredData.AbstractMapBuilder<?> map,
+              Runnable close) {
+            this.remaining = remaining;
+            this.list = list;
+            this.map = map;
+            this.close = close;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataBlob;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataIndex;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataKey;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataType;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.hawkular.inventory.api.model.StructuredData;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Loads the structured data stored as a tree of vertices.
+ *
+ * <p>The tree is walked iteratively using an explicit stack so that the depth of the data is not limited by the depth
+ * of the call stack. The children of each vertex are read exactly once and ordered by their index that is read out of
+ * each child only once, too.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class StructuredDataLoader {
+
+    private StructuredDataLoader() {
+
+    }
+
+    /**
+     * Loads the structured data rooted at the provided vertex including all its descendants. If the data is stored
+     * in the compact form, it is decoded from the root vertex.
+     *
+     * @param root the vertex representing the root of the structured data
+     * @return the structured data
+     */
+    static StructuredData load(Vertex root) {
+        byte[] blob = root.getProperty(__structuredDataBlob.name());
+        if (blob != null) {
+            return StructuredDataCodec.decode(blob);
+        }
+
+        StructuredData.Type type = typeOf(root);
+
+        switch (type) {
+            case list:
+                StructuredData.ListBuilder lst = StructuredData.get().list();
+                loadChildren(root, lst, null);
+                return lst.build();
+            case map:
+                StructuredData.MapBuilder mp = StructuredData.get().map();
+                loadChildren(root, null, mp);
+                return mp.build();
+            default:
+                return loadPrimitive(root, type);
+        }
+    }
+
+    /**
+     * Converts a vertex representing a primitive structured data value, i.e. anything but a list or a map.
+     *
+     * @param v    the vertex
+     * @param type the type of the data stored in the vertex
+     * @return the structured data
+     */
+    static StructuredData loadPrimitive(Vertex v, StructuredData.Type type) {
+        switch (type) {
+            case bool:
+                return StructuredData.get().bool(v.getProperty(__structuredDataValue.name()));
+            case integral:
+                return StructuredData.get().integral(v.getProperty(__structuredDataValue.name()));
+            case floatingPoint:
+                return StructuredData.get().floatingPoint(v.getProperty(__structuredDataValue.name()));
+            case undefined:
+                return StructuredData.get().undefined();
+            case string:
+                return StructuredData.get().string(v.getProperty(__structuredDataValue.name()));
+            default:
+                throw new IllegalArgumentException("Not a primitive structured data type: " + type);
+        }
+    }
+
+    static StructuredData.Type typeOf(Vertex v) {
+        String type = v.getProperty(__structuredDataType.name());
+        try {
+            return StructuredData.Type.valueOf(type);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Unknown structured data type stored in db: " + type);
+        }
+    }
+
+    private static void loadChildren(Vertex root, StructuredData.AbstractListBuilder<?> rootList,
+                                     StructuredData.AbstractMapBuilder<?> rootMap) {
+        Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(sortedChildren(root), rootList, rootMap, null));
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+
+            if (frame.next == frame.children.length) {
+                stack.pop();
+                if (frame.close != null) {
+                    frame.close.run();
+                }
+                continue;
+            }
+
+            Vertex child = frame.children[frame.next++];
+            StructuredData.Type type = typeOf(child);
+
+            if (frame.list != null) {
+                switch (type) {
+                    case bool:
+                        frame.list.addBool(child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case integral:
+                        frame.list.addIntegral(child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case floatingPoint:
+                        frame.list.addFloatingPoint(child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case undefined:
+                        frame.list.addUndefined();
+                        break;
+                    case string:
+                        frame.list.addString(child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case list:
+                        StructuredData.InnerListBuilder<?> lst = frame.list.addList();
+                        stack.push(new Frame(sortedChildren(child), lst, null, lst::closeList));
+                        break;
+                    case map:
+                        StructuredData.InnerMapBuilder<?> mp = frame.list.addMap();
+                        stack.push(new Frame(sortedChildren(child), null, mp, mp::closeMap));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown structured data type stored in db: " + type);
+                }
+            } else {
+                String key = child.getProperty(__structuredDataKey.name()).toString();
+
+                switch (type) {
+                    case bool:
+                        frame.map.putBool(key, child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case integral:
+                        frame.map.putIntegral(key, child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case floatingPoint:
+                        frame.map.putFloatingPoint(key, child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case undefined:
+                        frame.map.putUndefined(key);
+                        break;
+                    case string:
+                        frame.map.putString(key, child.getProperty(__structuredDataValue.name()));
+                        break;
+                    case list:
+                        StructuredData.InnerListBuilder<?> lst = frame.map.putList(key);
+                        stack.push(new Frame(sortedChildren(child), lst, null, lst::closeList));
+                        break;
+                    case map:
+                        StructuredData.InnerMapBuilder<?> mp = frame.map.putMap(key);
+                        stack.push(new Frame(sortedChildren(child), null, mp, mp::closeMap));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown structured data type stored in db: " + type);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the children of the vertex and orders them by their index.
+     *
+     * <p>The index of each child is read just once and packed together with the position of the child into a single
+     * long so that the ordering is done on a primitive array.
+     */
+    static Vertex[] sortedChildren(Vertex parent) {
+        List<Vertex> children = new ArrayList<>();
+        for (Vertex v : parent.getVertices(Direction.OUT, contains.name())) {
+            children.add(v);
+        }
+
+        int size = children.size();
+        if (size < 2) {
+            return children.toArray(new Vertex[size]);
+        }
+
+        long[] order = new long[size];
+        for (int i = 0; i < size; ++i) {
+            Integer idx = children.get(i).getProperty(__structuredDataIndex.name());
+            if (idx == null) {
+                throw new IllegalStateException("Structured data child of " + parent + " has no index.");
+            }
+            order[i] = ((long) idx << 32) | i;
+        }
+
+        Arrays.sort(order);
+
+        Vertex[] ret = new Vertex[size];
+        for (int i = 0; i < size; ++i) {
+            ret[i] = children.get((int) order[i]);
+        }
+
+        return ret;
+    }
+
+    private static final class Frame {
+        final Vertex[] children;
+        final StructuredData.AbstractListBuilder<?> list;
+        final StructuredData.AbstractMapBuilder<?> map;
+        final Runnable close;
+        int next;
+
+        Frame(Vertex[] children, StructuredData.AbstractListBuilder<?> list, StructuredData.AbstractMapBuilder<?> map,
+              Runnable close) {
+            this.children = children;
+            this.list = list;
+            this.map = map;
+            this.close = close;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataIndex;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataKey;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataType;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataValue;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.hawkular.inventory.api.model.RelativePath;
+import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.model.StructuredDataChange;
+
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Updates the structured data stored as a tree of vertices to a new value by applying just the differences between
+ * the stored and the new value.
+ *
+ * <p>The values of the same type on the same position are updated in place, the map entries are matched by their
+ * keys, the list items by their positions. Only the subtrees that are new, removed or changed their type are
+ * written or deleted as a whole.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class StructuredDataUpdater {
+    private final TinkerpopBackend backend;
+    private final List<StructuredDataChange> changes = new ArrayList<>();
+
+    StructuredDataUpdater(TinkerpopBackend backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Updates the data stored under the provided root vertex. The root vertex itself is kept.
+     *
+     * @param root    the root vertex of the stored structured data
+     * @param newData the new value of the data
+     * @return the changes made
+     */
+    List<StructuredDataChange> update(Vertex root, StructuredData newData) {
+        Deque<Work> work = new ArrayDeque<>();
+        work.push(new Work(root, newData, null));
+
+        while (!work.isEmpty()) {
+            Work w = work.pop();
+
+            StructuredData.Type storedType = StructuredDataLoader.typeOf(w.vertex);
+            StructuredData.Type newType = w.data.getType();
+
+            if (storedType != newType) {
+                replace(w.vertex, w.data);
+                report(StructuredDataChange.Kind.changed, w.path);
+                continue;
+            }
+
+            switch (newType) {
+                case list:
+                    updateList(w, work);
+                    break;
+                case map:
+                    updateMap(w, work);
+                    break;
+                default:
+                    Object storedValue = w.vertex.getProperty(__structuredDataValue.name());
+                    if (!Objects.equals(storedValue, w.data.getValue())) {
+                        setValue(w.vertex, w.data.getValue());
+                        report(StructuredDataChange.Kind.changed, w.path);
+                    }
+            }
+        }
+
+        return changes;
+    }
+
+    private void updateList(Work w, Deque<Work> work) {
+        Vertex[] stored = StructuredDataLoader.sortedChildren(w.vertex);
+        List<StructuredData> items = w.data.list();
+
+        List<Work> next = new ArrayList<>();
+
+        int common = Math.min(stored.length, items.size());
+        for (int i = 0; i < common; ++i) {
+            setIndex(stored[i], i);
+            next.add(new Work(stored[i], items.get(i), new DataPath(w.path, null, i)));
+        }
+
+        for (int i = common; i < stored.length; ++i) {
+            deleteTree(stored[i]);
+            report(StructuredDataChange.Kind.removed, new DataPath(w.path, null, i));
+        }
+
+        for (int i = common; i < items.size(); ++i) {
+            addChild(w.vertex, i, null, items.get(i));
+            report(StructuredDataChange.Kind.added, new DataPath(w.path, null, i));
+        }
+
+        pushInOrder(next, work);
+    }
+
+    private void updateMap(Work w, Deque<Work> work) {
+        Vertex[] stored = StructuredDataLoader.sortedChildren(w.vertex);
+        Map<String, StructuredData> entries = w.data.map();
+
+        Map<String, Vertex> storedByKey = new LinkedHashMap<>();
+        for (Vertex v : stored) {
+            storedByKey.put(v.getProperty(__structuredDataKey.name()).toString(), v);
+        }
+
+        //the relative order of the entries that are both in the stored and the new data. An entry is only reported as
+        //moved if it changed its position relative to the other such entries, not merely because something was
+        //inserted or removed before it.
+        Map<String, Integer> storedRanks = new HashMap<>();
+        int rank = 0;
+        for (String key : storedByKey.keySet()) {
+            if (entries.containsKey(key)) {
+                storedRanks.put(key, rank++);
+            }
+        }
+
+        List<Work> next = new ArrayList<>();
+
+        int idx = 0;
+        rank = 0;
+        for (Map.Entry<String, StructuredData> e : entries.entrySet()) {
+            String key = e.getKey();
+            Vertex v = storedByKey.remove(key);
+            DataPath path = new DataPath(w.path, key, idx);
+
+            if (v == null) {
+                addChild(w.vertex, idx, key, e.getValue());
+                report(StructuredDataChange.Kind.added, path);
+            } else {
+                setIndex(v, idx);
+                if (storedRanks.get(key) != rank) {
+                    report(StructuredDataChange.Kind.moved, path);
+                }
+                rank++;
+                next.add(new Work(v, e.getValue(), path));
+            }
+
+            idx++;
+        }
+
+        for (Map.Entry<String, Vertex> e : storedByKey.entrySet()) {
+            deleteTree(e.getValue());
+            report(StructuredDataChange.Kind.removed, new DataPath(w.path, e.getKey(), -1));
+        }
+
+        pushInOrder(next, work);
+    }
+
+    private static void pushInOrder(List<Work> next, Deque<Work> work) {
+        //push in reverse so that the children are processed in their order
+        for (int i = next.size() - 1; i >= 0; --i) {
+            work.push(next.get(i));
+        }
+    }
+
+    private void replace(Vertex v, StructuredData data) {
+        deleteChildren(v);
+
+        v.setProperty(__structuredDataType.name(), data.getType().name());
+
+        switch (data.getType()) {
+            case list:
+                v.removeProperty(__structuredDataValue.name());
+                int i = 0;
+                for (StructuredData item : data.list()) {
+                    addChild(v, i++, null, item);
+                }
+                break;
+            case map:
+                v.removeProperty(__structuredDataValue.name());
+                int idx = 0;
+                for (Map.Entry<String, StructuredData> e : data.map().entrySet()) {
+                    addChild(v, idx++, e.getKey(), e.getValue());
+                }
+                break;
+            default:
+                setValue(v, data.getValue());
+        }
+    }
+
+    private void addChild(Vertex parent, int index, String key, StructuredData data) {
+        Vertex child = backend.persist(data);
+        child.setProperty(__structuredDataIndex.name(), index);
+        if (key != null) {
+            child.setProperty(__structuredDataKey.name(), key);
+        }
+        backend.relate(parent, child, contains.name(), null);
+    }
+
+    private void deleteTree(Vertex v) {
+        deleteChildren(v);
+        v.remove();
+    }
+
+    private void deleteChildren(Vertex v) {
+        // the closure is constructed eagerly, so we can delete while iterating
+        Iterator<Element> children = backend.getTransitiveClosureOver(v, outgoing, contains.name());
+        while (children.hasNext()) {
+            children.next().remove();
+        }
+    }
+
+    private static void setIndex(Vertex v, int index) {
+        Integer stored = v.getProperty(__structuredDataIndex.name());
+        if (stored == null || stored != index) {
+            v.setProperty(__structuredDataIndex.name(), index);
+        }
+    }
+
+    private static void setValue(Vertex v, Serializable value) {
+        if (value == null) {
+            v.removeProperty(__structuredDataValue.name());
+        } else {
+            v.setProperty(__structuredDataValue.name(), value);
+        }
+    }
+
+    private void report(StructuredDataChange.Kind kind, DataPath path) {
+        changes.add(new StructuredDataChange(kind, DataPath.toRelativePath(path)));
+    }
+
+    private static final class Work {
+        final Vertex vertex;
+        final StructuredData data;
+        final DataPath path;
+
+        Work(Vertex vertex, StructuredData data, DataPath path) {
+            this.vertex = vertex;
+            this.data = data;
+            this.path = path;
+        }
+    }
+
+    /**
+     * A cheap, shareable representation of the position in the data. Only converted to a relative path if a change
+     * is actually reported.
+     */
+    private static final class DataPath {
+        final DataPath parent;
+        final String key;
+        final int index;
+
+        DataPath(DataPath parent, String key, int index) {
+            this.parent = parent;
+            this.key = key;
+            this.index = index;
+        }
+
+        static RelativePath toRelativePath(DataPath path) {
+            Deque<DataPath> segments = new ArrayDeque<>();
+            for (DataPath p = path; p != null; p = p.parent) {
+                segments.push(p);
+            }
+
+            RelativePath.StructuredDataBuilder bld = RelativePath.to().structuredData();
+            for (DataPath p : segments) {
+                if (p.key != null) {
+                    bld.key(p.key);
+                } else {
+                    bld.index(p.index);
+                }
+            }
+
+            return bld.get();
+        }
+    }
+}
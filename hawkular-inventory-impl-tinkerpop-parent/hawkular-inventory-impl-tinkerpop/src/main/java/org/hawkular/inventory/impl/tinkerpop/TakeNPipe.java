@@ -23,7 +23,11 @@ import com.tinkerpop.pipes.util.PipeHelper;
 
 /**
  * <p>
- * This simple pipe takes the following n elements and skips the rest
+ * This simple pipe takes the following n elements and skips the rest.
+ *
+ * <p>If {@code drainTheRest} is true, the rest of the input is consumed so that any counters installed before this
+ * pipe see all the elements. Otherwise only a single element is looked ahead after the n-th one, which is enough for
+ * such counters to tell whether there are more elements than were taken.
  *
  * @author Jirka Kremser
  * @since 0.4.0
@@ -41,15 +45,25 @@ class TakeNPipe<S> extends AbstractPipe<S, S> implements FilterPipe<S> {
     }
 
     protected S processNextStart() {
-        if (this.counter-- == 0) {
+        if (this.counter > 0) {
+            this.counter--;
+            return this.starts.next();
+        }
+
+        if (this.counter == 0) {
+            this.counter = -1;
             if (!drainTheRest) {
-                throw FastNoSuchElementException.instance();
-            }
-            while (true) {
-                this.starts.next();
+                //look one element ahead so that the upstream counters know there's more
+                this.starts.hasNext();
+            } else {
+                while (true) {
+                    this.starts.next();
+                }
             }
         }
-        return this.starts.next();
+
+        //once the n elements were taken, this must stay depleted even if the input isn't
+        throw FastNoSuchElementException.instance();
     }
 
     public String toString() {
@@ -16,6 +16,7 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 import static org.hawkular.inventory.api.Relationships.Direction.incoming;
@@ -38,22 +39,31 @@ import java.io.InputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
 
 import org.hawkular.inventory.api.EntityNotFoundException;
+import org.hawkular.inventory.api.InventoryMetrics;
 import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.filters.RelationFilter;
 import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.instrumentation.SlowQueryLog;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Blueprint;
 import org.hawkular.inventory.api.model.CanonicalPath;
@@ -69,17 +79,22 @@ import org.hawkular.inventory.api.model.MetricDataType;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.MetricUnit;
 import org.hawkular.inventory.api.model.OperationType;
+import org.hawkular.inventory.api.model.Path;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.RelativePath;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.model.StructuredDataChange;
 import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.api.paging.Order;
 import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.PageContext;
 import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.api.paging.SizeAwarePage;
 import org.hawkular.inventory.base.Query;
 import org.hawkular.inventory.base.spi.CommitFailureException;
+import org.hawkular.inventory.base.spi.ContainedEntity;
 import org.hawkular.inventory.base.spi.ElementNotFoundException;
 import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.base.spi.ShallowStructuredData;
@@ -92,13 +107,35 @@ import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ElementHelper;
 import com.tinkerpop.blueprints.util.io.graphson.GraphSONMode;
 import com.tinkerpop.blueprints.util.io.graphson.GraphSONWriter;
-import com.tinkerpop.pipes.PipeFunction;
 
 /**
  * @author Lukas Krejci
  * @since 0.1.0
  */
 final class TinkerpopBackend implements InventoryBackend<Element> {
+    /**
+     * The properties of the elements of given type that are not exposed as the user-defined properties of the
+     * entities.
+     */
+    private static final Map<Constants.Type, Set<String>> MAPPED_PROPERTIES;
+    static {
+        Map<Constants.Type, Set<String>> mapped = new EnumMap<>(Constants.Type.class);
+        for (Constants.Type t : Constants.Type.values()) {
+            mapped.put(t, new HashSet<>(Arrays.asList(t.getMappedProperties())));
+        }
+        MAPPED_PROPERTIES = mapped;
+    }
+
+    /**
+     * The conversion context of the query whose results are being converted on the current thread, if any.
+     */
+    private static final ThreadLocal<ConversionContext> CURRENT_CONVERSION = new ThreadLocal<>();
+
+    /**
+     * The maximum number of types and of canonical paths remembered by a {@link ConversionContext}.
+     */
+    private static final int MAX_REMEMBERED_CONVERSIONS = 1000;
+
     private final InventoryContext<?> context;
 
     public TinkerpopBackend(InventoryContext<?> context) {
@@ -112,15 +149,40 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public Element find(CanonicalPath path) throws ElementNotFoundException {
-        GraphQuery query = context.getGraph().query().has(__cp.name(), path.toString());
-        Iterator<? extends Element> it = query.vertices().iterator();
+        String cp = path.toString();
+
+        Element cached = context.getElementCache().get(context.getGraph(), cp);
+        if (cached != null) {
+            return cached;
+        }
+
+        Iterator<? extends Element> it = lookup(path, cp);
         if (!it.hasNext()) {
-            it = query.edges().iterator();
-            if (!it.hasNext()) {
-                throw new ElementNotFoundException();
-            }
+            throw new ElementNotFoundException();
+        }
+
+        Element ret = it.next();
+        context.getElementCache().put(cp, ret);
+        return ret;
+    }
+
+    @Override
+    public boolean exists(CanonicalPath path) {
+        String cp = path.toString();
+        return context.getElementCache().get(context.getGraph(), cp) != null || lookup(path, cp).hasNext();
+    }
+
+    /**
+     * The type of the last segment of the path tells us whether we're looking for an edge or a vertex, so there's
+     * no need to query both the indices.
+     */
+    private Iterator<? extends Element> lookup(CanonicalPath path, String cp) {
+        GraphQuery query = context.getGraph().query().has(__cp.name(), cp).limit(1);
+        if (Relationship.class.equals(path.getSegment().getElementType())) {
+            return query.edges().iterator();
+        } else {
+            return query.vertices().iterator();
         }
-        return it.next();
     }
 
     @Override
@@ -131,7 +193,8 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
         Log.LOG.debugf("Query execution (starting at %s):\nquery:\n%s\n\npipeline:\n%s", startingPoint, query, q);
 
-        return new SizeAwarePage<>(q.cast(Element.class).iterator(), pager, () -> q.getCount("total"));
+        return new SizeAwarePage<>(measured(q, () -> q.cast(Element.class).iterator(), "total", query), pager,
+                () -> q.getCount("total"));
     }
 
     @Override public Element traverseToSingle(Element startingPoint, Query query) {
@@ -152,6 +215,13 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         return traverseToSingle(null, query);
     }
 
+    @Override
+    public long count(Query query) {
+        HawkularPipeline<?, ? extends Element> q = translate(null, query);
+        Log.LOG.debugf("Query count execution:\nquery:\n%s\n\npipeline:\n%s", query, q);
+        return q.count();
+    }
+
     private HawkularPipeline<?, ? extends Element> translate(Element startingPoint, Query query) {
         HawkularPipeline<?, ? extends Element> q;
 
@@ -178,10 +248,21 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
         HawkularPipeline<?, ? extends Element> q = translate(null, query);
 
+        //the conversion function is provided by the caller but it ends up calling our convert() method. Using
+        //a conversion context common to all the elements of the query, we avoid converting the same types and parsing
+        //the same paths over and over again. The context also restricts the conversion to the fields requested by the
+        //pager.
+        ConversionContext conversionContext = new ConversionContext(pager);
+        Function<Element, T> scopedConversion = e -> conversionContext.apply(conversion, e);
+
         HawkularPipeline<?, T> q2;
         if (filter == null) {
-            q2 = q.counter("total").page(pager).transform(conversion::apply);
+            q2 = q.counter("total").page(pager).transform(scopedConversion::apply);
         } else {
+            if (context.getMetrics() != InventoryMetrics.NOOP) {
+                q.counter("scanned");
+            }
+
             //the ResultFilter interface requires an entity to check its applicability and can rule out some of the
             //entities from the result set, which affects the total count. We therefore need to convert to entity first
             //and only then filter, count and page.
@@ -189,7 +270,7 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             //to have stable ids, it needs to have the "canonical" path to the entity, which the inventory traversal
             //path might not be. The transformation of a non-canonical to canonical path is essentially identical
             //operation to converting the vertex to the entity.
-            q2 = q.transform(conversion::apply).filter(filter::apply).counter("total")
+            q2 = q.transform(scopedConversion::apply).filter(filter::apply).counter("total")
                     .page(pager, (e, p) -> {
                         if (!(e instanceof AbstractElement)) {
                             return null;
@@ -207,58 +288,145 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
         Log.LOG.debugf("Query execution:\nquery:\n%s\n\npipeline:\n%s", query, q2);
 
-        return new SizeAwarePage<>(q2.iterator(), pager, () -> q.getCount("total"));
+        return new SizeAwarePage<>(measured(q, q2::iterator, filter == null ? "total" : "scanned", query), pager,
+                () -> q.getCount("total"));
+    }
+
+    /**
+     * Reports the number of elements matched by the query (as counted by the provided counter of the pipeline) and
+     * the number of elements actually returned to the caller to the metrics once the results are depleted. If the
+     * metrics keep the slow query log, the pipeline is also profiled and recorded in the log if it takes too long.
+     *
+     * <p>The results are only obtained once the pipeline is profiled, because profiling rewires the steps of the
+     * pipeline.
+     */
+    private <T> Iterator<T> measured(HawkularPipeline<?, ?> q, Supplier<Iterator<T>> resultsSupplier,
+                                     String scannedCounter, Query query) {
+        InventoryMetrics metrics = context.getMetrics();
+        if (metrics == InventoryMetrics.NOOP) {
+            return resultsSupplier.get();
+        }
+
+        SlowQueryLog slowQueryLog = metrics.getSlowQueryLog();
+        List<HawkularPipeline.StepProfile> profile = slowQueryLog == null ? null : q.profile();
+        Iterator<T> results = resultsSupplier.get();
+        long start = System.nanoTime();
+
+        return new Iterator<T>() {
+            long returned;
+            boolean reported;
+
+            @Override
+            public boolean hasNext() {
+                boolean ret = results.hasNext();
+                if (!ret && !reported) {
+                    reported = true;
+                    report();
+                }
+                return ret;
+            }
+
+            @Override
+            public T next() {
+                T ret = results.next();
+                returned++;
+                return ret;
+            }
+
+            private void report() {
+                long duration = System.nanoTime() - start;
+
+                metrics.recordQueryResults(Math.max(0, q.getCount(scannedCounter)), returned);
+
+                if (profile != null && slowQueryLog.isSlow(duration)) {
+                    List<SlowQueryLog.Step> steps = profile.stream()
+                            .map(p -> new SlowQueryLog.Step(p.getStep().toString(), p.getElements()))
+                            .collect(toList());
+
+                    slowQueryLog.record(new SlowQueryLog.Entry(System.currentTimeMillis(), duration,
+                            query.toString(), steps, returned));
+                }
+            }
+        };
     }
 
     @Override
-    public Iterator<Element> getTransitiveClosureOver(Element startingPoint, Relationships.Direction direction,
-                                                      String... relationshipNames) {
+    public Iterator<Element> getTransitiveClosureOver(Element startingPoint, TransitiveClosure closure) {
+        if (!(startingPoint instanceof Vertex)) {
+            return Collections.<Element>emptyList().iterator();
+        }
 
-        return getTransitiveClosureOverImpl(startingPoint, direction, relationshipNames).iterator();
+        Vertex definer = null;
+        if (closure.getDefinedBy() != null) {
+            try {
+                definer = (Vertex) find(closure.getDefinedBy());
+            } catch (ElementNotFoundException e) {
+                throw new EntityNotFoundException("The defining entity " + closure.getDefinedBy() +
+                        " of the transitive closure does not exist.");
+            }
+        }
+
+        Iterator<Element> it = new TransitiveClosureIterator((Vertex) startingPoint, closure, definer);
+
+        if (closure.isLazy()) {
+            return it;
+        }
+
+        //materializing the closure is important as it ensures eager evaluation - the callers might modify the
+        //conditions for the evaluation during the iteration which would skew the results.
+        List<Element> ret = new ArrayList<>();
+        it.forEachRemaining(ret::add);
+        return ret.iterator();
     }
 
     @Override
     public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(CanonicalPath startingPoint,
-                                                                         Relationships.Direction direction,
-                                                                         Class<T> clazz,
-                                                                         String... relationshipNames) {
+                                                                         TransitiveClosure closure, Class<T> clazz) {
+        Element startingElement;
         try {
-            Element startingElement = find(startingPoint);
-            if (!(startingElement instanceof Vertex)) {
-                return Collections.<T>emptyList().iterator();
+            startingElement = find(startingPoint);
+        } catch (ElementNotFoundException e) {
+            throw new EntityNotFoundException(clazz, null);
+        }
+
+        Iterator<Element> it = getTransitiveClosureOver(startingElement, closure);
+        ConversionContext conversionContext = new ConversionContext(null);
+
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
             }
 
-            return getTransitiveClosureOverImpl(startingElement, direction, relationshipNames).stream()
-                    .map(vertex -> convert(vertex, clazz)).iterator();
+            @Override
+            public T next() {
+                return convert(it.next(), clazz, conversionContext, false);
+            }
+        };
+    }
 
+    @Override
+    public <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(CanonicalPath startingPoint,
+                                                                     TransitiveClosure closure, Class<T> clazz,
+                                                                     Pager pager) {
+        Element startingElement;
+        try {
+            startingElement = find(startingPoint);
         } catch (ElementNotFoundException e) {
             throw new EntityNotFoundException(clazz, null);
         }
-    }
 
-    private List<Element> getTransitiveClosureOverImpl(Element startingPoint, Relationships.Direction direction,
-                                                       String... relationshipNames) {
-        if (!(startingPoint instanceof Vertex)) {
-            return Collections.<Element>emptyList();
-        } else {
-            HawkularPipeline<?, Element> ret = new HawkularPipeline<Element, Element>(startingPoint).as("start");
+        //the paging pipes drain the closure as needed, so there's no need to evaluate it eagerly
+        HawkularPipeline<?, Element> q = new HawkularPipeline<Element, Element>(
+                getTransitiveClosureOver(startingElement, closure.lazy()));
 
-            switch (direction) {
-                case incoming:
-                    ret.in(relationshipNames);
-                    break;
-                case outgoing:
-                    ret.out(relationshipNames);
-                    break;
-                case both:
-                    ret.both(relationshipNames);
-                    break;
-            }
+        ConversionContext conversionContext = new ConversionContext(pager);
+        HawkularPipeline<?, T> q2 = q.counter("total").page(pager)
+                .transform(e -> convert(e, clazz, conversionContext, true));
 
-            //toList() is important as it ensures eager evaluation of the closure - the callers might modify the
-            //conditions for the evaluation during the iteration which would skew the results.
-            return ret.loop("start", (x) -> true, (x) -> true).toList();
-        }
+        Log.LOG.debugf("Transitive closure execution:\nclosure:\n%s\n\npipeline:\n%s", closure, q2);
+
+        return new SizeAwarePage<>(q2.iterator(), pager, () -> q.getCount("total"));
     }
 
     @Override
@@ -319,7 +487,7 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
         Vertex v = (Vertex) entity;
 
-        HawkularPipeline<?, Element> q = new HawkularPipeline<>(v);
+        HawkularPipeline<?, Element> q = new HawkularPipeline<Element, Element>(v);
 
         switch (direction) {
             case incoming:
@@ -380,14 +548,39 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public <T> T convert(Element entityRepresentation, Class<T> entityType) {
+        ConversionContext conversionContext = CURRENT_CONVERSION.get();
+        if (conversionContext != null && !conversionContext.isOf(this)) {
+            conversionContext = null;
+        }
+
+        return convert(entityRepresentation, entityType, conversionContext, true);
+    }
+
+    /**
+     * @param conversionContext the context to share the converted types and parsed paths with the conversions of the
+     *                          other elements of the same query or null if there is no such context
+     * @param project           whether to only load the fields requested in the conversion context or load the
+     *                          element fully
+     */
+    private <T> T convert(Element entityRepresentation, Class<T> entityType, ConversionContext conversionContext,
+                          boolean project) {
         Constants.Type type = Constants.Type.of(extractType(entityRepresentation));
+        ConversionContext projection = project && conversionContext != null && conversionContext.isProjecting()
+                ? conversionContext : null;
 
         Object e;
 
         if (type == relationship) {
             Edge edge = (Edge) entityRepresentation;
-            CanonicalPath source = extractCanonicalPath(edge.getVertex(Direction.OUT));
-            CanonicalPath target = extractCanonicalPath(edge.getVertex(Direction.IN));
+            CanonicalPath source;
+            CanonicalPath target;
+            if (conversionContext == null) {
+                source = extractCanonicalPath(edge.getVertex(Direction.OUT));
+                target = extractCanonicalPath(edge.getVertex(Direction.IN));
+            } else {
+                source = conversionContext.canonicalPath(edge.getVertex(Direction.OUT));
+                target = conversionContext.canonicalPath(edge.getVertex(Direction.IN));
+            }
 
             e = new Relationship(extractId(edge), edge.getLabel(), source, target);
         } else {
@@ -401,9 +594,13 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                     e = new Feed(extractCanonicalPath(v));
                     break;
                 case metric:
-                    Vertex mdv = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator()
-                            .next();
-                    MetricType md = convert(mdv, MetricType.class);
+                    MetricType md = null;
+                    if (projection == null || projection.loadsType()) {
+                        Vertex mdv = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator()
+                                .next();
+                        md = conversionContext == null ? convert(mdv, MetricType.class, null, false)
+                                : conversionContext.type(mdv, MetricType.class);
+                    }
                     e = new Metric(extractCanonicalPath(v), md);
                     break;
                 case metricType:
@@ -413,10 +610,14 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                                     Constants.Property.__metric_data_type.name())));
                     break;
                 case resource:
-                    Vertex rtv = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator().next();
-                    ResourceType rt = convert(rtv, ResourceType.class);
-                    e = new Resource(extractCanonicalPath(v), rt
-                    );
+                    ResourceType rt = null;
+                    if (projection == null || projection.loadsType()) {
+                        Vertex rtv = v.getVertices(Direction.IN, Relationships.WellKnown.defines.name()).iterator()
+                                .next();
+                        rt = conversionContext == null ? convert(rtv, ResourceType.class, null, false)
+                                : conversionContext.type(rtv, ResourceType.class);
+                    }
+                    e = new Resource(extractCanonicalPath(v), rt);
                     break;
                 case resourceType:
                     e = new ResourceType(extractCanonicalPath(v));
@@ -431,7 +632,7 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                     CanonicalPath cp = extractCanonicalPath(v);
 
                     e = new DataEntity(cp.up(), DataEntity.Role.valueOf(cp.getSegment().getElementId()),
-                            loadStructuredData(v, hasData));
+                            projection == null || projection.loadsValue() ? loadStructuredData(v, hasData) : null);
                     break;
                 case operationType:
                     e = new OperationType(extractCanonicalPath(v));
@@ -441,13 +642,22 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             }
         }
 
-        List<String> mappedProps = Arrays.asList(type.getMappedProperties());
+        Set<String> mappedProps = MAPPED_PROPERTIES.get(type);
         Map<String, Object> filteredProperties = new HashMap<>();
-        entityRepresentation.getPropertyKeys().forEach(k -> {
-            if (!mappedProps.contains(k)) {
-                filteredProperties.put(k, entityRepresentation.getProperty(k));
+        if (projection == null || projection.loadsAllProperties()) {
+            entityRepresentation.getPropertyKeys().forEach(k -> {
+                if (!mappedProps.contains(k)) {
+                    filteredProperties.put(k, entityRepresentation.getProperty(k));
+                }
+            });
+        } else {
+            for (String k : projection.getProperties()) {
+                Object value = mappedProps.contains(k) ? null : entityRepresentation.getProperty(k);
+                if (value != null) {
+                    filteredProperties.put(k, value);
+                }
             }
-        });
+        }
 
         if (StructuredData.class.equals(entityType)) {
             return entityType.cast(e);
@@ -534,6 +744,65 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         }
     }
 
+    @Override
+    public StructuredData loadData(Element dataEntityRepresentation, RelativePath dataPath, boolean recurse) {
+        Iterator<Vertex> it = ((Vertex) dataEntityRepresentation).getVertices(Direction.OUT, hasData.name())
+                .iterator();
+        Vertex root = it.hasNext() ? it.next() : null;
+
+        if (root == null || !StructuredDataCodec.isCompact(root)) {
+            return InventoryBackend.super.loadData(dataEntityRepresentation, dataPath, recurse);
+        }
+
+        //there are no vertices to descend to in the compact data, so we need to navigate the decoded data instead
+        StructuredData data = StructuredDataLoader.load(root);
+        Deque<StructuredData> ancestors = new ArrayDeque<>();
+        for (Path.Segment seg : dataPath.getPath()) {
+            if (RelativePath.Up.class.equals(seg.getElementType())) {
+                if (ancestors.isEmpty()) {
+                    return null;
+                }
+                data = ancestors.pop();
+            } else {
+                ancestors.push(data);
+                data = childOf(data, seg.getElementId());
+                if (data == null) {
+                    return null;
+                }
+            }
+        }
+
+        if (recurse) {
+            return data;
+        }
+
+        switch (data.getType()) {
+            case list:
+                return StructuredData.get().list().build();
+            case map:
+                return StructuredData.get().map().build();
+            default:
+                return data;
+        }
+    }
+
+    private static StructuredData childOf(StructuredData data, String keyOrIndex) {
+        switch (data.getType()) {
+            case map:
+                return data.map().get(keyOrIndex);
+            case list:
+                try {
+                    int index = Integer.parseInt(keyOrIndex);
+                    List<StructuredData> list = data.list();
+                    return index >= 0 && index < list.size() ? list.get(index) : null;
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+
     @Override
     public Element relate(Element sourceEntity, Element targetEntity, String name, Map<String, Object> properties) {
         if (name == null) {
@@ -552,16 +821,22 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         if (properties != null) {
             ElementHelper.setProperties(e, properties);
         }
+        setEdgeProperties(e, sourceEntity.getProperty(__type.name()), sourceEntity.getProperty(__cp.name()),
+                sourceEntity.getProperty(__eid.name()), targetEntity);
+
+        return e;
+    }
+
+    private void setEdgeProperties(Edge e, Object sourceType, Object sourceCp, Object sourceEid,
+                                   Element targetEntity) {
         e.setProperty(__eid.name(), e.getId().toString());
         e.setProperty(__cp.name(), CanonicalPath.of().relationship(e.getId().toString()).get().toString());
-        e.setProperty(__sourceType.name(), sourceEntity.getProperty(__type.name()));
+        e.setProperty(__sourceType.name(), sourceType);
         setNonNullProperty(e, __targetType.name(), targetEntity.getProperty(__type.name()));
-        setNonNullProperty(e, __sourceCp.name(), sourceEntity.getProperty(__cp.name()));
+        setNonNullProperty(e, __sourceCp.name(), sourceCp);
         setNonNullProperty(e, __targetCp.name(), targetEntity.getProperty(__cp.name()));
-        setNonNullProperty(e, __sourceEid.name(), sourceEntity.getProperty(__eid.name()));
+        setNonNullProperty(e, __sourceEid.name(), sourceEid);
         setNonNullProperty(e, __targetEid.name(), targetEntity.getProperty(__eid.name()));
-
-        return e;
     }
 
     private void setNonNullProperty(Element el, String propertyName, Object propertyValue) {
@@ -637,6 +912,8 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
                 try {
                     checkProperties(properties, Constants.Type.of(cls).getMappedProperties());
 
+                    context.getElementCache().invalidate(path.toString());
+
                     Vertex v = context.getGraph().addVertex(null);
                     v.setProperty(__type.name(), Constants.Type.of(cls).name());
                     v.setProperty(__eid.name(), path.getSegment().getElementId());
@@ -653,6 +930,35 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         }, null);
     }
 
+    @Override
+    public List<ContainedEntity<Element>> persistAll(Element parent,
+                                                     Map<CanonicalPath, ? extends Blueprint> blueprints) {
+        if (parent != null && !(parent instanceof Vertex)) {
+            throw new IllegalArgumentException("Parent not a vertex.");
+        }
+
+        //all the contains edges start at the parent, so we only need to read its properties once
+        Vertex parentVertex = (Vertex) parent;
+        Object parentType = parent == null ? null : parent.getProperty(__type.name());
+        Object parentCp = parent == null ? null : parent.getProperty(__cp.name());
+        Object parentEid = parent == null ? null : parent.getProperty(__eid.name());
+
+        List<ContainedEntity<Element>> ret = new ArrayList<>(blueprints.size());
+        for (Map.Entry<CanonicalPath, ? extends Blueprint> e : blueprints.entrySet()) {
+            Element entity = persist(e.getKey(), e.getValue());
+
+            Edge containsEdge = null;
+            if (parentVertex != null) {
+                containsEdge = parentVertex.addEdge(contains.name(), (Vertex) entity);
+                setEdgeProperties(containsEdge, parentType, parentCp, parentEid, entity);
+            }
+
+            ret.add(new ContainedEntity<>(entity, containsEdge));
+        }
+
+        return ret;
+    }
+
     @Override
     public Vertex persist(StructuredData structuredData) {
         Vertex thisVertex = context.getGraph().addVertex(null);
@@ -739,35 +1045,71 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
         return thisVertex;
     }
 
+    @Override
+    public Vertex persist(StructuredData structuredData, DataEntity.Role role) {
+        return isStoredCompactly(role.name(), structuredData) ? persistCompact(structuredData)
+                : persist(structuredData);
+    }
+
+    private boolean isStoredCompactly(String role, StructuredData data) {
+        //there's nothing to save by storing primitive values in the compact form
+        StructuredData.Type type = data.getType();
+        return (type == StructuredData.Type.list || type == StructuredData.Type.map)
+                && context.isCompactDataRole(role);
+    }
+
+    private Vertex persistCompact(StructuredData structuredData) {
+        Vertex v = context.getGraph().addVertex(null);
+        v.setProperty(__type.name(), Constants.Type.structuredData.name());
+        writeCompact(v, structuredData);
+        return v;
+    }
+
+    private static void writeCompact(Vertex v, StructuredData structuredData) {
+        v.setProperty(Constants.Property.__structuredDataType.name(), structuredData.getType().name());
+        v.setProperty(Constants.Property.__structuredDataBlob.name(), StructuredDataCodec.encode(structuredData));
+    }
+
     @Override
     public void update(Element entity, AbstractElement.Update update) {
-        update.accept(new ElementUpdateVisitor.Simple<Void, Void>() {
+        updateAndReportDataChanges(entity, update);
+    }
+
+    @Override
+    public List<StructuredDataChange> updateData(Element dataEntity, DataEntity.Update update) {
+        return updateAndReportDataChanges(dataEntity, update);
+    }
+
+    private List<StructuredDataChange> updateAndReportDataChanges(Element entity, AbstractElement.Update update) {
+        context.getElementCache().invalidate(entity.getProperty(__cp.name()));
+
+        return update.accept(new ElementUpdateVisitor.Simple<List<StructuredDataChange>, Void>() {
             @Override
-            public Void visitTenant(Tenant.Update tenant, Void parameter) {
+            public List<StructuredDataChange> visitTenant(Tenant.Update tenant, Void parameter) {
                 common(tenant.getProperties(), Tenant.class);
                 return null;
             }
 
             @Override
-            public Void visitEnvironment(Environment.Update environment, Void parameter) {
+            public List<StructuredDataChange> visitEnvironment(Environment.Update environment, Void parameter) {
                 common(environment.getProperties(), Environment.class);
                 return null;
             }
 
             @Override
-            public Void visitFeed(Feed.Update feed, Void parameter) {
+            public List<StructuredDataChange> visitFeed(Feed.Update feed, Void parameter) {
                 common(feed.getProperties(), Feed.class);
                 return null;
             }
 
             @Override
-            public Void visitMetric(Metric.Update metric, Void parameter) {
+            public List<StructuredDataChange> visitMetric(Metric.Update metric, Void parameter) {
                 common(metric.getProperties(), Metric.class);
                 return null;
             }
 
             @Override
-            public Void visitMetricType(MetricType.Update definition, Void parameter) {
+            public List<StructuredDataChange> visitMetricType(MetricType.Update definition, Void parameter) {
                 common(definition.getProperties(), MetricType.class);
                 if (definition.getUnit() != null) {
                     entity.setProperty(Constants.Property.__unit.name(), definition.getUnit().getDisplayName());
@@ -776,48 +1118,71 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             }
 
             @Override
-            public Void visitResource(Resource.Update resource, Void parameter) {
+            public List<StructuredDataChange> visitResource(Resource.Update resource, Void parameter) {
                 common(resource.getProperties(), Resource.class);
                 return null;
             }
 
             @Override
-            public Void visitResourceType(ResourceType.Update type, Void parameter) {
+            public List<StructuredDataChange> visitResourceType(ResourceType.Update type, Void parameter) {
                 common(type.getProperties(), ResourceType.class);
                 return null;
             }
 
             @Override
-            public Void visitRelationship(Relationship.Update relationship, Void parameter) {
+            public List<StructuredDataChange> visitRelationship(Relationship.Update relationship, Void parameter) {
                 common(relationship.getProperties(), Relationship.class);
                 return null;
             }
 
             @Override
-            public Void visitData(DataEntity.Update data, Void parameter) {
+            public List<StructuredDataChange> visitData(DataEntity.Update data, Void parameter) {
                 common(data.getProperties(), DataEntity.class);
 
                 Vertex v = (Vertex) entity;
-                Vertex dataVertex = v.getVertices(Direction.OUT, Relationships.WellKnown.hasData.name()).iterator()
-                        .next();
-
-                Iterator<Element> children = getTransitiveClosureOver(dataVertex,
-                        Relationships.Direction.outgoing, Relationships.WellKnown.contains.name());
-
-                while (children.hasNext()) {
-                    Vertex c = (Vertex) children.next();
-                    context.getGraph().removeVertex(c);
-                }
-                context.getGraph().removeVertex(dataVertex);
 
                 StructuredData dataValue = data.getValue();
                 if (dataValue == null) {
                     dataValue = StructuredData.get().undefined();
                 }
-                Element newData = persist(dataValue);
 
-                relate(v, newData, Relationships.WellKnown.hasData.name(), null);
-                return null;
+                String role = extractCanonicalPath(v).getSegment().getElementId();
+                boolean compact = isStoredCompactly(role, dataValue);
+
+                Iterator<Vertex> dataVertices = v.getVertices(Direction.OUT, Relationships.WellKnown.hasData.name())
+                        .iterator();
+
+                if (!dataVertices.hasNext()) {
+                    Element newData = compact ? persistCompact(dataValue) : persist(dataValue);
+                    relate(v, newData, Relationships.WellKnown.hasData.name(), null);
+                    return Collections.singletonList(new StructuredDataChange(StructuredDataChange.Kind.added,
+                            RelativePath.to().structuredData().get()));
+                }
+
+                Vertex dataVertex = dataVertices.next();
+
+                if (!compact && !StructuredDataCodec.isCompact(dataVertex)) {
+                    //only apply the differences so that a small change in a large data doesn't rewrite all of it
+                    return new StructuredDataUpdater(TinkerpopBackend.this).update(dataVertex, dataValue);
+                }
+
+                //the compact data is always rewritten as a whole
+                boolean changed = !StructuredDataLoader.load(dataVertex).equals(dataValue);
+
+                if (compact && StructuredDataCodec.isCompact(dataVertex)) {
+                    if (changed) {
+                        writeCompact(dataVertex, dataValue);
+                    }
+                } else {
+                    //the data is switching between the compact and the expanded form, let's just store it anew
+                    deleteStructuredData(dataVertex);
+                    dataVertex.remove();
+                    Element newData = compact ? persistCompact(dataValue) : persist(dataValue);
+                    relate(v, newData, Relationships.WellKnown.hasData.name(), null);
+                }
+
+                return changed ? Collections.singletonList(new StructuredDataChange(StructuredDataChange.Kind.changed,
+                        RelativePath.to().structuredData().get())) : Collections.emptyList();
             }
 
             private void common(Map<String, Object> properties, Class<? extends AbstractElement<?, ?>> entityType) {
@@ -835,6 +1200,7 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
 
     @Override
     public void delete(Element entity) {
+        context.getElementCache().invalidate(entity.getProperty(__cp.name()));
         entity.remove();
     }
 
@@ -882,124 +1248,19 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
     }
 
     private StructuredData loadStructuredData(Vertex root, boolean recurse) {
-        StructuredData.Type type = StructuredData.Type.valueOf(root.getProperty(
-                Constants.Property.__structuredDataType.name()));
+        if (recurse) {
+            return StructuredDataLoader.load(root);
+        }
+
+        StructuredData.Type type = StructuredDataLoader.typeOf(root);
 
         switch (type) {
-            case bool:
-                return StructuredData.get().bool(root.getProperty(Constants.Property.__structuredDataValue.name()));
-            case integral:
-                return StructuredData.get().integral(root.getProperty(Constants.Property.__structuredDataValue.name()));
-            case floatingPoint:
-                return StructuredData.get()
-                        .floatingPoint(root.getProperty(Constants.Property.__structuredDataValue.name()));
-            case undefined:
-                return StructuredData.get().undefined();
-            case string:
-                return StructuredData.get().string(root.getProperty(Constants.Property.__structuredDataValue.name()));
             case list:
-                StructuredData.ListBuilder lst = StructuredData.get().list();
-                if (recurse) {
-                    loadStructuredDataList(root, lst);
-                }
-                return lst.build();
+                return StructuredData.get().list().build();
             case map:
-                StructuredData.MapBuilder mp = StructuredData.get().map();
-                if (recurse) {
-                    loadStructuredDataMap(root, mp);
-                }
-                return mp.build();
+                return StructuredData.get().map().build();
             default:
-                throw new IllegalArgumentException("Unknown structured data type stored in db: " + type);
-        }
-    }
-
-    private void loadStructuredDataList(Vertex root, StructuredData.AbstractListBuilder<?> bld) {
-        PipeFunction<com.tinkerpop.pipes.util.structures.Pair<Vertex, Vertex>, Integer> orderFn = (vs) -> {
-            Integer idxA = vs.getA().getProperty(Constants.Property.__structuredDataIndex.name());
-            Integer idxB = vs.getB().getProperty(Constants.Property.__structuredDataIndex.name());
-
-            return idxA - idxB;
-        };
-
-        for (Vertex child : new HawkularPipeline<>(root).out(contains).order(orderFn)) {
-            StructuredData.Type type = StructuredData.Type.valueOf(child.getProperty(
-                    Constants.Property.__structuredDataType.name()));
-
-            switch (type) {
-                case bool:
-                    bld.addBool(child.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case integral:
-                    bld.addIntegral(child.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case floatingPoint:
-                    bld.addFloatingPoint(child.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case undefined:
-                    bld.addUndefined();
-                    break;
-                case string:
-                    bld.addString(child.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case list:
-                    StructuredData.InnerListBuilder<?> lst = bld.addList();
-                    loadStructuredDataList(child, lst);
-                    lst.closeList();
-                    break;
-                case map:
-                    StructuredData.InnerMapBuilder<?> mp = bld.addMap();
-                    loadStructuredDataMap(child, mp);
-                    mp.closeMap();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown structured data type stored in db: " + type);
-            }
-        }
-    }
-
-    private void loadStructuredDataMap(Vertex root, StructuredData.AbstractMapBuilder<?> bld) {
-        PipeFunction<com.tinkerpop.pipes.util.structures.Pair<Vertex, Vertex>, Integer> orderFn = (vs) -> {
-            Integer idxA = vs.getA().getProperty(Constants.Property.__structuredDataIndex.name());
-            Integer idxB = vs.getB().getProperty(Constants.Property.__structuredDataIndex.name());
-
-            return idxA - idxB;
-        };
-
-        for (Vertex v : new HawkularPipeline<>(root).out(contains).order(orderFn)) {
-            String key = v.getProperty(Constants.Property.__structuredDataKey.name()).toString();
-
-            String type = v.getProperty(Constants.Property.__structuredDataType.name());
-
-            switch (StructuredData.Type.valueOf(type)) {
-                case bool:
-                    bld.putBool(key, v.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case integral:
-                    bld.putIntegral(key, v.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case floatingPoint:
-                    bld.putFloatingPoint(key, v.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case undefined:
-                    bld.putUndefined(key);
-                    break;
-                case string:
-                    bld.putString(key, v.getProperty(Constants.Property.__structuredDataValue.name()));
-                    break;
-                case list:
-                    StructuredData.InnerListBuilder<?> lst = bld.putList(key);
-                    loadStructuredDataList(v, lst);
-                    lst.closeList();
-                    break;
-                case map:
-                    StructuredData.InnerMapBuilder<?> mp = bld.putMap(key);
-                    loadStructuredDataMap(v, mp);
-                    mp.closeMap();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unknown structured data type stored in db: " + type);
-            }
+                return StructuredDataLoader.loadPrimitive(root, type);
         }
     }
 
@@ -1166,4 +1427,122 @@ final class TinkerpopBackend implements InventoryBackend<Element> {
             this.second = second;
         }
     }
+
+    /**
+     * Remembers the types and the canonical paths converted during the conversion of the results of a single query.
+     * The results of a query typically share a handful of types (e.g. a page of resources of the same resource type)
+     * and relationship endpoints, so there is no need to convert them for each element again.
+     *
+     * <p>If the page context of the query {@link PageContext#getFields() restricts the fields} to load, the context
+     * also remembers what exactly needs to be loaded.
+     *
+     * <p>The context lives as long as the results of the query, which might not be paged at all. Only the most
+     * recently used {@link #MAX_REMEMBERED_CONVERSIONS} types and paths are therefore remembered, so that the memory
+     * held by the context doesn't grow with the number of results.
+     *
+     * <p>This is only ever used by a single thread at a time, because the results of the queries are not iterated
+     * over concurrently.
+     */
+    private final class ConversionContext {
+        private final Map<Object, Object> types = lruMap();
+        private final Map<String, CanonicalPath> paths = lruMap();
+        private final boolean projecting;
+        private final boolean loadType;
+        private final boolean loadValue;
+        private final boolean loadAllProperties;
+        private final Set<String> properties;
+
+        ConversionContext(PageContext pageContext) {
+            Set<String> fields = pageContext == null ? null : pageContext.getFields();
+            projecting = fields != null;
+            loadType = !projecting || fields.contains("type");
+            loadValue = !projecting || fields.contains("value");
+            loadAllProperties = !projecting || fields.contains("properties");
+
+            if (loadAllProperties) {
+                properties = Collections.emptySet();
+            } else {
+                properties = new HashSet<>();
+                for (String f : fields) {
+                    if (f.startsWith("properties.")) {
+                        properties.add(f.substring("properties.".length()));
+                    }
+                }
+
+                //the results might need to be sorted after the conversion, so we need the properties to sort by
+                pageContext.getOrder().stream().filter(Order::isSpecific).forEach(o -> properties.add(o.getField()));
+            }
+        }
+
+        boolean isProjecting() {
+            return projecting;
+        }
+
+        boolean loadsType() {
+            return loadType;
+        }
+
+        boolean loadsValue() {
+            return loadValue;
+        }
+
+        boolean loadsAllProperties() {
+            return loadAllProperties;
+        }
+
+        Set<String> getProperties() {
+            return properties;
+        }
+
+        /**
+         * Applies the conversion function with this context installed as the current conversion context of the
+         * thread.
+         */
+        <T> T apply(Function<Element, T> conversion, Element element) {
+            ConversionContext previous = CURRENT_CONVERSION.get();
+            CURRENT_CONVERSION.set(this);
+            try {
+                return conversion.apply(element);
+            } finally {
+                if (previous == null) {
+                    CURRENT_CONVERSION.remove();
+                } else {
+                    CURRENT_CONVERSION.set(previous);
+                }
+            }
+        }
+
+        boolean isOf(TinkerpopBackend backend) {
+            return TinkerpopBackend.this == backend;
+        }
+
+        <T> T type(Vertex typeVertex, Class<T> typeClass) {
+            Object type = types.get(typeVertex.getId());
+            if (type == null) {
+                type = convert(typeVertex, typeClass, this, false);
+                types.put(typeVertex.getId(), type);
+            }
+
+            return typeClass.cast(type);
+        }
+
+        CanonicalPath canonicalPath(Element element) {
+            String cp = element.getProperty(__cp.name());
+            if (cp == null) {
+                //let the default impl report the error
+                return extractCanonicalPath(element);
+            }
+
+            return paths.computeIfAbsent(cp, CanonicalPath::fromString);
+        }
+
+        private <K, V> Map<K, V> lruMap() {
+            return new LinkedHashMap<K, V>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > MAX_REMEMBERED_CONVERSIONS;
+                }
+            };
+        }
+    }
 }
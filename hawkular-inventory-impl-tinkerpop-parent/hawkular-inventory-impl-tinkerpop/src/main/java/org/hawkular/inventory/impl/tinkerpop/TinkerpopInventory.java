@@ -16,7 +16,13 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
+import static org.hawkular.inventory.api.Relationships.WellKnown.incorporates;
+
+import java.util.HashSet;
 import java.util.ServiceLoader;
+import java.util.Set;
 
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.base.BaseInventory;
@@ -24,6 +30,7 @@ import org.hawkular.inventory.base.spi.InventoryBackend;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
 
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.TransactionalGraph;
@@ -38,6 +45,29 @@ public final class TinkerpopInventory extends BaseInventory<Element> {
             .withPropertyNameAndSystemProperty("hawkular.inventory.tinkerpop.graph-provider-impl")
             .withEnvironmentVariables("HAWKULAR_INVENTORY_TINKERPOP_GRAPH_PROVIDER_IMPL").build();
 
+    /**
+     * The maximum number of canonical paths whose elements are remembered by the backend. Set to 0 to disable the
+     * caching.
+     */
+    public static final Configuration.Property ELEMENT_CACHE_SIZE = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.tinkerpop.element-cache-size")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_TINKERPOP_ELEMENT_CACHE_SIZE").build();
+
+    /**
+     * Comma-separated list of the names of data roles (e.g. "configuration") whose data is stored in a compact form in
+     * a single vertex instead of a vertex per each value. This considerably reduces the size of the graph and speeds
+     * up loading of the data but the contents of such data can no longer be searched for using the
+     * {@link org.hawkular.inventory.api.filters.With#dataAt(org.hawkular.inventory.api.model.RelativePath)},
+     * {@link org.hawkular.inventory.api.filters.With#dataValue(java.io.Serializable)} and
+     * {@link org.hawkular.inventory.api.filters.With#dataOfTypes(
+     * org.hawkular.inventory.api.model.StructuredData.Type...)} filters. By default, no role is stored compactly.
+     */
+    public static final Configuration.Property COMPACT_DATA_ROLES = Configuration.Property.builder()
+            .withPropertyNameAndSystemProperty("hawkular.inventory.tinkerpop.compact-data-roles")
+            .withEnvironmentVariables("HAWKULAR_INVENTORY_TINKERPOP_COMPACT_DATA_ROLES").build();
+
+    private ElementCache elementCache;
+
     @Override
     protected InventoryBackend<Element> doInitialize(Configuration configuration) {
         InventoryContext<?> context = loadGraph(configuration);
@@ -52,7 +82,25 @@ public final class TinkerpopInventory extends BaseInventory<Element> {
 
         T g = ensureIndices(gp, configuration);
 
-        return new InventoryContext<>(this, g, gp);
+        elementCache = new ElementCache(Integer.parseInt(configuration.getProperty(ELEMENT_CACHE_SIZE, "10000")));
+
+        Set<String> compactDataRoles = new HashSet<>();
+        for (String role : configuration.getProperty(COMPACT_DATA_ROLES, "").split(",")) {
+            role = role.trim();
+            if (!role.isEmpty()) {
+                compactDataRoles.add(role);
+            }
+        }
+
+        return new InventoryContext<>(this, g, gp, elementCache, compactDataRoles, configuration.getMetrics());
+    }
+
+    /**
+     * @return the cache of the elements resolved by their canonical paths or null if the inventory has not been
+     * initialized yet
+     */
+    public ElementCache getElementCache() {
+        return elementCache;
     }
 
     private <T extends TransactionalGraph> T ensureIndices(GraphProvider<T> graphProvider, Configuration config) {
@@ -65,8 +113,6 @@ public final class TinkerpopInventory extends BaseInventory<Element> {
                                 .withName(Constants.Property.__cp.name())
                                 .withType(String.class)
                                 .withUnique(true)
-                                        // this breaks the resource-metric association in REST (not sure why)
-//                                .withLabelIndex(Relationships.WellKnown.contains.name())
                                 .build())
                         .withUnique(true)
                         .build(),
@@ -153,6 +199,65 @@ public final class TinkerpopInventory extends BaseInventory<Element> {
                         .build(),
                 IndexSpec.builder()
                         .withElementType(Edge.class)
+                        .withProperty(IndexSpec.Property.builder()
+                                .withName(Constants.Property.__targetType.name())
+                                .withType(String.class)
+                                .build())
+                        .build(),
+                //the outgoing relationships of a given entity restricted to the most common labels, so that looking
+                //for e.g. the children of an entity doesn't need to filter out all its other relationships
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withLabel(contains.name())
+                        .withProperty(IndexSpec.Property.builder()
+                                .withName(Constants.Property.__sourceCp.name())
+                                .withType(String.class)
+                                .build())
+                        .build(),
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withLabel(defines.name())
+                        .withProperty(IndexSpec.Property.builder()
+                                .withName(Constants.Property.__sourceCp.name())
+                                .withType(String.class)
+                                .build())
+                        .build(),
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withLabel(incorporates.name())
+                        .withProperty(IndexSpec.Property.builder()
+                                .withName(Constants.Property.__sourceCp.name())
+                                .withType(String.class)
+                                .build())
+                        .build(),
+                //the feeds and environments contain many entities, most of which are resources and metrics. These
+                //avoid scanning all the contained entities when looking for entities of certain type or id.
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withLabel(contains.name())
+                        .withVertexCentric(true)
+                        .withDirection(Direction.OUT)
+                        .withProperty(IndexSpec.Property.builder()
+                                .withName(Constants.Property.__targetType.name())
+                                .withType(String.class)
+                                .build())
+                        .build(),
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withLabel(contains.name())
+                        .withVertexCentric(true)
+                        .withDirection(Direction.OUT)
+                        .withProperty(IndexSpec.Property.builder()
+                                .withName(Constants.Property.__targetEid.name())
+                                .withType(String.class)
+                                .build())
+                        .build(),
+                //metric types and resource types define many metrics and resources
+                IndexSpec.builder()
+                        .withElementType(Edge.class)
+                        .withLabel(defines.name())
+                        .withVertexCentric(true)
+                        .withDirection(Direction.OUT)
                         .withProperty(IndexSpec.Property.builder()
                                 .withName(Constants.Property.__targetType.name())
                                 .withType(String.class)
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.tinkerpop.pipes.AbstractPipe;
+import com.tinkerpop.pipes.util.FastNoSuchElementException;
+import com.tinkerpop.pipes.util.PipeHelper;
+
+/**
+ * Emits the first n elements of its input in the order prescribed by the comparator.
+ *
+ * <p>Unlike the {@code order()} step, which needs to hold on to the whole input, this pipe only keeps the n smallest
+ * elements seen so far in a bounded heap. The input is always fully drained so that any counters installed before
+ * this pipe still see all the elements.
+ *
+ * <p>The ordering is stable, i.e. the elements that compare equal are emitted in the order they were received.
+ *
+ * @since 0.7.0
+ */
+class TopNPipe<S> extends AbstractPipe<S, S> {
+    private final int n;
+    private final Comparator<S> comparator;
+    private Iterator<S> results;
+
+    public TopNPipe(int n, Comparator<S> comparator) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Not a legal n: [" + n + "]");
+        }
+        this.n = n;
+        this.comparator = comparator;
+    }
+
+    protected S processNextStart() {
+        if (results == null) {
+            results = collect();
+        }
+
+        if (!results.hasNext()) {
+            throw FastNoSuchElementException.instance();
+        }
+
+        return results.next();
+    }
+
+    private Iterator<S> collect() {
+        //the head of the heap is the "greatest" of the elements kept, so that it is the first to go when a smaller
+        //element comes in
+        Comparator<Entry<S>> entryOrder = (a, b) -> {
+            int ret = comparator.compare(a.element, b.element);
+            return ret != 0 ? ret : Long.compare(a.sequence, b.sequence);
+        };
+
+        PriorityQueue<Entry<S>> heap = new PriorityQueue<>(Math.max(1, Math.min(n, 1024)), entryOrder.reversed());
+
+        long sequence = 0;
+        try {
+            while (true) {
+                S s = this.starts.next();
+                if (n == 0) {
+                    continue;
+                }
+
+                Entry<S> e = new Entry<>(s, sequence++);
+                if (heap.size() < n) {
+                    heap.add(e);
+                } else if (entryOrder.compare(e, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(e);
+                }
+            }
+        } catch (NoSuchElementException ignored) {
+            //the input is exhausted
+        }
+
+        List<S> ret = new ArrayList<>(heap.size());
+        heap.stream().sorted(entryOrder).forEachOrdered(e -> ret.add(e.element));
+
+        return ret.iterator();
+    }
+
+    public String toString() {
+        return PipeHelper.makePipeString(this, this.n);
+    }
+
+    public void reset() {
+        this.results = null;
+        super.reset();
+    }
+
+    public int getN() {
+        return this.n;
+    }
+
+    private static final class Entry<S> {
+        final S element;
+        final long sequence;
+
+        Entry(S element, long sequence) {
+            this.element = element;
+            this.sequence = sequence;
+        }
+    }
+}
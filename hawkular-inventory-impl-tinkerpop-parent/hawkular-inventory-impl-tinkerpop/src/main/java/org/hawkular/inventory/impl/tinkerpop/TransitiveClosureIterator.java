@@ -0,0 +1,239 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__type;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.hawkular.inventory.api.TransitiveClosure;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+
+/**
+ * Evaluates a transitive closure breadth-first, on demand.
+ *
+ * <p>Each vertex is visited at most once, which guarantees termination on cyclic graphs and that the results don't
+ * contain duplicates. The starting vertex is never returned. The vertices of the types not requested by the closure
+ * and the vertices not defined by the requested definer are traversed but not returned.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+final class TransitiveClosureIterator implements Iterator<Element> {
+    private final Direction direction;
+    private final String[] relationshipNames;
+    private final int maxDepth;
+    private final Set<String> types;
+    private final Vertex definer;
+
+    private final VisitedSet visited = new VisitedSet();
+    private final Deque<Vertex> currentLevel = new ArrayDeque<>();
+    private final Deque<Vertex> nextLevel = new ArrayDeque<>();
+    private Iterator<Vertex> neighbors;
+    private int depth;
+    private Vertex next;
+
+    /**
+     * @param startingPoint the vertex to start the traversal at
+     * @param closure       the closure to evaluate
+     * @param definer       the vertex of the {@link TransitiveClosure#getDefinedBy() defining entity} or null if the
+     *                      closure is not filtered by the definition
+     */
+    TransitiveClosureIterator(Vertex startingPoint, TransitiveClosure closure, Vertex definer) {
+        this.direction = TinkerpopBackend.toNative(closure.getDirection());
+        this.relationshipNames = closure.getRelationshipNames();
+        this.maxDepth = closure.getMaxDepth();
+        this.definer = definer;
+
+        if (closure.getTypes().length == 0) {
+            this.types = null;
+        } else {
+            //supports also the supertypes like Entity
+            this.types = new HashSet<>();
+            for (Constants.Type t : Constants.Type.values()) {
+                for (Class<?> requested : closure.getTypes()) {
+                    if (requested.isAssignableFrom(t.getEntityType())) {
+                        this.types.add(t.name());
+                    }
+                }
+            }
+        }
+
+        visited.add(startingPoint.getId());
+        if (maxDepth != 0) {
+            currentLevel.add(startingPoint);
+        }
+        depth = 1;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            Vertex v = nextVertex();
+            if (v == null) {
+                return false;
+            }
+
+            if ((types == null || types.contains(v.<String>getProperty(__type.name()))) && isDefinedByDefiner(v)) {
+                next = v;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public Element next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Vertex ret = next;
+        next = null;
+        return ret;
+    }
+
+    private boolean isDefinedByDefiner(Vertex v) {
+        if (definer == null) {
+            return true;
+        }
+
+        //an entity is defined by at most a single other entity, so this is cheap
+        for (Vertex d : v.getVertices(Direction.IN, defines.name())) {
+            if (d.getId().equals(definer.getId())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Vertex nextVertex() {
+        while (true) {
+            if (neighbors != null) {
+                while (neighbors.hasNext()) {
+                    Vertex v = neighbors.next();
+                    if (visited.add(v.getId())) {
+                        nextLevel.add(v);
+                        return v;
+                    }
+                }
+                neighbors = null;
+            }
+
+            if (currentLevel.isEmpty()) {
+                if (nextLevel.isEmpty() || (maxDepth >= 0 && depth >= maxDepth)) {
+                    return null;
+                }
+
+                currentLevel.addAll(nextLevel);
+                nextLevel.clear();
+                depth++;
+            }
+
+            neighbors = currentLevel.poll().getVertices(direction, relationshipNames).iterator();
+        }
+    }
+
+    /**
+     * A set of the ids of the visited vertices. The numeric ids (as used by Titan) are kept in an open-addressing
+     * hash set of primitive longs to avoid boxing and the per-entry overhead of {@link HashSet}, other ids are kept in
+     * an ordinary hash set.
+     */
+    static final class VisitedSet {
+        private static final long FREE = 0;
+
+        private long[] ids = new long[64];
+        private int size;
+        private boolean containsFree;
+        private Set<Object> others;
+
+        /**
+         * @param id the id to add
+         * @return true if the id has not been in the set yet, false otherwise
+         */
+        boolean add(Object id) {
+            if (id instanceof Long || id instanceof Integer || id instanceof Short || id instanceof Byte) {
+                return add(((Number) id).longValue());
+            }
+
+            if (others == null) {
+                others = new HashSet<>();
+            }
+
+            return others.add(id);
+        }
+
+        boolean add(long id) {
+            if (id == FREE) {
+                boolean ret = !containsFree;
+                containsFree = true;
+                return ret;
+            }
+
+            if ((size + 1) * 2 > ids.length) {
+                rehash();
+            }
+
+            if (insert(ids, id)) {
+                size++;
+                return true;
+            }
+
+            return false;
+        }
+
+        private static boolean insert(long[] table, long id) {
+            int mask = table.length - 1;
+            int i = mix(id) & mask;
+            while (true) {
+                long current = table[i];
+                if (current == FREE) {
+                    table[i] = id;
+                    return true;
+                } else if (current == id) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private void rehash() {
+            long[] newIds = new long[ids.length * 2];
+            for (long id : ids) {
+                if (id != FREE) {
+                    insert(newIds, id);
+                }
+            }
+            ids = newIds;
+        }
+
+        private static int mix(long id) {
+            long h = id * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.model.StructuredData;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class StructuredDataCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 70000; ++i) {
+            longString.append((char) ('a' + i % 26));
+        }
+
+        StructuredData data = StructuredData.get().map()
+                .putBool("bool", true)
+                .putIntegral("integral", Long.MIN_VALUE)
+                .putFloatingPoint("floatingPoint", 3.14)
+                .putString("string", "příliš žluťoučký kůň")
+                .putString("long", longString.toString())
+                .putUndefined("undefined")
+                .putList("list")
+                /**/.addIntegral(1)
+                /**/.addMap().putString("a", "b").putList("empty").closeList().closeMap()
+                /**/.addList().addUndefined().closeList()
+                /**/.closeList()
+                .putMap("map")
+                /**/.putMap("nested").putFloatingPoint("x", -1).closeMap()
+                /**/.closeMap()
+                .build();
+
+        Assert.assertEquals(data, StructuredDataCodec.decode(StructuredDataCodec.encode(data)));
+    }
+
+    @Test
+    public void testPrimitivesRoundTrip() throws Exception {
+        StructuredData[] values = {StructuredData.get().undefined(), StructuredData.get().bool(false),
+                StructuredData.get().integral(42L), StructuredData.get().floatingPoint(1.5),
+                StructuredData.get().string(""), StructuredData.get().list().build(),
+                StructuredData.get().map().build()};
+
+        for (StructuredData value : values) {
+            Assert.assertEquals(value, StructuredDataCodec.decode(StructuredDataCodec.encode(value)));
+        }
+    }
+}
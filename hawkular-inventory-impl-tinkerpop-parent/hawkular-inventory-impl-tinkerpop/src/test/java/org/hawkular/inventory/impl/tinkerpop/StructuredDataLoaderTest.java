@@ -0,0 +1,264 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataIndex;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataKey;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataType;
+import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.__structuredDataValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.hawkular.inventory.api.model.StructuredData;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class StructuredDataLoaderTest {
+
+    //deep enough to overflow the call stack of the default size when loaded recursively
+    private static final int DEPTH = 50_000;
+
+    private static final int WIDTH = 20_000;
+
+    private final Graph graph = new TinkerGraph();
+
+    @Test
+    public void testDeepData() throws Exception {
+        Vertex root = vertex(StructuredData.Type.map, null, null, null);
+        Vertex parent = root;
+        for (int i = 0; i < DEPTH; ++i) {
+            StructuredData.Type type = i % 2 == 0 ? StructuredData.Type.list : StructuredData.Type.map;
+            Vertex child = vertex(type, null, "key-" + i, 0);
+            parent.addEdge(contains.name(), child);
+            parent = child;
+        }
+        parent.addEdge(contains.name(), vertex(StructuredData.Type.string, "leaf", "leaf", 0));
+
+        StructuredData data = StructuredDataLoader.load(root);
+
+        StructuredData current = data;
+        for (int i = 0; i < DEPTH; ++i) {
+            StructuredData child = current.getType() == StructuredData.Type.map
+                    ? current.map().get("key-" + i) : current.list().get(0);
+            Assert.assertNotNull("Missing data on level " + i, child);
+            current = child;
+        }
+        Assert.assertEquals(StructuredData.get().string("leaf"), current.map().get("leaf"));
+
+        //the reference implementation and the comparison of the results both need a deep stack
+        Assert.assertTrue(withDeepStack(() -> loadRecursively(root).equals(data)));
+    }
+
+    @Test
+    public void testWideMap() throws Exception {
+        List<Integer> order = shuffledIndices();
+
+        Vertex root = vertex(StructuredData.Type.map, null, null, null);
+        for (int i : order) {
+            root.addEdge(contains.name(), primitive(i, "key-" + i));
+        }
+
+        StructuredData data = StructuredDataLoader.load(root);
+
+        Assert.assertEquals(WIDTH, data.map().size());
+        List<String> keys = new ArrayList<>(data.map().keySet());
+        for (int i = 0; i < WIDTH; ++i) {
+            Assert.assertEquals("key-" + i, keys.get(i));
+        }
+        Assert.assertEquals(loadRecursively(root), data);
+    }
+
+    @Test
+    public void testWideList() throws Exception {
+        List<Integer> order = shuffledIndices();
+
+        Vertex root = vertex(StructuredData.Type.list, null, null, null);
+        for (int i : order) {
+            Vertex child = i % 100 == 0 ? vertex(StructuredData.Type.list, null, null, i) : primitive(i, null);
+            root.addEdge(contains.name(), child);
+            if (i % 100 == 0) {
+                child.addEdge(contains.name(), primitive(1, null));
+                child.addEdge(contains.name(), primitive(0, null));
+            }
+        }
+
+        StructuredData data = StructuredDataLoader.load(root);
+
+        Assert.assertEquals(WIDTH, data.list().size());
+        Assert.assertEquals(StructuredData.get().list().addBool(true).addIntegral(1).build(), data.list().get(0));
+        Assert.assertEquals(StructuredData.get().integral(1L), data.list().get(1));
+        Assert.assertEquals(loadRecursively(root), data);
+    }
+
+    private List<Integer> shuffledIndices() {
+        List<Integer> ret = new ArrayList<>(WIDTH);
+        for (int i = 0; i < WIDTH; ++i) {
+            ret.add(i);
+        }
+        Collections.shuffle(ret, new Random(42));
+        return ret;
+    }
+
+    /**
+     * Creates a primitive value of a type derived from the index so that all the primitive types are covered.
+     */
+    private Vertex primitive(int index, String key) {
+        switch (index % 5) {
+            case 0:
+                return vertex(StructuredData.Type.bool, true, key, index);
+            case 1:
+                return vertex(StructuredData.Type.integral, (long) index, key, index);
+            case 2:
+                return vertex(StructuredData.Type.floatingPoint, index / 2d, key, index);
+            case 3:
+                return vertex(StructuredData.Type.string, "value-" + index, key, index);
+            default:
+                return vertex(StructuredData.Type.undefined, null, key, index);
+        }
+    }
+
+    private Vertex vertex(StructuredData.Type type, Object value, String key, Integer index) {
+        Vertex v = graph.addVertex(null);
+        v.setProperty(__structuredDataType.name(), type.name());
+        if (value != null) {
+            v.setProperty(__structuredDataValue.name(), value);
+        }
+        if (key != null) {
+            v.setProperty(__structuredDataKey.name(), key);
+        }
+        if (index != null) {
+            v.setProperty(__structuredDataIndex.name(), index);
+        }
+        return v;
+    }
+
+    private static <T> T withDeepStack(Callable<T> action) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread t = new Thread(null, () -> {
+            try {
+                result.set(action.call());
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        }, "deep-stack", 1L << 30);
+
+        t.start();
+        t.join();
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        return result.get();
+    }
+
+    /**
+     * The straightforward recursive loading the results of {@link StructuredDataLoader} are checked against.
+     */
+    private static StructuredData loadRecursively(Vertex v) {
+        StructuredData.Type type = StructuredDataLoader.typeOf(v);
+        switch (type) {
+            case list:
+                StructuredData.ListBuilder list = StructuredData.get().list();
+                childrenByIndex(v).forEach(c -> loadRecursively(c, list, null));
+                return list.build();
+            case map:
+                StructuredData.MapBuilder map = StructuredData.get().map();
+                childrenByIndex(v).forEach(c -> loadRecursively(c, null, map));
+                return map.build();
+            default:
+                return StructuredDataLoader.loadPrimitive(v, type);
+        }
+    }
+
+    private static void loadRecursively(Vertex v, StructuredData.AbstractListBuilder<?> list,
+                                        StructuredData.AbstractMapBuilder<?> map) {
+        StructuredData.Type type = StructuredDataLoader.typeOf(v);
+        String key = v.getProperty(__structuredDataKey.name());
+        switch (type) {
+            case list:
+                StructuredData.InnerListBuilder<?> lst = list == null ? map.putList(key) : list.addList();
+                childrenByIndex(v).forEach(c -> loadRecursively(c, lst, null));
+                lst.closeList();
+                break;
+            case map:
+                StructuredData.InnerMapBuilder<?> mp = list == null ? map.putMap(key) : list.addMap();
+                childrenByIndex(v).forEach(c -> loadRecursively(c, null, mp));
+                mp.closeMap();
+                break;
+            case bool:
+                if (list == null) {
+                    map.putBool(key, v.getProperty(__structuredDataValue.name()));
+                } else {
+                    list.addBool(v.getProperty(__structuredDataValue.name()));
+                }
+                break;
+            case integral:
+                if (list == null) {
+                    map.putIntegral(key, v.getProperty(__structuredDataValue.name()));
+                } else {
+                    list.addIntegral(v.getProperty(__structuredDataValue.name()));
+                }
+                break;
+            case floatingPoint:
+                if (list == null) {
+                    map.putFloatingPoint(key, v.getProperty(__structuredDataValue.name()));
+                } else {
+                    list.addFloatingPoint(v.getProperty(__structuredDataValue.name()));
+                }
+                break;
+            case string:
+                if (list == null) {
+                    map.putString(key, v.getProperty(__structuredDataValue.name()));
+                } else {
+                    list.addString(v.getProperty(__structuredDataValue.name()));
+                }
+                break;
+            default:
+                if (list == null) {
+                    map.putUndefined(key);
+                } else {
+                    list.addUndefined();
+                }
+        }
+    }
+
+    private static List<Vertex> childrenByIndex(Vertex v) {
+        List<Vertex> ret = new ArrayList<>();
+        v.getVertices(Direction.OUT, contains.name()).forEach(ret::add);
+        ret.sort((a, b) -> Integer.compare(a.<Integer>getProperty(__structuredDataIndex.name()),
+                b.<Integer>getProperty(__structuredDataIndex.name())));
+        return ret;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class TopNPipeTest {
+
+    private static final Comparator<Item> BY_A = Comparator.comparing(i -> i.a);
+    private static final Comparator<Item> BY_A_THEN_B = BY_A.thenComparing(i -> i.b, Comparator.reverseOrder());
+
+    @Test
+    public void testZero() throws Exception {
+        List<Item> input = items(100, 10, 10);
+
+        TopNPipe<Item> pipe = new TopNPipe<>(0, BY_A);
+        pipe.setStarts(input.iterator());
+
+        Assert.assertFalse(pipe.hasNext());
+    }
+
+    @Test
+    public void testNegativeN() throws Exception {
+        try {
+            new TopNPipe<>(-1, BY_A);
+            Assert.fail("Negative n should not be allowed.");
+        } catch (IllegalArgumentException e) {
+            //good
+        }
+    }
+
+    @Test
+    public void testNLargerThanInput() throws Exception {
+        List<Item> input = items(100, 1000, 10);
+
+        Assert.assertEquals(fullSort(input, BY_A, 100), topN(input, BY_A, 1000));
+        Assert.assertEquals(new ArrayList<>(), topN(new ArrayList<>(), BY_A, 10));
+    }
+
+    @Test
+    public void testTiesKeepInputOrder() throws Exception {
+        //only a few distinct values so that there are many ties
+        List<Item> input = items(10_000, 5, 5);
+
+        for (int n : new int[]{1, 7, 100, 5_000, 9_999, 10_000}) {
+            Assert.assertEquals("n = " + n, fullSort(input, BY_A, n), topN(input, BY_A, n));
+        }
+    }
+
+    @Test
+    public void testOrderingOnMoreFields() throws Exception {
+        List<Item> input = items(10_000, 50, 50);
+
+        for (int n : new int[]{1, 10, 1_000, 10_000}) {
+            Assert.assertEquals("n = " + n, fullSort(input, BY_A_THEN_B, n), topN(input, BY_A_THEN_B, n));
+        }
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        List<Item> input = items(1000, 100, 100);
+
+        TopNPipe<Item> pipe = new TopNPipe<>(10, BY_A);
+        pipe.setStarts(input.iterator());
+        pipe.next();
+
+        pipe.reset();
+        pipe.setStarts(input.iterator());
+
+        List<Item> results = new ArrayList<>();
+        pipe.forEachRemaining(results::add);
+
+        Assert.assertEquals(fullSort(input, BY_A, 10), results);
+    }
+
+    private static List<Item> topN(List<Item> input, Comparator<Item> comparator, int n) {
+        TopNPipe<Item> pipe = new TopNPipe<>(n, comparator);
+        pipe.setStarts(input.iterator());
+
+        List<Item> ret = new ArrayList<>();
+        pipe.forEachRemaining(ret::add);
+        return ret;
+    }
+
+    /**
+     * The reference the pipe is checked against - {@link List#sort(Comparator)} is stable.
+     */
+    private static List<Item> fullSort(List<Item> input, Comparator<Item> comparator, int n) {
+        List<Item> sorted = new ArrayList<>(input);
+        sorted.sort(comparator);
+        return sorted.subList(0, Math.min(n, sorted.size()));
+    }
+
+    private static List<Item> items(int count, int distinctAs, int distinctBs) {
+        Random rnd = new Random(42);
+        List<Item> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; ++i) {
+            ret.add(new Item(i, rnd.nextInt(distinctAs), rnd.nextInt(distinctBs)));
+        }
+        return ret;
+    }
+
+    private static final class Item {
+        final int id;
+        final int a;
+        final int b;
+
+        Item(int id, int a, int b) {
+            this.id = id;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        public String toString() {
+            return "Item[id=" + id + ", a=" + a + ", b=" + b + "]";
+        }
+    }
+}
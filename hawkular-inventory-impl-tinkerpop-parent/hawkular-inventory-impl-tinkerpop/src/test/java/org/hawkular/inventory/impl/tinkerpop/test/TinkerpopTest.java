@@ -16,6 +16,9 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.test;
 
+import static org.hawkular.inventory.api.Relationships.Direction.incoming;
+
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -23,12 +26,43 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.Data;
+import org.hawkular.inventory.api.Environments;
+import org.hawkular.inventory.api.InventoryMetrics;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.feeds.AcceptWithFallbackFeedIdStrategy;
+import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
+import org.hawkular.inventory.api.instrumentation.CollectingInventoryMetrics;
+import org.hawkular.inventory.api.instrumentation.SlowQueryLog;
+import org.hawkular.inventory.api.model.CanonicalPath;
+import org.hawkular.inventory.api.model.DataEntity;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.api.model.RelativePath;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.StructuredData;
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.api.test.AbstractBaseInventoryPersistenceCheck;
 import org.hawkular.inventory.base.BaseInventory;
+import org.hawkular.inventory.base.spi.ElementNotFoundException;
+import org.hawkular.inventory.impl.tinkerpop.ElementCache;
 import org.hawkular.inventory.impl.tinkerpop.TinkerpopInventory;
+import org.junit.Assert;
+import org.junit.Test;
 
+import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
 
 /**
  * @author Lukas Krejci
@@ -62,4 +96,219 @@ public class TinkerpopTest extends AbstractBaseInventoryPersistenceCheck<Element
             }
         });
     }
+
+    @Test
+    public void testElementCacheResolvesRepeatedLookups() throws Exception {
+        ElementCache cache = ((TinkerpopInventory) inventory).getElementCache();
+        CanonicalPath cp = CanonicalPath.of().tenant("com.acme.tenant").environment("production").get();
+
+        Element first = inventory.getBackend().find(cp);
+        long hits = cache.getHitCount();
+
+        Assert.assertEquals(first, inventory.getBackend().find(cp));
+        Assert.assertEquals(hits + 1, cache.getHitCount());
+    }
+
+    @Test
+    public void testElementCacheInvalidatedOnDelete() throws Exception {
+        inventory.tenants().get("com.acme.tenant").environments().create(new Environment.Blueprint("cached"));
+        CanonicalPath cp = CanonicalPath.of().tenant("com.acme.tenant").environment("cached").get();
+
+        ElementCache cache = ((TinkerpopInventory) inventory).getElementCache();
+        Assert.assertTrue(cache.getMaxSize() > 0);
+
+        inventory.getBackend().find(cp);
+        long hits = cache.getHitCount();
+        inventory.getBackend().find(cp);
+        Assert.assertEquals("The element should be cached.", hits + 1, cache.getHitCount());
+
+        inventory.tenants().get("com.acme.tenant").environments().delete("cached");
+
+        long misses = cache.getMissCount();
+        long evictions = cache.getEvictionCount();
+
+        try {
+            inventory.getBackend().find(cp);
+            Assert.fail("Deleted element should not be found using the element cache.");
+        } catch (ElementNotFoundException e) {
+            //good
+        }
+
+        //if the entry survived the delete, the lookup would have found it stale and evicted it
+        Assert.assertEquals(misses + 1, cache.getMissCount());
+        Assert.assertEquals("The entry should have been removed from the cache on delete.", evictions,
+                cache.getEvictionCount());
+    }
+
+    @Test
+    public void testResultsOfQueryShareConvertedTypes() throws Exception {
+        Environments.Single env = inventory.tenants().get("com.acme.tenant").environments()
+                .create(new Environment.Blueprint("conversion"));
+        try {
+            Resources.ReadWrite resources = env.feedlessResources();
+            resources.create(new Resource.Blueprint("r1", "/URL"));
+            resources.create(new Resource.Blueprint("r2", "/URL"));
+
+            List<Resource> all = resources.getAll().entities(Pager.unlimited(Order.unspecified())).toList();
+
+            Assert.assertEquals(2, all.size());
+            Assert.assertEquals("URL", all.get(0).getType().getId());
+            Assert.assertSame(all.get(0).getType(), all.get(1).getType());
+        } finally {
+            inventory.tenants().get("com.acme.tenant").environments().delete("conversion");
+        }
+    }
+
+    @Test
+    public void testRelationshipsWithMoreEndpointsThanRememberedByConversion() throws Exception {
+        Environments.Single env = inventory.tenants().get("com.acme.tenant").environments()
+                .create(new Environment.Blueprint("conversion"));
+        try {
+            Resources.ReadWrite resources = env.feedlessResources();
+            CanonicalPath target = resources.create(new Resource.Blueprint("target", "/URL")).entity().getPath();
+
+            //more distinct endpoints than the conversion of the query results remembers
+            int count = 1001;
+            List<Resource.Blueprint> blueprints = new ArrayList<>();
+            Set<CanonicalPath> sources = new HashSet<>();
+            for (int i = 0; i < count; ++i) {
+                blueprints.add(Resource.Blueprint.builder().withId("source-" + i).withResourceTypePath("/URL")
+                        .addOutgoingRelationship("converted", target).build());
+                sources.add(env.entity().getPath().extend(Resource.class, "source-" + i).get());
+            }
+            resources.createAll(blueprints, (b, e) -> {
+                throw e;
+            });
+
+            List<Relationship> rels = resources.get("target").relationships(incoming).named("converted")
+                    .entities(Pager.unlimited(Order.unspecified())).toList();
+
+            Assert.assertEquals(count, rels.size());
+            Assert.assertEquals(sources, rels.stream().map(Relationship::getSource).collect(Collectors.toSet()));
+            rels.forEach(r -> Assert.assertEquals(target, r.getTarget()));
+        } finally {
+            inventory.tenants().get("com.acme.tenant").environments().delete("conversion");
+        }
+    }
+
+    @Test
+    public void testCompactDataRoles() throws Exception {
+        reopenInventory("configuration");
+
+        Resources.Single res = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .feedlessResources().create(new Resource.Blueprint("compact", "/Playroom"));
+
+        StructuredData value = StructuredData.get().map()
+                .putString("name", "compact")
+                .putList("values").addIntegral(1).addMap().putBool("nested", true).closeMap().closeList()
+                .build();
+
+        Data.Single config = res.data().create(DataEntity.Blueprint.<Resources.DataRole>builder()
+                .withRole(Resources.DataRole.configuration).withValue(value).build());
+        Assert.assertTrue(isStoredCompactly(config));
+
+        Assert.assertEquals(value, config.entity().getValue());
+        Assert.assertEquals(value, config.data(RelativePath.empty().get()));
+        Assert.assertEquals(value.map().get("values").list().get(1),
+                config.data(RelativePath.to().structuredData().key("values").index(1).get()));
+        Assert.assertEquals(StructuredData.get().string("compact"),
+                config.flatData(RelativePath.to().structuredData().key("name").get()));
+        //noinspection AssertEqualsBetweenInconvertibleTypes
+        Assert.assertEquals(Collections.emptyMap(), config.flatData(RelativePath.empty().get()).getValue());
+        //noinspection AssertEqualsBetweenInconvertibleTypes
+        Assert.assertEquals(Collections.emptyList(),
+                config.flatData(RelativePath.to().structuredData().key("values").get()).getValue());
+
+        StructuredData updated = StructuredData.get().map().putString("name", "updated").build();
+        config.update(DataEntity.Update.builder().withValue(updated).build());
+
+        Assert.assertTrue(isStoredCompactly(config));
+        Assert.assertEquals(updated, config.entity().getValue());
+        Assert.assertEquals(StructuredData.get().string("updated"),
+                config.data(RelativePath.to().structuredData().key("name").get()));
+
+        //the roles not configured as compact are still stored as a tree of vertices
+        Data.Single connection = res.data().create(DataEntity.Blueprint.<Resources.DataRole>builder()
+                .withRole(Resources.DataRole.connectionConfiguration).withValue(value).build());
+        Assert.assertFalse(isStoredCompactly(connection));
+        Assert.assertEquals(value, connection.entity().getValue());
+    }
+
+    @Test
+    public void testSwitchingDataRoleBetweenCompactAndExpandedForm() throws Exception {
+        CanonicalPath cp = CanonicalPath.fromString("/t;com.example.tenant/e;test/r;playroom1/d;configuration");
+
+        Data.Single config = inventory.inspect(cp, Data.Single.class);
+        StructuredData original = config.entity().getValue();
+        Assert.assertFalse(isStoredCompactly(config));
+
+        //the data stored in the expanded form remain readable after the role is declared compact...
+        reopenInventory("configuration");
+        config = inventory.inspect(cp, Data.Single.class);
+        Assert.assertEquals(original, config.entity().getValue());
+        Assert.assertEquals(original.map().get("primitives").list().get(0),
+                config.data(RelativePath.to().structuredData().key("primitives").index(0).get()));
+
+        //...and are converted to the compact form on the next update
+        StructuredData modified = original.update().toMap().putString("switched", "compact").build();
+        config.update(DataEntity.Update.builder().withValue(modified).build());
+        Assert.assertTrue(isStoredCompactly(config));
+        Assert.assertEquals(modified, config.entity().getValue());
+
+        //going back works the same
+        reopenInventory("");
+        config = inventory.inspect(cp, Data.Single.class);
+        Assert.assertTrue(isStoredCompactly(config));
+        Assert.assertEquals(modified, config.entity().getValue());
+        Assert.assertEquals(original.map().get("primitives").list().get(0),
+                config.data(RelativePath.to().structuredData().key("primitives").index(0).get()));
+
+        config.update(DataEntity.Update.builder().withValue(original).build());
+        Assert.assertFalse(isStoredCompactly(config));
+        Assert.assertEquals(original, config.entity().getValue());
+        //noinspection AssertEqualsBetweenInconvertibleTypes
+        Assert.assertEquals(Collections.emptyList(),
+                config.flatData(RelativePath.to().structuredData().key("primitives").get()).getValue());
+    }
+
+    @Test
+    public void testSlowQueryLogRecordsProfiledSteps() throws Exception {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(0, 10);
+        reopenInventory("", new CollectingInventoryMetrics(slowQueryLog));
+
+        List<Environment> envs = inventory.tenants().get("com.acme.tenant").environments().getAll()
+                .entities(Pager.unlimited(Order.unspecified())).toList();
+        Assert.assertEquals(1, envs.size());
+
+        SlowQueryLog.Entry entry = slowQueryLog.getEntries().get(slowQueryLog.getEntries().size() - 1);
+        Assert.assertEquals(1, entry.getReturnedElements());
+        Assert.assertFalse(entry.getSteps().isEmpty());
+        //each step of the pipeline produced at least the one environment that ended up in the results
+        entry.getSteps().forEach(s -> Assert.assertTrue(s.toString(), s.getElements() >= 1));
+    }
+
+    private void reopenInventory(String compactDataRoles) throws Exception {
+        reopenInventory(compactDataRoles, null);
+    }
+
+    private void reopenInventory(String compactDataRoles, InventoryMetrics metrics) throws Exception {
+        inventory.close();
+
+        Properties ps = new Properties();
+        try (FileInputStream f = new FileInputStream(System.getProperty("graph.config"))) {
+            ps.load(f);
+        }
+        ps.setProperty(TinkerpopInventory.COMPACT_DATA_ROLES.getPropertyName(), compactDataRoles);
+
+        inventory = instantiateNewInventory();
+        inventory.initialize(Configuration.builder().withFeedIdStrategy(
+                new AcceptWithFallbackFeedIdStrategy(new RandomUUIDFeedIdStrategy()))
+                .withMetrics(metrics).withConfiguration(ps).build());
+    }
+
+    private boolean isStoredCompactly(Data.Single data) throws Exception {
+        Vertex dataEntity = (Vertex) inventory.getBackend().find(data.entity().getPath());
+        Vertex value = dataEntity.getVertices(Direction.OUT, "hasData").iterator().next();
+        return value.getProperty("__structuredDataBlob") != null;
+    }
 }
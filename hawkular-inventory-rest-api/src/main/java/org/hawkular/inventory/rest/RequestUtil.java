@@ -17,7 +17,9 @@
 package org.hawkular.inventory.rest;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriInfo;
@@ -42,9 +44,12 @@ public class RequestUtil {
         String perPageS = params.getFirst("per_page");
         List<String> sort = params.get("sort");
         List<String> order = params.get("order");
+        String totalS = params.getFirst("total");
+        List<String> fieldsParams = params.get("fields");
 
         int page = pageS == null ? 0 : Integer.parseInt(pageS);
         int perPage = perPageS == null ? PageContext.UNLIMITED_PAGE_SIZE : Integer.parseInt(perPageS);
+        boolean exactTotal = totalS == null || Boolean.parseBoolean(totalS);
 
         List<Order> ordering = new ArrayList<>();
 
@@ -62,6 +67,20 @@ public class RequestUtil {
             }
         }
 
-        return new Pager(page, perPage, ordering);
+        //the fields can be specified either as a comma-separated list or as repeated parameters (or both)
+        Set<String> fields = null;
+        if (fieldsParams != null) {
+            fields = new HashSet<>();
+            for (String fs : fieldsParams) {
+                for (String f : fs.split(",")) {
+                    f = f.trim();
+                    if (!f.isEmpty()) {
+                        fields.add(f);
+                    }
+                }
+            }
+        }
+
+        return new Pager(page, perPage, exactTotal, ordering, fields);
     }
 }
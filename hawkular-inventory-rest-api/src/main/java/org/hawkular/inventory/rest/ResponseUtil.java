@@ -18,27 +18,25 @@ package org.hawkular.inventory.rest;
 
 import static javax.ws.rs.core.Response.Status.CREATED;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.BufferedOutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Spliterator;
 import java.util.stream.StreamSupport;
 
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.PageContext;
-import org.hawkular.inventory.bus.Log;
+import org.hawkular.inventory.api.paging.SizeAwarePage;
 import org.hawkular.inventory.rest.json.Link;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SequenceWriter;
 
 /**
@@ -48,6 +46,13 @@ import com.fasterxml.jackson.databind.SequenceWriter;
  */
 final class ResponseUtil {
 
+    private static final int STREAMING_BUFFER_SIZE = 8192;
+
+    /**
+     * The maximum number of elements read from a streamed page before the response headers are created.
+     */
+    static final int STREAMING_LOOK_AHEAD = 1000;
+
     /**
      * This method exists solely to concentrate usage of {@link javax.ws.rs.core.Response#created(java.net.URI)} into
      * one place until <a href="https://issues.jboss.org/browse/RESTEASY-1162">this JIRA</a> is resolved somehow.
@@ -76,20 +81,32 @@ final class ResponseUtil {
                         (id) -> info.getRequestUriBuilder().segment(id).build()));
     }
 
+    /**
+     * Creates a response that serializes the page directly into the output stream of the response, as the elements
+     * are being read from the page. The page is closed once it is written out.
+     *
+     * <p>Because the headers need to be sent before the body, up to {@link #STREAMING_LOOK_AHEAD} elements are read
+     * from the page before the headers are created. If the page ends within that, which is always the case with
+     * the pages of a reasonable size, its total size is known and the paging headers are complete. Only the larger
+     * pages are streamed without the headers that depend on the total size. See
+     * {@link #createPagingHeader(Response.ResponseBuilder, UriInfo, Page)} for the details.
+     *
+     * @param response the response builder to set the entity and headers on
+     * @param uriInfo  the uri info of the current request
+     * @param mapper   the object mapper to serialize the elements with
+     * @param page     the page to stream out
+     * @param <T>      the type of the elements on the page
+     * @return the response builder
+     */
     public static <T> Response.ResponseBuilder pagedResponse(Response.ResponseBuilder response, UriInfo uriInfo,
                                                              ObjectMapper mapper, Page<T> page) {
-        InputStream data = null;
-        try {
-            //extract the data out of the page
-            data = pageToStream(page, mapper, () -> {
-                // the page iterator should be depleted by this time so the total size should be correctly set
-                response.type(MediaType.APPLICATION_OCTET_STREAM_TYPE);
-                createPagingHeader(response, uriInfo, page);
-            });
-        } catch (IOException e) {
-            Log.LOG.error(e);
+        List<T> head = new ArrayList<>();
+        while (head.size() < STREAMING_LOOK_AHEAD && page.hasNext()) {
+            head.add(page.next());
         }
-        response.entity(data);
+
+        createPagingHeader(response, uriInfo, page);
+        response.entity(pageToStream(head, page, mapper));
         return response;
     }
 
@@ -100,39 +117,33 @@ final class ResponseUtil {
         return response;
     }
 
-    private static <T> InputStream pageToStream(Page<T> page, ObjectMapper mapper, Runnable callback) throws
-            IOException {
-        final PipedOutputStream outs = new PipedOutputStream();
-        final PipedInputStream ins = new PipedInputStream() {
-            @Override public void close() throws IOException {
-                outs.close();
-                super.close();
-            }
-        };
-        outs.connect(ins);
-        mapper.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static <T> StreamingOutput pageToStream(List<T> head, Page<T> page, ObjectMapper mapper) {
+        ObjectWriter writer = mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
 
-        PageToStreamThreadPool.getInstance().submit(() -> {
+        return output -> {
+            //no flushing after each element - the buffer is flushed once full and at the end of the page
+            BufferedOutputStream out = new BufferedOutputStream(output, STREAMING_BUFFER_SIZE);
             try (Page<T> closeablePage = page;
-                 PipedOutputStream out = outs;
-                 SequenceWriter sequenceWriter = mapper.writer().writeValuesAsArray(out)) {
+                 SequenceWriter sequenceWriter = writer.writeValuesAsArray(out)) {
+                for (T element : head) {
+                    sequenceWriter.write(element);
+                }
                 for (T element : closeablePage) {
                     sequenceWriter.write(element);
-                    sequenceWriter.flush();
                 }
-            } catch (IOException e) {
-                throw new IllegalStateException("Unable to convert page to input stream.", e);
-            } finally {
-                callback.run();
             }
-        });
-        return ins;
+            out.flush();
+        };
     }
 
     /**
      * Create the paging headers for collections and attach them to the passed builder. Those are represented as
      * <i>Link:</i> http headers that carry the URL for the pages and the respective relation.
      * <br/>In addition a <i>X-Total-Count</i> header is created that contains the whole collection size.
+     * <br/>If the total size of the page is not known yet (i.e. the page has not been iterated through, which can be
+     * the case with large streamed responses), only the <i>current</i> and <i>prev</i> links are provided.
+     * <br/>If the exact total size was not requested (see {@link PageContext#isExactTotalSize()}), the <i>last</i>
+     * link and the <i>X-Total-Count</i> header are only provided on the last page, where the total size is known.
      *
      * @param builder    The ResponseBuilder that receives the headers
      * @param uriInfo    The uriInfo of the incoming request to build the urls
@@ -148,7 +159,12 @@ final class ResponseUtil {
 
         List<Link> links = new ArrayList<>();
 
-        if (pc.isLimited() && resultList.getTotalSize() > (pc.getPageNumber() + 1) * pc.getPageSize()) {
+        long totalSize = resultList.getTotalSize();
+        boolean depleted = totalSize != SizeAwarePage.HasTotalSize.NOT_DEPLETED;
+        boolean totalKnown = depleted
+                && (!pc.isLimited() || pc.isExactTotalSize() || totalSize <= pc.getEnd());
+
+        if (pc.isLimited() && depleted && totalSize > (pc.getPageNumber() + 1) * pc.getPageSize()) {
             int nextPage = page + 1;
             uriBuilder = uriInfo.getRequestUriBuilder(); // adds ?q, ?per_page, ?page, etc. if needed
             uriBuilder.replaceQueryParam("page", nextPage);
@@ -164,9 +180,9 @@ final class ResponseUtil {
         }
 
         // A link to the last page
-        if (pc.isLimited()) {
-            long lastPage = resultList.getTotalSize() / pc.getPageSize();
-            if (resultList.getTotalSize() % pc.getPageSize() == 0) {
+        if (pc.isLimited() && totalKnown) {
+            long lastPage = totalSize / pc.getPageSize();
+            if (totalSize % pc.getPageSize() == 0) {
                 lastPage -= 1;
             }
 
@@ -188,6 +204,8 @@ final class ResponseUtil {
         builder.header("Link", linkHeader.toString());
 
         // Create a total size header
-        builder.header("X-Total-Count", resultList.getTotalSize());
+        if (totalKnown) {
+            builder.header("X-Total-Count", totalSize);
+        }
     }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+import static javax.ws.rs.core.Response.Status.FORBIDDEN;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import org.hawkular.inventory.api.InventoryMetrics;
+import org.hawkular.inventory.api.instrumentation.CollectingInventoryMetrics;
+import org.hawkular.inventory.api.instrumentation.SlowQueryLog;
+import org.hawkular.inventory.rest.json.ApiError;
+
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+
+/**
+ * The measurements and the slow query log are shared by all the tenants, so they are only available to the operators
+ * of the inventory.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@Path("/admin")
+@Produces(APPLICATION_JSON)
+@Consumes(APPLICATION_JSON)
+@Api(value = "/admin", description = "Diagnostics of the inventory itself")
+public class RestAdmin extends RestBase {
+
+    @GET
+    @Path("/metrics")
+    @ApiOperation("Retrieves the measurements of the performance of the inventory collected since the start or the" +
+            " last reset. Available only if the collection of the measurements is enabled.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 403, message = "The caller is not an operator of the inventory"),
+            @ApiResponse(code = 404, message = "The collection of the measurements is not enabled",
+                    response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response getMetrics(@Context SecurityContext securityContext) {
+        if (!security.canAdministerInventory(securityContext)) {
+            return Response.status(FORBIDDEN).build();
+        }
+
+        CollectingInventoryMetrics metrics = getCollectingMetrics();
+        if (metrics == null) {
+            return metricsNotEnabled();
+        }
+
+        return Response.ok(metrics.snapshot()).build();
+    }
+
+    @DELETE
+    @Path("/metrics")
+    @ApiOperation("Resets the collected measurements of the performance of the inventory.")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "OK"),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 403, message = "The caller is not an operator of the inventory"),
+            @ApiResponse(code = 404, message = "The collection of the measurements is not enabled",
+                    response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response resetMetrics(@Context SecurityContext securityContext) {
+        if (!security.canAdministerInventory(securityContext)) {
+            return Response.status(FORBIDDEN).build();
+        }
+
+        CollectingInventoryMetrics metrics = getCollectingMetrics();
+        if (metrics == null) {
+            return metricsNotEnabled();
+        }
+
+        metrics.reset();
+        return Response.noContent().build();
+    }
+
+    @GET
+    @Path("/slow-queries")
+    @ApiOperation("Retrieves the most recent queries that took longer than the configured threshold together with" +
+            " the description of how they were evaluated by the backend. Available only if the slow query log is" +
+            " enabled.")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "OK"),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 403, message = "The caller is not an operator of the inventory"),
+            @ApiResponse(code = 404, message = "The slow query log is not enabled", response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response getSlowQueries(@Context SecurityContext securityContext) {
+        //the queries contain the paths and the property values of the entities of all the tenants
+        if (!security.canAdministerInventory(securityContext)) {
+            return Response.status(FORBIDDEN).build();
+        }
+
+        SlowQueryLog log = config.getMetrics().getSlowQueryLog();
+        if (log == null) {
+            return slowQueryLogNotEnabled();
+        }
+
+        return Response.ok(log).build();
+    }
+
+    @DELETE
+    @Path("/slow-queries")
+    @ApiOperation("Clears the slow query log.")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "OK"),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 403, message = "The caller is not an operator of the inventory"),
+            @ApiResponse(code = 404, message = "The slow query log is not enabled", response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response clearSlowQueries(@Context SecurityContext securityContext) {
+        if (!security.canAdministerInventory(securityContext)) {
+            return Response.status(FORBIDDEN).build();
+        }
+
+        SlowQueryLog log = config.getMetrics().getSlowQueryLog();
+        if (log == null) {
+            return slowQueryLogNotEnabled();
+        }
+
+        log.clear();
+        return Response.noContent().build();
+    }
+
+    private CollectingInventoryMetrics getCollectingMetrics() {
+        InventoryMetrics metrics = config.getMetrics();
+        return metrics instanceof CollectingInventoryMetrics ? (CollectingInventoryMetrics) metrics : null;
+    }
+
+    private static Response metricsNotEnabled() {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(new ApiError("The collection of the inventory metrics is not enabled. Set the" +
+                        " 'hawkular.inventory.metrics.enabled' configuration property to true to enable it."))
+                .build();
+    }
+
+    private static Response slowQueryLogNotEnabled() {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(new ApiError("The slow query log is not enabled. Set the" +
+                        " 'hawkular.inventory.metrics.slow-query-threshold' configuration property to the number of" +
+                        " milliseconds a query needs to take to be considered slow to enable it."))
+                .build();
+    }
+}
@@ -26,8 +26,10 @@ import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.Consumes;
@@ -37,14 +39,11 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
-import org.hawkular.inventory.api.Data;
 import org.hawkular.inventory.api.EntityAlreadyExistsException;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.Feeds;
 import org.hawkular.inventory.api.Inventory;
-import org.hawkular.inventory.api.MetricTypes;
-import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.OperationTypes;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.ResolvableToSingle;
@@ -53,6 +52,7 @@ import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.Tenants;
 import org.hawkular.inventory.api.TransactionFrame;
+import org.hawkular.inventory.api.ValidationException;
 import org.hawkular.inventory.api.WriteInterface;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.Blueprint;
@@ -70,7 +70,10 @@ import org.hawkular.inventory.api.model.Path;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.rest.json.ApiError;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiParam;
@@ -264,47 +267,12 @@ public class RestBulk extends RestBase {
                 }, null);
     }
 
-    private static ResolvableToSingle<?, ?> create(Blueprint b, WriteInterface<?, ?, ?, ?> wrt) {
-        return b.accept(new ElementBlueprintVisitor.Simple<ResolvableToSingle<?, ?>, Void>() {
-            @SuppressWarnings("unchecked")
-            @Override
-            public ResolvableToSingle<?, ?> visitData(DataEntity.Blueprint<?> data, Void parameter) {
-                return ((Data.ReadWrite) wrt).create(data);
-            }
-
-            @Override
-            public ResolvableToSingle<?, ?> visitEnvironment(Environment.Blueprint environment, Void parameter) {
-                return ((Environments.ReadWrite) wrt).create(environment);
-            }
-
-            @Override
-            public ResolvableToSingle<?, ?> visitFeed(Feed.Blueprint feed, Void parameter) {
-                return ((Feeds.ReadWrite) wrt).create(feed);
-            }
-
-            @Override public ResolvableToSingle<?, ?> visitMetric(Metric.Blueprint metric, Void parameter) {
-                return ((Metrics.ReadWrite) wrt).create(metric);
-            }
-
-            @Override public ResolvableToSingle<?, ?> visitMetricType(MetricType.Blueprint metricType, Void parameter) {
-                return ((MetricTypes.ReadWrite) wrt).create(metricType);
-            }
-
-            @Override
-            public ResolvableToSingle<?, ?> visitOperationType(OperationType.Blueprint operationType, Void parameter) {
-                return ((OperationTypes.ReadWrite) wrt).create(operationType);
-            }
-
-            @Override
-            public ResolvableToSingle<?, ?> visitResource(Resource.Blueprint resource, Void parameter) {
-                return ((Resources.ReadWrite) wrt).create(resource);
-            }
-
-            @Override
-            public ResolvableToSingle<?, ?> visitResourceType(ResourceType.Blueprint type, Void parameter) {
-                return ((ResourceTypes.ReadWrite) wrt).create(type);
-            }
-        }, null);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void createAll(List<Blueprint> blueprints, WriteInterface<?, ?, ?, ?> wrt,
+                                  BiConsumer<Blueprint, RuntimeException> failureHandler) {
+        //the blueprints have been deserialized using the blueprint type corresponding to the type of the entities
+        //the write interface creates, so this is safe
+        ((WriteInterface) wrt).createAll(blueprints, failureHandler);
     }
 
     @POST
@@ -312,15 +280,20 @@ public class RestBulk extends RestBase {
     @ApiOperation("Bulk creation of new entities. The response body contains details about results of creation" +
             " of individual entities. The return value is a map where keys are types of entities created and values" +
             " are again maps where keys are the canonical paths of the entities to be created and values are HTTP" +
-            " status codes - 201 OK, 400 if invalid path is supplied, 409 if the entity already exists on given path" +
-            " or 500 in case of internal error.")
+            " status codes - 201 OK, 400 if invalid path or blueprint is supplied, 403 if the caller is not allowed" +
+            " to create the entity, 404 if the parent or an entity the blueprint refers to (e.g. the type of a" +
+            " resource or the other end of a relationship) doesn't exist, 409 if the entity already exists on given" +
+            " path or 500 in case of internal error.")
     @ApiResponses({
             @ApiResponse(code = 201, message = "Entities successfully created"),
+            @ApiResponse(code = 401, message = "Unauthorized access"),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
     public Response addEntities(@ApiParam("This is a map where keys are paths to the parents under which entities " +
             "should be created. The values are again maps where keys are one of [environment, resourceType, " +
             "metricType, operationType, feed, resource, metric, dataEntity, relationship] and values are arrays of " +
-            "blueprints of entities of the corresponding types.") Map<String, Map<ElementType, List<Object>>> entities,
+            "blueprints of entities of the corresponding types.")
+                                Map<String, Map<ElementType, List<JsonNode>>> entities,
                                 @Context UriInfo uriInfo) {
 
         CanonicalPath rootPath = CanonicalPath.of().tenant(getTenantId()).get();
@@ -331,7 +304,7 @@ public class RestBulk extends RestBase {
     }
 
     private Map<ElementType, Map<CanonicalPath, Integer>> bulkCreate(
-            Map<String, Map<ElementType, List<Object>>> entities, CanonicalPath rootPath) {
+            Map<String, Map<ElementType, List<JsonNode>>> entities, CanonicalPath rootPath) {
 
         Map<ElementType, Map<CanonicalPath, Integer>> statuses = new HashMap<>();
 
@@ -341,16 +314,16 @@ public class RestBulk extends RestBase {
         IdExtractor idExtractor = new IdExtractor();
 
         try {
-            for (Map.Entry<String, Map<ElementType, List<Object>>> e : entities.entrySet()) {
-                Map<ElementType, List<Object>> allBlueprints = e.getValue();
+            for (Map.Entry<String, Map<ElementType, List<JsonNode>>> e : entities.entrySet()) {
+                Map<ElementType, List<JsonNode>> allBlueprints = e.getValue();
 
                 CanonicalPath parentPath = canonicalize(e.getKey(), rootPath);
 
                 ResolvableToSingle<?, ?> single = binv.inspect(parentPath, ResolvableToSingle.class);
 
-                for (Map.Entry<ElementType, List<Object>> ee : allBlueprints.entrySet()) {
+                for (Map.Entry<ElementType, List<JsonNode>> ee : allBlueprints.entrySet()) {
                     ElementType elementType = ee.getKey();
-                    List<Object> rawBlueprints = ee.getValue();
+                    List<JsonNode> rawBlueprints = ee.getValue();
 
                     List<Blueprint> blueprints = deserializeBlueprints(elementType, rawBlueprints);
 
@@ -372,11 +345,11 @@ public class RestBulk extends RestBase {
         }
     }
 
-    private List<Blueprint> deserializeBlueprints(ElementType elementType, List<Object> rawBlueprints) {
+    private List<Blueprint> deserializeBlueprints(ElementType elementType, List<JsonNode> rawBlueprints) {
+        ObjectReader reader = mapper.reader(elementType.blueprintType);
         return rawBlueprints.stream().map((o) -> {
             try {
-                String js = mapper.writeValueAsString(o);
-                return (Blueprint) mapper.reader(elementType.blueprintType).readValue(js);
+                return (Blueprint) reader.readValue(o);
             } catch (IOException e1) {
                 throw new IllegalArgumentException("Failed to deserialize as " + elementType
                         .blueprintType + " the following data: " + o, e1);
@@ -402,21 +375,47 @@ public class RestBulk extends RestBase {
             return;
         }
 
-        for (Blueprint b : blueprints) {
-            String id = b.accept(idExtractor, null);
+        WriteInterface<?, ?, ?, ?> wrt = step(parentPath.getSegment().getElementType(), elementType.elementType,
+                single);
 
-            CanonicalPath childPath = parentPath.extend(elementType.elementType, id).get();
+        //all the entities of the same type under the same parent are created in one go. Those that cannot be created
+        //are reported to us and we report them in the statuses. The rest have been created successfully.
+        Map<Blueprint, Integer> failures = new IdentityHashMap<>();
 
-            WriteInterface<?, ?, ?, ?> wrt =
-                    step(parentPath.getSegment().getElementType(), elementType
-                            .elementType, single);
+        try {
+            createAll(blueprints, wrt, (b, ex) -> {
+                if (ex instanceof EntityAlreadyExistsException) {
+                    failures.put(b, CONFLICT.getStatusCode());
+                } else if (ex instanceof EntityNotFoundException) {
+                    failures.put(b, NOT_FOUND.getStatusCode());
+                } else if (ex instanceof IllegalArgumentException || ex instanceof ValidationException) {
+                    failures.put(b, BAD_REQUEST.getStatusCode());
+                } else {
+                    RestApiLogger.LOGGER.failedToCreateBulkEntity(
+                            parentPath.extend(elementType.elementType, b.accept(idExtractor, null)).get(), ex);
+                    failures.put(b, INTERNAL_SERVER_ERROR.getStatusCode());
+                }
+            });
+
+            for (Blueprint b : blueprints) {
+                String id = b.accept(idExtractor, null);
+                CanonicalPath childPath = parentPath.extend(elementType.elementType, id).get();
+
+                putStatus(statuses, elementType, childPath, failures.getOrDefault(b, CREATED.getStatusCode()));
+            }
+        } catch (EntityNotFoundException ex) {
+            //the failures of the individual entities are reported to the failure handler, so this is the parent
+            for (Blueprint b : blueprints) {
+                String id = b.accept(idExtractor, null);
+                putStatus(statuses, elementType, parentPath.extend(elementType.elementType, id).get(),
+                        NOT_FOUND.getStatusCode());
+            }
+        } catch (Exception ex) {
+            //only the failures that are not specific to any single entity end up here
+            for (Blueprint b : blueprints) {
+                String id = b.accept(idExtractor, null);
+                CanonicalPath childPath = parentPath.extend(elementType.elementType, id).get();
 
-            try {
-                create(b, wrt);
-                putStatus(statuses, elementType, childPath, CREATED.getStatusCode());
-            } catch (EntityAlreadyExistsException ex) {
-                putStatus(statuses, elementType, childPath, CONFLICT.getStatusCode());
-            } catch (Exception ex) {
                 RestApiLogger.LOGGER.failedToCreateBulkEntity(childPath, ex);
                 putStatus(statuses, elementType, childPath, INTERNAL_SERVER_ERROR.getStatusCode());
             }
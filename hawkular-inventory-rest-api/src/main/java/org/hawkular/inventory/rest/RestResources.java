@@ -22,10 +22,7 @@ import static javax.ws.rs.core.Response.Status.FORBIDDEN;
 
 import static org.hawkular.inventory.rest.RequestUtil.extractPaging;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.List;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -45,14 +42,13 @@ import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.Feeds;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.ResolvingToMultiple;
-import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.api.model.CanonicalPath;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Path;
 import org.hawkular.inventory.api.model.Resource;
-import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.paging.Page;
 import org.hawkular.inventory.api.paging.Pager;
@@ -629,8 +625,9 @@ public class RestResources extends RestBase {
                                 @Encoded @QueryParam("typeId") String resourceTypeId,
                                          @Context UriInfo uriInfo) {
 
-        List<Resource> ret = getRecursiveChildren(environmentId, null, resourcePath, resourceTypeId, true);
-        return Response.ok(ret).build();
+        Page<Resource> ret = getRecursiveChildren(environmentId, null, resourcePath, resourceTypeId, true,
+                extractPaging(uriInfo));
+        return pagedResponse(Response.ok(), uriInfo, ret).build();
     }
 
 
@@ -649,43 +646,29 @@ public class RestResources extends RestBase {
                                          @QueryParam("feedlessType") @DefaultValue("false") boolean feedlesType,
                                          @Context UriInfo uriInfo) {
 
-        List<Resource> ret = getRecursiveChildren(environmentId, feedId, resourcePath, resourceTypeId, feedlesType);
-        return Response.ok(ret).build();
+        Page<Resource> ret = getRecursiveChildren(environmentId, feedId, resourcePath, resourceTypeId, feedlesType,
+                extractPaging(uriInfo));
+        return pagedResponse(Response.ok(), uriInfo, ret).build();
     }
 
-    private List<Resource> getRecursiveChildren(String environmentId, String feedId, String resourcePath,
-                                                String resourceTypeId, boolean feedlessType) {
+    private Page<Resource> getRecursiveChildren(String environmentId, String feedId, String resourcePath,
+                                                String resourceTypeId, boolean feedlessType, Pager pager) {
         String tenantId = getTenantId();
         CanonicalPath parent = composeCanonicalPath(tenantId, environmentId, feedId, resourcePath);
 
-        ResourceType resourceType = null;
+        TransitiveClosure closure = TransitiveClosure.over(Relationships.Direction.outgoing,
+                Relationships.WellKnown.isParentOf.name()).ofTypes(Resource.class);
+
         if (null != resourceTypeId) {
             CanonicalPath resourceTypeCanPath = feedlessType
                     ? CanonicalPath.of().tenant(tenantId).resourceType(resourceTypeId).get()
                     : CanonicalPath.of().tenant(tenantId).environment(environmentId).
                             feed(feedId).resourceType(resourceTypeId).get();
-            resourceType =  inventory.inspect(resourceTypeCanPath, ResourceTypes.Single.class).entity();
-        }
-
-        Iterator<Resource> itResources = inventory.getTransitiveClosureOver(parent,
-                Relationships.Direction.outgoing, Resource.class,
-                new String[]{Relationships.WellKnown.isParentOf.toString()});
 
-        List<Resource> ret = filterResources(itResources, resourceType);
-        return ret;
-    }
-
-
-    private List<Resource> filterResources(Iterator<Resource> itResources, ResourceType resourceType) {
-        List<Resource> ret = new ArrayList<>();
-
-        while (itResources.hasNext()) {
-            Resource resource = itResources.next();
-            if (null != resourceType && !resource.getType().getPath().equals(resourceType.getPath())) {
-                continue;
-            }
-            ret.add(resource);
+            //the resources are filtered by their type during the traversal, without converting them first
+            closure = closure.definedBy(resourceTypeCanPath);
         }
-        return ret;
+
+        return inventory.getTransitiveClosureOver(parent, closure, Resource.class, pager);
     }
 }
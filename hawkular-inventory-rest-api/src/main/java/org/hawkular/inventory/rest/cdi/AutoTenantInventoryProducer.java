@@ -32,11 +32,14 @@ import org.hawkular.inventory.api.Inventory;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.Tenants;
 import org.hawkular.inventory.api.TransactionFrame;
+import org.hawkular.inventory.api.TransitiveClosure;
 import org.hawkular.inventory.api.filters.Filter;
 import org.hawkular.inventory.api.model.AbstractElement;
 import org.hawkular.inventory.api.model.CanonicalPath;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.Pager;
 import org.hawkular.inventory.cdi.Official;
 
 import rx.Observable;
@@ -78,9 +81,14 @@ public class AutoTenantInventoryProducer {
 
         @Override
         public <T extends Entity<?, ?>> Iterator<T> getTransitiveClosureOver(
-                CanonicalPath startingPoint, Relationships.Direction direction, Class<T> clazz,
-                String... relationshipNames) {
-            return inventory.getTransitiveClosureOver(startingPoint, direction, clazz, relationshipNames);
+                CanonicalPath startingPoint, TransitiveClosure closure, Class<T> clazz) {
+            return inventory.getTransitiveClosureOver(startingPoint, closure, clazz);
+        }
+
+        @Override
+        public <T extends Entity<?, ?>> Page<T> getTransitiveClosureOver(
+                CanonicalPath startingPoint, TransitiveClosure closure, Class<T> clazz, Pager pager) {
+            return inventory.getTransitiveClosureOver(startingPoint, closure, clazz, pager);
         }
 
         @Override public Configuration getConfiguration() {
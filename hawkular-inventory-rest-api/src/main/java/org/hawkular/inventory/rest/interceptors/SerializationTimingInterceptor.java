@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest.interceptors;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.InventoryMetrics;
+import org.jboss.resteasy.annotations.interception.ServerInterceptor;
+
+/**
+ * Reports the time spent writing the response entities to the {@link InventoryMetrics} of the inventory. This
+ * includes the evaluation of the queries when the results are serialized in the streaming fashion.
+ *
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+@Provider
+@ServerInterceptor
+public class SerializationTimingInterceptor implements WriterInterceptor {
+
+    @Inject
+    Configuration config;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+        InventoryMetrics metrics = config.getMetrics();
+        if (metrics == InventoryMetrics.NOOP) {
+            context.proceed();
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            context.proceed();
+        } finally {
+            metrics.recordLatency(InventoryMetrics.Operation.serialization, System.nanoTime() - start);
+        }
+    }
+}
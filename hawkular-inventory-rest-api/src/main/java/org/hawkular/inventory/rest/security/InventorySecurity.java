@@ -26,10 +26,12 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.transaction.SystemException;
 import javax.transaction.UserTransaction;
+import javax.ws.rs.core.SecurityContext;
 
 import org.hawkular.accounts.api.OperationService;
 import org.hawkular.accounts.api.PermissionChecker;
 import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.Inventory;
 import org.hawkular.inventory.api.model.CanonicalPath;
 import org.hawkular.inventory.api.model.Environment;
@@ -67,6 +69,9 @@ public class InventorySecurity implements Security {
     @AutoTenant
     private Inventory inventory;
 
+    @Inject
+    private Configuration configuration;
+
     private boolean inventoryInitialized = false;
 
     @javax.annotation.Resource
@@ -92,6 +97,14 @@ public class InventorySecurity implements Security {
         return safePermissionCheck(path, copy());
     }
 
+    public boolean canAdministerInventory(SecurityContext caller) {
+        //the permissions are checked on the entities of the tenants and every tenant owner is a SuperUser on their
+        //tenant, so the operators of the whole inventory are recognized by a role of the deployment instead
+        String operatorRole = configuration.getProperty(RestConfiguration.Keys.OPERATOR_ROLE,
+                RestConfiguration.Keys.OPERATOR_ROLE.getDefaultValue());
+        return caller.isUserInRole(operatorRole);
+    }
+
     private Operation create(Class<?> entityType) {
         return getOperation(entityType, OperationType.CREATE);
     }
@@ -32,7 +32,8 @@ public class RestConfiguration {
 
     public enum Keys implements Configuration.Property {
         STREAMING_SERIALIZATION(PROPERTY_PREFIX + "streaming.serialization", "false",
-                "hawkular.inventory.rest.streaming.serialization");
+                "hawkular.inventory.rest.streaming.serialization"),
+        OPERATOR_ROLE(PROPERTY_PREFIX + "operator-role", "admin", "hawkular.inventory.rest.operator-role");
 
         private final String propertyName;
         private final List<String> systemPropertyName;
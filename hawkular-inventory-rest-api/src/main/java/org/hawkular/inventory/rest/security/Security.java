@@ -16,6 +16,8 @@
  */
 package org.hawkular.inventory.rest.security;
 
+import javax.ws.rs.core.SecurityContext;
+
 import org.hawkular.inventory.api.model.CanonicalPath;
 
 /**
@@ -37,6 +39,17 @@ public interface Security {
 
     boolean canCopyEnvironment(CanonicalPath path);
 
+    /**
+     * The diagnostics of the inventory, like the performance measurements or the slow query log, are shared by all the
+     * tenants, so only the operators of the inventory can access or modify them. Being the owner of a tenant is not
+     * enough for that.
+     *
+     * @param caller the security context of the request
+     * @return true if the caller can access and reset the diagnostics of the inventory as a whole
+     * @since 0.7.0
+     */
+    boolean canAdministerInventory(SecurityContext caller);
+
     interface CreatePermissionCheckerFinisher {
         boolean under(CanonicalPath path);
     }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import org.hawkular.inventory.api.paging.Order;
+import org.hawkular.inventory.api.paging.Page;
+import org.hawkular.inventory.api.paging.Pager;
+import org.hawkular.inventory.api.paging.SizeAwarePage;
+import org.jboss.resteasy.spi.ResteasyUriInfo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class ResponseUtilTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final UriInfo uriInfo = new ResteasyUriInfo(URI.create("http://localhost/hawkular/inventory/"),
+            URI.create("tenants"));
+
+    @Test
+    public void testStreamedLimitedPageHasPagingHeaders() throws Exception {
+        Page<Integer> page = page(new Pager(0, 2, true, Collections.singletonList(Order.unspecified())), 5);
+
+        Response response = ResponseUtil.pagedResponse(Response.ok(), uriInfo, mapper, page).build();
+
+        Assert.assertEquals("5", response.getHeaderString("X-Total-Count"));
+        String link = response.getHeaderString("Link");
+        Assert.assertTrue(link, link.contains("rel=\"next\""));
+        Assert.assertTrue(link, link.contains("rel=\"last\""));
+        Assert.assertEquals("[0,1]", body(response));
+    }
+
+    @Test
+    public void testStreamedUnlimitedPageHasTotalCount() throws Exception {
+        Page<Integer> page = page(Pager.unlimited(Order.unspecified()), 3);
+
+        Response response = ResponseUtil.pagedResponse(Response.ok(), uriInfo, mapper, page).build();
+
+        Assert.assertEquals("3", response.getHeaderString("X-Total-Count"));
+        Assert.assertEquals("[0,1,2]", body(response));
+    }
+
+    @Test
+    public void testPagesLargerThanLookAheadStreamedWhole() throws Exception {
+        int size = ResponseUtil.STREAMING_LOOK_AHEAD + 10;
+        Page<Integer> page = page(Pager.unlimited(Order.unspecified()), size);
+
+        Response response = ResponseUtil.pagedResponse(Response.ok(), uriInfo, mapper, page).build();
+
+        Assert.assertNull(response.getHeaderString("X-Total-Count"));
+        Assert.assertEquals(IntStream.range(0, size).boxed().collect(Collectors.toList()),
+                mapper.readValue(body(response), List.class));
+    }
+
+    /**
+     * Simulates a page of results of a query that matched {@code total} elements.
+     */
+    private static Page<Integer> page(Pager pager, int total) {
+        List<Integer> elements = new ArrayList<>();
+        int end = pager.isLimited() ? Math.min(total, pager.getEnd()) : total;
+        for (int i = pager.getStart(); i < end; ++i) {
+            elements.add(i);
+        }
+
+        return new SizeAwarePage<>(elements.iterator(), pager, () -> total);
+    }
+
+    private static String body(Response response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingOutput) response.getEntity()).write(out);
+        return out.toString("UTF-8");
+    }
+}
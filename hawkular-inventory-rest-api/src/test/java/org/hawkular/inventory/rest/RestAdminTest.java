@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.rest;
+
+import java.lang.reflect.Field;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.SecurityContext;
+
+import org.hawkular.accounts.api.PermissionChecker;
+import org.hawkular.accounts.api.model.Operation;
+import org.hawkular.accounts.api.model.Persona;
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.api.instrumentation.CollectingInventoryMetrics;
+import org.hawkular.inventory.api.instrumentation.SlowQueryLog;
+import org.hawkular.inventory.rest.security.InventorySecurity;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Lukas Krejci
+ * @since 0.7.0
+ */
+public class RestAdminTest {
+
+    /**
+     * A user with no special role of the deployment. As any other tenant owner, they are a SuperUser on their tenant.
+     */
+    private final SecurityContext tenantOwner = caller("tenant-owner", "user");
+
+    private final SecurityContext operator = caller("operator", "user", "admin");
+
+    @Test
+    public void testTenantOwnerCannotAdministerInventory() throws Exception {
+        RestAdmin admin = restAdmin(Configuration.builder());
+
+        Assert.assertEquals(403, admin.getMetrics(tenantOwner).getStatus());
+        Assert.assertEquals(403, admin.resetMetrics(tenantOwner).getStatus());
+        Assert.assertEquals(403, admin.getSlowQueries(tenantOwner).getStatus());
+        Assert.assertEquals(403, admin.clearSlowQueries(tenantOwner).getStatus());
+    }
+
+    @Test
+    public void testOperatorCanAdministerInventory() throws Exception {
+        RestAdmin admin = restAdmin(Configuration.builder());
+
+        Assert.assertEquals(200, admin.getMetrics(operator).getStatus());
+        Assert.assertEquals(204, admin.resetMetrics(operator).getStatus());
+        Response slowQueries = admin.getSlowQueries(operator);
+        Assert.assertEquals(200, slowQueries.getStatus());
+        Assert.assertTrue(slowQueries.getEntity() instanceof SlowQueryLog);
+        Assert.assertEquals(204, admin.clearSlowQueries(operator).getStatus());
+    }
+
+    @Test
+    public void testOperatorRoleIsConfigurable() throws Exception {
+        RestAdmin admin = restAdmin(Configuration.builder()
+                .addConfigurationProperty("rest.operator-role", "inventory-operator"));
+
+        Assert.assertEquals(403, admin.resetMetrics(operator).getStatus());
+        Assert.assertEquals(204, admin.resetMetrics(caller("other-operator", "inventory-operator")).getStatus());
+    }
+
+    private static RestAdmin restAdmin(Configuration.Builder configuration) throws Exception {
+        Configuration config = configuration
+                .withMetrics(new CollectingInventoryMetrics(new SlowQueryLog(0, 10)))
+                .build();
+
+        InventorySecurity security = new InventorySecurity();
+        inject(security, "configuration", config);
+        inject(security, "permissions", new AllowingPermissionChecker());
+
+        RestAdmin admin = new RestAdmin();
+        admin.config = config;
+        admin.security = security;
+
+        return admin;
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static SecurityContext caller(String name, String... roles) {
+        Set<String> roleSet = new HashSet<>(Arrays.asList(roles));
+        return new SecurityContext() {
+            @Override
+            public Principal getUserPrincipal() {
+                return () -> name;
+            }
+
+            @Override
+            public boolean isUserInRole(String role) {
+                return roleSet.contains(role);
+            }
+
+            @Override
+            public boolean isSecure() {
+                return true;
+            }
+
+            @Override
+            public String getAuthenticationScheme() {
+                return "KEYCLOAK";
+            }
+        };
+    }
+
+    /**
+     * The caller owns everything they could be asked about.
+     */
+    private static final class AllowingPermissionChecker implements PermissionChecker {
+        @Override
+        public boolean isAllowedTo(Operation operation, org.hawkular.accounts.api.model.Resource resource,
+                                   Persona persona) {
+            return true;
+        }
+
+        @Override
+        public boolean isAllowedTo(Operation operation, String resourceId, Persona persona) {
+            return true;
+        }
+
+        @Override
+        public boolean isAllowedTo(Operation operation, org.hawkular.accounts.api.model.Resource resource) {
+            return true;
+        }
+
+        @Override
+        public boolean isAllowedTo(Operation operation, String resourceId) {
+            return true;
+        }
+    }
+}